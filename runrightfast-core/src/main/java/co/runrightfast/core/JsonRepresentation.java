@@ -5,6 +5,9 @@
  */
 package co.runrightfast.core;
 
+import co.runrightfast.core.utils.StreamingJsonRenderer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import javax.json.JsonObject;
 
 /**
@@ -23,4 +26,15 @@ public interface JsonRepresentation {
 
     JsonObject toJson();
 
+    /**
+     * Writes the JSON representation directly, i.e., without building a JsonObject first. The default implementation writes the JsonObject returned by
+     * {@link #toJson()} - override to avoid building the object tree on log heavy paths.
+     *
+     * @param json generator
+     * @throws IOException if the JSON generator fails
+     */
+    default void writeJson(final JsonGenerator json) throws IOException {
+        StreamingJsonRenderer.writeJsonValue(json, toJson());
+    }
+
 }
@@ -87,6 +87,13 @@ public interface ConfigUtils {
         return Optional.of(config.getBoolean(configPath(path, paths)));
     }
 
+    static Optional<Long> getBytes(final Config config, final String path, final String... paths) {
+        if (!hasPath(config, path, paths)) {
+            return Optional.empty();
+        }
+        return Optional.of(config.getBytes(configPath(path, paths)));
+    }
+
     static Optional<Double> getDouble(final Config config, final String path, final String... paths) {
         if (!hasPath(config, path, paths)) {
             return Optional.empty();
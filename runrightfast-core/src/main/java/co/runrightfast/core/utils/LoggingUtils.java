@@ -15,6 +15,7 @@
  */
 package co.runrightfast.core.utils;
 
+import co.runrightfast.core.utils.StreamingJsonRenderer.JsonWriter;
 import static com.google.common.base.Preconditions.checkArgument;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -66,6 +67,27 @@ public interface LoggingUtils {
         public void log(final String method, @NonNull final Supplier<JsonObject> message, @NonNull final Throwable exception) {
             logger.logp(level, className, method, exception, () -> message.get().toString());
         }
+
+        /**
+         * The message is streamed directly to JSON text, i.e., no intermediate JsonObject is built
+         *
+         * @param method method name
+         * @param message writes the JSON message
+         */
+        public void log(final String method, @NonNull final JsonWriter message) {
+            logger.logp(level, className, method, () -> StreamingJsonRenderer.render(message));
+        }
+
+        /**
+         * The message is streamed directly to JSON text, i.e., no intermediate JsonObject is built
+         *
+         * @param method method name
+         * @param message writes the JSON message
+         * @param exception exception
+         */
+        public void log(final String method, @NonNull final JsonWriter message, @NonNull final Throwable exception) {
+            logger.logp(level, className, method, exception, () -> StreamingJsonRenderer.render(message));
+        }
     }
 
     /**
@@ -0,0 +1,179 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import lombok.NonNull;
+
+/**
+ * Renders JSON directly to text using the Jackson streaming generator, i.e., without first building a javax.json object tree.
+ *
+ * The JSON is written into a per-thread buffer that is reused across renderings. Thus, rendering a message only allocates the resulting String.
+ *
+ * @author alfio
+ */
+public final class StreamingJsonRenderer {
+
+    /**
+     * Writes a single JSON value using the supplied generator
+     */
+    @FunctionalInterface
+    public static interface JsonWriter {
+
+        void write(JsonGenerator json) throws IOException;
+
+    }
+
+    private static final int INITIAL_BUFFER_CAPACITY = 1024;
+
+    /**
+     * Buffers that have grown larger, e.g., because of a large stack trace, are not retained
+     */
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final ThreadLocal<ReusableStringWriter> writers = ThreadLocal.withInitial(ReusableStringWriter::new);
+
+    private StreamingJsonRenderer() {
+    }
+
+    /**
+     *
+     * @param jsonWriter writes a single JSON value
+     * @return JSON text
+     * @throws UncheckedIOException if the JSON generator fails
+     */
+    public static String render(@NonNull final JsonWriter jsonWriter) {
+        final ReusableStringWriter writer = writers.get();
+        if (writer.inUse) {
+            // a nested rendering, i.e., rendering from within a JsonWriter
+            return render(jsonWriter, new ReusableStringWriter());
+        }
+
+        writer.inUse = true;
+        try {
+            return render(jsonWriter, writer);
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private static String render(final JsonWriter jsonWriter, final ReusableStringWriter writer) {
+        try (final JsonGenerator json = jsonFactory.createGenerator(writer)) {
+            jsonWriter.write(json);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return writer.toString();
+    }
+
+    /**
+     *
+     * @param json generator
+     * @param value javax.json value, which is written using the generator
+     * @throws IOException if the JSON generator fails
+     */
+    public static void writeJsonValue(@NonNull final JsonGenerator json, @NonNull final JsonValue value) throws IOException {
+        switch (value.getValueType()) {
+            case OBJECT:
+                json.writeStartObject();
+                for (final Map.Entry<String, JsonValue> entry : ((JsonObject) value).entrySet()) {
+                    json.writeFieldName(entry.getKey());
+                    writeJsonValue(json, entry.getValue());
+                }
+                json.writeEndObject();
+                return;
+            case ARRAY:
+                json.writeStartArray();
+                for (final JsonValue element : (JsonArray) value) {
+                    writeJsonValue(json, element);
+                }
+                json.writeEndArray();
+                return;
+            case STRING:
+                json.writeString(((JsonString) value).getString());
+                return;
+            case NUMBER:
+                json.writeNumber(((JsonNumber) value).toString());
+                return;
+            case TRUE:
+                json.writeBoolean(true);
+                return;
+            case FALSE:
+                json.writeBoolean(false);
+                return;
+            default:
+                json.writeNull();
+        }
+    }
+
+    private static final class ReusableStringWriter extends Writer {
+
+        private StringBuilder buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+
+        private boolean inUse;
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            buffer.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(final int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+
+        private void reset() {
+            inUse = false;
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+                buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            } else {
+                buffer.setLength(0);
+            }
+        }
+
+    }
+
+}
@@ -16,20 +16,20 @@
 package co.runrightfast.core.application.event;
 
 import co.runrightfast.core.JsonRepresentation;
+import co.runrightfast.core.application.event.ExceptionFingerprints.Occurrence;
 import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.ALERT;
 import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.ERROR;
 import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.INFO;
 import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.WARN;
 import co.runrightfast.vertx.core.RunRightFastVerticleId;
-import co.runrightfast.core.utils.JsonUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.MoreObjects;
 import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObjectBuilder;
 import lombok.Getter;
 import lombok.NonNull;
 import org.apache.commons.collections4.CollectionUtils;
@@ -151,6 +151,8 @@ public final class AppEvent {
     @Getter
     private JsonRepresentation data;
 
+    private volatile Occurrence exceptionOccurrence;
+
     private AppEvent(final String event, @NonNull final AppEventLevel eventLevel) {
         checkArgument(isNotBlank(event));
         this.timestampMillis = System.currentTimeMillis();
@@ -159,58 +161,82 @@ public final class AppEvent {
     }
 
     /**
+     * Streams the event fields directly to the generator, i.e., without building an intermediate object tree.
      *
-     * @param json add event info to the supplied JsonObjectBuilder
+     * @param json the event fields are written to the current JSON object
+     * @throws IOException if the JSON generator fails
      */
-    public void addEventInfo(@NonNull final JsonObjectBuilder json) {
-        json
-                .add("event", event)
-                .add("level", eventLevel.id)
-                .add("timestamp", getTimestamp());
-        addMessage(json);
-        addException(json);
-        addTags(json);
-        addData(json);
-        addVerticleId(json);
-    }
-
-    private void addMessage(final JsonObjectBuilder json) {
+    public void writeEventInfo(@NonNull final JsonGenerator json) throws IOException {
+        json.writeStringField("event", event);
+        json.writeNumberField("level", eventLevel.id);
+        json.writeStringField("timestamp", getTimestamp());
         if (message != null) {
-            json.add("msg", message);
+            json.writeStringField("msg", message);
+        }
+        writeException(json);
+        if (!tags.isEmpty()) {
+            json.writeArrayFieldStart("tags");
+            for (final String tag : tags) {
+                json.writeString(tag);
+            }
+            json.writeEndArray();
+        }
+        if (data != null) {
+            json.writeObjectFieldStart("data");
+            json.writeFieldName(data.getType());
+            data.writeJson(json);
+            json.writeEndObject();
+        }
+        if (verticleId != null) {
+            json.writeFieldName("verticleId");
+            verticleId.writeJson(json);
         }
     }
 
-    private void addException(final JsonObjectBuilder json) {
+    private void writeException(final JsonGenerator json) throws IOException {
         if (exception != null) {
-            final JsonObjectBuilder exBuilder = Json.createObjectBuilder()
-                    .add("class", exception.getClass().getName())
-                    .add("stacktrace", ExceptionUtils.getStackTrace(exception));
+            final Occurrence occurrence = getExceptionOccurrence().get();
+            json.writeObjectFieldStart("exception");
+            json.writeStringField("class", exception.getClass().getName());
+            json.writeStringField("fingerprint", occurrence.getFingerprint());
+            if (occurrence.isLogStackTrace()) {
+                json.writeStringField("stacktrace", ExceptionUtils.getStackTrace(exception));
+            } else if (exception.getMessage() != null) {
+                json.writeStringField("message", exception.getMessage());
+            }
+            if (occurrence.getSeen() > 0) {
+                json.writeNumberField("seen", occurrence.getSeen());
+            }
             final Throwable rootCause = ExceptionUtils.getRootCause(exception);
             if (rootCause != null) {
-                exBuilder.add("rootCause", rootCause.getClass().getName());
+                json.writeStringField("rootCause", rootCause.getClass().getName());
             }
-            json.add("exception", exBuilder);
-        }
-    }
-
-    private void addTags(final JsonObjectBuilder json) {
-        final JsonArray jsonArray = JsonUtils.toJsonArray(tags);
-        if (!jsonArray.isEmpty()) {
-            json.add("tags", jsonArray);
+            json.writeEndObject();
         }
     }
 
-    private void addData(final JsonObjectBuilder json) {
-        if (data == null) {
-            return;
+    /**
+     * The exception occurrence is recorded with the shared {@link ExceptionFingerprints} the first time it is requested, which is normally when the event is
+     * rendered. The occurrence is recorded only once, even if the event is rendered concurrently. The full stack trace is only rendered for the first
+     * occurrence of the exception's fingerprint within the fingerprint window - subsequent occurrences are rendered compactly with a "seen" count.
+     *
+     * @return the exception occurrence, if the event has an exception
+     */
+    public Optional<Occurrence> getExceptionOccurrence() {
+        if (exception == null) {
+            return Optional.empty();
         }
-        json.add("data", Json.createObjectBuilder().add(data.getType(), data.toJson()));
-    }
-
-    private void addVerticleId(final JsonObjectBuilder json) {
-        if (verticleId != null) {
-            json.add("verticleId", verticleId.toJson());
+        Occurrence occurrence = exceptionOccurrence;
+        if (occurrence == null) {
+            synchronized (this) {
+                occurrence = exceptionOccurrence;
+                if (occurrence == null) {
+                    occurrence = ExceptionFingerprints.getInstance().record(exception);
+                    exceptionOccurrence = occurrence;
+                }
+            }
         }
+        return Optional.of(occurrence);
     }
 
     public String getTimestamp() {
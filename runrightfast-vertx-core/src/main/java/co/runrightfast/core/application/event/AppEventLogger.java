@@ -15,6 +15,7 @@
  */
 package co.runrightfast.core.application.event;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -24,4 +25,14 @@ import java.util.function.Consumer;
 @FunctionalInterface
 public interface AppEventLogger extends Consumer<AppEvent> {
 
+    /**
+     * Logs the events in order. Loggers that can write a batch more efficiently than one event at a time should override this, e.g., to acquire a lock
+     * once per batch.
+     *
+     * @param events events
+     */
+    default void acceptBatch(final List<AppEvent> events) {
+        events.forEach(this);
+    }
+
 }
@@ -19,6 +19,8 @@ import co.runrightfast.core.JsonRepresentation;
 import static co.runrightfast.vertx.core.protobuf.MessageConversions.toJsonArray;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleDeployment;
 import com.codahale.metrics.health.HealthCheck;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import java.util.Set;
 import javax.json.Json;
 import javax.json.JsonObject;
@@ -54,6 +56,8 @@ public interface ApplicationEvents {
     static final String VERTICLE_DEPLOYMENT_SUCCESS = "verticle.deployment.success";
     static final String VERTICLE_DEPLOYMENT_FAILED = "verticle.deployment.failed";
 
+    static final String APP_EVENTS_SUPPRESSED = "app.events.suppressed";
+
     @RequiredArgsConstructor
     public static final class HealthCheckResult implements JsonRepresentation {
 
@@ -65,6 +69,13 @@ public interface ApplicationEvents {
             return Json.createObjectBuilder().add("healthy", result.isHealthy()).build();
         }
 
+        @Override
+        public void writeJson(final JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeBooleanField("healthy", result.isHealthy());
+            json.writeEndObject();
+        }
+
     }
 
     @RequiredArgsConstructor
@@ -80,4 +91,33 @@ public interface ApplicationEvents {
 
     }
 
+    /**
+     * The number of events that were suppressed by rate limiting
+     */
+    @RequiredArgsConstructor
+    public static final class SuppressedEvents implements JsonRepresentation {
+
+        @NonNull
+        private final String event;
+
+        private final long suppressed;
+
+        @Override
+        public JsonObject toJson() {
+            return Json.createObjectBuilder()
+                    .add("event", event)
+                    .add("suppressed", suppressed)
+                    .build();
+        }
+
+        @Override
+        public void writeJson(final JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("event", event);
+            json.writeNumberField("suppressed", suppressed);
+            json.writeEndObject();
+        }
+
+    }
+
 }
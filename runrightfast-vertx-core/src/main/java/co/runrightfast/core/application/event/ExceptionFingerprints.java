@@ -0,0 +1,208 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Identifies recurring exceptions by a fingerprint, which is derived from the exception type, the top stack frames, and the root cause type. It is used to log
+ * the full stack trace only once per fingerprint per window. Subsequent occurrences within the window are logged compactly, i.e., "seen N more times".
+ *
+ * The shared instance returned by {@link #getInstance()} is used by {@link AppEvent} and by the verticle message consumer exception logging.
+ *
+ * @author alfio
+ */
+public final class ExceptionFingerprints {
+
+    public static final int DEFAULT_STACK_FRAMES = 5;
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    /**
+     * The maximum number of tracked fingerprints. When the limit is reached, the least recently used fingerprints are evicted.
+     */
+    public static final int MAX_FINGERPRINTS = 1024;
+
+    public static final String FINGERPRINTS = gaugeName("exception-fingerprints", "count");
+
+    public static final String SUPPRESSED_STACK_TRACES = gaugeName("exception-fingerprints", "suppressed-stack-traces");
+
+    private static final HashFunction FINGERPRINT_HASH = Hashing.murmur3_128();
+
+    private static volatile ExceptionFingerprints instance = new ExceptionFingerprints(DEFAULT_STACK_FRAMES, DEFAULT_WINDOW);
+
+    public static ExceptionFingerprints getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the shared instance
+     *
+     * @param stackFrames the number of top stack frames that are included in the fingerprint
+     * @param window the full stack trace is logged once per fingerprint per window
+     */
+    public static void configure(final int stackFrames, @NonNull final Duration window) {
+        instance = new ExceptionFingerprints(stackFrames, window);
+    }
+
+    /**
+     * Registers gauges for the shared instance's fingerprint count and suppressed stack trace count. Gauges registered under the same names are replaced.
+     *
+     * @param metricRegistry metric registry
+     */
+    public static void registerMetrics(@NonNull final MetricRegistry metricRegistry) {
+        metricRegistry.remove(FINGERPRINTS);
+        metricRegistry.register(FINGERPRINTS, (Gauge<Integer>) () -> getInstance().getFingerprintCount());
+        metricRegistry.remove(SUPPRESSED_STACK_TRACES);
+        metricRegistry.register(SUPPRESSED_STACK_TRACES, (Gauge<Long>) () -> getInstance().getSuppressedStackTraceCount());
+    }
+
+    @Value
+    public static class Occurrence {
+
+        String fingerprint;
+
+        /**
+         * true if this is the first occurrence for the fingerprint within the current window
+         */
+        boolean logStackTrace;
+
+        /**
+         * If the stack trace is logged, then the number of occurrences since the stack trace was last logged. Otherwise, the number of times the exception has
+         * been seen since the stack trace was logged.
+         */
+        long seen;
+    }
+
+    @Getter
+    private final int stackFrames;
+
+    @Getter
+    private final Duration window;
+
+    private final long windowMillis;
+
+    private final Cache<String, FingerprintStats> fingerprints = CacheBuilder.newBuilder().maximumSize(MAX_FINGERPRINTS).build();
+
+    private final LongAdder suppressedStackTraces = new LongAdder();
+
+    public ExceptionFingerprints(final int stackFrames, @NonNull final Duration window) {
+        checkArgument(stackFrames > 0, "stackFrames must be > 0");
+        checkArgument(!window.isNegative() && !window.isZero(), "window must be > 0");
+        this.stackFrames = stackFrames;
+        this.window = window;
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     *
+     * @param exception the exception that is about to be logged
+     * @return whether the stack trace should be logged
+     */
+    public Occurrence record(@NonNull final Throwable exception) {
+        final String key = fingerprintKey(exception);
+        final long now = System.currentTimeMillis();
+        FingerprintStats stats = fingerprints.getIfPresent(key);
+        if (stats == null) {
+            final FingerprintStats newStats = new FingerprintStats(hash(key), now);
+            stats = fingerprints.asMap().putIfAbsent(key, newStats);
+            if (stats == null) {
+                return new Occurrence(newStats.fingerprint, true, 0);
+            }
+        }
+
+        final long windowStart = stats.windowStart.get();
+        if (now - windowStart >= windowMillis && stats.windowStart.compareAndSet(windowStart, now)) {
+            return new Occurrence(stats.fingerprint, true, stats.seen.getAndSet(0));
+        }
+        suppressedStackTraces.increment();
+        return new Occurrence(stats.fingerprint, false, stats.seen.incrementAndGet());
+    }
+
+    /**
+     *
+     * @param exception exception
+     * @return the fingerprint, which is a 64-bit hash of the exception type, the top stack frames, and the root cause type
+     */
+    public String fingerprint(@NonNull final Throwable exception) {
+        return hash(fingerprintKey(exception));
+    }
+
+    /**
+     *
+     * @return the number of fingerprints that are currently tracked
+     */
+    public int getFingerprintCount() {
+        return (int) fingerprints.size();
+    }
+
+    /**
+     *
+     * @return the number of stack traces that were not logged, because they had already been logged within the window
+     */
+    public long getSuppressedStackTraceCount() {
+        return suppressedStackTraces.sum();
+    }
+
+    private String fingerprintKey(final Throwable exception) {
+        final StackTraceElement[] stackTrace = exception.getStackTrace();
+        final int frames = Math.min(stackFrames, stackTrace.length);
+        final StringBuilder sb = new StringBuilder(64 * (frames + 1)).append(exception.getClass().getName());
+        for (int i = 0; i < frames; i++) {
+            final StackTraceElement frame = stackTrace[i];
+            sb.append('|').append(frame.getClassName()).append('.').append(frame.getMethodName()).append(':').append(frame.getLineNumber());
+        }
+        final Throwable rootCause = ExceptionUtils.getRootCause(exception);
+        if (rootCause != null && rootCause != exception) {
+            sb.append("|rootCause=").append(rootCause.getClass().getName());
+        }
+        return sb.toString();
+    }
+
+    private static String hash(final String fingerprintKey) {
+        return String.format("%016x", FINGERPRINT_HASH.hashString(fingerprintKey, UTF_8).asLong());
+    }
+
+    private static final class FingerprintStats {
+
+        final String fingerprint;
+
+        final AtomicLong windowStart;
+
+        final AtomicLong seen = new AtomicLong();
+
+        FingerprintStats(final String fingerprint, final long windowStart) {
+            this.fingerprint = fingerprint;
+            this.windowStart = new AtomicLong(windowStart);
+        }
+    }
+
+}
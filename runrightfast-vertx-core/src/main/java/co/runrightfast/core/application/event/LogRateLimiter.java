@@ -0,0 +1,185 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import lombok.Getter;
+import lombok.NonNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Samples and rate limits log records per key, e.g., per event name or per EventBus address.
+ *
+ * Each key has its own token bucket, which is implemented as a generic cell rate algorithm, i.e., the bucket state is a single theoretical arrival time. A
+ * permitted record is a single CAS, and a suppressed record is a read and a striped counter increment. Thus, the limiter is safe to use on hot paths, e.g., per
+ * consumed message.
+ *
+ * Suppressed records are counted per key. The count is handed to the caller with the next permitted record for the key, which enables the caller to log "N
+ * suppressed" summaries. Counts that are still pending, because no further record was permitted for the key, can be collected via
+ * {@link #drainSuppressed(java.util.function.BiConsumer)}.
+ *
+ * @author alfio
+ */
+public final class LogRateLimiter {
+
+    /**
+     * Returned by {@link #tryAcquire(java.lang.String)} when the record should not be logged
+     */
+    public static final long SUPPRESSED = -1;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final LogRateLimiter UNLIMITED = new LogRateLimiter("unlimited", Optional.empty());
+
+    @Getter
+    private final String name;
+
+    private final Optional<LogRateLimiterConfig> config;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(final String name, @NonNull final LogRateLimiterConfig config) {
+        this(name, Optional.of(config));
+    }
+
+    private LogRateLimiter(final String name, final Optional<LogRateLimiterConfig> config) {
+        checkArgument(isNotBlank(name));
+        this.name = name;
+        this.config = config;
+        this.emissionIntervalNanos = config.map(c -> Math.max(1L, (long) (NANOS_PER_SECOND / c.getPermitsPerSecond()))).orElse(0L);
+        this.burstToleranceNanos = config.map(c -> emissionIntervalNanos * (c.getBurst() - 1)).orElse(0L);
+    }
+
+    /**
+     *
+     * @return a limiter that permits every record
+     */
+    public static LogRateLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isLimiting() {
+        return config.isPresent();
+    }
+
+    public Optional<LogRateLimiterConfig> getConfig() {
+        return config;
+    }
+
+    /**
+     *
+     * @param key e.g., event name or address
+     * @return {@link #SUPPRESSED} if the record should not be logged, otherwise the number of records that were suppressed for the key since the last permitted
+     * record
+     */
+    public long tryAcquire(@NonNull final String key) {
+        if (!config.isPresent()) {
+            return 0;
+        }
+
+        final int sampleRate = config.get().getSampleRate();
+        final TokenBucket bucket = bucket(key);
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return suppress(bucket);
+        }
+
+        final long now = System.nanoTime();
+        while (true) {
+            final long theoreticalArrivalTime = bucket.theoreticalArrivalTime.get();
+            if (now < theoreticalArrivalTime - burstToleranceNanos) {
+                return suppress(bucket);
+            }
+            if (bucket.theoreticalArrivalTime.compareAndSet(theoreticalArrivalTime, Math.max(theoreticalArrivalTime, now) + emissionIntervalNanos)) {
+                return bucket.suppressed.sumThenReset();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the total number of records that have been suppressed
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Hands over the suppressed record counts that have not yet been handed to the caller with a permitted record, and resets them.
+     *
+     * @param consumer receives the key and the number of records that were suppressed for the key since the last permitted record
+     */
+    public void drainSuppressed(@NonNull final BiConsumer<String, Long> consumer) {
+        buckets.forEach((key, bucket) -> {
+            final long count = bucket.suppressed.sumThenReset();
+            if (count > 0) {
+                consumer.accept(key, count);
+            }
+        });
+    }
+
+    /**
+     * Registers a gauge for the total number of suppressed records, i.e., <code>GAUGE.log-rate-limiter.suppressed.[name]</code>. A gauge registered under the
+     * same name is replaced.
+     *
+     * @param metricRegistry metric registry
+     */
+    public void registerMetrics(@NonNull final MetricRegistry metricRegistry) {
+        final String metricName = gaugeName("log-rate-limiter", "suppressed", name);
+        metricRegistry.remove(metricName);
+        metricRegistry.register(metricName, (Gauge<Long>) this::getSuppressedCount);
+    }
+
+    private long suppress(final TokenBucket bucket) {
+        bucket.suppressed.increment();
+        suppressed.increment();
+        return SUPPRESSED;
+    }
+
+    private TokenBucket bucket(final String key) {
+        final TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(System.nanoTime()));
+    }
+
+    private static final class TokenBucket {
+
+        final AtomicLong theoreticalArrivalTime;
+
+        final LongAdder suppressed = new LongAdder();
+
+        TokenBucket(final long theoreticalArrivalTime) {
+            this.theoreticalArrivalTime = new AtomicLong(theoreticalArrivalTime);
+        }
+    }
+
+}
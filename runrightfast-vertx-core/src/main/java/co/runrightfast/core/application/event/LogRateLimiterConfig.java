@@ -0,0 +1,92 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import co.runrightfast.core.utils.ConfigUtils;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.typesafe.config.Config;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link LogRateLimiter} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class LogRateLimiterConfig {
+
+    public static final double DEFAULT_PERMITS_PER_SECOND = 10;
+    public static final int DEFAULT_BURST = 100;
+    public static final int DEFAULT_SAMPLE_RATE = 1;
+
+    /**
+     * The rate at which the token bucket is refilled
+     */
+    @Getter
+    private final double permitsPerSecond;
+
+    /**
+     * The token bucket capacity
+     */
+    @Getter
+    private final int burst;
+
+    /**
+     * 1 out of every sample rate events is considered, i.e., 1 means no sampling. Sampled events are then rate limited via the token bucket.
+     */
+    @Getter
+    private final int sampleRate;
+
+    public LogRateLimiterConfig(final double permitsPerSecond, final int burst, final int sampleRate) {
+        checkArgument(permitsPerSecond > 0, "permitsPerSecond must be > 0");
+        checkArgument(burst > 0, "burst must be > 0");
+        checkArgument(sampleRate > 0, "sampleRate must be > 0");
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.sampleRate = sampleRate;
+    }
+
+    public static LogRateLimiterConfig defaultConfig() {
+        return new LogRateLimiterConfig(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Config schema:
+     *
+     * <code>
+     * {
+     *    permits-per-second = 10
+     *    burst = 100
+     *    sample-rate = 1
+     * }
+     * </code>
+     *
+     * @param config Config
+     * @return LogRateLimiterConfig - defaults are applied to settings that are not specified
+     */
+    public static LogRateLimiterConfig fromConfig(@NonNull final Config config) {
+        return new LogRateLimiterConfig(
+                ConfigUtils.getDouble(config, "permits-per-second").orElse(DEFAULT_PERMITS_PER_SECOND),
+                ConfigUtils.getInt(config, "burst").orElse(DEFAULT_BURST),
+                ConfigUtils.getInt(config, "sample-rate").orElse(DEFAULT_SAMPLE_RATE)
+        );
+    }
+
+}
@@ -22,9 +22,8 @@ import co.runrightfast.core.utils.LoggingUtils.JsonLog;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newErrorLog;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newInfoLog;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newWarningLog;
-import javax.json.Json;
-import javax.json.JsonObject;
-import javax.json.JsonObjectBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
@@ -52,21 +51,23 @@ public final class AppEventJDKLogger implements AppEventLogger {
         switch (event.getEventLevel()) {
             case INFO:
             case CLEAR:
-                info.log(METHOD, () -> build(event));
+                info.log(METHOD, json -> write(json, event));
                 return;
             case WARN:
-                warning.log(METHOD, () -> build(event));
+                warning.log(METHOD, json -> write(json, event));
                 return;
             default:
-                error.log(METHOD, () -> build(event));
+                error.log(METHOD, json -> write(json, event));
         }
 
     }
 
-    private JsonObject build(final AppEvent event) {
-        final JsonObjectBuilder json = Json.createObjectBuilder().add("appId", applicationId.toJson());
-        event.addEventInfo(json);
-        return json.build();
+    private void write(final JsonGenerator json, final AppEvent event) throws IOException {
+        json.writeStartObject();
+        json.writeFieldName("appId");
+        applicationId.writeJson(json);
+        event.writeEventInfo(json);
+        json.writeEndObject();
     }
 
 }
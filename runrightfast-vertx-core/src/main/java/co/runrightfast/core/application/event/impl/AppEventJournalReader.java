@@ -0,0 +1,403 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.ApplicationException;
+import co.runrightfast.core.application.event.AppEvent.AppEventLevel;
+import co.runrightfast.core.application.event.messages.AppEventRecord;
+import static co.runrightfast.core.application.event.impl.MappedAppEventJournal.FORMAT_VERSION;
+import static co.runrightfast.core.application.event.impl.MappedAppEventJournal.HEADER_SIZE;
+import static co.runrightfast.core.application.event.impl.MappedAppEventJournal.MAGIC;
+import static co.runrightfast.core.application.event.impl.MappedAppEventJournal.segmentFiles;
+import static co.runrightfast.core.application.event.impl.MappedAppEventJournal.segmentNumber;
+import co.runrightfast.core.utils.StreamingJsonRenderer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import static java.nio.file.StandardOpenOption.READ;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.NonNull;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Decodes the segments written by {@link MappedAppEventJournal}. Segments are read in order, and can be tailed while the journal is being written.
+ *
+ * The reader is also a command line tool, which prints the records as JSON lines using the same layout as the JSON event logs:
+ *
+ * <pre>
+ * usage: AppEventJournalReader -d &lt;dir&gt; [-l &lt;level&gt;] [-e &lt;event&gt;...] [-V &lt;verticle&gt;] [-f]
+ * </pre>
+ *
+ * @author alfio
+ */
+public final class AppEventJournalReader {
+
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final Path directory;
+
+    private final Predicate<AppEventRecord> filter;
+
+    /**
+     *
+     * @param directory journal directory
+     * @param filter only records that match the filter are read
+     */
+    public AppEventJournalReader(@NonNull final Path directory, @NonNull final Predicate<AppEventRecord> filter) {
+        this.directory = directory;
+        this.filter = filter;
+    }
+
+    public AppEventJournalReader(@NonNull final Path directory) {
+        this(directory, record -> true);
+    }
+
+    /**
+     * Reads the records that are currently in the journal.
+     *
+     * @param consumer record consumer
+     * @return the number of records that matched the filter
+     */
+    public long read(@NonNull final Consumer<AppEventRecord> consumer) {
+        long count = 0;
+        for (final Path segmentFile : segmentFiles(directory)) {
+            final Optional<Segment> segment = Segment.open(segmentFile);
+            if (!segment.isPresent()) {
+                continue;
+            }
+            AppEventRecord record;
+            while ((record = segment.get().next()) != null) {
+                if (filter.test(record)) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the records that are currently in the journal, and then tails the journal, i.e., follows the journal as records are appended and segments are
+     * rotated. Returns when the thread is interrupted.
+     *
+     * @param consumer record consumer
+     * @param pollInterval how often the journal is checked for new records when there are no more records to read
+     */
+    public void follow(@NonNull final Consumer<AppEventRecord> consumer, @NonNull final Duration pollInterval) {
+        Optional<Segment> segment = Optional.empty();
+        long segmentNumber = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            if (segment.isPresent()) {
+                final AppEventRecord record = segment.get().next();
+                if (record != null) {
+                    if (filter.test(record)) {
+                        consumer.accept(record);
+                    }
+                    continue;
+                }
+            }
+
+            final Optional<Path> nextSegmentFile = nextSegmentFile(segmentNumber);
+            if (nextSegmentFile.isPresent()) {
+                // the writer finishes the segment before it starts the next segment, thus check for records appended since the last read
+                if (segment.isPresent() && segment.get().hasNext()) {
+                    continue;
+                }
+                segment = Segment.open(nextSegmentFile.get());
+                segmentNumber = segmentNumber(nextSegmentFile.get());
+                continue;
+            }
+
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Optional<Path> nextSegmentFile(final long segmentNumber) {
+        return segmentFiles(directory).stream()
+                .filter(segmentFile -> segmentNumber(segmentFile) > segmentNumber)
+                .findFirst();
+    }
+
+    /**
+     *
+     * @param level min level
+     * @return filter that matches records with a level id that is greater than or equal to the level id
+     */
+    public static Predicate<AppEventRecord> minLevel(@NonNull final AppEventLevel level) {
+        return record -> record.getLevel() >= level.id;
+    }
+
+    /**
+     *
+     * @param events event names
+     * @return filter that matches any of the events
+     */
+    public static Predicate<AppEventRecord> events(@NonNull final List<String> events) {
+        return record -> events.contains(record.getEvent());
+    }
+
+    /**
+     *
+     * @param verticle either the verticle name, or group:name
+     * @return filter that matches events that were logged by the verticle
+     */
+    public static Predicate<AppEventRecord> verticle(@NonNull final String verticle) {
+        final int separator = verticle.indexOf(':');
+        if (separator < 0) {
+            return record -> record.hasVerticleId() && record.getVerticleId().getName().equals(verticle);
+        }
+        final String group = verticle.substring(0, separator);
+        final String name = verticle.substring(separator + 1);
+        return record -> record.hasVerticleId() && record.getVerticleId().getGroup().equals(group) && record.getVerticleId().getName().equals(name);
+    }
+
+    /**
+     *
+     * @param record record
+     * @return JSON using the same layout as the JSON event logs
+     */
+    public static String toJson(@NonNull final AppEventRecord record) {
+        return StreamingJsonRenderer.render(json -> writeJson(json, record));
+    }
+
+    private static void writeJson(final JsonGenerator json, final AppEventRecord record) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("event", record.getEvent());
+        json.writeNumberField("level", record.getLevel());
+        json.writeStringField("timestamp", ISO_OFFSET_DATE_TIME.format(OffsetDateTime.ofInstant(Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault())));
+        if (!record.getMsg().isEmpty()) {
+            json.writeStringField("msg", record.getMsg());
+        }
+        if (record.hasException()) {
+            final AppEventRecord.ExceptionInfo exception = record.getException();
+            json.writeObjectFieldStart("exception");
+            json.writeStringField("class", exception.getClassName());
+            json.writeStringField("fingerprint", exception.getFingerprint());
+            if (!exception.getStacktrace().isEmpty()) {
+                json.writeStringField("stacktrace", exception.getStacktrace());
+            } else if (!exception.getMessage().isEmpty()) {
+                json.writeStringField("message", exception.getMessage());
+            }
+            if (exception.getSeen() > 0) {
+                json.writeNumberField("seen", exception.getSeen());
+            }
+            if (!exception.getRootCause().isEmpty()) {
+                json.writeStringField("rootCause", exception.getRootCause());
+            }
+            json.writeEndObject();
+        }
+        if (record.getTagsCount() > 0) {
+            json.writeArrayFieldStart("tags");
+            for (final String tag : record.getTagsList()) {
+                json.writeString(tag);
+            }
+            json.writeEndArray();
+        }
+        if (!record.getDataType().isEmpty()) {
+            json.writeObjectFieldStart("data");
+            json.writeFieldName(record.getDataType());
+            json.writeRawValue(record.getData());
+            json.writeEndObject();
+        }
+        if (record.hasVerticleId()) {
+            json.writeObjectFieldStart("verticleId");
+            json.writeStringField("group", record.getVerticleId().getGroup());
+            json.writeStringField("name", record.getVerticleId().getName());
+            json.writeStringField("version", record.getVerticleId().getVersion());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     *
+     * @param args command line args
+     */
+    public static void main(final String... args) {
+        System.exit(run(args));
+    }
+
+    /**
+     *
+     * @param args command line args
+     * @return exit code, where
+     * <ul>
+     * <li>0 = success
+     * <li>1 = failed with an exception
+     * <li>2 = invalid command line usage
+     * </ul>
+     */
+    public static int run(final String... args) {
+        final Options options = cliOptions();
+        final CommandLine cmd;
+        try {
+            final CommandLineParser parser = new DefaultParser();
+            cmd = parser.parse(options, args);
+        } catch (final ParseException e) {
+            System.out.println(e.getMessage());
+            printHelp(options);
+            return 2;
+        }
+
+        if (cmd.hasOption('h')) {
+            printHelp(options);
+            return 0;
+        }
+
+        try {
+            Predicate<AppEventRecord> filter = record -> true;
+            if (cmd.hasOption('l')) {
+                filter = filter.and(minLevel(AppEventLevel.valueOf(cmd.getOptionValue('l').toUpperCase())));
+            }
+            if (cmd.hasOption('e')) {
+                filter = filter.and(events(Arrays.asList(cmd.getOptionValues('e'))));
+            }
+            if (cmd.hasOption('V')) {
+                filter = filter.and(verticle(cmd.getOptionValue('V')));
+            }
+
+            final AppEventJournalReader reader = new AppEventJournalReader(Paths.get(cmd.getOptionValue('d')), filter);
+            final Consumer<AppEventRecord> printer = record -> System.out.println(toJson(record));
+            if (cmd.hasOption('f')) {
+                reader.follow(printer, DEFAULT_POLL_INTERVAL);
+            } else {
+                reader.read(printer);
+            }
+            return 0;
+        } catch (final IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printHelp(options);
+            return 2;
+        } catch (final Throwable e) {
+            e.printStackTrace(System.err);
+            return 1;
+        }
+    }
+
+    private static void printHelp(final Options options) {
+        final HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp(AppEventJournalReader.class.getSimpleName(), options, true);
+    }
+
+    private static Options cliOptions() {
+        return new Options()
+                .addOption(Option.builder("d").longOpt("dir").hasArg().argName("dir").required().desc("Journal directory").build())
+                .addOption(Option.builder("l").longOpt("level").hasArg().argName("level").desc("Min event level: INFO, WARN, ERROR, ALERT, CLEAR").build())
+                .addOption(Option.builder("e").longOpt("event").hasArgs().argName("event").desc("Only show the specified events").build())
+                .addOption(Option.builder("V").longOpt("verticle").hasArg().argName("verticle").desc("Only show events logged by the verticle: name or group:name").build())
+                .addOption(Option.builder("f").longOpt("follow").desc("Tail the journal").build())
+                .addOption(Option.builder("h").longOpt("help").desc("Print usage").build());
+    }
+
+    /**
+     * Read cursor for a mapped segment file
+     */
+    private static final class Segment {
+
+        private final Path segmentFile;
+
+        private final MappedByteBuffer buffer;
+
+        private Segment(final Path segmentFile, final MappedByteBuffer buffer) {
+            this.segmentFile = segmentFile;
+            this.buffer = buffer;
+        }
+
+        /**
+         *
+         * @param segmentFile segment file
+         * @return empty if the segment was deleted, i.e., by the journal's retention policy
+         */
+        static Optional<Segment> open(final Path segmentFile) {
+            try (final FileChannel channel = FileChannel.open(segmentFile, READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                    throw new ApplicationException(String.format("Not a journal segment: %s", segmentFile));
+                }
+                final int formatVersion = buffer.getInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new ApplicationException(String.format("Unsupported journal format version %d: %s", formatVersion, segmentFile));
+                }
+                return Optional.of(new Segment(segmentFile, buffer));
+            } catch (final NoSuchFileException ex) {
+                return Optional.empty();
+            } catch (final IOException ex) {
+                throw new ApplicationException(String.format("Failed to open journal segment: %s", segmentFile), ex);
+            }
+        }
+
+        boolean hasNext() {
+            return buffer.hasRemaining() && buffer.get(buffer.position()) != 0;
+        }
+
+        /**
+         *
+         * @return null if there are no more records
+         */
+        AppEventRecord next() {
+            if (!hasNext()) {
+                return null;
+            }
+            final int position = buffer.position();
+            final int size = readVarint();
+            final byte[] record = new byte[size];
+            buffer.get(record);
+            try {
+                return AppEventRecord.parseFrom(record);
+            } catch (final InvalidProtocolBufferException ex) {
+                throw new ApplicationException(String.format("Corrupt record at position %d: %s", position, segmentFile), ex);
+            }
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ApplicationException(String.format("Malformed record size at position %d: %s", buffer.position(), segmentFile));
+        }
+
+    }
+
+}
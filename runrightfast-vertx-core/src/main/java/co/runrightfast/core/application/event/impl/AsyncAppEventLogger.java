@@ -0,0 +1,392 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.application.event.AppEvent;
+import co.runrightfast.core.application.event.AppEvent.AppEventLevel;
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.impl.AsyncAppEventLoggerConfig.FullBufferPolicy;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Logs events asynchronously, which keeps logging off of the caller's thread, e.g., event loop threads and OrientDB life cycle callbacks.
+ *
+ * Events are put into a pre-allocated bounded ring buffer, which supports multiple producers. A single background consumer thread drains the buffer in
+ * batches, and passes each batch to the delegate logger via {@link AppEventLogger#acceptBatch(java.util.List)}. The event timestamp is captured when the
+ * event is created, i.e., it is not affected by the logging delay. Event data is rendered on the consumer thread, thus event data must not be modified
+ * after the event is logged.
+ *
+ * When the buffer fills up, events are handled according to the {@link FullBufferPolicy}. Dropped events are counted per level, and the counts are
+ * periodically logged as a warning.
+ *
+ * The logger must be closed when the application shuts down, which logs the buffered events and then closes the delegate logger - see
+ * {@link co.runrightfast.vertx.core.application.RunRightFastVertxApplicationLauncher}. The consumer thread is a daemon thread, thus buffered events are lost
+ * if the JVM exits without the logger being closed. Events that are logged while the logger is closing are logged on the caller's thread. Once the logger is
+ * closed, events are passed directly to the delegate logger - unless the delegate logger was closed as well, in which case the events are dropped and counted.
+ * Dropped WARN, ERROR, and ALERT events are also logged via JUL.
+ *
+ * @author alfio
+ */
+public final class AsyncAppEventLogger implements AppEventLogger, AutoCloseable {
+
+    private static final String CLASS_NAME = AsyncAppEventLogger.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    public static final String BUFFERED_EVENTS = gaugeName("app-event-logger", "buffered");
+
+    // the event level is appended to the metric name, e.g., GAUGE.app-event-logger.dropped.info
+    public static final String DROPPED_EVENTS = gaugeName("app-event-logger", "dropped");
+
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AppEventLogger delegate;
+
+    @Getter
+    private final AsyncAppEventLoggerConfig config;
+
+    private final AtomicReferenceArray<AppEvent> events;
+
+    /**
+     * Per slot sequence, which is used to coordinate producers and the consumer.
+     *
+     * <ul>
+     * <li>sequence == position : the slot is free to be written by the producer that claimed the position
+     * <li>sequence == position + 1 : the slot contains an event that is ready to be consumed
+     * </ul>
+     */
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final int highWaterMark;
+
+    // next position to be claimed by producers
+    private final AtomicLong tail = new AtomicLong();
+
+    // next position to be consumed - only written by the consumer thread
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private final Map<AppEventLevel, LongAdder> droppedEvents = new EnumMap<>(AppEventLevel.class);
+
+    private final Thread consumer;
+
+    /**
+     * Serializes draining the buffer - the consumer thread drains the buffer while running, and producers drain the events that they offer while the logger
+     * is closing.
+     */
+    private final Object drainLock = new Object();
+
+    private final List<AppEvent> batch;
+
+    private volatile boolean running = true;
+
+    private volatile boolean consumerParked;
+
+    /**
+     * Set while holding the drain lock, once the delegate logger is about to be closed - the delegate logger must not be used afterwards.
+     */
+    private volatile boolean delegateClosed;
+
+    private long lastDroppedEventsLogTime;
+
+    private long lastLoggedDroppedEventCount;
+
+    /**
+     *
+     * @param delegate used to log the events on the consumer thread
+     * @param config config
+     */
+    public AsyncAppEventLogger(@NonNull final AppEventLogger delegate, @NonNull final AsyncAppEventLoggerConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+        final int capacity = Integer.highestOneBit(config.getBufferSize() - 1) << 1;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.highWaterMark = capacity - (capacity >> 2);
+        Arrays.stream(AppEventLevel.values()).forEach(level -> droppedEvents.put(level, new LongAdder()));
+        this.batch = new ArrayList<>(config.getBatchSize());
+
+        this.consumer = new Thread(this::consumeEvents, "AsyncAppEventLogger");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void accept(@NonNull final AppEvent event) {
+        if (!running) {
+            logSynchronously(event);
+            return;
+        }
+
+        switch (config.getFullBufferPolicy()) {
+            case DROP_INFO:
+                if (!event.getEventLevel().isWarnErrorAlert() && getBufferedEventCount() >= highWaterMark) {
+                    dropEvent(event);
+                    return;
+                }
+                break;
+            case SAMPLE:
+                if (getBufferedEventCount() >= highWaterMark && sampleCounter.getAndIncrement() % config.getSampleRate() != 0) {
+                    dropEvent(event);
+                    return;
+                }
+                break;
+            default:
+        }
+
+        while (!offer(event)) {
+            if (config.getFullBufferPolicy() != FullBufferPolicy.BLOCK) {
+                dropEvent(event);
+                return;
+            }
+            if (!running) {
+                logSynchronously(event);
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+
+        if (!running) {
+            // the consumer thread may have already exited
+            drainAll();
+        } else if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Stops the consumer thread after the buffered events have been logged, and then closes the delegate logger if it is {@link AutoCloseable}.
+     *
+     * @throws Exception if interrupted while waiting for the consumer thread to terminate, or if the delegate logger fails to close
+     */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+        drainAll();
+        if (delegate instanceof AutoCloseable) {
+            synchronized (drainLock) {
+                delegateClosed = true;
+            }
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public int getBufferedEventCount() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public long getDroppedEventCount(@NonNull final AppEventLevel level) {
+        return droppedEvents.get(level).sum();
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEvents.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Registers gauges for the number of buffered events and the number of dropped events per level.
+     *
+     * @param metricRegistry MetricRegistry
+     */
+    public void registerMetrics(@NonNull final MetricRegistry metricRegistry) {
+        registerGauge(metricRegistry, BUFFERED_EVENTS, this::getBufferedEventCount);
+        Arrays.stream(AppEventLevel.values()).forEach(level -> {
+            registerGauge(metricRegistry, MetricRegistry.name(DROPPED_EVENTS, level.name().toLowerCase()), () -> getDroppedEventCount(level));
+        });
+    }
+
+    /**
+     * Replaces any gauges registered by a previous logger instance
+     */
+    private static <T> void registerGauge(final MetricRegistry metricRegistry, final String name, final Gauge<T> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    private boolean offer(final AppEvent event) {
+        long position;
+        while (true) {
+            position = tail.get();
+            final int index = (int) (position & mask);
+            final long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // the slot has not been consumed yet, i.e., the buffer is full
+                return false;
+            }
+            // else another producer claimed the position
+        }
+        final int index = (int) (position & mask);
+        events.lazySet(index, event);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    private AppEvent poll() {
+        final long position = head.get();
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        final AppEvent event = events.get(index);
+        events.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return event;
+    }
+
+    private void dropEvent(final AppEvent event) {
+        droppedEvents.get(event.getEventLevel()).increment();
+    }
+
+    /**
+     * Events that are logged after the delegate logger was closed are dropped. Dropped WARN, ERROR, and ALERT events are logged via JUL.
+     */
+    private void dropEventAfterClose(final AppEvent event) {
+        dropEvent(event);
+        if (event.getEventLevel().isWarnErrorAlert()) {
+            log.logp(WARNING, CLASS_NAME, "dropEventAfterClose", "logger is closed - event was dropped : {0}", event);
+        }
+    }
+
+    private void logSynchronously(final AppEvent event) {
+        if (delegateClosed) {
+            dropEventAfterClose(event);
+            return;
+        }
+        synchronized (drainLock) {
+            if (delegateClosed) {
+                dropEventAfterClose(event);
+                return;
+            }
+            try {
+                delegate.accept(event);
+            } catch (final Throwable t) {
+                log.logp(SEVERE, CLASS_NAME, "logSynchronously", String.format("failed to log event: %s", event.getEvent()), t);
+            }
+        }
+    }
+
+    private void consumeEvents() {
+        while (running || tail.get() != head.get()) {
+            if (drain() == 0) {
+                consumerParked = true;
+                if (running && tail.get() == head.get()) {
+                    LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                } else {
+                    // a producer has claimed a slot, but has not yet published the event
+                    Thread.yield();
+                }
+                consumerParked = false;
+            }
+            logDroppedEvents();
+        }
+    }
+
+    /**
+     * Drains the events that have been published, i.e., events whose slots have been claimed but not yet published are drained by the producer that claimed
+     * them.
+     */
+    private void drainAll() {
+        while (drain() > 0) {
+        }
+    }
+
+    /**
+     * Polls up to a batch of events, and logs them via the delegate logger.
+     *
+     * @return the number of events that were logged
+     */
+    private int drain() {
+        synchronized (drainLock) {
+            AppEvent event;
+            while (batch.size() < config.getBatchSize() && (event = poll()) != null) {
+                batch.add(event);
+            }
+            final int count = batch.size();
+            if (count == 0) {
+                return 0;
+            }
+            if (delegateClosed) {
+                batch.forEach(this::dropEventAfterClose);
+                batch.clear();
+                return count;
+            }
+            try {
+                delegate.acceptBatch(batch);
+            } catch (final Throwable t) {
+                log.logp(SEVERE, CLASS_NAME, "drain", String.format("failed to log batch of %d events", count), t);
+            } finally {
+                batch.clear();
+            }
+            return count;
+        }
+    }
+
+    private void logDroppedEvents() {
+        final long now = System.currentTimeMillis();
+        if (now - lastDroppedEventsLogTime < config.getDroppedEventsLogInterval().toMillis() && running) {
+            return;
+        }
+        final long droppedEventCount = getDroppedEventCount();
+        if (droppedEventCount != lastLoggedDroppedEventCount) {
+            log.logp(WARNING, CLASS_NAME, "logDroppedEvents", "dropped events : {0}", droppedEvents.entrySet().stream()
+                    .map(entry -> String.format("%s=%d", entry.getKey(), entry.getValue().sum()))
+                    .collect(Collectors.joining(", ")));
+            lastLoggedDroppedEventCount = droppedEventCount;
+        }
+        lastDroppedEventsLogTime = now;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link AsyncAppEventLogger} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class AsyncAppEventLoggerConfig {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final FullBufferPolicy DEFAULT_FULL_BUFFER_POLICY = FullBufferPolicy.DROP_INFO;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+    public static final Duration DEFAULT_DROPPED_EVENTS_LOG_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Defines what happens when the buffer is filling up faster than the consumer can log the events.
+     *
+     * The buffer's high water mark is 3/4 of its capacity.
+     */
+    public static enum FullBufferPolicy {
+
+        /**
+         * The caller blocks until there is space in the buffer, i.e., no events are dropped
+         */
+        BLOCK,
+        /**
+         * INFO events are dropped once the buffer is above the high water mark, which reserves the remaining capacity for WARN, ERROR, ALERT, and CLEAR
+         * events. Events of any level are dropped once the buffer is full.
+         */
+        DROP_INFO,
+        /**
+         * Once the buffer is above the high water mark, only 1 out of every sample rate events is accepted. Events of any level are dropped once the buffer
+         * is full.
+         */
+        SAMPLE
+    }
+
+    /**
+     * The buffer size is rounded up to the next power of 2
+     */
+    @Getter
+    private final int bufferSize;
+
+    /**
+     * The max number of events that the consumer logs per buffer drain
+     */
+    @Getter
+    private final int batchSize;
+
+    @Getter
+    private final FullBufferPolicy fullBufferPolicy;
+
+    /**
+     * Only applies to {@link FullBufferPolicy#SAMPLE}
+     */
+    @Getter
+    private final int sampleRate;
+
+    /**
+     * Dropped event counts are logged as a warning at most once per interval
+     */
+    @Getter
+    private final Duration droppedEventsLogInterval;
+
+    public AsyncAppEventLoggerConfig(final int bufferSize, final int batchSize, @NonNull final FullBufferPolicy fullBufferPolicy, final int sampleRate, @NonNull final Duration droppedEventsLogInterval) {
+        checkArgument(bufferSize >= 4, "bufferSize must be >= 4");
+        checkArgument(bufferSize <= (1 << 30), "bufferSize must be <= 2^30");
+        checkArgument(batchSize > 0, "batchSize must be > 0");
+        checkArgument(sampleRate > 0, "sampleRate must be > 0");
+        checkArgument(!(droppedEventsLogInterval.isNegative() || droppedEventsLogInterval.isZero()), "droppedEventsLogInterval must be > 0");
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.fullBufferPolicy = fullBufferPolicy;
+        this.sampleRate = sampleRate;
+        this.droppedEventsLogInterval = droppedEventsLogInterval;
+    }
+
+    public static AsyncAppEventLoggerConfig defaultConfig() {
+        return new AsyncAppEventLoggerConfig(DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_FULL_BUFFER_POLICY, DEFAULT_SAMPLE_RATE, DEFAULT_DROPPED_EVENTS_LOG_INTERVAL);
+    }
+
+}
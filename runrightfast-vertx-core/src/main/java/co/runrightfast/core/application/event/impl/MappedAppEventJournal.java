@@ -0,0 +1,370 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.ApplicationException;
+import co.runrightfast.core.application.event.AppEvent;
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.ExceptionFingerprints.Occurrence;
+import co.runrightfast.core.application.event.messages.AppEventRecord;
+import co.runrightfast.core.utils.StreamingJsonRenderer;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkState;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import java.util.logging.Logger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Appends events as length delimited {@link AppEventRecord} protobuf messages to memory mapped segment files. The binary journal keeps a full fidelity event
+ * history at a fraction of the cost of rendering and writing JSON text logs - see {@link AppEventJournalReader} to decode the journal.
+ *
+ * Appending an event is a memory copy into the mapped segment, i.e., there are no per event system calls. The OS writes the dirty pages back to the file in
+ * the background, and the current segment is forced to disk on a timer - see {@link MappedAppEventJournalConfig#getFlushInterval()}. Events that have not been
+ * forced to disk may be lost if the host crashes, but not if the JVM crashes.
+ *
+ * Segment file format:
+ * <ol>
+ * <li>header : magic (int) + format version (int)
+ * <li>records : each record is prefixed with its size encoded as a varint. The record payload is written before its size, thus a record is complete once its
+ * size is visible. A zero size marks the end of the written records.
+ * </ol>
+ *
+ * A new segment is started each time the journal is opened and when the next record does not fit into the current segment. The oldest segments are deleted
+ * whenever a new segment is started, once the number of segments exceeds {@link MappedAppEventJournalConfig#getMaxSegments()}.
+ *
+ * Appending is synchronized, thus the journal is normally used as the delegate of an {@link AsyncAppEventLogger}, which appends the events on a single
+ * background thread.
+ *
+ * @author alfio
+ */
+public final class MappedAppEventJournal implements AppEventLogger, AutoCloseable {
+
+    private static final String CLASS_NAME = MappedAppEventJournal.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    public static final String RECORDS = gaugeName("app-event-journal", "records");
+
+    public static final String SEGMENT = gaugeName("app-event-journal", "segment");
+
+    static final int MAGIC = 0x52524645;
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int HEADER_SIZE = 8;
+
+    static final String SEGMENT_FILE_PREFIX = "app-events-";
+
+    static final String SEGMENT_FILE_SUFFIX = ".journal";
+
+    @Getter
+    private final MappedAppEventJournalConfig config;
+
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong recordCount = new AtomicLong();
+
+    private volatile MappedByteBuffer segment;
+
+    private volatile long segmentNumber;
+
+    private volatile boolean dirty;
+
+    private boolean closed;
+
+    /**
+     *
+     * @param config config
+     * @throws ApplicationException if the journal directory or the first segment cannot be created
+     */
+    public MappedAppEventJournal(@NonNull final MappedAppEventJournalConfig config) {
+        this.config = config;
+        try {
+            Files.createDirectories(config.getDirectory());
+        } catch (final IOException ex) {
+            throw new ApplicationException(String.format("Failed to create journal directory: %s", config.getDirectory()), ex);
+        }
+        final List<Path> segmentFiles = segmentFiles(config.getDirectory());
+        this.segmentNumber = segmentFiles.isEmpty() ? 0 : segmentNumber(segmentFiles.get(segmentFiles.size() - 1));
+        openNextSegment(0);
+        // a new segment is opened on every start, i.e., segments would pile up across restarts until the next rotation
+        deleteOldSegments();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "MappedAppEventJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long flushIntervalMillis = config.getFlushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void accept(@NonNull final AppEvent event) {
+        final byte[] record = toAppEventRecord(event).toByteArray();
+        synchronized (this) {
+            checkState(!closed, "journal is closed");
+            append(record);
+            dirty = true;
+        }
+        recordCount.incrementAndGet();
+    }
+
+    /**
+     * The records are serialized before the lock is acquired, and then appended while holding the lock once for the whole batch.
+     *
+     * @param events events
+     */
+    @Override
+    public void acceptBatch(@NonNull final List<AppEvent> events) {
+        final byte[][] records = new byte[events.size()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = toAppEventRecord(events.get(i)).toByteArray();
+        }
+        synchronized (this) {
+            checkState(!closed, "journal is closed");
+            for (final byte[] record : records) {
+                append(record);
+            }
+            dirty = true;
+        }
+        recordCount.addAndGet(records.length);
+    }
+
+    /**
+     * Must be called while holding the lock
+     */
+    private void append(final byte[] record) {
+        final int sizeLength = CodedOutputStream.computeRawVarint32Size(record.length);
+        if (segment.remaining() < sizeLength + record.length) {
+            rotate(sizeLength + record.length);
+        }
+        final int position = segment.position();
+        segment.position(position + sizeLength);
+        segment.put(record);
+        final int end = segment.position();
+        segment.position(position);
+        writeVarint(segment, record.length);
+        segment.position(end);
+    }
+
+    /**
+     * Forces the current segment to disk and stops the flush timer.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        segment.force();
+    }
+
+    public long getRecordCount() {
+        return recordCount.get();
+    }
+
+    public long getSegmentNumber() {
+        return segmentNumber;
+    }
+
+    /**
+     *
+     * @return the current segment file
+     */
+    public Path getSegmentFile() {
+        return segmentFile(config.getDirectory(), segmentNumber);
+    }
+
+    /**
+     * Registers gauges for the number of records appended and the current segment number.
+     *
+     * @param metricRegistry MetricRegistry
+     */
+    public void registerMetrics(@NonNull final MetricRegistry metricRegistry) {
+        metricRegistry.remove(RECORDS);
+        metricRegistry.register(RECORDS, (Gauge<Long>) this::getRecordCount);
+        metricRegistry.remove(SEGMENT);
+        metricRegistry.register(SEGMENT, (Gauge<Long>) this::getSegmentNumber);
+    }
+
+    /**
+     * Exceptions are recorded the same way they are rendered in JSON, i.e., the stack trace is only recorded for the first occurrence of the exception's
+     * fingerprint within the fingerprint window.
+     *
+     * @param event event
+     * @return record
+     */
+    public static AppEventRecord toAppEventRecord(@NonNull final AppEvent event) {
+        final AppEventRecord.Builder record = AppEventRecord.newBuilder()
+                .setTimestamp(event.getTimestampMillis())
+                .setEvent(event.getEvent())
+                .setLevel(event.getEventLevel().id)
+                .addAllTags(event.getTags());
+        if (event.getMessage() != null) {
+            record.setMsg(event.getMessage());
+        }
+        if (event.getException() != null) {
+            final Throwable exception = event.getException();
+            final Occurrence occurrence = event.getExceptionOccurrence().get();
+            final AppEventRecord.ExceptionInfo.Builder exceptionInfo = AppEventRecord.ExceptionInfo.newBuilder()
+                    .setClassName(exception.getClass().getName())
+                    .setFingerprint(occurrence.getFingerprint())
+                    .setSeen(occurrence.getSeen());
+            if (exception.getMessage() != null) {
+                exceptionInfo.setMessage(exception.getMessage());
+            }
+            if (occurrence.isLogStackTrace()) {
+                exceptionInfo.setStacktrace(ExceptionUtils.getStackTrace(exception));
+            }
+            final Throwable rootCause = ExceptionUtils.getRootCause(exception);
+            if (rootCause != null) {
+                exceptionInfo.setRootCause(rootCause.getClass().getName());
+            }
+            record.setException(exceptionInfo);
+        }
+        if (event.getData() != null) {
+            record.setDataType(event.getData().getType());
+            record.setData(StreamingJsonRenderer.render(event.getData()::writeJson));
+        }
+        if (event.getVerticleId() != null) {
+            final RunRightFastVerticleId verticleId = event.getVerticleId();
+            record.setVerticleId(VerticleId.newBuilder()
+                    .setGroup(verticleId.getGroup())
+                    .setName(verticleId.getName())
+                    .setVersion(verticleId.getVersion())
+            );
+        }
+        return record.build();
+    }
+
+    static Path segmentFile(final Path directory, final long segmentNumber) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_FILE_PREFIX, segmentNumber, SEGMENT_FILE_SUFFIX));
+    }
+
+    static long segmentNumber(final Path segmentFile) {
+        final String fileName = segmentFile.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+    }
+
+    /**
+     *
+     * @param directory journal directory
+     * @return the segment files, ordered from oldest to newest
+     */
+    static List<Path> segmentFiles(final Path directory) {
+        final List<Path> segmentFiles = new ArrayList<>();
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+            files.forEach(segmentFiles::add);
+        } catch (final IOException ex) {
+            throw new ApplicationException(String.format("Failed to list journal segments: %s", directory), ex);
+        }
+        // segment numbers are zero padded, thus the file names sort in segment order
+        Collections.sort(segmentFiles);
+        return segmentFiles;
+    }
+
+    /**
+     * Runs on the flusher thread. The current segment is read while holding the lock, because it is replaced when the journal is rotated. The segment is
+     * forced outside of the lock - forcing a segment that was rotated out in the meantime is harmless, because rotation forces it as well.
+     */
+    private void flush() {
+        final MappedByteBuffer currentSegment;
+        synchronized (this) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+            currentSegment = segment;
+        }
+        try {
+            currentSegment.force();
+        } catch (final Throwable t) {
+            log.logp(SEVERE, CLASS_NAME, "flush", "failed to force segment to disk", t);
+        }
+    }
+
+    private void rotate(final int recordSize) {
+        segment.force();
+        openNextSegment(recordSize);
+        deleteOldSegments();
+    }
+
+    /**
+     *
+     * @param recordSize the segment is sized to fit the record, if the record is larger than the configured segment size
+     */
+    private void openNextSegment(final int recordSize) {
+        final Path segmentFile = segmentFile(config.getDirectory(), segmentNumber + 1);
+        final int segmentSize = Math.max(config.getSegmentSize(), HEADER_SIZE + recordSize);
+        // the mapping remains valid after the channel is closed
+        try (final FileChannel channel = FileChannel.open(segmentFile, CREATE_NEW, READ, WRITE)) {
+            final MappedByteBuffer mappedSegment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            mappedSegment.putInt(MAGIC).putInt(FORMAT_VERSION);
+            this.segment = mappedSegment;
+            this.segmentNumber++;
+        } catch (final IOException ex) {
+            throw new ApplicationException(String.format("Failed to create journal segment: %s", segmentFile), ex);
+        }
+        log.logp(INFO, CLASS_NAME, "openNextSegment", "{0}", segmentFile);
+    }
+
+    private void deleteOldSegments() {
+        final List<Path> segmentFiles = segmentFiles(config.getDirectory());
+        for (int i = 0; i < segmentFiles.size() - config.getMaxSegments(); i++) {
+            try {
+                Files.deleteIfExists(segmentFiles.get(i));
+            } catch (final IOException ex) {
+                log.logp(SEVERE, CLASS_NAME, "deleteOldSegments", String.format("failed to delete segment: %s", segmentFiles.get(i)), ex);
+            }
+        }
+    }
+
+    private static void writeVarint(final ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.utils.ConfigUtils;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.typesafe.config.Config;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link MappedAppEventJournal} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class MappedAppEventJournalConfig {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * The directory that contains the journal segment files
+     */
+    @Getter
+    private final Path directory;
+
+    /**
+     * Segment file size in bytes. A segment is rotated when the next record does not fit.
+     */
+    @Getter
+    private final int segmentSize;
+
+    /**
+     * The oldest segments are deleted when the number of segments exceeds the max
+     */
+    @Getter
+    private final int maxSegments;
+
+    /**
+     * How often the current segment is forced to disk
+     */
+    @Getter
+    private final Duration flushInterval;
+
+    public MappedAppEventJournalConfig(@NonNull final Path directory, final int segmentSize, final int maxSegments, @NonNull final Duration flushInterval) {
+        checkArgument(segmentSize >= 1024, "segmentSize must be >= 1024");
+        checkArgument(maxSegments > 0, "maxSegments must be > 0");
+        checkArgument(!(flushInterval.isNegative() || flushInterval.isZero()), "flushInterval must be > 0");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Config schema:
+     *
+     * <code>
+     * {
+     *    dir = "logs/app-events"
+     *    segment-size = 64 MiB
+     *    max-segments = 16
+     *    flush-interval = 1 s
+     * }
+     * </code>
+     *
+     * @param config Config
+     * @return MappedAppEventJournalConfig - defaults are applied to settings that are not specified, except for dir which is required
+     */
+    public static MappedAppEventJournalConfig fromConfig(@NonNull final Config config) {
+        return new MappedAppEventJournalConfig(
+                Paths.get(config.getString("dir")),
+                ConfigUtils.getBytes(config, "segment-size").map(Long::intValue).orElse(DEFAULT_SEGMENT_SIZE),
+                ConfigUtils.getInt(config, "max-segments").orElse(DEFAULT_MAX_SEGMENTS),
+                ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, "flush-interval").map(Duration::ofMillis).orElse(DEFAULT_FLUSH_INTERVAL)
+        );
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.application.event.AppEvent;
+import co.runrightfast.core.application.event.AppEventLogger;
+import static co.runrightfast.core.application.event.ApplicationEvents.APP_EVENTS_SUPPRESSED;
+import co.runrightfast.core.application.event.ApplicationEvents.SuppressedEvents;
+import co.runrightfast.core.application.event.LogRateLimiter;
+import static com.google.common.base.Preconditions.checkArgument;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * INFO events are sampled and rate limited per event name, e.g., health check events, which are logged each time a health check is run. WARN, ERROR, ALERT,
+ * and CLEAR events are never suppressed.
+ *
+ * When an event is logged after events with the same name were suppressed, then an <code>app.events.suppressed</code> event is logged first, which
+ * reports the number of suppressed events. Suppressed events that are not followed by a permitted event with the same name are reported every flush
+ * interval, and when the logger is closed.
+ *
+ * Closing the logger closes the delegate logger if it is {@link AutoCloseable}.
+ *
+ * @author alfio
+ */
+public final class RateLimitedAppEventLogger implements AppEventLogger, AutoCloseable {
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(10);
+
+    @NonNull
+    private final AppEventLogger delegate;
+
+    @NonNull
+    @Getter
+    private final LogRateLimiter rateLimiter;
+
+    private final ScheduledExecutorService flusher;
+
+    public RateLimitedAppEventLogger(@NonNull final AppEventLogger delegate, @NonNull final LogRateLimiter rateLimiter) {
+        this(delegate, rateLimiter, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     *
+     * @param delegate the logger that permitted events are passed to
+     * @param rateLimiter rate limiter
+     * @param flushInterval how often the suppressed event counts, which have not been reported with a permitted event, are reported
+     */
+    public RateLimitedAppEventLogger(@NonNull final AppEventLogger delegate, @NonNull final LogRateLimiter rateLimiter, @NonNull final Duration flushInterval) {
+        checkArgument(!(flushInterval.isNegative() || flushInterval.isZero()), "flushInterval must be > 0");
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "RateLimitedAppEventLogger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long flushIntervalMillis = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushSuppressed, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void accept(@NonNull final AppEvent event) {
+        if (event.getEventLevel().isWarnErrorAlert()) {
+            delegate.accept(event);
+            return;
+        }
+
+        final long suppressed = rateLimiter.tryAcquire(event.getEvent());
+        if (suppressed == LogRateLimiter.SUPPRESSED) {
+            return;
+        }
+        if (suppressed > 0) {
+            logSuppressed(event.getEvent(), suppressed);
+        }
+        delegate.accept(event);
+    }
+
+    /**
+     * Reports the suppressed event counts that have not been reported with a permitted event
+     */
+    public void flushSuppressed() {
+        rateLimiter.drainSuppressed(this::logSuppressed);
+    }
+
+    /**
+     * Reports the pending suppressed event counts, and then closes the delegate logger.
+     *
+     * @throws Exception if the delegate fails to close
+     */
+    @Override
+    public void close() throws Exception {
+        flusher.shutdown();
+        flushSuppressed();
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    private void logSuppressed(final String event, final long suppressed) {
+        delegate.accept(AppEvent.info(APP_EVENTS_SUPPRESSED)
+                .setData(new SuppressedEvents(event, suppressed))
+                .build()
+        );
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.services.healthchecks;
+
+import com.codahale.metrics.health.HealthCheck;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Health check result, along with when the result was produced
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class CachedHealthCheckResult {
+
+    @NonNull
+    @Getter
+    private final String registryName;
+
+    @NonNull
+    @Getter
+    private final String name;
+
+    @NonNull
+    @Getter
+    private final HealthCheck.Result result;
+
+    /**
+     * When the health check completed, in epoch millis
+     */
+    @Getter
+    private final long timestampMillis;
+
+    public String getTimestamp() {
+        return ISO_OFFSET_DATE_TIME.format(OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault()));
+    }
+
+    public Duration getAge() {
+        return Duration.ofMillis(System.currentTimeMillis() - timestampMillis);
+    }
+
+    /**
+     *
+     * @param maxStaleness max age
+     * @return true if the result is not older than the max staleness
+     */
+    public boolean isFresh(@NonNull final Duration maxStaleness) {
+        return getAge().compareTo(maxStaleness) <= 0;
+    }
+
+}
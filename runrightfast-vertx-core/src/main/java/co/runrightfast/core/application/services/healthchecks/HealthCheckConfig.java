@@ -17,6 +17,7 @@ package co.runrightfast.core.application.services.healthchecks;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.collect.ImmutableSet;
+import java.time.Duration;
 import java.util.Set;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -33,6 +34,10 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 @EqualsAndHashCode(of = {"registryName", "name"})
 public final class HealthCheckConfig {
 
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
     @Getter
     private final String registryName;
 
@@ -46,6 +51,18 @@ public final class HealthCheckConfig {
     @Singular
     private final Set<String> tags;
 
+    /**
+     * If the health check does not complete within the timeout, then it is reported as unhealthy with a "timed out" message
+     */
+    @Getter
+    private final Duration timeout;
+
+    /**
+     * How often the cached health check result is refreshed in the background
+     */
+    @Getter
+    private final Duration refreshInterval;
+
     public static enum FailureSeverity {
 
         FATAL(1000),
@@ -63,14 +80,20 @@ public final class HealthCheckConfig {
 
     /* @param severity FailureSeverity
      * @param tags optional set of tags for the healthcheck that can be used to categorize the healthcheck, e.g, web, database, elasticsearch, vertx, orientdb
+     * @param timeout optional - if null, then {@link #DEFAULT_TIMEOUT} is applied
+     * @param refreshInterval optional - if null, then {@link #DEFAULT_REFRESH_INTERVAL} is applied
      */
-    public HealthCheckConfig(final String registry, final String name, @NonNull final FailureSeverity severity, @NonNull final Set<String> tags) {
+    public HealthCheckConfig(final String registry, final String name, @NonNull final FailureSeverity severity, @NonNull final Set<String> tags, final Duration timeout, final Duration refreshInterval) {
         checkArgument(isNotBlank(registry));
         checkArgument(isNotBlank(name));
+        checkArgument(timeout == null || !(timeout.isNegative() || timeout.isZero()), "timeout must be > 0");
+        checkArgument(refreshInterval == null || !(refreshInterval.isNegative() || refreshInterval.isZero()), "refreshInterval must be > 0");
         this.registryName = registry;
         this.name = name;
         this.severity = severity;
         this.tags = ImmutableSet.copyOf(tags);
+        this.timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+        this.refreshInterval = refreshInterval != null ? refreshInterval : DEFAULT_REFRESH_INTERVAL;
     }
 
 }
@@ -7,6 +7,8 @@ package co.runrightfast.core.application.services.healthchecks;
 
 import com.codahale.metrics.health.HealthCheck;
 import java.beans.ConstructorProperties;
+import java.time.OffsetDateTime;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import javax.management.MXBean;
 import lombok.Data;
 import lombok.Getter;
@@ -32,16 +34,22 @@ public interface HealthChecksMXBean {
         private final String message;
         @Getter
         private final String exception;
+        /**
+         * When the health check result was produced, in ISO format
+         */
+        @Getter
+        private final String timestamp;
 
         @ConstructorProperties({
-            "registryName", "name", "healthy", "message", "exception"
+            "registryName", "name", "healthy", "message", "exception", "timestamp"
         })
-        public HealthCheckResult(final String registryName, final String name, final boolean healthy, final String message, final String exception) {
+        public HealthCheckResult(final String registryName, final String name, final boolean healthy, final String message, final String exception, final String timestamp) {
             this.registryName = registryName;
             this.name = name;
             this.healthy = healthy;
             this.message = message;
             this.exception = exception;
+            this.timestamp = timestamp;
         }
 
         public HealthCheckResult(final RunRightFastHealthCheckResult result) {
@@ -54,6 +62,20 @@ public interface HealthChecksMXBean {
             } else {
                 this.exception = null;
             }
+            this.timestamp = ISO_OFFSET_DATE_TIME.format(OffsetDateTime.now());
+        }
+
+        public HealthCheckResult(final CachedHealthCheckResult result) {
+            this.registryName = result.getRegistryName();
+            this.name = result.getName();
+            this.healthy = result.getResult().isHealthy();
+            this.message = result.getResult().getMessage();
+            if (result.getResult().getError() != null) {
+                this.exception = ExceptionUtils.getStackTrace(result.getResult().getError());
+            } else {
+                this.exception = null;
+            }
+            this.timestamp = result.getTimestamp();
         }
 
         public HealthCheckResult(final String registryName, final String name, final HealthCheck.Result result) {
@@ -66,6 +88,7 @@ public interface HealthChecksMXBean {
             } else {
                 this.exception = null;
             }
+            this.timestamp = ISO_OFFSET_DATE_TIME.format(OffsetDateTime.now());
         }
 
     }
@@ -6,6 +6,7 @@
 package co.runrightfast.core.application.services.healthchecks;
 
 import com.codahale.metrics.health.HealthCheck;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -16,14 +17,52 @@ import java.util.concurrent.CompletableFuture;
  */
 public interface HealthChecksService {
 
+    /**
+     * The unhealthy result message for health checks that did not complete within their timeout
+     */
+    static final String TIMED_OUT = "timed out";
+
     Set<String> getRegistryNames();
 
     Set<String> getHealthCheckNames(final String registry);
 
     HealthCheck.Result runHealthCheck(final String registry, final String name);
 
+    /**
+     * The health check runs on the service's health check thread pool. If the health check does not complete within its timeout, then the result is
+     * unhealthy with a {@link #TIMED_OUT} message.
+     *
+     * @param registry health check registry name
+     * @param name health check name
+     * @return result
+     */
+    CompletableFuture<HealthCheck.Result> runHealthCheckAsync(final String registry, final String name);
+
     Collection<HealthCheck.Result> runHealthChecks();
 
+    /**
+     * Health checks are run concurrently - see {@link #runHealthCheckAsync(java.lang.String, java.lang.String)}
+     *
+     * @return results
+     */
     CompletableFuture<Collection<HealthCheck.Result>> runHealthChecksAsync();
 
+    /**
+     * The result is served from the cache if the cached result is not older than the max staleness. Otherwise, the health check is run and the cache is
+     * updated. Concurrent requests for the same health check share the same run.
+     *
+     * @param registry health check registry name
+     * @param name health check name
+     * @param maxStaleness max age of the cached result
+     * @return result
+     */
+    CompletableFuture<CachedHealthCheckResult> getHealthCheckResult(final String registry, final String name, final Duration maxStaleness);
+
+    /**
+     *
+     * @param maxStaleness max age of the cached results - see {@link #getHealthCheckResult(java.lang.String, java.lang.String, java.time.Duration)}
+     * @return results for all health checks
+     */
+    CompletableFuture<Collection<CachedHealthCheckResult>> getHealthCheckResults(final Duration maxStaleness);
+
 }
@@ -0,0 +1,105 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.services.healthchecks;
+
+import co.runrightfast.core.utils.ConfigUtils;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link HealthChecksService} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class HealthChecksServiceConfig {
+
+    public static final int DEFAULT_THREAD_POOL_SIZE = 4;
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+    public static final boolean DEFAULT_BACKGROUND_REFRESH = false;
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofSeconds(30);
+
+    /**
+     * Health checks are run concurrently on a dedicated thread pool, i.e., the max number of health checks that run at the same time
+     */
+    @Getter
+    private final int threadPoolSize;
+
+    /**
+     * The max number of health checks that are queued to run. Health checks that cannot be queued are reported as unhealthy.
+     */
+    @Getter
+    private final int queueSize;
+
+    /**
+     * If true, then each health check's cached result is refreshed in the background per the health check's refresh interval. Disabled by default, i.e.,
+     * health checks only run when they are requested.
+     */
+    @Getter
+    private final boolean backgroundRefresh;
+
+    /**
+     * The max staleness that is applied to cached results, when the caller does not specify one, e.g., JMX checkAll
+     */
+    @Getter
+    private final Duration maxStaleness;
+
+    public HealthChecksServiceConfig(final int threadPoolSize, final int queueSize, final boolean backgroundRefresh, @NonNull final Duration maxStaleness) {
+        checkArgument(threadPoolSize > 0, "threadPoolSize must be > 0");
+        checkArgument(queueSize > 0, "queueSize must be > 0");
+        checkArgument(!maxStaleness.isNegative(), "maxStaleness must be >= 0");
+        this.threadPoolSize = threadPoolSize;
+        this.queueSize = queueSize;
+        this.backgroundRefresh = backgroundRefresh;
+        this.maxStaleness = maxStaleness;
+    }
+
+    public static HealthChecksServiceConfig defaultConfig() {
+        return new HealthChecksServiceConfig(DEFAULT_THREAD_POOL_SIZE, DEFAULT_QUEUE_SIZE, DEFAULT_BACKGROUND_REFRESH, DEFAULT_MAX_STALENESS);
+    }
+
+    /**
+     * Config schema:
+     *
+     * <code>
+     * {
+     *    thread-pool-size = 4
+     *    queue-size = 256
+     *    background-refresh = true
+     *    max-staleness = 30 s
+     * }
+     * </code>
+     *
+     * @param config Config
+     * @return HealthChecksServiceConfig - defaults are applied to settings that are not specified
+     */
+    public static HealthChecksServiceConfig fromConfig(@NonNull final Config config) {
+        return new HealthChecksServiceConfig(
+                ConfigUtils.getInt(config, "thread-pool-size").orElse(DEFAULT_THREAD_POOL_SIZE),
+                ConfigUtils.getInt(config, "queue-size").orElse(DEFAULT_QUEUE_SIZE),
+                ConfigUtils.getBoolean(config, "background-refresh").orElse(DEFAULT_BACKGROUND_REFRESH),
+                ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, "max-staleness").map(Duration::ofMillis).orElse(DEFAULT_MAX_STALENESS)
+        );
+    }
+
+}
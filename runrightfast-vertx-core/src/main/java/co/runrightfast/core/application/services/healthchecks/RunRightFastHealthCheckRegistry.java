@@ -0,0 +1,77 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.services.healthchecks;
+
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.codahale.metrics.health.SharedHealthCheckRegistries;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+
+/**
+ * HealthCheckRegistry that keeps track of each health check's {@link HealthCheckConfig}, e.g., which is used to apply the health check timeout.
+ *
+ * @author alfio
+ */
+public class RunRightFastHealthCheckRegistry extends HealthCheckRegistry {
+
+    private final Map<String, HealthCheckConfig> configs = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param name registry name
+     * @return the shared registry for the specified name
+     * @throws IllegalStateException if a plain HealthCheckRegistry was already registered using the specified name
+     */
+    public static RunRightFastHealthCheckRegistry getOrCreate(@NonNull final String name) {
+        final RunRightFastHealthCheckRegistry newRegistry = new RunRightFastHealthCheckRegistry();
+        final HealthCheckRegistry registry = SharedHealthCheckRegistries.add(name, newRegistry);
+        if (registry == null) {
+            return newRegistry;
+        }
+        if (registry instanceof RunRightFastHealthCheckRegistry) {
+            return (RunRightFastHealthCheckRegistry) registry;
+        }
+        throw new IllegalStateException(String.format("HealthCheckRegistry is already registered: %s", name));
+    }
+
+    /**
+     * Registers the health check using the config name
+     *
+     * @param healthCheck health check
+     */
+    public void register(@NonNull final RunRightFastHealthCheck healthCheck) {
+        configs.put(healthCheck.getConfig().getName(), healthCheck.getConfig());
+        register(healthCheck.getConfig().getName(), healthCheck.getHealthCheck());
+    }
+
+    @Override
+    public void unregister(final String name) {
+        super.unregister(name);
+        configs.remove(name);
+    }
+
+    /**
+     *
+     * @param name health check name
+     * @return empty if the health check was not registered via {@link #register(co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck)}
+     */
+    public Optional<HealthCheckConfig> getConfig(@NonNull final String name) {
+        return Optional.ofNullable(configs.get(name));
+    }
+
+}
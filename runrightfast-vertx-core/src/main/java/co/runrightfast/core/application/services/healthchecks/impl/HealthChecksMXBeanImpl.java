@@ -19,6 +19,8 @@ import co.runrightfast.core.application.services.healthchecks.HealthChecksMXBean
 import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import com.codahale.metrics.health.HealthCheck;
 import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import lombok.NonNull;
 
 /**
  *
@@ -28,8 +30,16 @@ public final class HealthChecksMXBeanImpl implements HealthChecksMXBean {
 
     private final HealthChecksService healthCheckService;
 
-    HealthChecksMXBeanImpl(final HealthChecksService healthCheckService) {
+    private final Duration maxStaleness;
+
+    /**
+     *
+     * @param healthCheckService HealthChecksService
+     * @param maxStaleness applied by {@link #checkAll()}
+     */
+    HealthChecksMXBeanImpl(final HealthChecksService healthCheckService, @NonNull final Duration maxStaleness) {
         this.healthCheckService = healthCheckService;
+        this.maxStaleness = maxStaleness;
     }
 
     @Override
@@ -48,17 +58,16 @@ public final class HealthChecksMXBeanImpl implements HealthChecksMXBean {
         return new HealthCheckResult(registry, name, result);
     }
 
+    /**
+     * Cached results are returned if they are not older than the configured max staleness. Stale results are refreshed concurrently.
+     *
+     * @return results
+     */
     @Override
     public HealthCheckResult[] checkAll() {
-        final ImmutableList.Builder<HealthCheckResult> results = ImmutableList.builder();
-        healthCheckService.getRegistryNames().stream().forEach(registry -> {
-            healthCheckService.getHealthCheckNames(registry).stream().forEach(name -> {
-                final HealthCheck.Result result = healthCheckService.runHealthCheck(registry, name);
-                results.add(new HealthCheckResult(registry, name, result));
-            });
-        });
-
-        return results.build().stream().toArray(HealthCheckResult[]::new);
+        return healthCheckService.getHealthCheckResults(maxStaleness).join().stream()
+                .map(HealthCheckResult::new)
+                .toArray(HealthCheckResult[]::new);
     }
 
     @Override
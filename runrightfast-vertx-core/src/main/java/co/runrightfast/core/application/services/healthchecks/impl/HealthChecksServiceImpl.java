@@ -21,36 +21,134 @@ import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.ALER
 import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.INFO;
 import co.runrightfast.core.application.event.AppEventLogger;
 import co.runrightfast.core.application.event.ApplicationEvents;
+import co.runrightfast.core.application.services.healthchecks.CachedHealthCheckResult;
+import co.runrightfast.core.application.services.healthchecks.HealthCheckConfig;
 import co.runrightfast.core.application.services.healthchecks.HealthChecksMXBean;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksMXBean.HealthCheckId;
 import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksServiceConfig;
+import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheckRegistry;
 import static co.runrightfast.core.utils.JmxUtils.registerApplicationMBean;
+import co.runrightfast.vertx.core.VertxService;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.timerName;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.health.HealthCheck;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import com.codahale.metrics.health.SharedHealthCheckRegistries;
 import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.collect.ImmutableList;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static java.util.logging.Level.WARNING;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.NonNull;
+import lombok.extern.java.Log;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
+ * Health checks are run concurrently on a dedicated bounded thread pool - see {@link HealthChecksServiceConfig}.
+ *
+ * Each health check run is bounded by the timeout defined by its {@link HealthCheckConfig}. The timeout starts when the health check starts running, i.e.,
+ * time spent waiting in the queue does not count. Health checks that were not registered via a {@link RunRightFastHealthCheckRegistry} are bounded by
+ * {@link HealthCheckConfig#DEFAULT_TIMEOUT}. When a health check times out, the result is unhealthy with a "timed out" message, and the health check thread
+ * is interrupted. The health check duration is recorded per health check via a timer named TIMER.healthcheck.[registry].[name].
+ *
+ * The latest result for each health check is cached along with the time it was produced. Readers specify how stale a result they are willing to accept -
+ * see {@link #getHealthCheckResult(String, String, Duration)}. Concurrent requests for the same health check are coalesced into a single run. When background
+ * refresh is enabled, the cached results are refreshed per each health check's {@link HealthCheckConfig#getRefreshInterval()}.
+ *
+ * The health check thread pool and the background refresh scheduler are stopped when the service is closed - see {@link #close()}.
  *
  * @author alfio
  */
 @Singleton
-public final class HealthChecksServiceImpl implements HealthChecksService {
+@Log
+public final class HealthChecksServiceImpl implements HealthChecksService, AutoCloseable {
+
+    public static final String REJECTED = "rejected : too many health checks are queued";
+
+    public static final String CLOSED = "rejected : health checks service is closed";
+
+    /**
+     * How often the background refresh checks for stale health check results
+     */
+    public static final Duration REFRESH_TICK = Duration.ofSeconds(1);
+
+    private static final String CLASS_NAME = HealthChecksServiceImpl.class.getName();
 
     private final AppEventLogger appEventLogger;
 
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentHashMap<HealthCheckId, CachedHealthCheckResult> cachedResults = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<HealthCheckId, CompletableFuture<CachedHealthCheckResult>> healthCheckRuns = new ConcurrentHashMap<>();
+
     @Inject
     public HealthChecksServiceImpl(@NonNull final AppEventLogger appEventLogger, final String jmxDomain) {
+        this(appEventLogger, jmxDomain, HealthChecksServiceConfig.defaultConfig());
+    }
+
+    public HealthChecksServiceImpl(@NonNull final AppEventLogger appEventLogger, final String jmxDomain, @NonNull final HealthChecksServiceConfig config) {
         this.appEventLogger = appEventLogger;
-        registerApplicationMBean(jmxDomain, new HealthChecksMXBeanImpl(this), HealthChecksMXBean.class);
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getThreadPoolSize(),
+                config.getThreadPoolSize(),
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(config.getQueueSize()),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "healthcheck-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "healthcheck-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.isBackgroundRefresh()) {
+            scheduler.scheduleWithFixedDelay(this::refreshStaleResults, REFRESH_TICK.toMillis(), REFRESH_TICK.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        registerApplicationMBean(jmxDomain, new HealthChecksMXBeanImpl(this, config.getMaxStaleness()), HealthChecksMXBean.class);
+    }
+
+    /**
+     * Stops the background refresh and the health check thread pool. Running health checks are interrupted. Health check runs that have not completed are
+     * completed with an unhealthy {@link #CLOSED} result.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        healthCheckRuns.forEach((healthCheckId, healthCheckRun) -> healthCheckRun.complete(CachedHealthCheckResult.builder()
+                .registryName(healthCheckId.getRegistry())
+                .name(healthCheckId.getName())
+                .result(HealthCheck.Result.unhealthy(CLOSED))
+                .timestampMillis(System.currentTimeMillis())
+                .build()
+        ));
+        healthCheckRuns.clear();
+        executor.shutdownNow();
     }
 
     @Override
@@ -69,30 +167,150 @@ public final class HealthChecksServiceImpl implements HealthChecksService {
 
     @Override
     public HealthCheck.Result runHealthCheck(final String registryName, final String healthCheckName) {
+        return runHealthCheckAsync(registryName, healthCheckName).join();
+    }
+
+    @Override
+    public CompletableFuture<HealthCheck.Result> runHealthCheckAsync(final String registryName, final String healthCheckName) {
+        return refresh(registryName, healthCheckName).thenApply(CachedHealthCheckResult::getResult);
+    }
+
+    @Override
+    public Collection<HealthCheck.Result> runHealthChecks() {
+        return runHealthChecksAsync().join();
+    }
+
+    @Override
+    public CompletableFuture<Collection<HealthCheck.Result>> runHealthChecksAsync() {
+        final List<CompletableFuture<HealthCheck.Result>> results = getRegistryNames().stream()
+                .flatMap(registryName -> getHealthCheckNames(registryName).stream().map(healthCheckName -> runHealthCheckAsync(registryName, healthCheckName)))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(results.stream().toArray(CompletableFuture[]::new))
+                .thenApply(done -> ImmutableList.copyOf(results.stream().map(CompletableFuture::join).collect(Collectors.toList())));
+    }
+
+    @Override
+    public CompletableFuture<CachedHealthCheckResult> getHealthCheckResult(final String registryName, final String healthCheckName, @NonNull final Duration maxStaleness) {
+        final CachedHealthCheckResult cachedResult = cachedResults.get(new HealthCheckId(registryName, healthCheckName));
+        if (cachedResult != null && cachedResult.isFresh(maxStaleness)) {
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+        return refresh(registryName, healthCheckName);
+    }
+
+    @Override
+    public CompletableFuture<Collection<CachedHealthCheckResult>> getHealthCheckResults(@NonNull final Duration maxStaleness) {
+        final List<CompletableFuture<CachedHealthCheckResult>> results = getRegistryNames().stream()
+                .flatMap(registryName -> getHealthCheckNames(registryName).stream().map(healthCheckName -> getHealthCheckResult(registryName, healthCheckName, maxStaleness)))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(results.stream().toArray(CompletableFuture[]::new))
+                .thenApply(done -> ImmutableList.copyOf(results.stream().map(CompletableFuture::join).collect(Collectors.toList())));
+    }
+
+    /**
+     * Runs the health check and caches the result. If the health check is already running, then the in flight run is returned.
+     */
+    private CompletableFuture<CachedHealthCheckResult> refresh(final String registryName, final String healthCheckName) {
         checkArgument(isNotBlank(registryName));
         checkArgument(isNotBlank(healthCheckName));
         checkArgument(SharedHealthCheckRegistries.names().contains(registryName));
 
         final HealthCheckRegistry registry = SharedHealthCheckRegistries.getOrCreate(registryName);
         checkArgument(registry.getNames().contains(healthCheckName));
-        final HealthCheck.Result result = registry.runHealthCheck(healthCheckName);
-        logAppEvent(result, registryName, healthCheckName);
+
+        final HealthCheckId healthCheckId = new HealthCheckId(registryName, healthCheckName);
+        final CompletableFuture<CachedHealthCheckResult> healthCheckRun = new CompletableFuture<>();
+        final CompletableFuture<CachedHealthCheckResult> inFlightRun = healthCheckRuns.putIfAbsent(healthCheckId, healthCheckRun);
+        if (inFlightRun != null) {
+            return inFlightRun;
+        }
+
+        execute(registry, registryName, healthCheckName).whenComplete((result, exception) -> {
+            final CachedHealthCheckResult cachedResult = CachedHealthCheckResult.builder()
+                    .registryName(registryName)
+                    .name(healthCheckName)
+                    .result(result != null ? result : HealthCheck.Result.unhealthy(exception))
+                    .timestampMillis(System.currentTimeMillis())
+                    .build();
+            cachedResults.put(healthCheckId, cachedResult);
+            healthCheckRuns.remove(healthCheckId, healthCheckRun);
+            healthCheckRun.complete(cachedResult);
+            logAppEvent(cachedResult.getResult(), registryName, healthCheckName);
+        });
+        return healthCheckRun;
+    }
+
+    private CompletableFuture<HealthCheck.Result> execute(final HealthCheckRegistry registry, final String registryName, final String healthCheckName) {
+        final Timer timer = VertxService.metricRegistry.timer(timerName("healthcheck", registryName, healthCheckName));
+        final CompletableFuture<HealthCheck.Result> result = new CompletableFuture<>();
+        final long timeoutMillis = getTimeout(registry, healthCheckName).toMillis();
+        try {
+            executor.execute(() -> {
+                // the timeout clock starts when the health check starts running, i.e., time spent queued does not count against the health check
+                final Thread healthCheckThread = Thread.currentThread();
+                final Timer.Context timerContext = timer.time();
+                ScheduledFuture<?> timeout = null;
+                try {
+                    timeout = scheduler.schedule(() -> {
+                        if (result.complete(HealthCheck.Result.unhealthy(TIMED_OUT))) {
+                            healthCheckThread.interrupt();
+                        }
+                    }, timeoutMillis, TimeUnit.MILLISECONDS);
+                    result.complete(registry.runHealthCheck(healthCheckName));
+                } catch (final Throwable t) {
+                    result.complete(HealthCheck.Result.unhealthy(t));
+                } finally {
+                    if (timeout != null) {
+                        timeout.cancel(false);
+                    }
+                    timerContext.stop();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            result.complete(HealthCheck.Result.unhealthy(executor.isShutdown() ? CLOSED : REJECTED));
+        }
         return result;
     }
 
-    @Override
-    public Collection<HealthCheck.Result> runHealthChecks() {
-        final ImmutableList.Builder<HealthCheck.Result> results = ImmutableList.builder();
-        getRegistryNames().stream()
-                .forEach(registryName -> {
-                    getHealthCheckNames(registryName).forEach(healthCheckName -> results.add(runHealthCheck(registryName, healthCheckName)));
+    /**
+     * Refreshes cached results that are older than the health check's refresh interval, and evicts cached results for health checks that are no longer
+     * registered.
+     */
+    private void refreshStaleResults() {
+        try {
+            getRegistryNames().forEach(registryName -> {
+                final HealthCheckRegistry registry = SharedHealthCheckRegistries.getOrCreate(registryName);
+                registry.getNames().forEach(healthCheckName -> {
+                    final CachedHealthCheckResult cachedResult = cachedResults.get(new HealthCheckId(registryName, healthCheckName));
+                    if (cachedResult == null || !cachedResult.isFresh(getRefreshInterval(registry, healthCheckName))) {
+                        refresh(registryName, healthCheckName);
+                    }
                 });
-        return results.build();
+            });
+            cachedResults.keySet().removeIf(healthCheckId -> !getHealthCheckNames(healthCheckId.getRegistry()).contains(healthCheckId.getName()));
+        } catch (final Throwable t) {
+            // the scheduled task must not fail, otherwise it would not be rescheduled
+            log.logp(WARNING, CLASS_NAME, "refreshStaleResults", "failed to refresh health check results", t);
+        }
     }
 
-    @Override
-    public CompletableFuture<Collection<HealthCheck.Result>> runHealthChecksAsync() {
-        return CompletableFuture.supplyAsync(this::runHealthChecks);
+    private Duration getTimeout(final HealthCheckRegistry registry, final String healthCheckName) {
+        return getConfig(registry, healthCheckName)
+                .map(HealthCheckConfig::getTimeout)
+                .orElse(HealthCheckConfig.DEFAULT_TIMEOUT);
+    }
+
+    private Duration getRefreshInterval(final HealthCheckRegistry registry, final String healthCheckName) {
+        return getConfig(registry, healthCheckName)
+                .map(HealthCheckConfig::getRefreshInterval)
+                .orElse(HealthCheckConfig.DEFAULT_REFRESH_INTERVAL);
+    }
+
+    private Optional<HealthCheckConfig> getConfig(final HealthCheckRegistry registry, final String healthCheckName) {
+        if (registry instanceof RunRightFastHealthCheckRegistry) {
+            return ((RunRightFastHealthCheckRegistry) registry).getConfig(healthCheckName);
+        }
+        return Optional.empty();
     }
 
     private void logAppEvent(final HealthCheck.Result result, final String registryName, final String healthCheckName) {
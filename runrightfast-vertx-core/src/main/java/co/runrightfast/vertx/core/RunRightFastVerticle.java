@@ -17,23 +17,42 @@ package co.runrightfast.vertx.core;
 
 import co.runrightfast.core.application.event.AppEvent;
 import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.ExceptionFingerprints;
+import co.runrightfast.core.application.event.ExceptionFingerprints.Occurrence;
+import co.runrightfast.core.application.event.LogRateLimiter;
 import co.runrightfast.core.application.event.ApplicationEvents.RunRightFastVerticleManagerDeployment;
 import static co.runrightfast.core.application.event.ApplicationEvents.VERTICLE_DEPLOYMENT_FAILED;
 import co.runrightfast.core.application.services.healthchecks.HealthCheckConfig;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheckRegistry;
+import co.runrightfast.core.utils.JvmProcess;
 import co.runrightfast.core.utils.LoggingUtils;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newErrorLog;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newInfoLog;
 import static co.runrightfast.core.utils.LoggingUtils.JsonLog.newWarningLog;
 import static co.runrightfast.core.utils.ProtobufUtils.protobuMessageToJson;
+import static co.runrightfast.core.utils.StreamingJsonRenderer.writeJsonValue;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters.MESSAGE_CONSUMER_MESSAGE_FAILURE;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters.MESSAGE_CONSUMER_MESSAGE_PROCESSING;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters.MESSAGE_CONSUMER_MESSAGE_SUCCESS;
+import co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_COMPLETION_HANDOFF;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_EXECUTION;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_QUEUE_WAIT;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_REQUEST_SIZE;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_RESPONSE_SIZE;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_TRANSPORT_LATENCY;
+import co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Timers.MESSAGE_CONSUMER_HANDLER;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.verticleMetricTags;
 import static co.runrightfast.vertx.core.VertxService.LOG;
+import co.runrightfast.vertx.core.eventbus.BatchedMessage;
 import co.runrightfast.vertx.core.eventbus.EventBusAddress;
 import co.runrightfast.vertx.core.eventbus.EventBusAddressMessageMapping;
 import co.runrightfast.vertx.core.eventbus.EventBusUtils;
+import co.runrightfast.vertx.core.eventbus.LazyProtobufMessage;
+import static co.runrightfast.vertx.core.eventbus.LazyProtobufMessage.lazyProtobufMessage;
 import static co.runrightfast.vertx.core.eventbus.EventBusUtils.responseDeliveryOptions;
 import static co.runrightfast.vertx.core.eventbus.EventBusUtils.withVerticleDeploymentId;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig;
@@ -42,25 +61,42 @@ import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.Failure;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerHandlerException;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerRegistration;
 import co.runrightfast.vertx.core.eventbus.MessageHeader;
+import co.runrightfast.vertx.core.eventbus.MessageTooLargeException;
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.getMessageTimestamp;
 import static co.runrightfast.vertx.core.eventbus.MessageHeader.getReplyToAddress;
-import co.runrightfast.vertx.core.eventbus.ProtobufMessageCodec;
+import co.runrightfast.vertx.core.eventbus.ProtobufMessageBatchProducer;
+import co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodecRegistry;
 import co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer;
+import co.runrightfast.vertx.core.jfr.FlightRecorderEvents;
+import co.runrightfast.vertx.core.jfr.MessageConsumerDispatchRecording;
+import static co.runrightfast.vertx.core.metrics.RunningMessageHandlers.messageHandlerCompleted;
+import static co.runrightfast.vertx.core.metrics.RunningMessageHandlers.messageHandlerStarted;
+import co.runrightfast.vertx.core.metrics.TaggedMetricRegistry;
+import co.runrightfast.vertx.core.metrics.ThreadResourceUsage;
 import static co.runrightfast.vertx.core.protobuf.MessageConversions.toJsonArray;
 import static co.runrightfast.vertx.core.protobuf.MessageConversions.toVerticleId;
 import static co.runrightfast.core.utils.VertxUtils.toJsonObject;
+import co.runrightfast.vertx.core.tracing.TraceContext;
+import co.runrightfast.vertx.core.tracing.Tracer;
+import co.runrightfast.vertx.core.verticles.messages.MessageBatch;
 import co.runrightfast.vertx.core.verticles.messages.Ping;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleDeployment;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleManager;
 import static co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleManager.VERTICLE_ID;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
-import com.codahale.metrics.health.HealthCheckRegistry;
-import com.codahale.metrics.health.SharedHealthCheckRegistries;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.hazelcast.core.HazelcastInstance;
 import io.vertx.core.AbstractVerticle;
@@ -70,18 +106,18 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.EventBus;
-import io.vertx.core.eventbus.MessageCodec;
 import io.vertx.core.eventbus.MessageConsumer;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.INFO;
 import java.util.logging.Logger;
-import javax.json.Json;
-import javax.json.JsonObject;
-import javax.json.JsonObjectBuilder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -115,6 +151,11 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
 
     private static final AtomicInteger instanceSequence = new AtomicInteger(0);
 
+    /**
+     * The per message INFO log records are sampled and rate limited per EventBus address
+     */
+    private static volatile LogRateLimiter messageLogRateLimiter = LogRateLimiter.unlimited();
+
     protected final String CLASS_NAME = getClass().getName();
     protected final Logger log = Logger.getLogger(CLASS_NAME);
 
@@ -125,8 +166,14 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     @Getter
     protected MetricRegistry metricRegistry;
 
+    /**
+     * Backed by {@link #metricRegistry}. Metrics are tagged with the verticle id, the verticle instance id, and the node, i.e., {@link JvmProcess#JVM_ID}.
+     */
     @Getter
-    protected HealthCheckRegistry healthCheckRegistry;
+    protected TaggedMetricRegistry taggedMetricRegistry;
+
+    @Getter
+    protected RunRightFastHealthCheckRegistry healthCheckRegistry;
 
     // EventBus address -> MessageConsumerRegistration
     @Getter
@@ -135,6 +182,9 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     @Getter
     protected ImmutableSet<ProtobufMessageProducer> messageProducers = ImmutableSet.of();
 
+    // EventBus address -> MessageConsumerMetrics
+    private ImmutableMap<String, MessageConsumerMetrics> messageConsumerMetrics = ImmutableMap.of();
+
     protected int instanceId;
 
     protected RunRightFastVerticleInstanceId verticleInstanceId;
@@ -143,6 +193,14 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     @Setter
     protected Optional<RunRightFastVerticleInstanceId> parentVerticleInstanceId = Optional.empty();
 
+    /**
+     * Set by the {@link RunRightFastVerticleManager} that deploys the verticle. It is handed down to the verticle managers that are created via
+     * {@link #deployVerticles(java.util.Set)}.
+     */
+    @Getter
+    @Setter
+    protected HealthChecksService healthChecksService;
+
     @NonNull
     protected final AppEventLogger appEventLogger;
 
@@ -185,41 +243,42 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     @Override
     public final void init(final Vertx vertx, final Context context) {
         super.init(vertx, context);
-        this.metricRegistry = SharedMetricRegistries.getOrCreate(getRunRightFastVerticleId().toString());
-        this.healthCheckRegistry = SharedHealthCheckRegistries.getOrCreate(getRunRightFastVerticleId().toString());
         this.instanceId = instanceSequence.incrementAndGet();
+        this.metricRegistry = SharedMetricRegistries.getOrCreate(getRunRightFastVerticleId().toString());
+        this.taggedMetricRegistry = new TaggedMetricRegistry(metricRegistry, verticleMetricTags(getRunRightFastVerticleId()).withInstance(instanceId));
+        this.healthCheckRegistry = RunRightFastHealthCheckRegistry.getOrCreate(getRunRightFastVerticleId().toString());
         this.verticleInstanceId = new RunRightFastVerticleInstanceId(getRunRightFastVerticleId(), instanceId, context.deploymentID());
-        info.log("init", () -> lifeCycleMsg("initialized"));
+        info.log("init", json -> writeLifeCycleMsg(json, "initialized"));
     }
 
     @Override
     public final void start() throws Exception {
-        info.log("start", () -> lifeCycleMsg("starting"));
+        info.log("start", json -> writeLifeCycleMsg(json, "starting"));
         try {
-            metricRegistry.counter(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName).inc();
+            RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.counter(new TaggedMetricRegistry(metricRegistry, verticleMetricTags(getRunRightFastVerticleId()))).inc();
             startUp();
             registerHealthChecks();
             registerPingMessageConsumer();
         } finally {
-            info.log("start", () -> lifeCycleMsg("started"));
+            info.log("start", json -> writeLifeCycleMsg(json, "started"));
         }
     }
 
     @Override
     public final void stop() throws Exception {
-        info.log("stop", () -> lifeCycleMsg("stopping"));
+        info.log("stop", json -> writeLifeCycleMsg(json, "stopping"));
         try {
             unregisterhealthChecks();
             shutDown();
         } finally {
-            metricRegistry.counter(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName).dec();
-            info.log("stop", () -> lifeCycleMsg("stopped"));
+            RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.counter(new TaggedMetricRegistry(metricRegistry, verticleMetricTags(getRunRightFastVerticleId()))).dec();
+            info.log("stop", json -> writeLifeCycleMsg(json, "stopped"));
         }
     }
 
     private void registerPingMessageConsumer() {
         final MessageConsumerConfig<Ping.Request, Ping.Response> messageConsumerConfig = MessageConsumerConfig.<Ping.Request, Ping.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<Ping.Request, Ping.Response>builder()
                         .address(eventBusAddress(Ping.class))
                         .requestDefaultInstance(Ping.Request.getDefaultInstance())
                         .responseDefaultInstance(Ping.Response.getDefaultInstance())
@@ -243,19 +302,20 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     }
 
     private void registerHealthChecks() {
-        getHealthChecks().stream().forEach(healthCheck -> healthCheckRegistry.register(healthCheck.getConfig().getName(), healthCheck.getHealthCheck()));
+        getHealthChecks().stream().forEach(healthCheckRegistry::register);
     }
 
     private void unregisterhealthChecks() {
         getHealthChecks().stream().forEach(healthCheck -> healthCheckRegistry.unregister(healthCheck.getConfig().getName()));
     }
 
-    private JsonObject lifeCycleMsg(final String state) {
-        return Json.createObjectBuilder()
-                .add("verticleId", getRunRightFastVerticleId().toJson())
-                .add("instanceId", instanceId)
-                .add("state", state)
-                .build();
+    private void writeLifeCycleMsg(final JsonGenerator json, final String state) throws IOException {
+        json.writeStartObject();
+        json.writeFieldName("verticleId");
+        getRunRightFastVerticleId().writeJson(json);
+        json.writeNumberField("instanceId", instanceId);
+        json.writeStringField("state", state);
+        json.writeEndObject();
     }
 
     /**
@@ -277,7 +337,8 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         consumer.endHandler(config.getEndHandler().map(handler -> messageConsumerEndHandler(address, Optional.of(handler), config))
                 .orElseGet(() -> messageConsumerEndHandler(address, Optional.empty(), config)));
         config.getExceptionHandler().ifPresent(consumer::exceptionHandler);
-        consumer.handler(messageConsumerHandler(config));
+        final MessageConsumerMetrics metrics = new MessageConsumerMetrics(taggedMetricRegistry.withAddress(config.address()));
+        consumer.handler(messageBatchUnpackingHandler(config, messageConsumerHandler(config, metrics)));
 
         final String processSpecificAddress = config.getAddressMessageMapping().getProcessSpecificAddress();
         final MessageConsumer<REQ> processSpecificConsumer = config.isLocal() ? eventBus.localConsumer(processSpecificAddress) : eventBus.consumer(processSpecificAddress);
@@ -286,13 +347,14 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         processSpecificConsumer.endHandler(config.getEndHandler().map(handler -> messageConsumerEndHandler(processSpecificAddress, Optional.of(handler), config))
                 .orElseGet(() -> messageConsumerEndHandler(processSpecificAddress, Optional.empty(), config)));
         config.getExceptionHandler().ifPresent(processSpecificConsumer::exceptionHandler);
-        processSpecificConsumer.handler(messageConsumerHandler(config));
+        processSpecificConsumer.handler(messageBatchUnpackingHandler(config, messageConsumerHandler(config, metrics)));
 
         final MessageConsumerRegistration<REQ, RESP> messageConsumerRegistration = MessageConsumerRegistration.<REQ, RESP>builder()
                 .messageConsumer(consumer)
                 .processSpecificMessageConsumer(processSpecificConsumer)
                 .config(config)
                 .build();
+        messageConsumerMetrics = ImmutableMap.<String, MessageConsumerMetrics>builder().putAll(messageConsumerMetrics).put(config.address(), metrics).build();
         messageConsumerRegistrations = ImmutableMap.<String, MessageConsumerRegistration<?, ?>>builder().putAll(messageConsumerRegistrations).put(
                 config.address(),
                 messageConsumerRegistration
@@ -301,48 +363,42 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     }
 
     /**
-     * An IllegalStateException is thrown if a codec is already registered with the same name. Ignore the exception.
+     * Codecs for the message types discovered at startup are already registered - see {@link ProtobufMessageCodecRegistry}. Any other message types are
+     * registered on demand.
      *
      * @param <REQ>
      * @param <RESP>
      * @param config
      */
     private <REQ extends Message, RESP extends Message> void registerMessageCodecs(final MessageConsumerConfig<REQ, RESP> config) {
-        final EventBus eventBus = vertx.eventBus();
-        try {
-            final MessageCodec codec = new ProtobufMessageCodec(config.getAddressMessageMapping().getRequestDefaultInstance());
-            eventBus.registerDefaultCodec(config.getAddressMessageMapping().getRequestDefaultInstance().getClass(), codec);
-        } catch (final IllegalStateException e) {
-            log.logp(FINE, CLASS_NAME, "registerMessageCodecs", "failed to register codec for request message", e.getCause());
+        final ProtobufMessageCodecRegistry codecRegistry = protobufMessageCodecRegistry(vertx.eventBus());
+        if (config.isLazyDecoding()) {
+            codecRegistry.registerLazyMessageCodec(config.getAddressMessageMapping().getRequestDefaultInstance());
+        } else {
+            codecRegistry.registerEagerMessageCodec(config.getAddressMessageMapping().getRequestDefaultInstance());
         }
-
-        config.getAddressMessageMapping().getResponseDefaultInstance().ifPresent(responseDefaultInstance -> {
-            try {
-                // TODO: Investigate why Optional type is lost - forced to cast responseDefaultInstance to Message
-                final MessageCodec codec = new ProtobufMessageCodec((Message) responseDefaultInstance);
-                eventBus.registerDefaultCodec(responseDefaultInstance.getClass(), codec);
-            } catch (final IllegalStateException e) {
-                log.logp(FINE, CLASS_NAME, "registerMessageCodecs", "failed to register codec for response message", e.getCause());
-            }
-        });
+        codecRegistry.registerMessageCodec(MessageBatch.getDefaultInstance());
+        config.getAddressMessageMapping().getResponseDefaultInstance().ifPresent(codecRegistry::registerMessageCodec);
     }
 
-    private <REQ extends Message, RESP extends Message> JsonObject messageConsumerLogInfo(final String address, final MessageConsumerConfig<REQ, RESP> config) {
-        return messageConsumerLogInfoAsJson(address, config).build();
+    private void writeMessageConsumerLogInfo(final JsonGenerator json, final String address, final MessageConsumerConfig<?, ?> config) throws IOException {
+        json.writeStartObject();
+        writeMessageConsumerLogInfoFields(json, address, config);
+        json.writeEndObject();
     }
 
-    private <REQ extends Message, RESP extends Message> JsonObjectBuilder messageConsumerLogInfoAsJson(final String address, final MessageConsumerConfig<REQ, RESP> config) {
-        return Json.createObjectBuilder()
-                .add("address", address)
-                .add("config", config.toJson());
+    private void writeMessageConsumerLogInfoFields(final JsonGenerator json, final String address, final MessageConsumerConfig<?, ?> config) throws IOException {
+        json.writeStringField("address", address);
+        json.writeFieldName("config");
+        writeJsonValue(json, config.toJson());
     }
 
     private <REQ extends Message, RESP extends Message> Handler<AsyncResult<Void>> messageConsumerCompletionHandler(final String address, final Optional<Handler<AsyncResult<Void>>> handler, final MessageConsumerConfig<REQ, RESP> config) {
         return (AsyncResult<Void> result) -> {
             if (result.succeeded()) {
-                info.log("messageConsumerCompletionHandler.succeeded", () -> messageConsumerLogInfo(address, config));
+                info.log("messageConsumerCompletionHandler.succeeded", json -> writeMessageConsumerLogInfo(json, address, config));
             } else {
-                error.log("messageConsumerCompletionHandler.failed", () -> messageConsumerLogInfo(address, config), result.cause());
+                error.log("messageConsumerCompletionHandler.failed", json -> writeMessageConsumerLogInfo(json, address, config), result.cause());
             }
             handler.ifPresent(h -> h.handle(result));
         };
@@ -350,7 +406,7 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
 
     private <REQ extends Message, RESP extends Message> Handler<Void> messageConsumerEndHandler(final String address, final Optional<Handler<Void>> handler, final MessageConsumerConfig<REQ, RESP> config) {
         final Handler<Void> defaultHandler = result -> {
-            info.log("messageConsumerEndHandler", () -> messageConsumerLogInfo(address, config));
+            info.log("messageConsumerEndHandler", json -> writeMessageConsumerLogInfo(json, address, config));
         };
 
         return handler.map(h -> {
@@ -362,20 +418,58 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         }).orElse(defaultHandler);
     }
 
-    private void logMessageConsumerException(final Throwable exception, final String address, final MessageConsumerConfig config) {
-        if (exception instanceof MessageConsumerHandlerException) {
-            final MessageConsumerHandlerException messageConsumerHandlerException = (MessageConsumerHandlerException) exception;
-            final io.vertx.core.eventbus.Message<? extends Message> failedMessage = messageConsumerHandlerException.getFailedMessage();
+    /**
+     * The exception is fingerprinted via {@link ExceptionFingerprints}. The stack trace and the failed message are only logged for the first occurrence of the
+     * fingerprint within the fingerprint window. Subsequent occurrences within the window are logged compactly, with the number of times the exception has been
+     * seen since its stack trace was logged.
+     */
+    private void logMessageConsumerException(final Throwable exception, final String address, final MessageConsumerConfig<?, ?> config) {
+        final Occurrence occurrence = ExceptionFingerprints.getInstance().record(exception);
+        if (!occurrence.isLogStackTrace()) {
+            error.log("logMessageConsumerException", json -> writeMessageConsumerExceptionSummary(json, address, exception, occurrence));
+            return;
+        }
 
-            final JsonObject message = Json.createObjectBuilder()
-                    .add("headers", toJsonObject(failedMessage.headers()))
-                    .add("body", protobuMessageToJson(failedMessage.body()))
-                    .build();
+        final Optional<io.vertx.core.eventbus.Message<?>> failedMessage = exception instanceof MessageConsumerHandlerException
+                ? Optional.of(((MessageConsumerHandlerException) exception).getFailedMessage())
+                : Optional.empty();
+        error.log("logMessageConsumerException", json -> {
+            json.writeStartObject();
+            writeMessageConsumerLogInfoFields(json, address, config);
+            json.writeStringField("fingerprint", occurrence.getFingerprint());
+            json.writeNumberField("seen", occurrence.getSeen());
+            if (failedMessage.isPresent()) {
+                json.writeFieldName("message");
+                writeFailedMessage(json, failedMessage.get());
+            }
+            json.writeEndObject();
+        }, exception);
+    }
 
-            error.log("logMessageConsumerException", () -> messageConsumerLogInfoAsJson(address, config).add("message", message).build(), exception);
-        } else {
-            error.log("logMessageConsumerException", () -> messageConsumerLogInfo(address, config), exception);
+    private void writeFailedMessage(final JsonGenerator json, final io.vertx.core.eventbus.Message<?> failedMessage) throws IOException {
+        final Object body = failedMessage.body();
+        json.writeStartObject();
+        json.writeFieldName("headers");
+        writeJsonValue(json, toJsonObject(failedMessage.headers()));
+        if (body instanceof LazyProtobufMessage || body instanceof Message) {
+            json.writeFieldName("body");
+            writeJsonValue(json, protobuMessageToJson(body instanceof LazyProtobufMessage ? ((LazyProtobufMessage<?>) body).get() : (Message) body));
+        }
+        json.writeEndObject();
+    }
+
+    private void writeMessageConsumerExceptionSummary(final JsonGenerator json, final String address, final Throwable exception, final Occurrence occurrence) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("address", address);
+        json.writeObjectFieldStart("exception");
+        json.writeStringField("class", exception.getClass().getName());
+        if (exception.getMessage() != null) {
+            json.writeStringField("message", exception.getMessage());
         }
+        json.writeStringField("fingerprint", occurrence.getFingerprint());
+        json.writeNumberField("seen", occurrence.getSeen());
+        json.writeEndObject();
+        json.writeEndObject();
     }
 
     /**
@@ -383,44 +477,92 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
      * <ul>
      * <li>Collects metrics
      * <li>Logs info about the message
+     * <li>Records trace spans - see {@link Tracer}
+     * <li>Records MessageConsumerDispatchEvent Flight Recorder events - see {@link FlightRecorderEvents}
      * </ul>
      *
+     * The following per address histograms split the message processing time, which is also recorded in total by the
+     * {@link RunRightFastVerticleMetrics.Timers#MESSAGE_CONSUMER_HANDLER} timer:
+     * <ol>
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_CONSUMER_TRANSPORT_LATENCY} - from the message timestamp until the message arrived
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_CONSUMER_QUEUE_WAIT} - from arrival until a worker thread started processing the message
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_CONSUMER_EXECUTION} - handler execution
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_CONSUMER_COMPLETION_HANDOFF} - from handler completion on the worker thread until the
+     * completion is handed back to the event loop. Replies are sent by the handler itself, thus they are included in the execution time.
+     * </ol>
+     * Queue wait and completion handoff only apply to the worker pool execution modes.
+     *
      * @param <REQ> Request message type
      * @param <RESP> Response message type
      * @param config MessageConsumerConfig
+     * @param metrics the consumer's pre-resolved metrics
      * @return handler
      */
-    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandler(final MessageConsumerConfig<REQ, RESP> config) {
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandler(final MessageConsumerConfig<REQ, RESP> config, final MessageConsumerMetrics metrics) {
         switch (config.getExecutionMode()) {
             case EVENT_LOOP:
-                return messageConsumerHandlerUsingEventLoop(config);
+                return messageConsumerHandlerUsingEventLoop(config, metrics);
             case WORKER_POOL_SERIAL:
-                return messageConsumerHandlerUsingSerialWorkerPool(config);
+                return messageConsumerHandlerUsingSerialWorkerPool(config, metrics);
             case WORKER_POOL_PARALLEL:
-                return messageConsumerHandlerUsingParallelWorkerPool(config);
+                return messageConsumerHandlerUsingParallelWorkerPool(config, metrics);
             default:
                 throw new IllegalStateException("Unexpected execution mode: " + config.getExecutionMode());
         }
     }
 
-    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingParallelWorkerPool(final MessageConsumerConfig<REQ, RESP> config) {
-        final Counter messageProcessingCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, config.address()));
-        final Counter messageSuccessCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_SUCCESS.metricName, config.address()));
-        final Counter messageFailureCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_FAILURE.metricName, config.address()));
-        final Timer timer = metricRegistry.timer(String.format("%s::%s", MESSAGE_CONSUMER_HANDLER.metricName, config.getAddressMessageMapping().getAddress()));
-        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = config.getHandler();
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingParallelWorkerPool(final MessageConsumerConfig<REQ, RESP> config, final MessageConsumerMetrics metrics) {
+        final Counter messageProcessingCounter = metrics.messageProcessing;
+        final Counter messageSuccessCounter = metrics.messageSuccess;
+        final Counter messageFailureCounter = metrics.messageFailure;
+        final Timer timer = metrics.handlerTimer;
+        final Histogram transportLatency = metrics.transportLatency;
+        final Histogram queueWait = metrics.queueWait;
+        final Histogram execution = metrics.execution;
+        final Histogram completionHandoff = metrics.completionHandoff;
+        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = messageSizeCheckingHandler(config, metrics);
 
         final Object[] logMsgArgs = new Object[]{config.address(), context.deploymentID()};
 
         return msg -> {
+            final long arrivalTime = System.nanoTime();
+            final Optional<TraceContext> traceContext = Tracer.tracer().startConsumerSpan(msg);
+            recordTransportLatency(msg, transportLatency);
             messageProcessingCounter.inc();
-            log.logp(INFO, CLASS_NAME, "messageConsumerHandlerUsingParallelWorkerPool", "address={0}, deploymentId={1}", logMsgArgs);
+            logMessageReceived("messageConsumerHandlerUsingParallelWorkerPool", logMsgArgs);
             final Timer.Context timerCtx = timer.time();
-            vertx.executeBlocking(future -> {
-                handler.handle(msg);
+            vertx.<Long>executeBlocking(future -> {
+                final long executionStartTime = System.nanoTime();
+                queueWait.update(executionStartTime - arrivalTime);
+                messageHandlerStarted(config.address());
+                Tracer.setCurrentTraceContext(traceContext);
+                final MessageConsumerDispatchRecording dispatchEvent = FlightRecorderEvents.messageConsumerDispatch();
+                boolean succeeded = false;
+                final long executionEndTime;
+                final long cpuTimeStart = ThreadResourceUsage.currentThreadCpuTime();
+                final long allocatedBytesStart = ThreadResourceUsage.currentThreadAllocatedBytes();
+                try {
+                    handler.handle(msg);
+                    succeeded = true;
+                } finally {
+                    metrics.recordResourceUsage(cpuTimeStart, allocatedBytesStart);
+                    dispatchEvent.complete(config.address(), config.getExecutionMode(), executionStartTime - arrivalTime, succeeded);
+                    Tracer.clearCurrentTraceContext();
+                    messageHandlerCompleted();
+                    executionEndTime = System.nanoTime();
+                    execution.update(executionEndTime - executionStartTime);
+                    traceContext.ifPresent(ctx -> {
+                        Tracer.tracer().record(ctx.siblingSpan(), TraceSpan.Kind.QUEUE, config.address(), arrivalTime, executionStartTime);
+                        Tracer.tracer().record(ctx, TraceSpan.Kind.EXECUTE, config.address(), executionStartTime, executionEndTime);
+                    });
+                }
+                future.complete(executionEndTime);
             }, result -> {
                 try {
                     if (result.succeeded()) {
+                        final long handoffTime = System.nanoTime();
+                        completionHandoff.update(handoffTime - result.result());
+                        traceContext.ifPresent(ctx -> Tracer.tracer().record(ctx.siblingSpan(), TraceSpan.Kind.COMPLETION_HANDOFF, config.address(), result.result(), handoffTime));
                         messageSuccessCounter.inc();
                     } else {
                         messageFailureCounter.inc();
@@ -435,24 +577,58 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         };
     }
 
-    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingSerialWorkerPool(final MessageConsumerConfig<REQ, RESP> config) {
-        final Counter messageProcessingCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, config.address()));
-        final Counter messageSuccessCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_SUCCESS.metricName, config.address()));
-        final Counter messageFailureCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_FAILURE.metricName, config.address()));
-        final Timer timer = metricRegistry.timer(String.format("%s::%s", MESSAGE_CONSUMER_HANDLER.metricName, config.getAddressMessageMapping().getAddress()));
-        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = config.getHandler();
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingSerialWorkerPool(final MessageConsumerConfig<REQ, RESP> config, final MessageConsumerMetrics metrics) {
+        final Counter messageProcessingCounter = metrics.messageProcessing;
+        final Counter messageSuccessCounter = metrics.messageSuccess;
+        final Counter messageFailureCounter = metrics.messageFailure;
+        final Timer timer = metrics.handlerTimer;
+        final Histogram transportLatency = metrics.transportLatency;
+        final Histogram queueWait = metrics.queueWait;
+        final Histogram execution = metrics.execution;
+        final Histogram completionHandoff = metrics.completionHandoff;
+        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = messageSizeCheckingHandler(config, metrics);
 
         final Object[] logMsgArgs = new Object[]{config.address(), context.deploymentID()};
 
         return msg -> {
+            final long arrivalTime = System.nanoTime();
+            final Optional<TraceContext> traceContext = Tracer.tracer().startConsumerSpan(msg);
+            recordTransportLatency(msg, transportLatency);
             messageProcessingCounter.inc();
-            log.logp(INFO, CLASS_NAME, "messageConsumerHandlerUsingSerialWorkerPool", "address={0}, deploymentId={1}", logMsgArgs);
+            logMessageReceived("messageConsumerHandlerUsingSerialWorkerPool", logMsgArgs);
             final Timer.Context timerCtx = timer.time();
-            vertx.executeBlocking(future -> {
-                handler.handle(msg);
+            vertx.<Long>executeBlocking(future -> {
+                final long executionStartTime = System.nanoTime();
+                queueWait.update(executionStartTime - arrivalTime);
+                messageHandlerStarted(config.address());
+                Tracer.setCurrentTraceContext(traceContext);
+                final MessageConsumerDispatchRecording dispatchEvent = FlightRecorderEvents.messageConsumerDispatch();
+                boolean succeeded = false;
+                final long executionEndTime;
+                final long cpuTimeStart = ThreadResourceUsage.currentThreadCpuTime();
+                final long allocatedBytesStart = ThreadResourceUsage.currentThreadAllocatedBytes();
+                try {
+                    handler.handle(msg);
+                    succeeded = true;
+                } finally {
+                    metrics.recordResourceUsage(cpuTimeStart, allocatedBytesStart);
+                    dispatchEvent.complete(config.address(), config.getExecutionMode(), executionStartTime - arrivalTime, succeeded);
+                    Tracer.clearCurrentTraceContext();
+                    messageHandlerCompleted();
+                    executionEndTime = System.nanoTime();
+                    execution.update(executionEndTime - executionStartTime);
+                    traceContext.ifPresent(ctx -> {
+                        Tracer.tracer().record(ctx.siblingSpan(), TraceSpan.Kind.QUEUE, config.address(), arrivalTime, executionStartTime);
+                        Tracer.tracer().record(ctx, TraceSpan.Kind.EXECUTE, config.address(), executionStartTime, executionEndTime);
+                    });
+                }
+                future.complete(executionEndTime);
             }, result -> {
                 try {
                     if (result.succeeded()) {
+                        final long handoffTime = System.nanoTime();
+                        completionHandoff.update(handoffTime - result.result());
+                        traceContext.ifPresent(ctx -> Tracer.tracer().record(ctx.siblingSpan(), TraceSpan.Kind.COMPLETION_HANDOFF, config.address(), result.result(), handoffTime));
                         messageSuccessCounter.inc();
                     } else {
                         messageFailureCounter.inc();
@@ -467,33 +643,222 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         };
     }
 
-    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingEventLoop(final MessageConsumerConfig<REQ, RESP> config) {
-        final Counter messageProcessingCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, config.address()));
-        final Counter messageSuccessCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_SUCCESS.metricName, config.address()));
-        final Counter messageFailureCounter = metricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_FAILURE.metricName, config.address()));
-        final Timer timer = metricRegistry.timer(String.format("%s::%s", MESSAGE_CONSUMER_HANDLER.metricName, config.getAddressMessageMapping().getAddress()));
-        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = config.getHandler();
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageConsumerHandlerUsingEventLoop(final MessageConsumerConfig<REQ, RESP> config, final MessageConsumerMetrics metrics) {
+        final Counter messageProcessingCounter = metrics.messageProcessing;
+        final Counter messageSuccessCounter = metrics.messageSuccess;
+        final Counter messageFailureCounter = metrics.messageFailure;
+        final Timer timer = metrics.handlerTimer;
+        final Histogram transportLatency = metrics.transportLatency;
+        final Histogram execution = metrics.execution;
+        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = messageSizeCheckingHandler(config, metrics);
 
         final Object[] logMsgArgs = new Object[]{config.address(), context.deploymentID()};
 
         return msg -> {
+            final Optional<TraceContext> traceContext = Tracer.tracer().startConsumerSpan(msg);
+            recordTransportLatency(msg, transportLatency);
             messageProcessingCounter.inc();
-            log.logp(INFO, CLASS_NAME, "messageConsumerHandlerUsingEventLoop", "address={0}, deploymentId={1}", logMsgArgs);
+            logMessageReceived("messageConsumerHandlerUsingEventLoop", logMsgArgs);
             final Timer.Context timerCtx = timer.time();
+            final long executionStartTime = System.nanoTime();
+            messageHandlerStarted(config.address());
+            Tracer.setCurrentTraceContext(traceContext);
+            final MessageConsumerDispatchRecording dispatchEvent = FlightRecorderEvents.messageConsumerDispatch();
+            boolean succeeded = false;
+            final long cpuTimeStart = ThreadResourceUsage.currentThreadCpuTime();
+            final long allocatedBytesStart = ThreadResourceUsage.currentThreadAllocatedBytes();
             try {
                 handler.handle(msg);
+                succeeded = true;
                 messageSuccessCounter.inc();
             } catch (final Throwable t) {
                 messageFailureCounter.inc();
                 logMessageConsumerException(t, config.address(), config);
                 replyWithFailure(msg, t, config);
             } finally {
+                metrics.recordResourceUsage(cpuTimeStart, allocatedBytesStart);
+                dispatchEvent.complete(config.address(), config.getExecutionMode(), 0, succeeded);
+                Tracer.clearCurrentTraceContext();
+                messageHandlerCompleted();
+                final long executionEndTime = System.nanoTime();
+                execution.update(executionEndTime - executionStartTime);
+                traceContext.ifPresent(ctx -> Tracer.tracer().record(ctx, TraceSpan.Kind.EXECUTE, config.address(), executionStartTime, executionEndTime));
                 timerCtx.stop();
                 messageProcessingCounter.dec();
             }
         };
     }
 
+    /**
+     * The message consumer handlers log each received message at INFO level, subject to sampling and rate limiting per address. When records were
+     * suppressed, then the number of suppressed records is logged with the next permitted record.
+     *
+     * @param messageLogRateLimiter the shared rate limiter
+     */
+    public static void setMessageLogRateLimiter(@NonNull final LogRateLimiter messageLogRateLimiter) {
+        RunRightFastVerticle.messageLogRateLimiter = messageLogRateLimiter;
+    }
+
+    public static LogRateLimiter getMessageLogRateLimiter() {
+        return messageLogRateLimiter;
+    }
+
+    /**
+     *
+     * @param method method name
+     * @param logMsgArgs address, deploymentId
+     */
+    private void logMessageReceived(final String method, final Object[] logMsgArgs) {
+        if (!log.isLoggable(INFO)) {
+            return;
+        }
+        final long suppressed = messageLogRateLimiter.tryAcquire((String) logMsgArgs[0]);
+        if (suppressed == LogRateLimiter.SUPPRESSED) {
+            return;
+        }
+        if (suppressed == 0) {
+            log.logp(INFO, CLASS_NAME, method, "address={0}, deploymentId={1}", logMsgArgs);
+        } else {
+            log.logp(INFO, CLASS_NAME, method, "address={0}, deploymentId={1}, suppressed={2}", new Object[]{logMsgArgs[0], logMsgArgs[1], suppressed});
+        }
+    }
+
+    /**
+     * Records the time from when the message was sent, i.e., the {@link MessageHeader#MESSAGE_TIMESTAMP} header, until the message arrived. Messages sent
+     * from other JVMs are subject to clock skew - negative latencies are recorded as 0.
+     *
+     * @param msg message
+     * @param transportLatency histogram
+     */
+    private static void recordTransportLatency(final io.vertx.core.eventbus.Message<?> msg, final Histogram transportLatency) {
+        try {
+            getMessageTimestamp(msg).ifPresent(timestamp -> transportLatency.update(Math.max(0L, Duration.between(timestamp, Instant.now()).toNanos())));
+        } catch (final DateTimeParseException e) {
+            // the message timestamp is informational only
+        }
+    }
+
+    /**
+     * Unpacks {@link MessageBatch} messages sent by {@link ProtobufMessageBatchProducer}, and dispatches each message individually to the handler. Any other
+     * message is passed through as is.
+     *
+     * A message that cannot be parsed is logged and skipped - the rest of the batch is still dispatched.
+     *
+     * @param <REQ> Request message type
+     * @param <RESP> Response message type
+     * @param config MessageConsumerConfig
+     * @param handler message handler
+     * @return handler
+     */
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageBatchUnpackingHandler(final MessageConsumerConfig<REQ, RESP> config, final Handler<io.vertx.core.eventbus.Message<REQ>> handler) {
+        final REQ requestDefaultInstance = config.getAddressMessageMapping().getRequestDefaultInstance();
+        final boolean lazyDecoding = config.isLazyDecoding();
+        return msg -> {
+            final Object body = msg.body();
+            if (!(body instanceof MessageBatch)) {
+                handler.handle(msg);
+                return;
+            }
+
+            final List<ByteString> messages = ((MessageBatch) body).getMessagesList();
+            for (int i = 0; i < messages.size(); i++) {
+                final Object batchedMessageBody;
+                if (lazyDecoding) {
+                    batchedMessageBody = lazyProtobufMessage(requestDefaultInstance, messages.get(i).toByteArray());
+                } else {
+                    try {
+                        batchedMessageBody = requestDefaultInstance.getParserForType().parseFrom(messages.get(i));
+                    } catch (final InvalidProtocolBufferException ex) {
+                        error.log("messageBatchUnpackingHandler", json -> {
+                            json.writeStartObject();
+                            writeMessageConsumerLogInfoFields(json, msg.address(), config);
+                            json.writeFieldName("headers");
+                            writeJsonValue(json, toJsonObject(msg.headers()));
+                            json.writeEndObject();
+                        }, ex);
+                        continue;
+                    }
+                }
+                // when lazy decoding is enabled, the handler was created via MessageConsumerConfig.Builder.lazyHandler(), and expects a LazyProtobufMessage body
+                @SuppressWarnings("unchecked")
+                final REQ request = (REQ) batchedMessageBody;
+                handler.handle(new BatchedMessage<>(msg, request, i));
+            }
+        };
+    }
+
+    /**
+     * Wraps the configured handler to record the request message size, and enforces {@link EventBusAddressMessageMapping#getRequestMaxSize()}
+     *
+     * @param <REQ> Request message type
+     * @param <RESP> Response message type
+     * @param config MessageConsumerConfig
+     * @param metrics the consumer's pre-resolved metrics
+     * @return handler
+     */
+    private <REQ extends Message, RESP extends Message> Handler<io.vertx.core.eventbus.Message<REQ>> messageSizeCheckingHandler(final MessageConsumerConfig<REQ, RESP> config, final MessageConsumerMetrics metrics) {
+        final Histogram requestSize = metrics.requestSize;
+        final EventBusAddressMessageMapping mapping = config.getAddressMessageMapping();
+        final Handler<io.vertx.core.eventbus.Message<REQ>> handler = config.getHandler();
+        return msg -> {
+            final int size = messageSize(msg.body());
+            requestSize.update(size);
+            mapping.checkRequestSize(size);
+            handler.handle(msg);
+        };
+    }
+
+    private static int messageSize(final Object body) {
+        if (body instanceof LazyProtobufMessage) {
+            return ((LazyProtobufMessage) body).getBytes().length;
+        }
+        return ((Message) body).getSerializedSize();
+    }
+
+    /**
+     * Records the response message size, and enforces {@link EventBusAddressMessageMapping#getResponseMaxSize()}
+     *
+     * @param config MessageConsumerConfig
+     * @param response response message
+     */
+    private void checkResponseMessageSize(final MessageConsumerConfig config, final Message response) {
+        final int size = response.getSerializedSize();
+        messageConsumerMetrics.get(config.address()).responseSize.update(size);
+        config.getAddressMessageMapping().checkResponseSize(size);
+    }
+
+    /**
+     * If the consumer is configured for flow control, then the consumer's available credits are added to the response via the
+     * {@link MessageHeader#FLOW_CONTROL_CREDITS} header. The message that is being replied to is still counted as processing, thus it is not counted against
+     * the available credits.
+     *
+     * @param config MessageConsumerConfig
+     * @param options response delivery options
+     */
+    private void addFlowControlCredits(final MessageConsumerConfig<?, ?> config, final DeliveryOptions options) {
+        final Optional<Integer> flowControlCredits = config.getFlowControlCredits();
+        flowControlCredits.ifPresent(credits -> {
+            final long processing = messageConsumerMetrics.get(config.address()).messageProcessing.getCount();
+            final long availableCredits = Math.max(0, credits - processing + 1);
+            options.addHeader(MessageHeader.FLOW_CONTROL_CREDITS.header, Long.toString(availableCredits));
+        });
+    }
+
+    /**
+     *
+     * @param address the address the request message was sent to, which may be the process specific address
+     * @return MessageConsumerConfig
+     */
+    private Optional<MessageConsumerConfig> messageConsumerConfig(final String address) {
+        final MessageConsumerRegistration<?, ?> registration = messageConsumerRegistrations.get(address);
+        return registration != null
+                ? Optional.of(registration.getConfig())
+                : messageConsumerRegistrations.values().stream()
+                .filter(reg -> reg.getConfig().getAddressMessageMapping().getProcessSpecificAddress().equals(address))
+                .findFirst()
+                .map(MessageConsumerRegistration::getConfig);
+    }
+
     /**
      * Sets the standard headers.
      *
@@ -509,11 +874,26 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
      * If the message has a {@link MessageHeader#REPLY_TO_ADDRESS} header, then send the reply back to that address. Otherwise, reply back using the built in
      * Vertx Message reply mechanism.
      *
+     * If the response exceeds {@link EventBusAddressMessageMapping#getResponseMaxSize()}, then a {@link MessageTooLargeException} is thrown, which is mapped to
+     * {@link Failure#REQUEST_ENTITY_TOO_LARGE}.
+     *
+     * If the consumer is configured for flow control, then the consumer's available credits are added to the response headers - see
+     * {@link MessageConsumerConfig#getFlowControlCredits()}.
+     *
+     * If the reply is sent from within the message handler, then the reply carries the consumer's trace context - see {@link Tracer}.
+     *
      * @param request
      * @param response
      * @param options
      */
     protected void reply(@NonNull final io.vertx.core.eventbus.Message request, @NonNull final Object response, @NonNull final DeliveryOptions options) {
+        messageConsumerConfig(request.address()).ifPresent(config -> {
+            if (response instanceof Message) {
+                checkResponseMessageSize(config, (Message) response);
+            }
+            addFlowControlCredits(config, options);
+        });
+        Tracer.currentTraceContext().ifPresent(traceContext -> traceContext.addHeaders(options));
         final Optional<String> replyTo = getReplyToAddress(request);
         if (replyTo.isPresent()) {
             vertx.eventBus().send(replyTo.get(), response, withVerticleDeploymentId(options, context.deploymentID()));
@@ -566,7 +946,8 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
     }
 
     protected void deployVerticles(final Set<RunRightFastVerticleDeployment> deployments) {
-        final RunRightFastVerticleManager verticleManager = new RunRightFastVerticleManager(appEventLogger, deployments);
+        Preconditions.checkState(healthChecksService != null, "healthChecksService is not set - the verticle must be deployed by a RunRightFastVerticleManager");
+        final RunRightFastVerticleManager verticleManager = new RunRightFastVerticleManager(appEventLogger, healthChecksService, deployments);
         verticleManager.setParentVerticleInstanceId(Optional.of(this.verticleInstanceId));
         vertx.deployVerticle(verticleManager, result -> {
             if (result.succeeded()) {
@@ -609,4 +990,66 @@ public abstract class RunRightFastVerticle extends AbstractVerticle {
         return getRunRightFastVerticleId().equals(other.getRunRightFastVerticleId());
     }
 
+    /**
+     * Message consumer metric handles, which are resolved once per message consumer.
+     */
+    private static final class MessageConsumerMetrics {
+
+        final Counter messageProcessing;
+        final Counter messageSuccess;
+        final Counter messageFailure;
+        final Timer handlerTimer;
+        final Histogram transportLatency;
+        final Histogram queueWait;
+        final Histogram execution;
+        final Histogram completionHandoff;
+        final Histogram requestSize;
+        final Histogram responseSize;
+        final Histogram cpuTime;
+        final Histogram allocatedBytes;
+        final Meter cpuTimeRate;
+        final Meter allocationRate;
+
+        MessageConsumerMetrics(final TaggedMetricRegistry metricRegistry) {
+            this.messageProcessing = MESSAGE_CONSUMER_MESSAGE_PROCESSING.counter(metricRegistry);
+            this.messageSuccess = MESSAGE_CONSUMER_MESSAGE_SUCCESS.counter(metricRegistry);
+            this.messageFailure = MESSAGE_CONSUMER_MESSAGE_FAILURE.counter(metricRegistry);
+            this.handlerTimer = MESSAGE_CONSUMER_HANDLER.timer(metricRegistry);
+            this.transportLatency = MESSAGE_CONSUMER_TRANSPORT_LATENCY.histogram(metricRegistry);
+            this.queueWait = MESSAGE_CONSUMER_QUEUE_WAIT.histogram(metricRegistry);
+            this.execution = MESSAGE_CONSUMER_EXECUTION.histogram(metricRegistry);
+            this.completionHandoff = MESSAGE_CONSUMER_COMPLETION_HANDOFF.histogram(metricRegistry);
+            this.requestSize = MESSAGE_CONSUMER_REQUEST_SIZE.histogram(metricRegistry);
+            this.responseSize = MESSAGE_CONSUMER_RESPONSE_SIZE.histogram(metricRegistry);
+            this.cpuTime = Histograms.MESSAGE_CONSUMER_CPU_TIME.histogram(metricRegistry);
+            this.allocatedBytes = Histograms.MESSAGE_CONSUMER_ALLOCATED_BYTES.histogram(metricRegistry);
+            this.cpuTimeRate = Meters.MESSAGE_CONSUMER_CPU_TIME.meter(metricRegistry);
+            this.allocationRate = Meters.MESSAGE_CONSUMER_ALLOCATED_BYTES.meter(metricRegistry);
+        }
+
+        /**
+         * Records the CPU time and heap allocated by the current thread since the specified starting values were sampled. If resource usage accounting is
+         * not enabled, then the starting values are -1 and nothing is recorded.
+         *
+         * @param cpuTimeStart see {@link ThreadResourceUsage#currentThreadCpuTime()}
+         * @param allocatedBytesStart see {@link ThreadResourceUsage#currentThreadAllocatedBytes()}
+         */
+        void recordResourceUsage(final long cpuTimeStart, final long allocatedBytesStart) {
+            if (cpuTimeStart >= 0) {
+                final long cpuTimeEnd = ThreadResourceUsage.currentThreadCpuTime();
+                if (cpuTimeEnd >= cpuTimeStart) {
+                    cpuTime.update(cpuTimeEnd - cpuTimeStart);
+                    cpuTimeRate.mark(cpuTimeEnd - cpuTimeStart);
+                }
+            }
+            if (allocatedBytesStart >= 0) {
+                final long allocatedBytesEnd = ThreadResourceUsage.currentThreadAllocatedBytes();
+                if (allocatedBytesEnd >= allocatedBytesStart) {
+                    allocatedBytes.update(allocatedBytesEnd - allocatedBytesStart);
+                    allocationRate.mark(allocatedBytesEnd - allocatedBytesStart);
+                }
+            }
+        }
+    }
+
 }
@@ -18,6 +18,8 @@ package co.runrightfast.vertx.core;
 import static co.runrightfast.core.utils.JmxUtils.RUNRIGHTFAST_JMX_DOMAIN;
 import co.runrightfast.vertx.core.verticles.messages.VerticleId;
 import static com.google.common.base.Preconditions.checkArgument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import java.util.Arrays;
 import javax.json.Json;
 import javax.json.JsonObject;
@@ -68,6 +70,19 @@ public final class RunRightFastVerticleId {
                 .build();
     }
 
+    /**
+     *
+     * @param json the same representation as {@link #toJson()} is written to the generator
+     * @throws IOException if the JSON generator fails
+     */
+    public void writeJson(final JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("group", group);
+        json.writeStringField("name", name);
+        json.writeStringField("version", version);
+        json.writeEndObject();
+    }
+
     public String verticleJmxDomain(final String... subDomains) {
         final StringBuilder sb = new StringBuilder(80)
                 .append(RUNRIGHTFAST_JMX_DOMAIN)
@@ -20,6 +20,14 @@ import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.MetricType.
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.MetricType.HISTOGRAM;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.MetricType.METER;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.MetricType.TIMER;
+import co.runrightfast.core.utils.JvmProcess;
+import co.runrightfast.vertx.core.metrics.MetricTags;
+import co.runrightfast.vertx.core.metrics.TaggedMetricRegistry;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import static com.google.common.base.Preconditions.checkArgument;
 import java.util.Arrays;
 import lombok.NonNull;
@@ -28,6 +36,9 @@ import org.apache.commons.lang3.StringUtils;
 /**
  * These are for metrics collected per verticle deployment, i.e., verticles that have the same deployment id.
  *
+ * Metric handles are resolved via a {@link TaggedMetricRegistry}, e.g., <code>MESSAGE_SENT.meter(metricRegistry.withAddress(address))</code>. Verticle
+ * metrics are tagged via {@link #verticleMetricTags(RunRightFastVerticleId)}, and verticle instance metrics are also tagged with the instance id.
+ *
  * @author alfio
  */
 public interface RunRightFastVerticleMetrics {
@@ -61,6 +72,15 @@ public interface RunRightFastVerticleMetrics {
         return metricName(HISTOGRAM, name, names);
     }
 
+    /**
+     *
+     * @param verticleId verticle id
+     * @return the verticle and node tags
+     */
+    static MetricTags verticleMetricTags(@NonNull final RunRightFastVerticleId verticleId) {
+        return MetricTags.NONE.withVerticle(verticleId).withNode(JvmProcess.JVM_ID);
+    }
+
     static String metricName(@NonNull final MetricType metricType, final String name, final String... names) {
         checkArgument(StringUtils.isNotBlank(name));
         if (names != null) {
@@ -84,17 +104,20 @@ public interface RunRightFastVerticleMetrics {
     static enum Counters {
 
         INSTANCE_STARTED("verticle", "instance", "started"),
-        // the EventBus address will be appended to the metric name
+        // tagged with the EventBus address, i.e., resolved via TaggedMetricRegistry.withAddress()
         MESSAGE_CONSUMER_MESSAGE_PROCESSING("message-consumer", "message", "processing"),
         MESSAGE_CONSUMER_MESSAGE_SUCCESS("message-consumer", "message", "success"),
         MESSAGE_CONSUMER_MESSAGE_FAILURE("message-consumer", "message", "failure");
-        // END - the EventBus address will be appended to the metric name
 
         public final String metricName;
 
         private Counters(final String name, final String... names) {
             this.metricName = counterName(name, names);
         }
+
+        public Counter counter(@NonNull final TaggedMetricRegistry metricRegistry) {
+            return metricRegistry.counter(metricName);
+        }
     }
 
     static enum Timers {
@@ -106,31 +129,84 @@ public interface RunRightFastVerticleMetrics {
         private Timers(final String name, final String... names) {
             this.metricName = timerName(name, names);
         }
+
+        public Timer timer(@NonNull final TaggedMetricRegistry metricRegistry) {
+            return metricRegistry.timer(metricName);
+        }
     }
 
     static enum Gauges {
 
         MESSAGE_LAST_SENT_TS("message", "last-sent"),
-        MESSAGE_LAST_PUBLISHED_TS("message", "last-published");
+        MESSAGE_LAST_PUBLISHED_TS("message", "last-published"),
+        // total payload bytes
+        MESSAGE_SENT_BYTES("message", "sent", "bytes"),
+        MESSAGE_PUBLISHED_BYTES("message", "published", "bytes");
 
         public final String metricName;
 
         private Gauges(final String name, final String... names) {
             this.metricName = gaugeName(name, names);
         }
+
+        public <T> Gauge<T> register(@NonNull final TaggedMetricRegistry metricRegistry, @NonNull final Gauge<T> gauge) {
+            return metricRegistry.register(metricName, gauge);
+        }
     }
 
     static enum Meters {
 
-        // the EventBus address will be appended to the metric name
+        // tagged with the EventBus address, i.e., resolved via TaggedMetricRegistry.withAddress()
         MESSAGE_SENT("message", "sent"),
-        MESSAGE_PUBLISHED("message", "published");
+        MESSAGE_PUBLISHED("message", "published"),
+        MESSAGE_BATCH_SENT("message-batch", "sent"),
+        MESSAGE_BATCH_PUBLISHED("message-batch", "published"),
+        // marked with CPU nanoseconds and allocated bytes, i.e., the rates are the CPU time and allocation rates - see ThreadResourceUsage
+        MESSAGE_CONSUMER_CPU_TIME("message-consumer", "cpu-time"),
+        MESSAGE_CONSUMER_ALLOCATED_BYTES("message-consumer", "allocated-bytes");
 
         public final String metricName;
 
         private Meters(final String name, final String... names) {
             this.metricName = meterName(name, names);
         }
+
+        public Meter meter(@NonNull final TaggedMetricRegistry metricRegistry) {
+            return metricRegistry.meter(metricName);
+        }
+    }
+
+    static enum Histograms {
+
+        // tagged with the EventBus address, i.e., resolved via TaggedMetricRegistry.withAddress()
+        MESSAGE_CONSUMER_REQUEST_SIZE(false, "message-consumer", "request", "size"),
+        MESSAGE_CONSUMER_RESPONSE_SIZE(false, "message-consumer", "response", "size"),
+        MESSAGE_SENT_SIZE(true, "message", "sent", "size"),
+        MESSAGE_PUBLISHED_SIZE(true, "message", "published", "size"),
+        MESSAGE_BATCH_SENT_MESSAGES(false, "message-batch", "sent", "messages"),
+        MESSAGE_BATCH_PUBLISHED_MESSAGES(false, "message-batch", "published", "messages"),
+        // durations are recorded in nanoseconds, using sliding window snapshots - see HdrHistogramReservoir
+        // message sizes are also recorded via HdrHistogramReservoir because recording is wait-free, i.e., producers are shared across event loops
+        MESSAGE_CONSUMER_TRANSPORT_LATENCY(true, "message-consumer", "transport", "latency"),
+        MESSAGE_CONSUMER_QUEUE_WAIT(true, "message-consumer", "queue", "wait"),
+        MESSAGE_CONSUMER_EXECUTION(true, "message-consumer", "execution"),
+        MESSAGE_CONSUMER_COMPLETION_HANDOFF(true, "message-consumer", "completion", "handoff"),
+        // per message handler invocation - see ThreadResourceUsage
+        MESSAGE_CONSUMER_CPU_TIME(true, "message-consumer", "cpu-time"),
+        MESSAGE_CONSUMER_ALLOCATED_BYTES(true, "message-consumer", "allocated-bytes");
+
+        public final String metricName;
+
+        private final boolean hdrHistogram;
+
+        private Histograms(final boolean hdrHistogram, final String name, final String... names) {
+            this.metricName = histogramName(name, names);
+            this.hdrHistogram = hdrHistogram;
+        }
+
+        public Histogram histogram(@NonNull final TaggedMetricRegistry metricRegistry) {
+            return hdrHistogram ? metricRegistry.hdrHistogram(metricName) : metricRegistry.histogram(metricName);
+        }
     }
 
 }
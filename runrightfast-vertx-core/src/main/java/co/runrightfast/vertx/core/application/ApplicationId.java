@@ -17,7 +17,9 @@ package co.runrightfast.vertx.core.application;
 
 import co.runrightfast.core.JsonRepresentation;
 import static co.runrightfast.core.utils.ConfigUtils.configPath;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.typesafe.config.Config;
+import java.io.IOException;
 import javax.json.Json;
 import javax.json.JsonObject;
 import lombok.Builder;
@@ -71,4 +73,13 @@ public final class ApplicationId implements JsonRepresentation {
                 .build();
     }
 
+    @Override
+    public void writeJson(final JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("group", group);
+        json.writeStringField("name", name);
+        json.writeStringField("version", version);
+        json.writeEndObject();
+    }
+
 }
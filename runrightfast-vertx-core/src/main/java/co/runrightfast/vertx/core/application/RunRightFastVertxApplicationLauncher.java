@@ -15,6 +15,8 @@
  */
 package co.runrightfast.vertx.core.application;
 
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.vertx.core.RunRightFastVerticle;
 import co.runrightfast.vertx.core.VertxService;
 import co.runrightfast.vertx.core.application.jmx.ApplicationMXBean;
@@ -240,11 +242,44 @@ public final class RunRightFastVertxApplicationLauncher extends AbstractIdleServ
         logConfig();
     }
 
+    /**
+     * The health checks service is closed after the VertxService has stopped. The application event logger is closed last, i.e., after the VertxService has
+     * logged that it has stopped.
+     *
+     * @throws Exception if the shutdown failed
+     */
     @Override
     protected void shutDown() throws Exception {
-        final VertxService vertxService = app.vertxService();
-        ServiceUtils.stop(vertxService);
-        unregisterApplicationMBean();
+        try {
+            final VertxService vertxService = app.vertxService();
+            ServiceUtils.stop(vertxService);
+            unregisterApplicationMBean();
+        } finally {
+            closeHealthChecksService();
+            closeAppEventLogger();
+        }
+    }
+
+    private void closeHealthChecksService() {
+        final HealthChecksService healthChecksService = app.healthChecksService();
+        if (healthChecksService instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) healthChecksService).close();
+            } catch (final Exception ex) {
+                log.logp(SEVERE, CLASS_NAME, "closeHealthChecksService", "failed", ex);
+            }
+        }
+    }
+
+    private void closeAppEventLogger() {
+        final AppEventLogger appEventLogger = app.appEventLogger();
+        if (appEventLogger instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) appEventLogger).close();
+            } catch (final Exception ex) {
+                log.logp(SEVERE, CLASS_NAME, "closeAppEventLogger", "failed", ex);
+            }
+        }
     }
 
     private void registerShutdownHook() {
@@ -16,6 +16,7 @@
 package co.runrightfast.vertx.core.components;
 
 import co.runrightfast.core.AppConfig;
+import co.runrightfast.core.application.event.AppEventLogger;
 import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.vertx.core.VertxService;
 import co.runrightfast.vertx.core.application.RunRightFastApplication;
@@ -34,4 +35,10 @@ public interface RunRightFastVertxApplication {
     HealthChecksService healthChecksService();
 
     AppConfig getConfig();
+
+    /**
+     *
+     * @return the shared application event logger, which is closed when the application is shut down
+     */
+    AppEventLogger appEventLogger();
 }
@@ -0,0 +1,115 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.MESSAGE_ID;
+import co.runrightfast.vertx.core.verticles.messages.MessageBatch;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import lombok.NonNull;
+
+/**
+ * A message that was unpacked from a {@link MessageBatch}. The address and headers are taken from the batch message, except for the
+ * {@link MessageHeader#MESSAGE_ID} header, which is derived from the batch message id and the message's position within the batch - see
+ * {@link #batchedMessageId(java.lang.String, int)}. Thus, each message within the batch has its own unique message id.
+ *
+ * Batched messages are fire-and-forget, thus there is no reply address - reply and fail are no-ops, which is consistent with how Vertx handles messages that
+ * were not sent with a reply handler.
+ *
+ * @author alfio
+ * @param <T> message body type
+ * @see ProtobufMessageBatchProducer
+ */
+public final class BatchedMessage<T> implements Message<T> {
+
+    private final Message<?> batch;
+
+    private final MultiMap headers;
+
+    private final T body;
+
+    /**
+     *
+     * @param batch the batch message that contained the message
+     * @param body message body
+     * @param index the message's position within the batch
+     */
+    public BatchedMessage(@NonNull final Message<?> batch, @NonNull final T body, final int index) {
+        this.batch = batch;
+        this.body = body;
+        final String batchMessageId = batch.headers().get(MESSAGE_ID.header);
+        if (batchMessageId != null) {
+            this.headers = new CaseInsensitiveHeaders().addAll(batch.headers()).set(MESSAGE_ID.header, batchedMessageId(batchMessageId, index));
+        } else {
+            this.headers = batch.headers();
+        }
+    }
+
+    /**
+     *
+     * @param batchMessageId the batch message id
+     * @param index the message's position within the batch
+     * @return message id for the message at the specified position within the batch
+     */
+    public static String batchedMessageId(@NonNull final String batchMessageId, final int index) {
+        return batchMessageId + '/' + index;
+    }
+
+    @Override
+    public String address() {
+        return batch.address();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return headers;
+    }
+
+    @Override
+    public T body() {
+        return body;
+    }
+
+    @Override
+    public String replyAddress() {
+        return null;
+    }
+
+    @Override
+    public void reply(final Object message) {
+    }
+
+    @Override
+    public <R> void reply(final Object message, final Handler<AsyncResult<Message<R>>> replyHandler) {
+    }
+
+    @Override
+    public void reply(final Object message, final DeliveryOptions options) {
+    }
+
+    @Override
+    public <R> void reply(final Object message, final DeliveryOptions options, final Handler<AsyncResult<Message<R>>> replyHandler) {
+    }
+
+    @Override
+    public void fail(final int failureCode, final String message) {
+    }
+
+}
@@ -121,11 +121,23 @@ public interface EventBusAddress {
      * @return process specific address
      */
     public static String toProcessSpecificEventBusAddress(final String address) {
+        return toProcessSpecificEventBusAddress(address, JvmProcess.JVM_ID);
+    }
+
+    /**
+     * Prefixes the eventbus address with the specified JVM ID, which is used to address a consumer running within another JVM.
+     *
+     * @param address eventbus address
+     * @param jvmId JVM ID
+     * @return process specific address
+     */
+    public static String toProcessSpecificEventBusAddress(final String address, final String jvmId) {
         checkArgument(isNotBlank(address));
+        checkArgument(isNotBlank(jvmId));
         if (address.charAt(0) == '/') {
-            return String.format("/%s%s", JvmProcess.JVM_ID, address);
+            return String.format("/%s%s", jvmId, address);
         }
-        return String.format("/%s/%s", JvmProcess.JVM_ID, address);
+        return String.format("/%s/%s", jvmId, address);
     }
 
 }
@@ -15,6 +15,7 @@
  */
 package co.runrightfast.vertx.core.eventbus;
 
+import static co.runrightfast.core.utils.PreconditionErrorMessageTemplates.MUST_BE_GREATER_THAN_ZERO;
 import static co.runrightfast.vertx.core.eventbus.EventBusAddress.toProcessSpecificEventBusAddress;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -37,7 +38,7 @@ public final class EventBusAddressMessageMapping<REQUEST extends com.google.prot
 
     public static final class Builder<REQUEST extends com.google.protobuf.Message, RESPONSE extends com.google.protobuf.Message> {
 
-        private final EventBusAddressMessageMapping mapping = new EventBusAddressMessageMapping();
+        private final EventBusAddressMessageMapping<REQUEST, RESPONSE> mapping = new EventBusAddressMessageMapping<>();
 
         private Builder() {
         }
@@ -57,7 +58,27 @@ public final class EventBusAddressMessageMapping<REQUEST extends com.google.prot
             return this;
         }
 
-        public EventBusAddressMessageMapping build() {
+        /**
+         *
+         * @param maxSize max serialized request message size in bytes
+         * @return Builder
+         */
+        public Builder<REQUEST, RESPONSE> requestMaxSize(final int maxSize) {
+            mapping.requestMaxSize = Optional.of(maxSize);
+            return this;
+        }
+
+        /**
+         *
+         * @param maxSize max serialized response message size in bytes
+         * @return Builder
+         */
+        public Builder<REQUEST, RESPONSE> responseMaxSize(final int maxSize) {
+            mapping.responseMaxSize = Optional.of(maxSize);
+            return this;
+        }
+
+        public EventBusAddressMessageMapping<REQUEST, RESPONSE> build() {
             mapping.validate();
             mapping.processSpecificAddress = toProcessSpecificEventBusAddress(mapping.address);
             return mapping;
@@ -86,12 +107,50 @@ public final class EventBusAddressMessageMapping<REQUEST extends com.google.prot
     @Getter
     private Optional<RESPONSE> responseDefaultInstance = Optional.empty();
 
+    /**
+     * Max serialized request message size in bytes. If not specified, then request message size is not limited.
+     */
+    @Getter
+    private Optional<Integer> requestMaxSize = Optional.empty();
+
+    /**
+     * Max serialized response message size in bytes. If not specified, then response message size is not limited.
+     */
+    @Getter
+    private Optional<Integer> responseMaxSize = Optional.empty();
+
     private EventBusAddressMessageMapping() {
     }
 
     public void validate() {
         checkNotNull(requestDefaultInstance);
         checkArgument(isNotBlank(address));
+        requestMaxSize.ifPresent(size -> checkArgument(size > 0, MUST_BE_GREATER_THAN_ZERO, "requestMaxSize"));
+        responseMaxSize.ifPresent(size -> checkArgument(size > 0, MUST_BE_GREATER_THAN_ZERO, "responseMaxSize"));
+    }
+
+    /**
+     *
+     * @param size serialized request message size in bytes
+     * @throws MessageTooLargeException if the size exceeds {@link #getRequestMaxSize()}
+     */
+    public void checkRequestSize(final int size) {
+        requestMaxSize.ifPresent(maxSize -> checkMessageSize("request", size, maxSize));
+    }
+
+    /**
+     *
+     * @param size serialized response message size in bytes
+     * @throws MessageTooLargeException if the size exceeds {@link #getResponseMaxSize()}
+     */
+    public void checkResponseSize(final int size) {
+        responseMaxSize.ifPresent(maxSize -> checkMessageSize("response", size, maxSize));
+    }
+
+    private void checkMessageSize(final String messageType, final int size, final int maxSize) {
+        if (size > maxSize) {
+            throw new MessageTooLargeException(String.format("%s message is too large : address = %s, size = %d, max size = %d", messageType, address, size, maxSize));
+        }
     }
 
     public JsonObject toJson() {
@@ -99,6 +158,8 @@ public final class EventBusAddressMessageMapping<REQUEST extends com.google.prot
                 .add("address", address)
                 .add("requestMessageType", requestDefaultInstance.getDescriptorForType().getFullName());
         getResponseDefaultInstance().ifPresent(instance -> json.add("responseMessageType", instance.getDescriptorForType().getFullName()));
+        requestMaxSize.ifPresent(size -> json.add("requestMaxSize", size));
+        responseMaxSize.ifPresent(size -> json.add("responseMaxSize", size));
         return json.build();
     }
 
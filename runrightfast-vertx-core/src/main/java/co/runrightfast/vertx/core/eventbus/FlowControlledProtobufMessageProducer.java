@@ -0,0 +1,308 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.getFlowControlCredits;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.protobuf.Message;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.streams.WriteStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Credit based flow controlled message producer for request/response messages.
+ *
+ * The producer starts out with {@link #getInitialCredits()} credits. Each message that is sent uses a credit, which is returned when the reply is received
+ * (or the request fails or times out). If the consumer is configured for flow control, then each reply carries the number of additional messages the
+ * consumer can accept via the {@link MessageHeader#FLOW_CONTROL_CREDITS} header - see {@link MessageConsumerConfig.Builder#flowControlCredits(int)}. The
+ * producer's credits are then set to the number of messages that are still in flight plus the consumer's available credits. When there are no credits
+ * available, messages are queued locally, and are sent as credits are returned. If there are no messages in flight, then a single message is always allowed
+ * to be sent in order to learn the consumer's available credits.
+ *
+ * Messages are sent, and reply, exception, and drain handlers are invoked, without holding the producer's lock. The lock only guards the credit accounting
+ * and the queue, i.e., a credit is reserved for a message while holding the lock, and the message is sent after the lock is released.
+ *
+ * Backpressure is signalled to the caller via the {@link WriteStream} API, i.e., {@link #writeQueueFull()} and {@link #drainHandler(io.vertx.core.Handler)},
+ * which means it can be used with a {@link io.vertx.core.streams.Pump}.
+ *
+ * NOTE: consumers must reply to messages - messages that are not replied to only return their credit when the send times out.
+ *
+ * @author alfio
+ * @param <A> message type
+ */
+public final class FlowControlledProtobufMessageProducer<A extends Message> implements WriteStream<A> {
+
+    public static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 1000;
+
+    @Getter
+    private final ProtobufMessageProducer<A> producer;
+
+    @Getter
+    private final int initialCredits;
+
+    private final Queue<PendingMessage<?>> queue = new ArrayDeque<>();
+
+    private int credits;
+
+    private int inFlight;
+
+    private int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+
+    private boolean drainRequired;
+
+    private Handler<Void> drainHandler;
+
+    private Handler<Throwable> exceptionHandler;
+
+    /**
+     *
+     * @param producer used to send the messages
+     * @param initialCredits the number of messages that can be sent before the consumer advertises its credits
+     */
+    public FlowControlledProtobufMessageProducer(@NonNull final ProtobufMessageProducer<A> producer, final int initialCredits) {
+        checkArgument(initialCredits > 0, "initialCredits must be greater than 0");
+        this.producer = producer;
+        this.initialCredits = initialCredits;
+        this.credits = initialCredits;
+    }
+
+    /**
+     * Reply failures are reported to the exception handler.
+     *
+     * @param msg message
+     * @return this
+     */
+    @Override
+    public FlowControlledProtobufMessageProducer<A> write(@NonNull final A msg) {
+        return send(msg, null);
+    }
+
+    /**
+     * The message is sent immediately if there are credits available. Otherwise the message is queued.
+     *
+     * @param <RESPONSE> response message type
+     * @param msg message
+     * @param handler reply handler - if null, then failures are reported to the exception handler
+     * @return this
+     */
+    public <RESPONSE> FlowControlledProtobufMessageProducer<A> send(@NonNull final A msg, final Handler<AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>>> handler) {
+        return send(msg, new DeliveryOptions(), handler);
+    }
+
+    /**
+     * The message is sent immediately if there are credits available. Otherwise the message is queued, along with its delivery options.
+     *
+     * @param <RESPONSE> response message type
+     * @param msg message
+     * @param options delivery options - must not be modified after the message is handed over, because the message may be queued
+     * @param handler reply handler - if null, then failures are reported to the exception handler
+     * @return this
+     */
+    public <RESPONSE> FlowControlledProtobufMessageProducer<A> send(
+            @NonNull final A msg,
+            @NonNull final DeliveryOptions options,
+            final Handler<AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>>> handler) {
+        final PendingMessage<RESPONSE> pendingMessage = new PendingMessage<>(msg, options, handler);
+        synchronized (this) {
+            if (queue.isEmpty() && hasCredit()) {
+                inFlight++;
+            } else {
+                queue.add(pendingMessage);
+                if (writeQueueFull()) {
+                    drainRequired = true;
+                }
+                return this;
+            }
+        }
+
+        try {
+            send(pendingMessage);
+        } catch (final RuntimeException e) {
+            final List<PendingMessage<?>> sendableMessages;
+            final Handler<Throwable> onException;
+            synchronized (this) {
+                inFlight--;
+                sendableMessages = takeSendableMessages();
+                onException = exceptionHandler;
+            }
+            final List<RuntimeException> sendFailures = sendAll(sendableMessages);
+            if (onException != null) {
+                sendFailures.forEach(onException::handle);
+            }
+            throw e;
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized FlowControlledProtobufMessageProducer<A> setWriteQueueMaxSize(final int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be greater than 0");
+        this.writeQueueMaxSize = maxSize;
+        return this;
+    }
+
+    @Override
+    public synchronized boolean writeQueueFull() {
+        return queue.size() >= writeQueueMaxSize;
+    }
+
+    @Override
+    public synchronized FlowControlledProtobufMessageProducer<A> drainHandler(final Handler<Void> handler) {
+        this.drainHandler = handler;
+        return this;
+    }
+
+    @Override
+    public synchronized FlowControlledProtobufMessageProducer<A> exceptionHandler(final Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    /**
+     *
+     * @return the number of messages that may be in flight, as last advertised by the consumer
+     */
+    public synchronized int getCredits() {
+        return credits;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    private boolean hasCredit() {
+        return inFlight < credits || inFlight == 0;
+    }
+
+    /**
+     * Must be called without holding the lock, after a credit was reserved for the message
+     */
+    private <RESPONSE> void send(final PendingMessage<RESPONSE> pendingMessage) {
+        producer.<RESPONSE>send(pendingMessage.msg, pendingMessage.options, result -> handleReply(pendingMessage, result));
+    }
+
+    private <RESPONSE> void handleReply(final PendingMessage<RESPONSE> pendingMessage, final AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>> result) {
+        final List<PendingMessage<?>> sendableMessages;
+        final Handler<Void> drain;
+        final Handler<Throwable> onException;
+        synchronized (this) {
+            inFlight--;
+            if (result.succeeded()) {
+                getFlowControlCredits(result.result()).ifPresent(availableCredits -> {
+                    credits = (int) Math.min(Integer.MAX_VALUE, (long) inFlight + Math.max(0, availableCredits));
+                });
+            }
+            sendableMessages = takeSendableMessages();
+            if (drainRequired && queue.size() <= writeQueueMaxSize / 2) {
+                drainRequired = false;
+                drain = drainHandler;
+            } else {
+                drain = null;
+            }
+            onException = exceptionHandler;
+        }
+
+        final List<RuntimeException> sendFailures = sendAll(sendableMessages);
+        try {
+            if (pendingMessage.handler != null) {
+                pendingMessage.handler.handle(result);
+            } else if (result.failed() && onException != null) {
+                onException.handle(result.cause());
+            }
+        } finally {
+            if (onException != null) {
+                sendFailures.forEach(onException::handle);
+            }
+            if (drain != null) {
+                drain.handle(null);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock. A credit is reserved for each message that is taken off the queue.
+     *
+     * @return the queued messages that can be sent
+     */
+    private List<PendingMessage<?>> takeSendableMessages() {
+        List<PendingMessage<?>> sendableMessages = Collections.emptyList();
+        while (!queue.isEmpty() && hasCredit()) {
+            if (sendableMessages.isEmpty()) {
+                sendableMessages = new ArrayList<>();
+            }
+            sendableMessages.add(queue.poll());
+            inFlight++;
+        }
+        return sendableMessages;
+    }
+
+    /**
+     * Must be called without holding the lock. The credits of messages that fail to send are returned, which may make further queued messages sendable.
+     *
+     * @param sendableMessages messages that credits were reserved for
+     * @return send failures
+     */
+    private List<RuntimeException> sendAll(final List<PendingMessage<?>> sendableMessages) {
+        List<RuntimeException> sendFailures = Collections.emptyList();
+        List<PendingMessage<?>> messages = sendableMessages;
+        while (!messages.isEmpty()) {
+            int failureCount = 0;
+            for (final PendingMessage<?> pendingMessage : messages) {
+                try {
+                    send(pendingMessage);
+                } catch (final RuntimeException e) {
+                    if (sendFailures.isEmpty()) {
+                        sendFailures = new ArrayList<>();
+                    }
+                    sendFailures.add(e);
+                    failureCount++;
+                }
+            }
+            if (failureCount == 0) {
+                break;
+            }
+            synchronized (this) {
+                inFlight -= failureCount;
+                messages = takeSendableMessages();
+            }
+        }
+        return sendFailures;
+    }
+
+    @RequiredArgsConstructor
+    private final class PendingMessage<RESPONSE> {
+
+        private final A msg;
+
+        private final DeliveryOptions options;
+
+        private final Handler<AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>>> handler;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import co.runrightfast.core.ApplicationException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Message body that retains the serialized protobuf bytes and defers parsing until the message is first accessed via {@link #get()}. Consumers that only
+ * inspect headers, or forward the message on to another address, never pay for the parse. When forwarded, the original bytes are written back out to the wire
+ * as is.
+ *
+ * @author alfio
+ * @param <MSG> Message payload type
+ */
+public final class LazyProtobufMessage<MSG extends Message> {
+
+    @Getter
+    private final MSG defaultInstance;
+
+    private volatile byte[] bytes;
+
+    private volatile MSG message;
+
+    private LazyProtobufMessage(final MSG defaultInstance, final byte[] bytes, final MSG message) {
+        this.defaultInstance = defaultInstance;
+        this.bytes = bytes;
+        this.message = message;
+    }
+
+    /**
+     *
+     * @param <MSG> Message payload type
+     * @param defaultInstance used to parse the message
+     * @param bytes serialized message - the array is not copied, and must not be modified after it is handed over
+     * @return LazyProtobufMessage
+     */
+    public static <MSG extends Message> LazyProtobufMessage<MSG> lazyProtobufMessage(@NonNull final MSG defaultInstance, @NonNull final byte[] bytes) {
+        return new LazyProtobufMessage<>(defaultInstance, bytes, null);
+    }
+
+    /**
+     * Wraps a message that has already been parsed. The message will be serialized on demand, at most once.
+     *
+     * @param <MSG> Message payload type
+     * @param message message
+     * @return LazyProtobufMessage
+     */
+    @SuppressWarnings("unchecked")
+    public static <MSG extends Message> LazyProtobufMessage<MSG> lazyProtobufMessage(@NonNull final MSG message) {
+        return new LazyProtobufMessage<>((MSG) message.getDefaultInstanceForType(), null, message);
+    }
+
+    /**
+     * The message is parsed on first access. Parsing is idempotent, thus concurrent first access may parse more than once, but all callers will see an equal
+     * message.
+     *
+     * @return message
+     */
+    @SuppressWarnings("unchecked")
+    public MSG get() {
+        MSG msg = message;
+        if (msg == null) {
+            try {
+                msg = (MSG) defaultInstance.getParserForType().parseFrom(bytes);
+            } catch (final InvalidProtocolBufferException ex) {
+                throw new ApplicationException(ex);
+            }
+            message = msg;
+        }
+        return msg;
+    }
+
+    /**
+     *
+     * @return the serialized message - callers must not modify the returned array
+     */
+    public byte[] getBytes() {
+        byte[] b = bytes;
+        if (b == null) {
+            b = message.toByteArray();
+            bytes = b;
+        }
+        return b;
+    }
+
+    /**
+     *
+     * @return true if the message has been parsed
+     */
+    public boolean isParsed() {
+        return message != null;
+    }
+
+    /**
+     *
+     * @return the protobuf message type full name
+     */
+    public String messageType() {
+        return defaultInstance.getDescriptorForType().getFullName();
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.LazyProtobufMessage.lazyProtobufMessage;
+import com.google.protobuf.Message;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Wire compatible with {@link ProtobufMessageCodec} - both codecs are registered using the protobuf message type full name, and the wire format is the raw
+ * protobuf bytes. The difference is that messages are decoded as {@link LazyProtobufMessage}, i.e., the bytes are copied but not parsed.
+ *
+ * The codec is registered as the default codec for the message type. Thus, within a Vertx instance, a message type is either decoded lazily or eagerly. Lazy
+ * decoding is enabled via {@link MessageConsumerConfig.Builder#lazyHandler(io.vertx.core.Handler)}, which fails if the message type is already received by
+ * an eager consumer or reply handler - see {@link ProtobufMessageCodecRegistry#registerLazyMessageCodec(com.google.protobuf.Message)}.
+ *
+ * Both the message type and {@link LazyProtobufMessage} are supported when encoding. {@link LazyProtobufMessage} bodies must be sent using the codec name,
+ * i.e., via {@link ProtobufMessageProducer#forward(LazyProtobufMessage)}
+ *
+ * @author alfio
+ * @param <MSG> Message payload type
+ */
+@EqualsAndHashCode(of = "defaultInstance")
+public final class LazyProtobufMessageCodec<MSG extends Message> implements MessageCodec<Object, LazyProtobufMessage<MSG>> {
+
+    @Getter
+    private final MSG defaultInstance;
+
+    public LazyProtobufMessageCodec(@NonNull final MSG defaultInstance) {
+        this.defaultInstance = defaultInstance;
+    }
+
+    @Override
+    public void encodeToWire(final Buffer buffer, final Object msg) {
+        if (msg instanceof LazyProtobufMessage) {
+            buffer.appendBytes(((LazyProtobufMessage) msg).getBytes());
+        } else {
+            buffer.appendBytes(((Message) msg).toByteArray());
+        }
+    }
+
+    @Override
+    public LazyProtobufMessage<MSG> decodeFromWire(final int pos, final Buffer buffer) {
+        return lazyProtobufMessage(defaultInstance, buffer.getBytes(pos, buffer.length()));
+    }
+
+    /**
+     * The codec is registered as the default codec for the message type, i.e., the object is either the message type or a lazy message of the message type.
+     *
+     * @param msg MSG or LazyProtobufMessage&lt;MSG&gt;
+     * @return lazy message
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public LazyProtobufMessage<MSG> transform(final Object msg) {
+        if (msg instanceof LazyProtobufMessage) {
+            return (LazyProtobufMessage<MSG>) msg;
+        }
+        return lazyProtobufMessage((MSG) msg);
+    }
+
+    @Override
+    public String name() {
+        return defaultInstance.getDescriptorForType().getFullName();
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Optional;
 import javax.json.Json;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
@@ -67,7 +68,7 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
      */
     public static final class Builder<REQUEST extends com.google.protobuf.Message, RESPONSE extends com.google.protobuf.Message> {
 
-        private final MessageConsumerConfig config = new MessageConsumerConfig();
+        private final MessageConsumerConfig<REQUEST, RESPONSE> config = new MessageConsumerConfig<>();
         private ImmutableMap.Builder<Class<? extends Throwable>, Failure> exceptionFailureMap = ImmutableMap.<Class<? extends Throwable>, Failure>builder()
                 .put(InvalidMessageException.class, Failure.BAD_REQUEST)
                 .put(UnauthorizedException.class, Failure.UNAUTHORIZED)
@@ -83,7 +84,14 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
         private Builder() {
         }
 
-        public Builder<REQUEST, RESPONSE> addressMessageMapping(final EventBusAddressMessageMapping mapping) {
+        /**
+         * The mapping is accepted as is because the mapping message types cannot be inferred when the mapping builder is chained inline. The message types
+         * are verified at runtime via the codecs.
+         *
+         * @param mapping address message mapping
+         * @return Builder
+         */
+        public Builder<REQUEST, RESPONSE> addressMessageMapping(final EventBusAddressMessageMapping<REQUEST, RESPONSE> mapping) {
             this.config.addressMessageMapping = mapping;
             return this;
         }
@@ -98,8 +106,42 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
             return this;
         }
 
+        /**
+         * Enables credit based flow control. The consumer will advertise its available credits, i.e., how many more messages it is willing to accept, on each
+         * reply via the {@link MessageHeader#FLOW_CONTROL_CREDITS} header. The available credits are computed as the number of credits minus the number of
+         * messages that are currently being processed.
+         *
+         * @param flowControlCredits the max number of messages that the consumer is willing to process concurrently
+         * @return Builder
+         * @see FlowControlledProtobufMessageProducer
+         */
+        public Builder<REQUEST, RESPONSE> flowControlCredits(final int flowControlCredits) {
+            this.config.flowControlCredits = Optional.of(flowControlCredits);
+            return this;
+        }
+
         public Builder<REQUEST, RESPONSE> handler(@NonNull final Handler<Message<REQUEST>> handler) {
             this.config.handler = handler;
+            this.config.lazyDecoding = false;
+            return this;
+        }
+
+        /**
+         * Request messages are decoded lazily, i.e., the message bodies are delivered as {@link LazyProtobufMessage}. This is meant for consumers that only
+         * inspect headers or forward messages, i.e., gateway and fan-out consumers.
+         *
+         * The request message type must not be received eagerly by any other consumer or reply handler within the Vertx instance, otherwise registering the
+         * consumer fails with an IllegalStateException.
+         *
+         * @param handler message handler
+         * @return Builder
+         * @see LazyProtobufMessageCodec
+         */
+        @SuppressWarnings("unchecked")
+        public Builder<REQUEST, RESPONSE> lazyHandler(@NonNull final Handler<Message<LazyProtobufMessage<REQUEST>>> handler) {
+            // the handler field type does not reflect lazy decoding - see MessageConsumerConfig.handler
+            this.config.handler = (Handler<Message<REQUEST>>) (Handler<?>) handler;
+            this.config.lazyDecoding = true;
             return this;
         }
 
@@ -128,7 +170,7 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
             return this;
         }
 
-        public MessageConsumerConfig build() {
+        public MessageConsumerConfig<REQUEST, RESPONSE> build() {
             config.exceptionFailureMap = this.exceptionFailureMap.build();
             config.validate();
             return config;
@@ -140,7 +182,7 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
     }
 
     @Getter
-    private EventBusAddressMessageMapping addressMessageMapping;
+    private EventBusAddressMessageMapping<REQUEST, RESPONSE> addressMessageMapping;
 
     @Getter
     private boolean local;
@@ -151,9 +193,24 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
     @Getter
     private int maxBufferedMessages;
 
+    /**
+     * If set, then credit based flow control is enabled
+     */
+    @Getter
+    private Optional<Integer> flowControlCredits = Optional.empty();
+
+    /**
+     * If {@link #lazyDecoding} is true, then the handler is actually a Handler&lt;Message&lt;LazyProtobufMessage&lt;REQUEST&gt;&gt;&gt;
+     */
     @Getter
     private Handler<Message<REQUEST>> handler;
 
+    /**
+     * If true, then request messages are delivered as {@link LazyProtobufMessage}
+     */
+    @Getter
+    private boolean lazyDecoding;
+
     @Getter
     private Optional<Handler<AsyncResult<Void>>> completionHandler = Optional.empty();
 
@@ -176,6 +233,7 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
         checkNotNull(addressMessageMapping);
         checkNotNull(handler);
         checkState(maxBufferedMessages >= 0);
+        flowControlCredits.ifPresent(credits -> checkState(credits > 0, "flowControlCredits must be greater than 0"));
     }
 
     public String address() {
@@ -198,11 +256,13 @@ public final class MessageConsumerConfig<REQUEST extends com.google.protobuf.Mes
     }
 
     public JsonObject toJson() {
-        return Json.createObjectBuilder()
+        final JsonObjectBuilder json = Json.createObjectBuilder()
                 .add("addressMessageMapping", addressMessageMapping.toJson())
                 .add("local", local)
                 .add("maxBufferedMessages", maxBufferedMessages)
-                .build();
+                .add("lazyDecoding", lazyDecoding);
+        flowControlCredits.ifPresent(credits -> json.add("flowControlCredits", credits));
+        return json.build();
     }
 
     @Override
@@ -17,6 +17,7 @@ package co.runrightfast.vertx.core.eventbus;
 
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.Failure;
 import co.runrightfast.core.utils.JsonUtils;
+import com.google.common.primitives.Ints;
 import io.vertx.core.eventbus.Message;
 import java.time.Instant;
 import java.util.Optional;
@@ -55,7 +56,29 @@ public enum MessageHeader {
      *
      * The message body will contain a {@link co.runrightfast.vertx.core.messages.Void} message.
      */
-    FAILURE("rrf-failure");
+    FAILURE("rrf-failure"),
+    /**
+     * The number of additional messages the consumer is willing to accept, on top of the messages it is already processing - set on replies by consumers
+     * that are configured for credit based flow control.
+     *
+     * @see MessageConsumerConfig#getFlowControlCredits()
+     */
+    FLOW_CONTROL_CREDITS("rrf-credits"),
+    /**
+     * Identifies the trace, i.e., the request path across verticles and nodes, that the message belongs to.
+     *
+     * @see co.runrightfast.vertx.core.tracing.Tracer
+     */
+    TRACE_ID("rrf-trace-id"),
+    /**
+     * The sender's span id, which becomes the parent span id on the receiving side.
+     */
+    SPAN_ID("rrf-span-id"),
+    /**
+     * "1" if the trace was sampled when it was started, in which case all of its spans are recorded. "0" if the trace is not sampled, in which case the
+     * trace and span id headers are omitted.
+     */
+    TRACE_SAMPLED("rrf-trace-sampled");
 
     public final String header;
 
@@ -83,6 +106,27 @@ public enum MessageHeader {
         return Optional.ofNullable(message.headers().get(FROM_ADDRESS.header));
     }
 
+    public static Optional<String> getFromJvm(@NonNull final Message message) {
+        return Optional.ofNullable(message.headers().get(FROM_JVM.header));
+    }
+
+    /**
+     *
+     * @param message message
+     * @return empty if the header is not present or is not a valid integer
+     */
+    public static Optional<Integer> getFlowControlCredits(@NonNull final Message message) {
+        return Optional.ofNullable(message.headers().get(FLOW_CONTROL_CREDITS.header)).map(Ints::tryParse);
+    }
+
+    public static Optional<String> getTraceId(@NonNull final Message message) {
+        return Optional.ofNullable(message.headers().get(TRACE_ID.header));
+    }
+
+    public static Optional<String> getSpanId(@NonNull final Message message) {
+        return Optional.ofNullable(message.headers().get(SPAN_ID.header));
+    }
+
     public static Optional<Failure> getFailure(@NonNull final Message message) {
         final String failureJson = message.headers().get(FAILURE.header);
         if (StringUtils.isNotBlank(failureJson)) {
@@ -0,0 +1,384 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import co.runrightfast.vertx.core.RunRightFastVerticleMetrics;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_BATCH_PUBLISHED_MESSAGES;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_BATCH_SENT_MESSAGES;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_PUBLISHED_SIZE;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_SENT_SIZE;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_BATCH_PUBLISHED;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_BATCH_SENT;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_PUBLISHED;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_SENT;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodecRegistry;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer.addRunRightFastHeaders;
+import co.runrightfast.vertx.core.metrics.TaggedMetricRegistry;
+import co.runrightfast.vertx.core.verticles.messages.MessageBatch;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.EventBus;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Micro-batching message producer for high rate fire-and-forget messages, e.g., events and metrics.
+ *
+ * Messages are accumulated and sent as a single {@link MessageBatch} EventBus message, which is flushed when either the batch contains
+ * {@link #getMaxBatchSize()} messages, the serialized batch reaches {@link #getMaxBatchBytes()}, or the first message in the batch has been waiting for
+ * {@link #getMaxBatchDelay()}. A message that would push the batch over {@link #getMaxBatchBytes()} is added to a new batch. Sent and published messages are
+ * batched separately.
+ *
+ * Message consumers registered via RunRightFastVerticle unpack {@link MessageBatch} messages and dispatch each message individually to the configured handler.
+ * Because the messages are fire-and-forget, replying to a batched message is a no-op. The EventBus headers are set once per batch, and each unpacked message
+ * is assigned its own message id - see {@link BatchedMessage}.
+ *
+ * The flush timer runs on the Vertx context that the producer was created on, regardless of which context the messages are sent from. Batches are sent in
+ * the order they were filled, even when multiple threads flush concurrently.
+ *
+ * NOTE: Vertx timers have millisecond granularity - the max batch delay is rounded up to the nearest millisecond.
+ *
+ * <h3>Meters</h3>
+ * <ol>
+ * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_SENT}
+ * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_PUBLISHED}
+ * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_BATCH_SENT}
+ * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_BATCH_PUBLISHED}
+ * </ol>
+ *
+ * <h3>Histograms</h3>
+ * <ol>
+ * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_SENT_SIZE}
+ * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_PUBLISHED_SIZE}
+ * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_BATCH_SENT_MESSAGES}
+ * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_BATCH_PUBLISHED_MESSAGES}
+ * </ol>
+ *
+ * @author alfio
+ * @param <A> message type
+ */
+@EqualsAndHashCode(of = "address")
+public final class ProtobufMessageBatchProducer<A extends Message> {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+    public static final Duration DEFAULT_MAX_BATCH_DELAY = Duration.ofMillis(1);
+
+    private final Vertx vertx;
+
+    private final Context context;
+
+    @Getter
+    private final String address;
+
+    @Getter
+    private final int maxBatchSize;
+
+    @Getter
+    private final int maxBatchBytes;
+
+    @Getter
+    private final Duration maxBatchDelay;
+
+    @Getter
+    private final Optional<Integer> maxMessageSize;
+
+    private final long maxBatchDelayMillis;
+
+    private final Batch sendBatch;
+
+    private final Batch publishBatch;
+
+    /**
+     *
+     * @param vertx used to schedule batch flushes
+     * @param address EventBus address
+     * @param defaultInstance message default instance
+     * @param maxBatchSize max number of messages per batch
+     * @param maxBatchDelay max amount of time a message is held before the batch is flushed
+     * @param metricRegistry used to register the metrics described above
+     */
+    public ProtobufMessageBatchProducer(
+            @NonNull final Vertx vertx,
+            final String address,
+            @NonNull final A defaultInstance,
+            final int maxBatchSize,
+            @NonNull final Duration maxBatchDelay,
+            @NonNull final MetricRegistry metricRegistry) {
+        this(vertx, address, defaultInstance, Optional.empty(), maxBatchSize, DEFAULT_MAX_BATCH_BYTES, maxBatchDelay, metricRegistry);
+    }
+
+    /**
+     *
+     * @param vertx used to schedule batch flushes
+     * @param address EventBus address
+     * @param defaultInstance message default instance
+     * @param maxBatchSize max number of messages per batch
+     * @param maxBatchBytes max serialized batch size in bytes
+     * @param maxBatchDelay max amount of time a message is held before the batch is flushed
+     * @param metricRegistry used to register the metrics described above
+     */
+    public ProtobufMessageBatchProducer(
+            @NonNull final Vertx vertx,
+            final String address,
+            @NonNull final A defaultInstance,
+            final int maxBatchSize,
+            final int maxBatchBytes,
+            @NonNull final Duration maxBatchDelay,
+            @NonNull final MetricRegistry metricRegistry) {
+        this(vertx, address, defaultInstance, Optional.empty(), maxBatchSize, maxBatchBytes, maxBatchDelay, metricRegistry);
+    }
+
+    /**
+     * The message size limit is set from {@link EventBusAddressMessageMapping#getRequestMaxSize()}, and is applied per message.
+     *
+     * @param vertx used to schedule batch flushes
+     * @param mapping the address and request message type are taken from the mapping
+     * @param maxBatchSize max number of messages per batch
+     * @param maxBatchDelay max amount of time a message is held before the batch is flushed
+     * @param metricRegistry used to register the metrics described above
+     */
+    public ProtobufMessageBatchProducer(
+            @NonNull final Vertx vertx,
+            @NonNull final EventBusAddressMessageMapping<A, ?> mapping,
+            final int maxBatchSize,
+            @NonNull final Duration maxBatchDelay,
+            @NonNull final MetricRegistry metricRegistry) {
+        this(vertx, mapping.getAddress(), mapping.getRequestDefaultInstance(), mapping.getRequestMaxSize(), maxBatchSize, DEFAULT_MAX_BATCH_BYTES, maxBatchDelay, metricRegistry);
+    }
+
+    private ProtobufMessageBatchProducer(
+            final Vertx vertx,
+            final String address,
+            final A defaultInstance,
+            final Optional<Integer> maxMessageSize,
+            final int maxBatchSize,
+            final int maxBatchBytes,
+            final Duration maxBatchDelay,
+            final MetricRegistry metricRegistry) {
+        checkArgument(isNotBlank(address));
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+        checkArgument(maxBatchBytes > 0, "maxBatchBytes must be greater than 0");
+        checkArgument(!maxBatchDelay.isNegative() && !maxBatchDelay.isZero(), "maxBatchDelay must be greater than 0");
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.address = address;
+        this.maxMessageSize = maxMessageSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchDelay = maxBatchDelay;
+        this.maxBatchDelayMillis = Math.max(1, (maxBatchDelay.toNanos() + 999_999) / 1_000_000);
+
+        final EventBus eventBus = vertx.eventBus();
+        protobufMessageCodecRegistry(eventBus).registerMessageCodec(defaultInstance);
+        protobufMessageCodecRegistry(eventBus).registerMessageCodec(MessageBatch.getDefaultInstance());
+
+        final TaggedMetricRegistry addressMetricRegistry = new TaggedMetricRegistry(metricRegistry).withAddress(address);
+        this.sendBatch = new Batch(
+                (batch, options) -> eventBus.send(address, batch, options),
+                MESSAGE_SENT.meter(addressMetricRegistry),
+                MESSAGE_SENT_SIZE.histogram(addressMetricRegistry),
+                MESSAGE_BATCH_SENT.meter(addressMetricRegistry),
+                MESSAGE_BATCH_SENT_MESSAGES.histogram(addressMetricRegistry)
+        );
+        this.publishBatch = new Batch(
+                (batch, options) -> eventBus.publish(address, batch, options),
+                MESSAGE_PUBLISHED.meter(addressMetricRegistry),
+                MESSAGE_PUBLISHED_SIZE.histogram(addressMetricRegistry),
+                MESSAGE_BATCH_PUBLISHED.meter(addressMetricRegistry),
+                MESSAGE_BATCH_PUBLISHED_MESSAGES.histogram(addressMetricRegistry)
+        );
+    }
+
+    public void send(@NonNull final A msg) {
+        sendBatch.add(msg);
+    }
+
+    public void publish(@NonNull final A msg) {
+        publishBatch.add(msg);
+    }
+
+    /**
+     * Sends any pending messages immediately. This should be called before the producer is discarded, e.g., when the verticle is stopped.
+     */
+    public void flush() {
+        sendBatch.flush();
+        publishBatch.flush();
+    }
+
+    /**
+     *
+     * @return the number of messages that are waiting to be sent or published
+     */
+    public int getPendingMessageCount() {
+        return sendBatch.size() + publishBatch.size();
+    }
+
+    private int checkMessageSize(final int size) {
+        maxMessageSize.ifPresent(maxSize -> {
+            if (size > maxSize) {
+                throw new MessageTooLargeException(String.format("message is too large : address = %s, size = %d, max size = %d", address, size, maxSize));
+            }
+        });
+        return size;
+    }
+
+    private final class Batch {
+
+        private final BiConsumer<MessageBatch, DeliveryOptions> sender;
+
+        private final Meter messages;
+
+        private final Histogram messageSize;
+
+        private final Meter batches;
+
+        private final Histogram batchMessages;
+
+        private MessageBatch.Builder batch = MessageBatch.newBuilder();
+
+        private int batchBytes;
+
+        private long flushTimerId = -1;
+
+        private boolean flushTimerScheduled;
+
+        /**
+         * Batches are queued while holding the batch lock, and sent in queue order by one thread at a time while holding the send lock. Thus, adding
+         * messages is not blocked by sending, and batches are not delivered out of order.
+         */
+        private final Queue<MessageBatch> filledBatches = new ConcurrentLinkedQueue<>();
+
+        private final Object sendLock = new Object();
+
+        Batch(
+                final BiConsumer<MessageBatch, DeliveryOptions> sender,
+                final Meter messages,
+                final Histogram messageSize,
+                final Meter batches,
+                final Histogram batchMessages) {
+            this.sender = sender;
+            this.messages = messages;
+            this.messageSize = messageSize;
+            this.batches = batches;
+            this.batchMessages = batchMessages;
+        }
+
+        void add(final A msg) {
+            messageSize.update(checkMessageSize(msg.getSerializedSize()));
+            final ByteString bytes = msg.toByteString();
+            final int messageBytes = CodedOutputStream.computeBytesSize(MessageBatch.MESSAGES_FIELD_NUMBER, bytes);
+            final boolean drained;
+            synchronized (this) {
+                final boolean overflow = batch.getMessagesCount() > 0 && batchBytes + messageBytes > maxBatchBytes;
+                if (overflow) {
+                    drain();
+                }
+                batch.addMessages(bytes);
+                batchBytes += messageBytes;
+                if (batch.getMessagesCount() < maxBatchSize && batchBytes < maxBatchBytes) {
+                    scheduleFlushTimer();
+                    drained = overflow;
+                } else {
+                    drain();
+                    drained = true;
+                }
+            }
+            messages.mark();
+            if (drained) {
+                sendFilledBatches();
+            }
+        }
+
+        void flush() {
+            synchronized (this) {
+                if (batch.getMessagesCount() > 0) {
+                    drain();
+                }
+            }
+            sendFilledBatches();
+        }
+
+        /**
+         * Must be called while holding the lock. Vertx timers run on the context that set them - if the caller is not running on the producer's context, then
+         * the timer is set from the producer's context.
+         */
+        private void scheduleFlushTimer() {
+            if (flushTimerId != -1 || flushTimerScheduled) {
+                return;
+            }
+            if (Vertx.currentContext() == context) {
+                flushTimerId = vertx.setTimer(maxBatchDelayMillis, id -> flush());
+                return;
+            }
+            flushTimerScheduled = true;
+            context.runOnContext(v -> {
+                synchronized (this) {
+                    if (flushTimerScheduled) {
+                        flushTimerScheduled = false;
+                        flushTimerId = vertx.setTimer(maxBatchDelayMillis, id -> flush());
+                    }
+                }
+            });
+        }
+
+        synchronized int size() {
+            return batch.getMessagesCount();
+        }
+
+        /**
+         * Must be called while holding the lock. The batch is queued to be sent via {@link #sendFilledBatches()}.
+         */
+        private void drain() {
+            if (flushTimerId != -1) {
+                vertx.cancelTimer(flushTimerId);
+                flushTimerId = -1;
+            }
+            flushTimerScheduled = false;
+            filledBatches.add(batch.build());
+            batch = MessageBatch.newBuilder();
+            batchBytes = 0;
+        }
+
+        private void sendFilledBatches() {
+            synchronized (sendLock) {
+                for (MessageBatch pendingBatch = filledBatches.poll(); pendingBatch != null; pendingBatch = filledBatches.poll()) {
+                    sender.accept(pendingBatch, addRunRightFastHeaders(new DeliveryOptions()));
+                    batches.mark();
+                    batchMessages.update(pendingBatch.getMessagesCount());
+                }
+            }
+        }
+    }
+
+}
@@ -16,19 +16,21 @@
 package co.runrightfast.vertx.core.eventbus;
 
 import co.runrightfast.core.ApplicationException;
-import com.google.common.collect.ImmutableMap;
+import co.runrightfast.vertx.core.jfr.FlightRecorderEvents;
+import co.runrightfast.vertx.core.jfr.ProtobufCodecRecording;
+import static co.runrightfast.vertx.core.jfr.ProtobufCodecRecording.DECODE;
+import static co.runrightfast.vertx.core.jfr.ProtobufCodecRecording.ENCODE;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 
 /**
+ * Encoding and decoding is recorded via co.runrightfast.vertx.core.jfr.ProtobufCodecEvent Flight Recorder events - see {@link FlightRecorderEvents}.
  *
  * @author alfio
  * @param <MSG> Message payload type
@@ -36,39 +38,47 @@ import lombok.NonNull;
 @EqualsAndHashCode(of = "defaultInstance")
 public final class ProtobufMessageCodec<MSG extends Message> implements MessageCodec<MSG, MSG> {
 
-    private static ImmutableMap<String, ProtobufMessageCodec> protobufMessageCodecs = ImmutableMap.of();
-
+    /**
+     *
+     * @param msg any instance of the message type
+     * @return the shared codec for the message type
+     * @see ProtobufMessageCodecRegistry#protobufMessageCodec(com.google.protobuf.Message)
+     */
     public static Optional<ProtobufMessageCodec> getProtobufMessageCodec(@NonNull final Message msg) {
-        return Optional.ofNullable(protobufMessageCodecs.get(msg.getDescriptorForType().getFullName()));
+        return Optional.of(ProtobufMessageCodecRegistry.protobufMessageCodec(msg));
     }
 
     @Getter
     private final MSG defaultInstance;
 
+    private final String messageType;
+
     /**
-     * Each time an instance is created, it registers itself and becomes available via {@link ProtobufMessageCodec#getProtobufMessageCodec(com.google.protobuf.Message)
-     * }. If a ProtobufMessageCodec for the same {@link Message} type exists, then it will be overwritten.
-     *
+     * Codecs are stateless. Use {@link ProtobufMessageCodecRegistry#protobufMessageCodec(com.google.protobuf.Message)} to get the shared instance for the
+     * message type.
      *
      * @param defaultInstance
      */
     public ProtobufMessageCodec(@NonNull final MSG defaultInstance) {
         this.defaultInstance = defaultInstance;
-
-        final Map<String, ProtobufMessageCodec> temp = new HashMap<>(protobufMessageCodecs);
-        temp.put(defaultInstance.getDescriptorForType().getFullName(), this);
-        protobufMessageCodecs = ImmutableMap.copyOf(temp);
+        this.messageType = defaultInstance.getDescriptorForType().getFullName();
     }
 
     @Override
     public void encodeToWire(final Buffer buffer, final MSG msg) {
-        buffer.appendBytes(msg.toByteArray());
+        final ProtobufCodecRecording event = FlightRecorderEvents.protobufCodec();
+        final byte[] bytes = msg.toByteArray();
+        buffer.appendBytes(bytes);
+        event.complete(ENCODE, messageType, bytes.length);
     }
 
     @Override
     public MSG decodeFromWire(final int pos, final Buffer buffer) {
+        final ProtobufCodecRecording event = FlightRecorderEvents.protobufCodec();
         try {
-            return (MSG) defaultInstance.getParserForType().parseFrom(buffer.getBytes(pos, buffer.length()));
+            final MSG msg = (MSG) defaultInstance.getParserForType().parseFrom(buffer.getBytes(pos, buffer.length()));
+            event.complete(DECODE, messageType, buffer.length() - pos);
+            return msg;
         } catch (final InvalidProtocolBufferException ex) {
             throw new ApplicationException(ex);
         }
@@ -81,7 +91,7 @@ public final class ProtobufMessageCodec<MSG extends Message> implements MessageC
 
     @Override
     public String name() {
-        return defaultInstance.getDescriptorForType().getFullName();
+        return messageType;
     }
 
     @Override
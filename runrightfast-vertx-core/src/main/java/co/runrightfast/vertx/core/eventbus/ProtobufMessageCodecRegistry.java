@@ -0,0 +1,347 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import co.runrightfast.core.ApplicationException;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.google.common.primitives.Bytes;
+import com.google.common.reflect.ClassPath;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.ClassUtils;
+
+/**
+ * Tracks the protobuf message codecs that are registered with an EventBus.
+ *
+ * At startup, the protobuf message types are discovered from the classpath via {@link #scanProtobufMessageTypes(java.lang.ClassLoader, java.util.Collection)},
+ * and registered in a single bulk step via {@link #registerProtobufMessageCodecs(io.vertx.core.eventbus.EventBus, java.util.Collection)}. After that, codec
+ * lookups are lock-free map reads. Message types that were not discovered at startup are registered on demand, the first time they are used.
+ *
+ * @author alfio
+ */
+@Log
+public final class ProtobufMessageCodecRegistry {
+
+    private static final String CLASS_NAME = ProtobufMessageCodecRegistry.class.getName();
+
+    /**
+     * Every generated proto file class declares a static registerAllExtensions() method
+     */
+    private static final byte[] PROTO_FILE_CLASS_MARKER = "registerAllExtensions".getBytes(StandardCharsets.US_ASCII);
+
+    // message type full name -> ProtobufMessageCodec
+    private static final ConcurrentMap<String, ProtobufMessageCodec<?>> protobufMessageCodecs = new ConcurrentHashMap<>();
+
+    // EventBus -> ProtobufMessageCodecRegistry
+    private static final ConcurrentMap<EventBus, ProtobufMessageCodecRegistry> protobufMessageCodecRegistries = new ConcurrentHashMap<>();
+
+    /**
+     * ProtobufMessageCodec instances are stateless. Thus, a single codec instance is shared per message type.
+     *
+     * @param <MSG> Message payload type
+     * @param msg any instance of the message type
+     * @return ProtobufMessageCodec
+     */
+    @SuppressWarnings("unchecked")
+    public static <MSG extends Message> ProtobufMessageCodec<MSG> protobufMessageCodec(@NonNull final MSG msg) {
+        // the codecs are keyed by message type
+        final String messageType = msg.getDescriptorForType().getFullName();
+        final ProtobufMessageCodec<?> codec = protobufMessageCodecs.get(messageType);
+        if (codec != null) {
+            return (ProtobufMessageCodec<MSG>) codec;
+        }
+        return (ProtobufMessageCodec<MSG>) protobufMessageCodecs.computeIfAbsent(messageType, key -> new ProtobufMessageCodec<>(msg.getDefaultInstanceForType()));
+    }
+
+    /**
+     * If no codecs were registered for the EventBus at startup, then an empty registry is returned and codecs will be registered on demand.
+     *
+     * @param eventBus EventBus
+     * @return ProtobufMessageCodecRegistry
+     */
+    public static ProtobufMessageCodecRegistry protobufMessageCodecRegistry(@NonNull final EventBus eventBus) {
+        final ProtobufMessageCodecRegistry registry = protobufMessageCodecRegistries.get(eventBus);
+        if (registry != null) {
+            return registry;
+        }
+        return protobufMessageCodecRegistries.computeIfAbsent(eventBus, ProtobufMessageCodecRegistry::new);
+    }
+
+    /**
+     * Registers codecs for all of the specified message types with the EventBus.
+     *
+     * @param eventBus EventBus
+     * @param defaultInstances protobuf message types
+     * @return ProtobufMessageCodecRegistry
+     */
+    public static ProtobufMessageCodecRegistry registerProtobufMessageCodecs(@NonNull final EventBus eventBus, @NonNull final Collection<? extends Message> defaultInstances) {
+        final ProtobufMessageCodecRegistry registry = protobufMessageCodecRegistry(eventBus);
+        synchronized (registry) {
+            defaultInstances.stream()
+                    .filter(defaultInstance -> !registry.codecs.containsKey(defaultInstance.getDescriptorForType().getFullName()))
+                    .forEach(registry::registerDefaultCodec);
+        }
+        log.logp(INFO, CLASS_NAME, "registerProtobufMessageCodecs", () -> String.format("registered %d protobuf message codecs", registry.codecs.size()));
+        return registry;
+    }
+
+    /**
+     * Should be invoked when the Vertx instance that owns the EventBus is closed.
+     *
+     * @param eventBus EventBus
+     */
+    public static void removeProtobufMessageCodecRegistry(@NonNull final EventBus eventBus) {
+        protobufMessageCodecRegistries.remove(eventBus);
+    }
+
+    /**
+     * Discovers the protobuf message types that are generated within the specified packages. The generated proto file classes are found by scanning the
+     * classpath - only classes whose bytecode references the generated <code>registerAllExtensions</code> method are loaded. The message types are then found
+     * using the proto file descriptors.
+     *
+     * @param classLoader ClassLoader
+     * @param packageNames base package names - sub-packages are scanned as well
+     * @return message type default instances
+     */
+    public static List<Message> scanProtobufMessageTypes(@NonNull final ClassLoader classLoader, @NonNull final Collection<String> packageNames) {
+        checkArgument(CollectionUtils.isNotEmpty(packageNames));
+        final ClassPath classPath;
+        try {
+            classPath = ClassPath.from(classLoader);
+        } catch (final IOException ex) {
+            throw new ApplicationException("Failed to scan classpath", ex);
+        }
+
+        final ImmutableSet.Builder<Message> messages = ImmutableSet.builder();
+        packageNames.stream()
+                .flatMap(packageName -> classPath.getTopLevelClassesRecursive(packageName).stream())
+                .filter(ProtobufMessageCodecRegistry::isProtoFileClass)
+                .map(ProtobufMessageCodecRegistry::loadClass)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .forEach(clazz -> fileDescriptor(clazz).ifPresent(fileDescriptor -> fileDescriptor.getMessageTypes().stream().forEach(messageType -> {
+                    // if java_multiple_files is set, then the message classes are top level classes
+                    final String className = fileDescriptor.getOptions().getJavaMultipleFiles()
+                            ? ClassUtils.getPackageName(clazz) + '.' + messageType.getName()
+                            : clazz.getName() + '$' + messageType.getName();
+                    addMessageType(classLoader, className, messageType, messages);
+                })));
+        return ImmutableList.copyOf(messages.build());
+    }
+
+    private static void addMessageType(final ClassLoader classLoader, final String className, final Descriptors.Descriptor messageType, final ImmutableSet.Builder<Message> messages) {
+        if (messageType.getOptions().getMapEntry()) {
+            // map entries are not generated as classes
+            return;
+        }
+        try {
+            defaultInstance(Class.forName(className, false, classLoader)).ifPresent(messages::add);
+        } catch (final ClassNotFoundException ex) {
+            log.logp(WARNING, CLASS_NAME, "addMessageType", "protobuf message class not found : " + className);
+            return;
+        }
+        messageType.getNestedTypes().stream()
+                .forEach(nestedType -> addMessageType(classLoader, className + '$' + nestedType.getName(), nestedType, messages));
+    }
+
+    /**
+     * Checks the class bytecode without loading the class.
+     *
+     * @param classInfo ClassInfo
+     * @return true if the class is a generated proto file class, i.e., the outer class that holds the proto file descriptor
+     */
+    private static boolean isProtoFileClass(final ClassPath.ClassInfo classInfo) {
+        try {
+            return Bytes.indexOf(Resources.toByteArray(classInfo.url()), PROTO_FILE_CLASS_MARKER) >= 0;
+        } catch (final IOException ex) {
+            log.logp(WARNING, CLASS_NAME, "isProtoFileClass", "failed to read class : " + classInfo.getName(), ex);
+            return false;
+        }
+    }
+
+    private static Optional<Class<?>> loadClass(final ClassPath.ClassInfo classInfo) {
+        try {
+            return Optional.of(classInfo.load());
+        } catch (final LinkageError e) {
+            // the class cannot be a generated protobuf class if its dependencies cannot be resolved
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Message> defaultInstance(final Class<?> clazz) {
+        if (!Message.class.isAssignableFrom(clazz) || Modifier.isAbstract(clazz.getModifiers()) || !Modifier.isPublic(clazz.getModifiers())) {
+            return Optional.empty();
+        }
+        try {
+            final Method getDefaultInstance = clazz.getMethod("getDefaultInstance");
+            return Optional.of((Message) getDefaultInstance.invoke(null));
+        } catch (final ReflectiveOperationException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Descriptors.FileDescriptor> fileDescriptor(final Class<?> clazz) {
+        try {
+            final Method getDescriptor = clazz.getMethod("getDescriptor");
+            if (Modifier.isStatic(getDescriptor.getModifiers()) && getDescriptor.getReturnType() == Descriptors.FileDescriptor.class) {
+                return Optional.of((Descriptors.FileDescriptor) getDescriptor.invoke(null));
+            }
+            return Optional.empty();
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            return Optional.empty();
+        }
+    }
+
+    private final EventBus eventBus;
+
+    // message type full name -> codec registered with the EventBus
+    private final ConcurrentMap<String, MessageCodec<?, ?>> codecs = new ConcurrentHashMap<>();
+
+    @Getter
+    private volatile ImmutableSet<String> lazyDecodedMessageTypes = ImmutableSet.of();
+
+    /**
+     * Message types that are received by eager consumers or reply handlers - see {@link #registerEagerMessageCodec(com.google.protobuf.Message)}
+     */
+    @Getter
+    private volatile ImmutableSet<String> eagerlyDecodedMessageTypes = ImmutableSet.of();
+
+    private ProtobufMessageCodecRegistry(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     *
+     * @param messageType protobuf message type full name
+     * @return the codec registered with the EventBus for the message type
+     */
+    public Optional<MessageCodec<?, ?>> getMessageCodec(@NonNull final String messageType) {
+        return Optional.ofNullable(codecs.get(messageType));
+    }
+
+    /**
+     *
+     * @return protobuf message type full names
+     */
+    public ImmutableSet<String> getMessageTypes() {
+        return ImmutableSet.copyOf(codecs.keySet());
+    }
+
+    /**
+     * If a codec is already registered for the message type, then this is a no-op.
+     *
+     * @param <MSG> Message payload type
+     * @param defaultInstance message type default instance
+     */
+    public <MSG extends Message> void registerMessageCodec(@NonNull final MSG defaultInstance) {
+        if (codecs.containsKey(defaultInstance.getDescriptorForType().getFullName())) {
+            return;
+        }
+        synchronized (this) {
+            if (!codecs.containsKey(defaultInstance.getDescriptorForType().getFullName())) {
+                registerDefaultCodec(defaultInstance);
+            }
+        }
+    }
+
+    /**
+     * Registers the codec for a message type that is received and decoded eagerly, i.e., by a message consumer or a reply handler. Within a Vertx instance,
+     * a message type is either decoded lazily or eagerly.
+     *
+     * @param <MSG> Message payload type
+     * @param defaultInstance message type default instance
+     * @throws IllegalStateException if the message type is decoded lazily
+     */
+    public <MSG extends Message> void registerEagerMessageCodec(@NonNull final MSG defaultInstance) {
+        final String messageType = defaultInstance.getDescriptorForType().getFullName();
+        if (eagerlyDecodedMessageTypes.contains(messageType)) {
+            return;
+        }
+        synchronized (this) {
+            if (lazyDecodedMessageTypes.contains(messageType)) {
+                throw new IllegalStateException("message type is already decoded lazily within the Vertx instance : " + messageType);
+            }
+            registerMessageCodec(defaultInstance);
+            eagerlyDecodedMessageTypes = ImmutableSet.<String>builder().addAll(eagerlyDecodedMessageTypes).add(messageType).build();
+        }
+    }
+
+    /**
+     * Replaces the message type's default codec with a {@link LazyProtobufMessageCodec}. Within a Vertx instance, a message type is either decoded lazily or
+     * eagerly. Thus, lazy decoding is only allowed for message types that are not received by eager consumers or reply handlers.
+     *
+     * @param <MSG> Message payload type
+     * @param defaultInstance message type default instance
+     * @throws IllegalStateException if the message type is decoded eagerly - see {@link #registerEagerMessageCodec(com.google.protobuf.Message)}
+     */
+    public <MSG extends Message> void registerLazyMessageCodec(@NonNull final MSG defaultInstance) {
+        final String messageType = defaultInstance.getDescriptorForType().getFullName();
+        if (codecs.get(messageType) instanceof LazyProtobufMessageCodec) {
+            return;
+        }
+        synchronized (this) {
+            final MessageCodec<?, ?> codec = codecs.get(messageType);
+            if (codec instanceof LazyProtobufMessageCodec) {
+                return;
+            }
+            if (eagerlyDecodedMessageTypes.contains(messageType)) {
+                throw new IllegalStateException("message type is already decoded eagerly within the Vertx instance : " + messageType);
+            }
+            if (codec != null) {
+                eventBus.unregisterDefaultCodec(defaultInstance.getClass());
+            }
+            registerDefaultCodec(defaultInstance, new LazyProtobufMessageCodec<>(defaultInstance));
+            lazyDecodedMessageTypes = ImmutableSet.<String>builder().addAll(lazyDecodedMessageTypes).add(messageType).build();
+        }
+    }
+
+    private void registerDefaultCodec(final Message defaultInstance) {
+        final MessageCodec<?, ?> codec = defaultInstance instanceof co.runrightfast.vertx.core.messages.Void
+                ? new VoidMessageCodec()
+                : protobufMessageCodec(defaultInstance);
+        registerDefaultCodec(defaultInstance, codec);
+    }
+
+    /**
+     * The codec's message type is the default instance's class, i.e., the casts are safe.
+     */
+    @SuppressWarnings("unchecked")
+    private <MSG extends Message> void registerDefaultCodec(final MSG defaultInstance, final MessageCodec<?, ?> codec) {
+        eventBus.registerDefaultCodec((Class<MSG>) defaultInstance.getClass(), (MessageCodec<MSG, ?>) codec);
+        codecs.put(defaultInstance.getDescriptorForType().getFullName(), codec);
+    }
+
+}
@@ -18,13 +18,24 @@ package co.runrightfast.vertx.core.eventbus;
 import co.runrightfast.vertx.core.RunRightFastVerticleMetrics;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Gauges.MESSAGE_LAST_PUBLISHED_TS;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Gauges.MESSAGE_LAST_SENT_TS;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Gauges.MESSAGE_PUBLISHED_BYTES;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Gauges.MESSAGE_SENT_BYTES;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_PUBLISHED_SIZE;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_SENT_SIZE;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_PUBLISHED;
 import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_SENT;
 import static co.runrightfast.vertx.core.eventbus.MessageHeader.MESSAGE_ID;
 import static co.runrightfast.vertx.core.eventbus.MessageHeader.MESSAGE_TIMESTAMP;
 import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodec.getProtobufMessageCodec;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodec;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodecRegistry;
+import co.runrightfast.vertx.core.metrics.TaggedMetricRegistry;
+import co.runrightfast.vertx.core.tracing.TraceContext;
+import co.runrightfast.vertx.core.tracing.Tracer;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
 import static co.runrightfast.core.utils.UUIDUtils.uuid;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -34,10 +45,9 @@ import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.EventBus;
-import io.vertx.core.eventbus.MessageCodec;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
-import static java.util.logging.Level.FINE;
+import java.util.Optional;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
@@ -62,9 +72,18 @@ public final class ProtobufMessageProducer<A extends Message> {
 
     private final Meter messagePublished;
 
-    private Instant messageLastSent;
+    private final Histogram messageSentSize;
 
-    private Instant messageLastPublished;
+    private final Histogram messagePublishedSize;
+
+    @Getter
+    private final Optional<Integer> maxMessageSize;
+
+    /**
+     * The producer is safe to share across threads, e.g., by all verticle instances
+     */
+    @Getter
+    private final ProtobufMessageProducerStats stats = new ProtobufMessageProducerStats();
 
     /**
      * Collects metrics on messages that are sent
@@ -77,8 +96,16 @@ public final class ProtobufMessageProducer<A extends Message> {
      *
      * <h3>Gauges</h3>
      * <ol>
-     * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_SENT}
-     * <li>{@link RunRightFastVerticleMetrics.Meters#MESSAGE_PUBLISHED}
+     * <li>{@link RunRightFastVerticleMetrics.Gauges#MESSAGE_LAST_SENT_TS}
+     * <li>{@link RunRightFastVerticleMetrics.Gauges#MESSAGE_LAST_PUBLISHED_TS}
+     * <li>{@link RunRightFastVerticleMetrics.Gauges#MESSAGE_SENT_BYTES}
+     * <li>{@link RunRightFastVerticleMetrics.Gauges#MESSAGE_PUBLISHED_BYTES}
+     * </ol>
+     *
+     * <h3>Histograms</h3>
+     * <ol>
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_SENT_SIZE}
+     * <li>{@link RunRightFastVerticleMetrics.Histograms#MESSAGE_PUBLISHED_SIZE}
      * </ol>
      *
      * @param eventBus
@@ -91,21 +118,56 @@ public final class ProtobufMessageProducer<A extends Message> {
             final String address,
             @NonNull final ProtobufMessageCodec<A> codec,
             @NonNull final MetricRegistry metricRegistry) {
+        this(eventBus, address, codec, Optional.empty(), metricRegistry);
+    }
+
+    /**
+     * The message size limit is set from {@link EventBusAddressMessageMapping#getRequestMaxSize()}. Messages that exceed the size limit are rejected with a
+     * {@link MessageTooLargeException} before they are put on the EventBus.
+     *
+     * If the mapping specifies a response message type, then replies are decoded eagerly - see
+     * {@link ProtobufMessageCodecRegistry#registerEagerMessageCodec(com.google.protobuf.Message)}.
+     *
+     * @param eventBus
+     * @param mapping the address and request message type are taken from the mapping
+     * @param metricRegistry
+     */
+    public ProtobufMessageProducer(
+            @NonNull final EventBus eventBus,
+            @NonNull final EventBusAddressMessageMapping<A, ?> mapping,
+            @NonNull final MetricRegistry metricRegistry) {
+        this(eventBus, mapping.getAddress(), protobufMessageCodec(mapping.getRequestDefaultInstance()), mapping.getRequestMaxSize(), metricRegistry);
+        mapping.getResponseDefaultInstance().ifPresent(protobufMessageCodecRegistry(eventBus)::registerEagerMessageCodec);
+    }
+
+    private ProtobufMessageProducer(
+            final EventBus eventBus,
+            final String address,
+            final ProtobufMessageCodec<A> codec,
+            final Optional<Integer> maxMessageSize,
+            final MetricRegistry metricRegistry) {
         checkArgument(isNotBlank(address));
         this.eventBus = eventBus;
         this.address = address;
+        this.maxMessageSize = maxMessageSize;
 
         registerMessageCodec(codec);
 
-        this.messageSent = metricRegistry.meter(String.format("%s::%s", MESSAGE_SENT.metricName, address));
-        this.messagePublished = metricRegistry.meter(String.format("%s::%s", MESSAGE_PUBLISHED.metricName, address));
-        metricRegistry.register(String.format("%s::%s", MESSAGE_LAST_SENT_TS.metricName, address), (Gauge<String>) () -> {
-            return messageLastSent != null ? DateTimeFormatter.ISO_INSTANT.format(messageLastSent) : null;
+        final TaggedMetricRegistry addressMetricRegistry = new TaggedMetricRegistry(metricRegistry).withAddress(address);
+        this.messageSent = MESSAGE_SENT.meter(addressMetricRegistry);
+        this.messagePublished = MESSAGE_PUBLISHED.meter(addressMetricRegistry);
+        this.messageSentSize = MESSAGE_SENT_SIZE.histogram(addressMetricRegistry);
+        this.messagePublishedSize = MESSAGE_PUBLISHED_SIZE.histogram(addressMetricRegistry);
+        MESSAGE_LAST_SENT_TS.register(addressMetricRegistry, (Gauge<String>) () -> {
+            return stats.getLastSent().map(DateTimeFormatter.ISO_INSTANT::format).orElse(null);
         });
 
-        metricRegistry.register(String.format("%s::%s", MESSAGE_LAST_PUBLISHED_TS.metricName, address), (Gauge<String>) () -> {
-            return messageLastPublished != null ? DateTimeFormatter.ISO_INSTANT.format(messageLastPublished) : null;
+        MESSAGE_LAST_PUBLISHED_TS.register(addressMetricRegistry, (Gauge<String>) () -> {
+            return stats.getLastPublished().map(DateTimeFormatter.ISO_INSTANT::format).orElse(null);
         });
+
+        MESSAGE_SENT_BYTES.register(addressMetricRegistry, (Gauge<Long>) stats::getBytesSent);
+        MESSAGE_PUBLISHED_BYTES.register(addressMetricRegistry, (Gauge<Long>) stats::getBytesPublished);
     }
 
     /**
@@ -126,39 +188,85 @@ public final class ProtobufMessageProducer<A extends Message> {
     }
 
     public void send(@NonNull final A msg) {
-        eventBus.send(address, msg, addRunRightFastHeaders(new DeliveryOptions()));
-        this.messageSent.mark();
-        this.messageLastSent = Instant.now();
+        final int size = checkMessageSize(msg.getSerializedSize());
+        final DeliveryOptions options = addRunRightFastHeaders(new DeliveryOptions());
+        recordSendSpan(Tracer.tracer().startSendSpan(options));
+        eventBus.send(address, msg, options);
+        messageSent(size);
     }
 
     public void send(@NonNull final A msg, @NonNull final DeliveryOptions options) {
+        final int size = checkMessageSize(msg.getSerializedSize());
+        recordSendSpan(Tracer.tracer().startSendSpan(options));
         eventBus.send(address, msg, addRunRightFastHeaders(options));
-        this.messageSent.mark();
-        this.messageLastSent = Instant.now();
+        messageSent(size);
     }
 
     public <RESPONSE> void send(@NonNull final A msg, @NonNull final Handler<AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>>> handler) {
-        eventBus.send(address, msg, addRunRightFastHeaders(new DeliveryOptions()), handler);
-        this.messageSent.mark();
-        this.messageLastSent = Instant.now();
+        send(msg, new DeliveryOptions(), handler);
     }
 
+    /**
+     * If tracing is enabled, then the {@link co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan.Kind#SEND} span is recorded when the
+     * reply is received - see {@link Tracer}.
+     *
+     * @param <RESPONSE> response type
+     * @param msg message
+     * @param options delivery options
+     * @param handler reply handler
+     */
     public <RESPONSE> void send(@NonNull final A msg, @NonNull final DeliveryOptions options, @NonNull final Handler<AsyncResult<io.vertx.core.eventbus.Message<RESPONSE>>> handler) {
-        eventBus.send(address, msg, addRunRightFastHeaders(options), handler);
-        this.messageSent.mark();
-        this.messageLastSent = Instant.now();
+        final int size = checkMessageSize(msg.getSerializedSize());
+        final Optional<TraceContext> traceContext = Tracer.tracer().startSendSpan(options);
+        eventBus.send(
+                address,
+                msg,
+                addRunRightFastHeaders(options),
+                traceContext.map(ctx -> Tracer.tracer().sendSpanHandler(ctx, address, handler)).orElse(handler)
+        );
+        messageSent(size);
     }
 
     public void publish(@NonNull final A msg) {
-        eventBus.publish(address, msg, addRunRightFastHeaders(new DeliveryOptions()));
-        this.messagePublished.mark();
-        this.messageLastPublished = Instant.now();
+        final int size = checkMessageSize(msg.getSerializedSize());
+        final DeliveryOptions options = addRunRightFastHeaders(new DeliveryOptions());
+        recordSendSpan(Tracer.tracer().startSendSpan(options));
+        eventBus.publish(address, msg, options);
+        messagePublished(size);
     }
 
     public void publish(@NonNull final A msg, @NonNull final DeliveryOptions options) {
+        final int size = checkMessageSize(msg.getSerializedSize());
+        recordSendSpan(Tracer.tracer().startSendSpan(options));
         eventBus.publish(address, msg, addRunRightFastHeaders(options));
-        this.messagePublished.mark();
-        this.messageLastPublished = Instant.now();
+        messagePublished(size);
+    }
+
+    /**
+     * Forwards a lazily decoded message. If the message has not been parsed, then the original bytes are written to the wire, i.e., there is no parse and
+     * re-serialize round trip.
+     *
+     * The {@link LazyProtobufMessageCodec} must be registered for the message type, which is the case if the message was received by a consumer that was
+     * configured via {@link MessageConsumerConfig.Builder#lazyHandler(io.vertx.core.Handler)}.
+     *
+     * @param msg message
+     */
+    public void forward(@NonNull final LazyProtobufMessage<A> msg) {
+        forward(msg, new DeliveryOptions());
+    }
+
+    /**
+     * Headers are not copied from the original message. To propagate headers, add them to the DeliveryOptions.
+     *
+     * @param msg message
+     * @param options delivery options
+     * @see #forward(LazyProtobufMessage)
+     */
+    public void forward(@NonNull final LazyProtobufMessage<A> msg, @NonNull final DeliveryOptions options) {
+        final int size = checkMessageSize(msg.getBytes().length);
+        recordSendSpan(Tracer.tracer().startSendSpan(options));
+        eventBus.send(address, msg, addRunRightFastHeaders(options.setCodecName(msg.messageType())));
+        messageSent(size);
     }
 
     public static DeliveryOptions addRunRightFastHeaders(final DeliveryOptions options) {
@@ -179,12 +287,47 @@ public final class ProtobufMessageProducer<A extends Message> {
         return options;
     }
 
+    /**
+     * The message is not expecting a reply, thus the send span has no duration. It is only recorded if the trace is sampled.
+     */
+    private void recordSendSpan(final Optional<TraceContext> traceContext) {
+        traceContext.ifPresent(ctx -> {
+            final long now = System.nanoTime();
+            Tracer.tracer().record(ctx, TraceSpan.Kind.SEND, address, now, now);
+        });
+    }
+
+    /**
+     *
+     * @return point in time copy of the producer statistics, which aggregates all threads that share this producer
+     */
+    public ProtobufMessageProducerStats.Snapshot snapshot() {
+        return stats.snapshot();
+    }
+
+    private void messageSent(final int size) {
+        messageSent.mark();
+        messageSentSize.update(size);
+        stats.messageSent(size);
+    }
+
+    private void messagePublished(final int size) {
+        messagePublished.mark();
+        messagePublishedSize.update(size);
+        stats.messagePublished(size);
+    }
+
+    private int checkMessageSize(final int size) {
+        maxMessageSize.ifPresent(maxSize -> {
+            if (size > maxSize) {
+                throw new MessageTooLargeException(String.format("message is too large : address = %s, size = %d, max size = %d", address, size, maxSize));
+            }
+        });
+        return size;
+    }
+
     private void registerMessageCodec(final ProtobufMessageCodec<A> codec) {
-        try {
-            eventBus.registerDefaultCodec(codec.getDefaultInstance().getClass(), (MessageCodec) codec);
-        } catch (final IllegalStateException e) {
-            log.logp(FINE, "ProtobufMessageProducer", "registerMessageCodec", "failed to register codec for request message", e.getCause());
-        }
+        protobufMessageCodecRegistry(eventBus).registerMessageCodec(codec.getDefaultInstance());
     }
 
 }
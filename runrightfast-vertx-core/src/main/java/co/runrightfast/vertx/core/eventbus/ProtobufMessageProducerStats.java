@@ -0,0 +1,130 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Value;
+
+/**
+ * Message producer statistics, which are designed to be updated concurrently by many threads, e.g., when a single producer is shared by all verticle
+ * instances across event loops:
+ *
+ * <ul>
+ * <li>message and payload byte counts are striped via {@link LongAdder}
+ * <li>the last sent and published timestamps are tracked in epoch millis, i.e., a coarse clock. The volatile field is only written when the clock has ticked,
+ * which avoids cache line contention when messages are produced at high rates.
+ * </ul>
+ *
+ * @author alfio
+ */
+public final class ProtobufMessageProducerStats {
+
+    private final LongAdder messagesSent = new LongAdder();
+
+    private final LongAdder messagesPublished = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final LongAdder bytesPublished = new LongAdder();
+
+    private volatile long lastSent;
+
+    private volatile long lastPublished;
+
+    /**
+     * Point in time copy of the producer statistics
+     */
+    @Value
+    public static class Snapshot {
+
+        long messagesSent;
+
+        long messagesPublished;
+
+        long bytesSent;
+
+        long bytesPublished;
+
+        Optional<Instant> lastSent;
+
+        Optional<Instant> lastPublished;
+    }
+
+    /**
+     *
+     * @param size message size in bytes
+     */
+    public void messageSent(final int size) {
+        messagesSent.increment();
+        bytesSent.add(size);
+        final long now = System.currentTimeMillis();
+        if (lastSent != now) {
+            lastSent = now;
+        }
+    }
+
+    /**
+     *
+     * @param size message size in bytes
+     */
+    public void messagePublished(final int size) {
+        messagesPublished.increment();
+        bytesPublished.add(size);
+        final long now = System.currentTimeMillis();
+        if (lastPublished != now) {
+            lastPublished = now;
+        }
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesPublished() {
+        return bytesPublished.sum();
+    }
+
+    public Optional<Instant> getLastSent() {
+        return toInstant(lastSent);
+    }
+
+    public Optional<Instant> getLastPublished() {
+        return toInstant(lastPublished);
+    }
+
+    /**
+     * The snapshot is not atomic across counters, i.e., messages that are produced concurrently while the snapshot is taken may be partially reflected.
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                messagesSent.sum(),
+                messagesPublished.sum(),
+                bytesSent.sum(),
+                bytesPublished.sum(),
+                getLastSent(),
+                getLastPublished()
+        );
+    }
+
+    private static Optional<Instant> toInstant(final long epochMillis) {
+        return epochMillis > 0 ? Optional.of(Instant.ofEpochMilli(epochMillis)) : Optional.empty();
+    }
+
+}
@@ -22,24 +22,37 @@ import static co.runrightfast.core.application.event.ApplicationEvents.APP_START
 import static co.runrightfast.core.application.event.ApplicationEvents.APP_STOPPED;
 import static co.runrightfast.core.application.event.ApplicationEvents.APP_STOPPING;
 import static co.runrightfast.core.application.event.ApplicationEvents.APP_STOP_EXCEPTION;
+import co.runrightfast.core.application.event.LogRateLimiter;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
+import co.runrightfast.core.application.event.LogRateLimiterConfig;
 import static co.runrightfast.core.hazelcast.HazelcastConfigFactory.hazelcastConfigFactory;
+import co.runrightfast.vertx.core.RunRightFastVerticle;
 import co.runrightfast.vertx.core.VertxConstants;
 import static co.runrightfast.vertx.core.VertxConstants.VERTX_HAZELCAST_INSTANCE_ID;
 import co.runrightfast.vertx.core.VertxService;
 import static co.runrightfast.vertx.core.VertxService.LOG;
 import static co.runrightfast.core.docker.weave.WeaveUtils.getWeaveClusterHostIPAddress;
-import co.runrightfast.vertx.core.eventbus.VoidMessageCodec;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.registerProtobufMessageCodecs;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.removeProtobufMessageCodecRegistry;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.scanProtobufMessageTypes;
 import co.runrightfast.vertx.core.inject.qualifiers.VertxServiceConfig;
+import co.runrightfast.vertx.core.metrics.EventLoopProbe;
+import co.runrightfast.vertx.core.metrics.ThreadResourceUsage;
+import co.runrightfast.vertx.core.tracing.Tracer;
 import co.runrightfast.core.utils.ConfigUtils;
 import co.runrightfast.core.utils.JsonUtils;
+import co.runrightfast.vertx.core.verticles.verticleManager.LatencyProberConfig;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleDeployment;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleManager;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.protobuf.Message;
 import com.hazelcast.core.HazelcastInstance;
 import com.typesafe.config.Config;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.metrics.MetricsOptions;
@@ -48,6 +61,7 @@ import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
 import io.vertx.ext.dropwizard.Match;
 import io.vertx.ext.dropwizard.MatchType;
 import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +83,8 @@ import org.apache.commons.collections4.CollectionUtils;
  */
 public final class VertxServiceImpl extends AbstractIdleService implements VertxService {
 
+    private static final String DEFAULT_PROTOBUF_CODECS_PACKAGE = "co.runrightfast";
+
     private final Config config;
 
     private Vertx vertx;
@@ -79,14 +95,17 @@ public final class VertxServiceImpl extends AbstractIdleService implements Vertx
 
     private final AppEventLogger appEventLogger;
 
+    private Optional<EventLoopProbe> eventLoopProbe = Optional.empty();
+
     @Inject
     public VertxServiceImpl(
             @NonNull @VertxServiceConfig final Config config,
             @NonNull final Set<RunRightFastVerticleDeployment> deployments,
-            @NonNull final AppEventLogger appEventLogger) {
+            @NonNull final AppEventLogger appEventLogger,
+            @NonNull final HealthChecksService healthChecksService) {
         this.config = config;
         this.appEventLogger = appEventLogger;
-        this.verticleManager = new RunRightFastVerticleManager(appEventLogger, deployments);
+        this.verticleManager = new RunRightFastVerticleManager(appEventLogger, healthChecksService, deployments);
     }
 
     @Override
@@ -124,11 +143,20 @@ public final class VertxServiceImpl extends AbstractIdleService implements Vertx
             this.vertxOptions = createVertxOptions();
             logVertxOptions();
             initVertx();
+            startEventLoopProbe();
+            configureTracer();
+            configureResourceUsageAccounting();
+            configureMessageConsumerLogging();
             hazelcastInstances.put(vertx, getHazelcastInstance());
             registerCodecs();
             deployVerticleManager();
             appEventLogger.accept(AppEvent.info(APP_STARTED).build());
         } catch (final Throwable t) {
+            eventLoopProbe.ifPresent(EventLoopProbe::stop);
+            eventLoopProbe = Optional.empty();
+            if (vertx != null) {
+                removeProtobufMessageCodecRegistry(vertx.eventBus());
+            }
             appEventLogger.accept(AppEvent.error(APP_START_FAILED)
                     .setException(t)
                     .build()
@@ -137,8 +165,96 @@ public final class VertxServiceImpl extends AbstractIdleService implements Vertx
         }
     }
 
+    /**
+     * Registers codecs for all protobuf message types that are found within the packages configured via <code>protobuf-codecs.packages</code>
+     */
     private void registerCodecs() {
-        vertx.eventBus().registerDefaultCodec(co.runrightfast.vertx.core.messages.Void.class, new VoidMessageCodec());
+        final List<String> packages = ConfigUtils.getStringList(config, "protobuf-codecs", "packages").orElse(ImmutableList.of(DEFAULT_PROTOBUF_CODECS_PACKAGE));
+        final List<Message> messageTypes = scanProtobufMessageTypes(getClass().getClassLoader(), packages);
+        registerProtobufMessageCodecs(vertx.eventBus(), messageTypes);
+        LOG.logp(CONFIG, getClass().getName(), "registerCodecs", () -> String.format("packages = %s, message types = %d", packages, messageTypes.size()));
+    }
+
+    /**
+     * The event loop probe is enabled by default. It is configured via <code>event-loop-probe</code>
+     */
+    private void startEventLoopProbe() {
+        if (!ConfigUtils.getBoolean(config, "event-loop-probe", "enabled").orElse(Boolean.TRUE)) {
+            return;
+        }
+        final Duration probeInterval = ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, "event-loop-probe", "interval")
+                .map(Duration::ofMillis)
+                .orElse(EventLoopProbe.DEFAULT_PROBE_INTERVAL);
+        final EventLoopProbe probe = new EventLoopProbe(vertx, metricRegistry, probeInterval);
+        probe.start();
+        this.eventLoopProbe = Optional.of(probe);
+        LOG.logp(CONFIG, getClass().getName(), "startEventLoopProbe", "probeInterval = {0}", probeInterval);
+    }
+
+    /**
+     * The latency prober is configured via <code>latency-probe</code>
+     *
+     * @return config, if the latency prober is enabled
+     */
+    private Optional<LatencyProberConfig> latencyProberConfig() {
+        if (!ConfigUtils.getBoolean(config, "latency-probe", "enabled").orElse(Boolean.FALSE)) {
+            return Optional.empty();
+        }
+        return Optional.of(LatencyProberConfig.builder()
+                .probeInterval(getDuration("latency-probe", "interval").orElse(LatencyProberConfig.DEFAULT_PROBE_INTERVAL))
+                .probeTimeout(getDuration("latency-probe", "timeout").orElse(LatencyProberConfig.DEFAULT_PROBE_TIMEOUT))
+                .discoveryInterval(getDuration("latency-probe", "discovery-interval").orElse(LatencyProberConfig.DEFAULT_DISCOVERY_INTERVAL))
+                .nodeExpiry(getDuration("latency-probe", "node-expiry").orElse(LatencyProberConfig.DEFAULT_NODE_EXPIRY))
+                .window(getDuration("latency-probe", "window").orElse(LatencyProberConfig.DEFAULT_WINDOW))
+                .rttThreshold(getDuration("latency-probe", "rtt-threshold").orElse(LatencyProberConfig.DEFAULT_RTT_THRESHOLD))
+                .failureThreshold(ConfigUtils.getInt(config, "latency-probe", "failure-threshold").orElse(LatencyProberConfig.DEFAULT_FAILURE_THRESHOLD))
+                .build()
+        );
+    }
+
+    private Optional<Duration> getDuration(final String path, final String... paths) {
+        return ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, path, paths).map(Duration::ofMillis);
+    }
+
+    /**
+     * Per address CPU time and allocation accounting is disabled by default. It is configured via <code>resource-usage-accounting</code>
+     */
+    private void configureResourceUsageAccounting() {
+        final boolean enabled = ThreadResourceUsage.setEnabled(ConfigUtils.getBoolean(config, "resource-usage-accounting", "enabled").orElse(Boolean.FALSE));
+        LOG.logp(CONFIG, getClass().getName(), "configureResourceUsageAccounting", "enabled = {0}", enabled);
+    }
+
+    /**
+     * Per message logging is configured via <code>message-consumer-logging</code>
+     */
+    private void configureMessageConsumerLogging() {
+        final Optional<Config> rateLimitConfig = ConfigUtils.getConfig(config, "message-consumer-logging", "rate-limit");
+        if (!rateLimitConfig.flatMap(rateLimit -> ConfigUtils.getBoolean(rateLimit, "enabled")).orElse(Boolean.FALSE)) {
+            RunRightFastVerticle.setMessageLogRateLimiter(LogRateLimiter.unlimited());
+            return;
+        }
+        final LogRateLimiter rateLimiter = new LogRateLimiter("message-consumer-logging", LogRateLimiterConfig.fromConfig(rateLimitConfig.get()));
+        rateLimiter.registerMetrics(metricRegistry);
+        RunRightFastVerticle.setMessageLogRateLimiter(rateLimiter);
+        LOG.logp(CONFIG, getClass().getName(), "configureMessageConsumerLogging", "rate limiter config: {0}", rateLimiter.getConfig().get());
+    }
+
+    /**
+     * Tracing is configured via <code>tracing</code>
+     */
+    private void configureTracer() {
+        if (!ConfigUtils.getBoolean(config, "tracing", "enabled").orElse(Boolean.FALSE)) {
+            Tracer.setTracer(Tracer.DISABLED);
+            return;
+        }
+        final Tracer tracer = new Tracer(
+                ConfigUtils.getDouble(config, "tracing", "sample-rate").orElse(Tracer.DEFAULT_SAMPLE_RATE),
+                ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, "tracing", "latency-threshold").map(Duration::ofMillis).orElse(Tracer.DEFAULT_LATENCY_THRESHOLD),
+                ConfigUtils.getInt(config, "tracing", "ring-buffer-size").orElse(Tracer.DEFAULT_RING_BUFFER_SIZE)
+        );
+        Tracer.setTracer(tracer);
+        LOG.logp(CONFIG, getClass().getName(), "configureTracer", "sampleRate = {0}, latencyThreshold = {1}, ringBufferSize = {2}",
+                new Object[]{tracer.getSampleRate(), tracer.getLatencyThreshold(), tracer.getSpans().getCapacity()});
     }
 
     private void logVertxOptions() {
@@ -200,6 +316,7 @@ public final class VertxServiceImpl extends AbstractIdleService implements Vertx
     }
 
     private void deployVerticleManager() throws InterruptedException {
+        verticleManager.setLatencyProberConfig(latencyProberConfig());
         final CompletableFuture<AsyncResult<String>> deployVerticleResult = new CompletableFuture<>();
         vertx.deployVerticle(verticleManager, deployVerticleResult::complete);
         while (true) {
@@ -254,25 +371,33 @@ public final class VertxServiceImpl extends AbstractIdleService implements Vertx
     protected void shutDown() {
         if (vertx != null) {
             appEventLogger.accept(AppEvent.info(APP_STOPPING).build());
+            eventLoopProbe.ifPresent(EventLoopProbe::stop);
+            eventLoopProbe = Optional.empty();
+            final EventBus eventBus = vertx.eventBus();
             final CompletableFuture<AsyncResult<Void>> closeResult = new CompletableFuture<>();
             vertx.close(closeResult::complete);
-            while (true) {
-                try {
-                    closeResult.get(10, TimeUnit.SECONDS);
-                    LOG.info("Vertx shutdown is complete.");
-                    appEventLogger.accept(AppEvent.info(APP_STOPPED).build());
-                    vertx = null;
-                    vertxOptions = null;
-                    break;
-                } catch (final ExecutionException ex) {
-                    appEventLogger.accept(AppEvent.info(APP_STOP_EXCEPTION).setException(ex).build());
-                    throw new RuntimeException("shutdown failed", ex);
-                } catch (final TimeoutException ex) {
-                    LOG.logp(INFO, getClass().getName(), "shutDown", "Waiting for Vertx to shutdown");
-                } catch (final InterruptedException ex) {
-                    appEventLogger.accept(AppEvent.info(APP_STOP_EXCEPTION).setException(ex).build());
-                    throw new RuntimeException(ex);
+            try {
+                while (true) {
+                    try {
+                        closeResult.get(10, TimeUnit.SECONDS);
+                        LOG.info("Vertx shutdown is complete.");
+                        appEventLogger.accept(AppEvent.info(APP_STOPPED).build());
+                        vertx = null;
+                        vertxOptions = null;
+                        break;
+                    } catch (final ExecutionException ex) {
+                        appEventLogger.accept(AppEvent.info(APP_STOP_EXCEPTION).setException(ex).build());
+                        throw new RuntimeException("shutdown failed", ex);
+                    } catch (final TimeoutException ex) {
+                        LOG.logp(INFO, getClass().getName(), "shutDown", "Waiting for Vertx to shutdown");
+                    } catch (final InterruptedException ex) {
+                        appEventLogger.accept(AppEvent.info(APP_STOP_EXCEPTION).setException(ex).build());
+                        throw new RuntimeException(ex);
+                    }
                 }
+            } finally {
+                // the codec registry must not outlive the EventBus, even if the shutdown failed
+                removeProtobufMessageCodecRegistry(eventBus);
             }
         }
     }
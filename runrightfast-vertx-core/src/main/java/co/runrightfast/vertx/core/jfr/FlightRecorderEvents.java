@@ -0,0 +1,86 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.jfr;
+
+/**
+ * Entry point for the Flight Recorder events. The jdk.jfr API is only available on JDK 8u262 and later. Its availability is checked once - if it is not
+ * available, then no-op recordings are returned, and the event classes are never loaded.
+ *
+ * Callers should only reference the recording interfaces, i.e., {@link MessageConsumerDispatchRecording} and {@link ProtobufCodecRecording}, and never the
+ * event classes themselves.
+ *
+ * @author alfio
+ */
+public final class FlightRecorderEvents {
+
+    private static final boolean AVAILABLE = isJdkFlightRecorderApiAvailable();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     *
+     * @return true if the jdk.jfr API is available
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     *
+     * @return a started {@link MessageConsumerDispatchEvent}, or a no-op recording if Flight Recorder is not available
+     */
+    public static MessageConsumerDispatchRecording messageConsumerDispatch() {
+        return AVAILABLE ? Events.messageConsumerDispatch() : MessageConsumerDispatchRecording.NOOP;
+    }
+
+    /**
+     *
+     * @return a started {@link ProtobufCodecEvent}, or a no-op recording if Flight Recorder is not available
+     */
+    public static ProtobufCodecRecording protobufCodec() {
+        return AVAILABLE ? Events.protobufCodec() : ProtobufCodecRecording.NOOP;
+    }
+
+    private static boolean isJdkFlightRecorderApiAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Isolates the references to the event classes, which extend jdk.jfr.Event. This class is only loaded when Flight Recorder is available.
+     */
+    private static final class Events {
+
+        static MessageConsumerDispatchRecording messageConsumerDispatch() {
+            final MessageConsumerDispatchEvent event = new MessageConsumerDispatchEvent();
+            event.begin();
+            return event;
+        }
+
+        static ProtobufCodecRecording protobufCodec() {
+            final ProtobufCodecEvent event = new ProtobufCodecEvent();
+            event.begin();
+            return event;
+        }
+
+    }
+
+}
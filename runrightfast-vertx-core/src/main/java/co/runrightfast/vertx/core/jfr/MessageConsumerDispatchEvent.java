@@ -0,0 +1,71 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.jfr;
+
+import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.ExecutionMode;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a message consumer handler invocation. The event duration is the handler execution time, and the event thread is the thread that
+ * ran the handler. Thus, GC pauses and lock contention that are recorded during the event can be attributed to the address.
+ *
+ * When Flight Recorder is not recording the event, the JIT eliminates the event instance - see {@link Event}. Use
+ * {@link FlightRecorderEvents#messageConsumerDispatch()} to start the event.
+ *
+ * @author alfio
+ */
+@Name("co.runrightfast.vertx.MessageConsumerDispatch")
+@Label("Message Consumer Dispatch")
+@Category({"RunRightFast", "EventBus"})
+@Description("Message consumer handler execution")
+@StackTrace(false)
+@Threshold("1 ms")
+final class MessageConsumerDispatchEvent extends Event implements MessageConsumerDispatchRecording {
+
+    @Label("Address")
+    String address;
+
+    @Label("Execution Mode")
+    String executionMode;
+
+    @Label("Queue Wait")
+    @Description("Time from when the message arrived until a worker thread started processing it")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Override
+    public void complete(final String address, final ExecutionMode executionMode, final long queueWait, final boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.address = address;
+            this.executionMode = executionMode.name();
+            this.queueWait = queueWait;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+
+}
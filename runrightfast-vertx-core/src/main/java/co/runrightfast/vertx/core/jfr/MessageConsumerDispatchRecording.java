@@ -0,0 +1,40 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.jfr;
+
+import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.ExecutionMode;
+
+/**
+ * A started {@link MessageConsumerDispatchEvent} - see {@link FlightRecorderEvents#messageConsumerDispatch()}.
+ *
+ * @author alfio
+ */
+public interface MessageConsumerDispatchRecording {
+
+    static final MessageConsumerDispatchRecording NOOP = (address, executionMode, queueWait, succeeded) -> {
+    };
+
+    /**
+     * Ends the recording, and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param address address
+     * @param executionMode execution mode
+     * @param queueWait in nanos
+     * @param succeeded false if the handler threw an exception
+     */
+    void complete(String address, ExecutionMode executionMode, long queueWait, boolean succeeded);
+
+}
@@ -0,0 +1,62 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for encoding a protobuf message to the wire, or decoding it from the wire. Use {@link FlightRecorderEvents#protobufCodec()} to
+ * start the event.
+ *
+ * @author alfio
+ */
+@Name("co.runrightfast.vertx.ProtobufCodec")
+@Label("Protobuf Codec")
+@Category({"RunRightFast", "EventBus"})
+@Description("Protobuf message wire encoding and decoding")
+@StackTrace(false)
+@Threshold("1 ms")
+final class ProtobufCodecEvent extends Event implements ProtobufCodecRecording {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Override
+    public void complete(final String operation, final String messageType, final long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.messageType = messageType;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.jfr;
+
+/**
+ * A started {@link ProtobufCodecEvent} - see {@link FlightRecorderEvents#protobufCodec()}.
+ *
+ * @author alfio
+ */
+public interface ProtobufCodecRecording {
+
+    static final String ENCODE = "encode";
+
+    static final String DECODE = "decode";
+
+    static final ProtobufCodecRecording NOOP = (operation, messageType, bytes) -> {
+    };
+
+    /**
+     * Ends the recording, and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param operation {@link #ENCODE} or {@link #DECODE}
+     * @param messageType protobuf message type full name
+     * @param bytes message size
+     */
+    void complete(String operation, String messageType, long bytes);
+
+}
@@ -0,0 +1,177 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.histogramName;
+import static co.runrightfast.vertx.core.metrics.HdrHistogramReservoir.hdrHistogram;
+import static co.runrightfast.vertx.core.metrics.RunningMessageHandlers.longestRunningMessageHandler;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import io.netty.util.concurrent.EventExecutor;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.logging.Level.INFO;
+import java.util.logging.Logger;
+import lombok.NonNull;
+
+/**
+ * Probes the health of the Vertx thread pools:
+ *
+ * <ol>
+ * <li>event loop lag - a no-op task is scheduled periodically on each event loop. The delay between when the task was scheduled to run and when it actually
+ * ran is recorded in nanoseconds per event loop. The event loop index is appended to the metric name.
+ * <li>worker pool saturation - active threads, queued tasks, and utilization
+ * <li>the longest running message handler, along with the address it is handling messages for - see {@link RunningMessageHandlers}
+ * </ol>
+ *
+ * @author alfio
+ */
+public final class EventLoopProbe {
+
+    private static final String CLASS_NAME = EventLoopProbe.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    public static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofMillis(100);
+
+    // the event loop index is appended to the metric name, e.g., HISTOGRAM.event-loop.lag::event-loop-0
+    public static final String EVENT_LOOP_LAG = histogramName("event-loop", "lag");
+
+    public static final String WORKER_POOL_ACTIVE = gaugeName("worker-pool", "active");
+    public static final String WORKER_POOL_QUEUE_SIZE = gaugeName("worker-pool", "queue-size");
+    public static final String WORKER_POOL_UTILIZATION = gaugeName("worker-pool", "utilization");
+
+    // duration is in millis
+    public static final String LONGEST_RUNNING_MESSAGE_HANDLER_DURATION = gaugeName("message-handler", "longest-running", "duration");
+    public static final String LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS = gaugeName("message-handler", "longest-running", "address");
+
+    private final Vertx vertx;
+
+    private final MetricRegistry metricRegistry;
+
+    private final long probeIntervalNanos;
+
+    private ImmutableList<EventLoopLagProbe> eventLoopLagProbes = ImmutableList.of();
+
+    public EventLoopProbe(@NonNull final Vertx vertx, @NonNull final MetricRegistry metricRegistry, @NonNull final Duration probeInterval) {
+        if (probeInterval.isNegative() || probeInterval.isZero()) {
+            throw new IllegalArgumentException("probeInterval must be > 0");
+        }
+        this.vertx = vertx;
+        this.metricRegistry = metricRegistry;
+        this.probeIntervalNanos = probeInterval.toNanos();
+    }
+
+    public synchronized void start() {
+        if (!eventLoopLagProbes.isEmpty()) {
+            return;
+        }
+
+        final ImmutableList.Builder<EventLoopLagProbe> probes = ImmutableList.builder();
+        int eventLoopIndex = 0;
+        for (final EventExecutor eventLoop : ((VertxInternal) vertx).getEventLoopGroup()) {
+            final Histogram lag = hdrHistogram(metricRegistry, String.format("%s::event-loop-%d", EVENT_LOOP_LAG, eventLoopIndex++));
+            probes.add(new EventLoopLagProbe(eventLoop, lag));
+        }
+        eventLoopLagProbes = probes.build();
+        eventLoopLagProbes.forEach(EventLoopLagProbe::schedule);
+
+        registerWorkerPoolGauges();
+        registerGauge(LONGEST_RUNNING_MESSAGE_HANDLER_DURATION, () -> longestRunningMessageHandler().map(handler -> handler.getDuration().toMillis()).orElse(0L));
+        registerGauge(LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS, () -> longestRunningMessageHandler().map(RunningMessageHandlers.LongestRunningMessageHandler::getAddress).orElse(""));
+
+        log.logp(INFO, CLASS_NAME, "start", "event loop count = {0}", eventLoopLagProbes.size());
+    }
+
+    public synchronized void stop() {
+        eventLoopLagProbes.forEach(EventLoopLagProbe::cancel);
+        eventLoopLagProbes = ImmutableList.of();
+        metricRegistry.removeMatching((name, metric) -> name.startsWith(EVENT_LOOP_LAG));
+        metricRegistry.remove(WORKER_POOL_ACTIVE);
+        metricRegistry.remove(WORKER_POOL_QUEUE_SIZE);
+        metricRegistry.remove(WORKER_POOL_UTILIZATION);
+        metricRegistry.remove(LONGEST_RUNNING_MESSAGE_HANDLER_DURATION);
+        metricRegistry.remove(LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS);
+    }
+
+    /**
+     * Vertx creates the worker pool as a fixed size {@link ThreadPoolExecutor}. If that changes, then the worker pool gauges are not registered.
+     */
+    private void registerWorkerPoolGauges() {
+        final ExecutorService workerPool = ((VertxInternal) vertx).getWorkerPool();
+        if (!(workerPool instanceof ThreadPoolExecutor)) {
+            log.logp(INFO, CLASS_NAME, "registerWorkerPoolGauges", "worker pool is not a ThreadPoolExecutor : {0}", workerPool.getClass().getName());
+            return;
+        }
+
+        final ThreadPoolExecutor threadPool = (ThreadPoolExecutor) workerPool;
+        registerGauge(WORKER_POOL_ACTIVE, threadPool::getActiveCount);
+        registerGauge(WORKER_POOL_QUEUE_SIZE, () -> threadPool.getQueue().size());
+        registerGauge(WORKER_POOL_UTILIZATION, () -> (double) threadPool.getActiveCount() / threadPool.getMaximumPoolSize());
+    }
+
+    private <T> void registerGauge(final String name, final Gauge<T> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    private final class EventLoopLagProbe {
+
+        private final EventExecutor eventLoop;
+
+        private final Histogram lag;
+
+        private volatile boolean cancelled;
+
+        private long scheduledTime;
+
+        EventLoopLagProbe(final EventExecutor eventLoop, final Histogram lag) {
+            this.eventLoop = eventLoop;
+            this.lag = lag;
+        }
+
+        /**
+         * The probe reschedules itself from the event loop. Thus, after the first schedule, scheduledTime is only accessed by the event loop thread.
+         */
+        void schedule() {
+            if (cancelled || eventLoop.isShuttingDown()) {
+                return;
+            }
+            scheduledTime = System.nanoTime() + probeIntervalNanos;
+            eventLoop.schedule(this::probe, probeIntervalNanos, NANOSECONDS);
+        }
+
+        private void probe() {
+            lag.update(System.nanoTime() - scheduledTime);
+            schedule();
+        }
+
+        /**
+         * The pending probe, if any, will run one last time without rescheduling itself.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import static com.google.common.base.Preconditions.checkArgument;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import lombok.NonNull;
+import org.HdrHistogram.Recorder;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Dropwizard reservoir backed by an HdrHistogram {@link Recorder}. Recording is wait-free.
+ *
+ * Snapshots cover a sliding time window, which is divided into {@link #WINDOW_SLICES} slices. Values are moved from the recorder into the current slice when a
+ * snapshot is taken, and slices that fall out of the window are cleared. Taking a snapshot does not discard any values that are still within the window, thus
+ * snapshots may be taken by any number of independent consumers, e.g., metrics reporters and scrapes. Because values are only moved into a slice when a
+ * snapshot is taken, values that were recorded before the previous snapshot are accounted to the slice that was current at the time of the snapshot, i.e.,
+ * the window is only as precise as the snapshot frequency.
+ *
+ * Negative values are recorded as 0.
+ *
+ * @author alfio
+ */
+public final class HdrHistogramReservoir implements Reservoir {
+
+    public static final int DEFAULT_NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    public static final int WINDOW_SLICES = 6;
+
+    /**
+     * Max number of values returned by {@link Snapshot#getValues()}
+     */
+    public static final int MAX_SNAPSHOT_VALUES = 1028;
+
+    private final Recorder recorder;
+
+    private final int numberOfSignificantValueDigits;
+
+    private final org.HdrHistogram.Histogram[] slices = new org.HdrHistogram.Histogram[WINDOW_SLICES];
+
+    private final long sliceNanos;
+
+    private int currentSlice;
+
+    private long currentSliceStartTime;
+
+    private org.HdrHistogram.Histogram intervalHistogram;
+
+    private volatile int lastSnapshotSize;
+
+    public HdrHistogramReservoir() {
+        this(DEFAULT_NUMBER_OF_SIGNIFICANT_VALUE_DIGITS, DEFAULT_WINDOW);
+    }
+
+    /**
+     *
+     * @param numberOfSignificantValueDigits the value precision - must be between 0 and 5
+     * @param window the sliding time window that snapshots cover
+     */
+    public HdrHistogramReservoir(final int numberOfSignificantValueDigits, @NonNull final Duration window) {
+        checkArgument(numberOfSignificantValueDigits >= 0 && numberOfSignificantValueDigits <= 5, "numberOfSignificantValueDigits must be between 0 and 5");
+        checkArgument(window.toNanos() >= WINDOW_SLICES, "window is too small");
+        this.recorder = new Recorder(numberOfSignificantValueDigits);
+        this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+        for (int i = 0; i < WINDOW_SLICES; i++) {
+            slices[i] = new org.HdrHistogram.Histogram(numberOfSignificantValueDigits);
+        }
+        this.sliceNanos = window.toNanos() / WINDOW_SLICES;
+        this.currentSliceStartTime = System.nanoTime();
+    }
+
+    /**
+     * Returns the histogram that is registered under the specified name. If there is no histogram registered, then a histogram backed by an
+     * {@link HdrHistogramReservoir} is registered.
+     *
+     * @param metricRegistry MetricRegistry
+     * @param name metric name
+     * @return Histogram
+     */
+    public static Histogram hdrHistogram(@NonNull final MetricRegistry metricRegistry, final String name) {
+        checkArgument(isNotBlank(name));
+        final Histogram histogram = metricRegistry.getHistograms().get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        try {
+            return metricRegistry.register(name, new Histogram(new HdrHistogramReservoir()));
+        } catch (final IllegalArgumentException e) {
+            // registered concurrently
+            return metricRegistry.histogram(name);
+        }
+    }
+
+    /**
+     *
+     * @return the number of values in the last snapshot, capped at {@link #MAX_SNAPSHOT_VALUES}
+     */
+    @Override
+    public int size() {
+        return lastSnapshotSize;
+    }
+
+    /**
+     *
+     * @param snapshot histogram snapshot
+     * @return for {@link HdrHistogramReservoir} snapshots, the number of values recorded within the sliding window, which may be more than the number of
+     * sampled snapshot values - otherwise {@link Snapshot#size()}
+     */
+    public static long windowCount(@NonNull final Snapshot snapshot) {
+        if (snapshot instanceof HdrHistogramSnapshot) {
+            return ((HdrHistogramSnapshot) snapshot).histogram.getTotalCount();
+        }
+        return snapshot.size();
+    }
+
+    @Override
+    public void update(final long value) {
+        recorder.recordValue(value < 0 ? 0 : value);
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        rotateSlices(System.nanoTime());
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        slices[currentSlice].add(intervalHistogram);
+
+        final org.HdrHistogram.Histogram windowHistogram = new org.HdrHistogram.Histogram(numberOfSignificantValueDigits);
+        for (final org.HdrHistogram.Histogram slice : slices) {
+            windowHistogram.add(slice);
+        }
+        final HdrHistogramSnapshot snapshot = new HdrHistogramSnapshot(windowHistogram);
+        lastSnapshotSize = snapshot.size();
+        return snapshot;
+    }
+
+    /**
+     * Must be called while holding the lock
+     *
+     * @param now System.nanoTime()
+     */
+    private void rotateSlices(final long now) {
+        final long elapsedSlices = (now - currentSliceStartTime) / sliceNanos;
+        if (elapsedSlices <= 0) {
+            return;
+        }
+        for (int i = 0; i < Math.min(elapsedSlices, WINDOW_SLICES); i++) {
+            currentSlice = (currentSlice + 1) % WINDOW_SLICES;
+            slices[currentSlice].reset();
+        }
+        currentSliceStartTime += elapsedSlices * sliceNanos;
+    }
+
+    private static final class HdrHistogramSnapshot extends Snapshot {
+
+        private final org.HdrHistogram.Histogram histogram;
+
+        HdrHistogramSnapshot(final org.HdrHistogram.Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double getValue(final double quantile) {
+            checkArgument(quantile >= 0.0 && quantile <= 1.0, "quantile must be between 0.0 and 1.0");
+            return histogram.getValueAtPercentile(quantile * 100.0);
+        }
+
+        /**
+         * If more than {@link #MAX_SNAPSHOT_VALUES} values were recorded, then the values are sampled at evenly spaced percentiles.
+         *
+         * @return values in ascending order
+         */
+        @Override
+        public long[] getValues() {
+            final int size = size();
+            final long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = histogram.getValueAtPercentile((i + 1) * 100.0 / size);
+            }
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(histogram.getTotalCount(), MAX_SNAPSHOT_VALUES);
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getTotalCount() > 0 ? histogram.getMaxValue() : 0;
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getTotalCount() > 0 ? histogram.getMean() : 0;
+        }
+
+        @Override
+        public long getMin() {
+            return histogram.getTotalCount() > 0 ? histogram.getMinValue() : 0;
+        }
+
+        @Override
+        public double getStdDev() {
+            return histogram.getTotalCount() > 0 ? histogram.getStdDeviation() : 0;
+        }
+
+        @Override
+        public void dump(final OutputStream output) {
+            histogram.outputPercentileDistribution(new PrintStream(output), 1.0);
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.HistogramSnapshot;
+import com.codahale.metrics.Snapshot;
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.NonNull;
+
+/**
+ * Log-linear histogram buckets, which are used to ship histograms as {@link HistogramSnapshot} messages. Histograms from different nodes are merged by adding
+ * the bucket counts. Quantiles are then computed from the merged buckets, i.e., quantiles are never averaged.
+ *
+ * Each power of 2 is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets. Values less than {@value #SUB_BUCKET_COUNT} have their own bucket. Thus, the
+ * value that represents a bucket - its midpoint - is within ~6% of any value in the bucket. Negative values are counted as 0.
+ *
+ * @author alfio
+ */
+public final class HistogramBuckets {
+
+    static final int SUB_BUCKET_BITS = 3;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private HistogramBuckets() {
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return exponent * SUB_BUCKET_COUNT + (int) (value >>> exponent);
+    }
+
+    static long bucketLowerBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKET_COUNT - 1;
+        return ((long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT)) << exponent;
+    }
+
+    static long bucketUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKET_COUNT - 1;
+        return bucketLowerBound(index) + (1L << exponent) - 1;
+    }
+
+    static long bucketValue(final int index) {
+        final long lowerBound = bucketLowerBound(index);
+        return lowerBound + (bucketUpperBound(index) - lowerBound) / 2;
+    }
+
+    /**
+     * The snapshot values are counted into buckets. Snapshots are usually sampled, e.g., {@link HdrHistogramReservoir} snapshots are sampled down to
+     * {@link HdrHistogramReservoir#MAX_SNAPSHOT_VALUES} values. Thus, bucket counts are scaled up to the number of values that the snapshot covers, i.e.,
+     * {@link HdrHistogramReservoir#windowCount(Snapshot)}, which weighs the histogram by its current traffic when it is merged with other histograms. The
+     * lifetime count is only reported as the snapshot count.
+     *
+     * @param name metric name
+     * @param count total count, i.e., {@link com.codahale.metrics.Histogram#getCount()}
+     * @param snapshot histogram snapshot
+     * @return HistogramSnapshot
+     */
+    public static HistogramSnapshot histogramSnapshot(@NonNull final String name, final long count, @NonNull final Snapshot snapshot) {
+        final HistogramSnapshot.Builder histogramSnapshot = HistogramSnapshot.newBuilder()
+                .setName(name)
+                .setCount(count);
+        final long[] values = snapshot.getValues();
+        if (values.length == 0) {
+            return histogramSnapshot.build();
+        }
+
+        final Map<Integer, Long> buckets = new TreeMap<>();
+        for (final long value : values) {
+            buckets.merge(bucketIndex(value), 1L, Long::sum);
+        }
+        final double scale = Math.max(1.0, (double) HdrHistogramReservoir.windowCount(snapshot) / values.length);
+        buckets.forEach((index, bucketCount) -> {
+            histogramSnapshot.addBucketIndexes(index);
+            histogramSnapshot.addBucketCounts(Math.max(1L, Math.round(bucketCount * scale)));
+        });
+        return histogramSnapshot
+                .setMin(snapshot.getMin())
+                .setMax(snapshot.getMax())
+                .build();
+    }
+
+    /**
+     *
+     * @param a histogram
+     * @param b histogram with the same name
+     * @return merged histogram
+     */
+    public static HistogramSnapshot merge(@NonNull final HistogramSnapshot a, @NonNull final HistogramSnapshot b) {
+        checkArgument(a.getName().equals(b.getName()), "histogram names do not match: %s != %s", a.getName(), b.getName());
+        if (a.getBucketIndexesCount() == 0) {
+            return b.toBuilder().setCount(a.getCount() + b.getCount()).build();
+        }
+        if (b.getBucketIndexesCount() == 0) {
+            return a.toBuilder().setCount(a.getCount() + b.getCount()).build();
+        }
+
+        final Map<Integer, Long> buckets = new TreeMap<>();
+        addBuckets(buckets, a);
+        addBuckets(buckets, b);
+        final HistogramSnapshot.Builder merged = HistogramSnapshot.newBuilder()
+                .setName(a.getName())
+                .setCount(a.getCount() + b.getCount())
+                .setMin(Math.min(a.getMin(), b.getMin()))
+                .setMax(Math.max(a.getMax(), b.getMax()));
+        buckets.forEach((index, bucketCount) -> {
+            merged.addBucketIndexes(index);
+            merged.addBucketCounts(bucketCount);
+        });
+        return merged.build();
+    }
+
+    private static void addBuckets(final Map<Integer, Long> buckets, final HistogramSnapshot histogram) {
+        for (int i = 0; i < histogram.getBucketIndexesCount(); i++) {
+            buckets.merge(histogram.getBucketIndexes(i), histogram.getBucketCounts(i), Long::sum);
+        }
+    }
+
+    /**
+     *
+     * @param histogram histogram
+     * @param quantile quantile in [0,1]
+     * @return the value at the quantile, which is clamped to the histogram's min and max values - 0 if the histogram has no buckets
+     */
+    public static long quantile(@NonNull final HistogramSnapshot histogram, final double quantile) {
+        checkArgument(quantile >= 0.0 && quantile <= 1.0, "quantile must be in [0,1]");
+        final long total = bucketedCount(histogram);
+        if (total == 0) {
+            return 0;
+        }
+
+        final double rank = quantile * total;
+        long cumulativeCount = 0;
+        for (int i = 0; i < histogram.getBucketIndexesCount(); i++) {
+            cumulativeCount += histogram.getBucketCounts(i);
+            if (cumulativeCount >= rank) {
+                return Math.max(histogram.getMin(), Math.min(histogram.getMax(), bucketValue(histogram.getBucketIndexes(i))));
+            }
+        }
+        return histogram.getMax();
+    }
+
+    /**
+     *
+     * @param histogram histogram
+     * @return the number of values that are counted in the buckets
+     */
+    public static long bucketedCount(@NonNull final HistogramSnapshot histogram) {
+        long total = 0;
+        for (int i = 0; i < histogram.getBucketCountsCount(); i++) {
+            total += histogram.getBucketCounts(i);
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.Optional;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Metric tags, which are encoded into the Dropwizard metric name as follows:
+ *
+ * <code>name[verticle=group:name:version,instance=1,node=node-id]::address</code>
+ *
+ * Only the tags that are set are encoded. When only the address is set, the metric name is <code>name::address</code>, which is compatible with the existing
+ * metric naming convention.
+ *
+ * Tag values, except for the address, must not contain any of the following chars: <code>,=[]</code>
+ *
+ * @author alfio
+ */
+@EqualsAndHashCode
+public final class MetricTags {
+
+    public static final MetricTags NONE = new MetricTags(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+
+    public static final String ADDRESS = "address";
+    public static final String VERTICLE = "verticle";
+    public static final String INSTANCE = "instance";
+    public static final String NODE = "node";
+
+    private static final String ADDRESS_SEPARATOR = "::";
+
+    private static final String RESERVED_CHARS = ",=[]";
+
+    @Getter
+    private final Optional<String> address;
+
+    @Getter
+    private final Optional<String> verticle;
+
+    @Getter
+    private final Optional<String> instance;
+
+    @Getter
+    private final Optional<String> node;
+
+    private MetricTags(final Optional<String> address, final Optional<String> verticle, final Optional<String> instance, final Optional<String> node) {
+        this.address = address;
+        this.verticle = verticle;
+        this.instance = instance;
+        this.node = node;
+    }
+
+    public static MetricTags address(final String address) {
+        return NONE.withAddress(address);
+    }
+
+    public MetricTags withAddress(final String address) {
+        checkArgument(StringUtils.isNotBlank(address), "address cannot be blank");
+        return new MetricTags(Optional.of(address), verticle, instance, node);
+    }
+
+    public MetricTags withVerticle(@NonNull final RunRightFastVerticleId verticleId) {
+        return new MetricTags(address, Optional.of(checkTagValue(String.format("%s:%s:%s", verticleId.getGroup(), verticleId.getName(), verticleId.getVersion()))), instance, node);
+    }
+
+    public MetricTags withInstance(final int instanceId) {
+        return new MetricTags(address, verticle, Optional.of(Integer.toString(instanceId)), node);
+    }
+
+    public MetricTags withNode(final String node) {
+        return new MetricTags(address, verticle, instance, Optional.of(checkTagValue(node)));
+    }
+
+    /**
+     * Tags that are set on the specified tags override this instance's tags.
+     *
+     * @param tags tags to merge
+     * @return merged tags
+     */
+    public MetricTags merge(@NonNull final MetricTags tags) {
+        return new MetricTags(
+                tags.address.isPresent() ? tags.address : address,
+                tags.verticle.isPresent() ? tags.verticle : verticle,
+                tags.instance.isPresent() ? tags.instance : instance,
+                tags.node.isPresent() ? tags.node : node
+        );
+    }
+
+    /**
+     *
+     * @param name REQUIRED - base metric name, e.g., {@link co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters#metricName}
+     * @return the Dropwizard metric name with the tags encoded
+     */
+    public String metricName(final String name) {
+        checkArgument(StringUtils.isNotBlank(name), "name cannot be blank");
+        checkArgument(StringUtils.containsNone(name, "[]") && !name.contains(ADDRESS_SEPARATOR), "name cannot contain tags");
+        final StringBuilder sb = new StringBuilder(name.length() + 64).append(name);
+        if (verticle.isPresent() || instance.isPresent() || node.isPresent()) {
+            sb.append('[');
+            final int start = sb.length();
+            verticle.ifPresent(value -> appendTag(sb, start, VERTICLE, value));
+            instance.ifPresent(value -> appendTag(sb, start, INSTANCE, value));
+            node.ifPresent(value -> appendTag(sb, start, NODE, value));
+            sb.append(']');
+        }
+        address.ifPresent(value -> sb.append(ADDRESS_SEPARATOR).append(value));
+        return sb.toString();
+    }
+
+    private static void appendTag(final StringBuilder sb, final int start, final String tag, final String value) {
+        if (sb.length() > start) {
+            sb.append(',');
+        }
+        sb.append(tag).append('=').append(value);
+    }
+
+    private static String checkTagValue(final String value) {
+        checkArgument(StringUtils.isNotBlank(value), "tag value cannot be blank");
+        checkArgument(StringUtils.containsNone(value, RESERVED_CHARS), "tag value cannot contain any of: %s", RESERVED_CHARS);
+        return value;
+    }
+
+    /**
+     * Parses a Dropwizard metric name that was produced via {@link #metricName(String)}. Unknown tags are ignored.
+     *
+     * @param metricName Dropwizard metric name
+     * @return the base metric name and its tags
+     */
+    public static TaggedMetricName parse(@NonNull final String metricName) {
+        final int addressIndex = metricName.indexOf(ADDRESS_SEPARATOR);
+        String name = addressIndex < 0 ? metricName : metricName.substring(0, addressIndex);
+        MetricTags tags = addressIndex < 0 || addressIndex + ADDRESS_SEPARATOR.length() == metricName.length()
+                ? NONE
+                : address(metricName.substring(addressIndex + ADDRESS_SEPARATOR.length()));
+
+        final int tagsIndex = name.indexOf('[');
+        if (tagsIndex > 0 && name.endsWith("]")) {
+            for (final String tag : StringUtils.split(name.substring(tagsIndex + 1, name.length() - 1), ',')) {
+                final int valueIndex = tag.indexOf('=');
+                if (valueIndex <= 0 || valueIndex == tag.length() - 1) {
+                    continue;
+                }
+                final Optional<String> value = Optional.of(tag.substring(valueIndex + 1));
+                switch (tag.substring(0, valueIndex)) {
+                    case VERTICLE:
+                        tags = new MetricTags(tags.address, value, tags.instance, tags.node);
+                        break;
+                    case INSTANCE:
+                        tags = new MetricTags(tags.address, tags.verticle, value, tags.node);
+                        break;
+                    case NODE:
+                        tags = new MetricTags(tags.address, tags.verticle, tags.instance, value);
+                        break;
+                    default:
+                    // ignore
+                }
+            }
+            name = name.substring(0, tagsIndex);
+        }
+        return new TaggedMetricName(name, tags);
+    }
+
+    @Override
+    public String toString() {
+        return metricName("tags");
+    }
+
+    @EqualsAndHashCode
+    public static final class TaggedMetricName {
+
+        @Getter
+        private final String name;
+
+        @Getter
+        private final MetricTags tags;
+
+        private TaggedMetricName(final String name, final MetricTags tags) {
+            this.name = name;
+            this.tags = tags;
+        }
+
+        @Override
+        public String toString() {
+            return tags.metricName(name);
+        }
+    }
+
+}
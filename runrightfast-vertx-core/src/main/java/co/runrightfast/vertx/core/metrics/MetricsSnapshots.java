@@ -0,0 +1,182 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.metrics.MetricTags.TaggedMetricName;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.CounterSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.HistogramSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MeterSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MetricsSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.VerticleMetrics;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.NonNull;
+
+/**
+ * Converts Dropwizard metrics to compact protobuf snapshots, and merges snapshots from multiple nodes.
+ *
+ * @author alfio
+ */
+public final class MetricsSnapshots {
+
+    private MetricsSnapshots() {
+    }
+
+    /**
+     * Gauges are not included.
+     *
+     * The snapshot is per verticle and node, thus the verticle, instance, and node tags are dropped from the metric names, and the metrics for each verticle
+     * instance are merged - see {@link MetricTags}.
+     *
+     * @param verticleId verticle id
+     * @param metricRegistry the verticle's metric registry
+     * @param metricNamePrefixes if not empty, then only metrics whose names start with any of the prefixes are included
+     * @return VerticleMetrics
+     */
+    public static VerticleMetrics verticleMetrics(@NonNull final VerticleId verticleId, @NonNull final MetricRegistry metricRegistry, @NonNull final List<String> metricNamePrefixes) {
+        final MergedVerticleMetrics verticleMetrics = new MergedVerticleMetrics(verticleId);
+        metricRegistry.getCounters().forEach((metricName, counter) -> {
+            final String name = snapshotMetricName(metricName);
+            if (matches(name, metricNamePrefixes)) {
+                verticleMetrics.merge(CounterSnapshot.newBuilder().setName(name).setCount(counter.getCount()).build());
+            }
+        });
+        metricRegistry.getMeters().forEach((metricName, meter) -> {
+            final String name = snapshotMetricName(metricName);
+            if (matches(name, metricNamePrefixes)) {
+                verticleMetrics.merge(MeterSnapshot.newBuilder()
+                        .setName(name)
+                        .setCount(meter.getCount())
+                        .setOneMinuteRate(meter.getOneMinuteRate())
+                        .setFiveMinuteRate(meter.getFiveMinuteRate())
+                        .setFifteenMinuteRate(meter.getFifteenMinuteRate())
+                        .build()
+                );
+            }
+        });
+        metricRegistry.getHistograms().forEach((metricName, histogram) -> {
+            final String name = snapshotMetricName(metricName);
+            if (matches(name, metricNamePrefixes)) {
+                verticleMetrics.merge(HistogramBuckets.histogramSnapshot(name, histogram.getCount(), histogram.getSnapshot()));
+            }
+        });
+        metricRegistry.getTimers().forEach((metricName, timer) -> {
+            final String name = snapshotMetricName(metricName);
+            if (matches(name, metricNamePrefixes)) {
+                verticleMetrics.merge(HistogramBuckets.histogramSnapshot(name, timer.getCount(), timer.getSnapshot()));
+            }
+        });
+        return verticleMetrics.toVerticleMetrics();
+    }
+
+    /**
+     *
+     * @param metricName Dropwizard metric name
+     * @return the metric name, tagged only with the address
+     */
+    private static String snapshotMetricName(final String metricName) {
+        final TaggedMetricName taggedMetricName = MetricTags.parse(metricName);
+        final MetricTags tags = taggedMetricName.getTags();
+        if (!tags.getVerticle().isPresent() && !tags.getInstance().isPresent() && !tags.getNode().isPresent()) {
+            return metricName;
+        }
+        return tags.getAddress()
+                .map(address -> MetricTags.address(address).metricName(taggedMetricName.getName()))
+                .orElse(taggedMetricName.getName());
+    }
+
+    private static boolean matches(final String name, final List<String> metricNamePrefixes) {
+        return metricNamePrefixes.isEmpty() || metricNamePrefixes.stream().anyMatch(name::startsWith);
+    }
+
+    /**
+     * Merges the snapshots per verticle and metric name: counts and rates are summed, and histograms are merged via {@link HistogramBuckets#merge}.
+     *
+     * @param node the node name for the merged snapshot
+     * @param snapshots snapshots to merge
+     * @return merged snapshot
+     */
+    public static MetricsSnapshot merge(@NonNull final String node, @NonNull final Collection<MetricsSnapshot> snapshots) {
+        final Map<VerticleId, MergedVerticleMetrics> verticleMetrics = new LinkedHashMap<>();
+        snapshots.stream()
+                .flatMap(snapshot -> snapshot.getVerticleMetricsList().stream())
+                .forEach(metrics -> verticleMetrics.computeIfAbsent(metrics.getVerticleId(), MergedVerticleMetrics::new).merge(metrics));
+
+        final MetricsSnapshot.Builder merged = MetricsSnapshot.newBuilder()
+                .setNode(node)
+                .setTimestamp(Instant.now().toEpochMilli());
+        verticleMetrics.values().stream().map(MergedVerticleMetrics::toVerticleMetrics).forEach(merged::addVerticleMetrics);
+        return merged.build();
+    }
+
+    private static final class MergedVerticleMetrics {
+
+        private final VerticleId verticleId;
+
+        private final Map<String, CounterSnapshot> counters = new TreeMap<>();
+
+        private final Map<String, MeterSnapshot> meters = new TreeMap<>();
+
+        private final Map<String, HistogramSnapshot> histograms = new TreeMap<>();
+
+        MergedVerticleMetrics(final VerticleId verticleId) {
+            this.verticleId = verticleId;
+        }
+
+        void merge(final VerticleMetrics metrics) {
+            metrics.getCountersList().forEach(this::merge);
+            metrics.getMetersList().forEach(this::merge);
+            metrics.getHistogramsList().forEach(this::merge);
+        }
+
+        void merge(final CounterSnapshot counter) {
+            counters.merge(counter.getName(), counter, (a, b) -> a.toBuilder()
+                    .setCount(a.getCount() + b.getCount())
+                    .build()
+            );
+        }
+
+        void merge(final MeterSnapshot meter) {
+            meters.merge(meter.getName(), meter, (a, b) -> a.toBuilder()
+                    .setCount(a.getCount() + b.getCount())
+                    .setOneMinuteRate(a.getOneMinuteRate() + b.getOneMinuteRate())
+                    .setFiveMinuteRate(a.getFiveMinuteRate() + b.getFiveMinuteRate())
+                    .setFifteenMinuteRate(a.getFifteenMinuteRate() + b.getFifteenMinuteRate())
+                    .build()
+            );
+        }
+
+        void merge(final HistogramSnapshot histogram) {
+            histograms.merge(histogram.getName(), histogram, HistogramBuckets::merge);
+        }
+
+        VerticleMetrics toVerticleMetrics() {
+            return VerticleMetrics.newBuilder()
+                    .setVerticleId(verticleId)
+                    .addAllCounters(counters.values())
+                    .addAllMeters(meters.values())
+                    .addAllHistograms(histograms.values())
+                    .build();
+        }
+    }
+
+}
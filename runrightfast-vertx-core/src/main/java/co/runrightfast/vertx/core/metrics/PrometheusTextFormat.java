@@ -0,0 +1,338 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import co.runrightfast.vertx.core.RunRightFastVerticleMetrics.MetricType;
+import co.runrightfast.vertx.core.metrics.MetricTags.TaggedMetricName;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Renders Dropwizard metrics using the Prometheus text exposition format (version 0.0.4).
+ *
+ * Metric names follow the {@link co.runrightfast.vertx.core.RunRightFastVerticleMetrics} naming convention, i.e., <code>TYPE.name.parts::address</code>,
+ * optionally tagged - see {@link MetricTags}. The metric type prefix is dropped, the name parts are mapped to a Prometheus metric name, and the tags are
+ * mapped to labels. Metrics from registries named after a {@link RunRightFastVerticleId} are labeled with <code>verticle</code>. Metrics from all other
+ * registries are labeled with <code>registry</code>.
+ *
+ * Metrics are mapped as follows:
+ * <ul>
+ * <li>Counter -> gauge
+ * <li>Gauge -> gauge - only numeric and boolean gauges are rendered
+ * <li>Meter -> counter, using the <code>_total</code> suffix
+ * <li>Histogram -> summary
+ * <li>Timer -> summary, in seconds, using the <code>_seconds</code> suffix
+ * </ul>
+ *
+ * Dropwizard does not track the sum of the recorded values, thus the summary <code>_sum</code> is estimated as the snapshot mean times the count.
+ *
+ * Metric families are returned by an iterator, which renders nothing up front. Each metric family is rendered when it is written, and is released once the
+ * iterator has moved past it. This allows the output to be streamed one metric family at a time. The number of samples rendered per metric family is
+ * bounded, in order to bound the cost of a scrape when there are many addresses.
+ *
+ * Summary quantiles for histograms that are backed by a {@link HdrHistogramReservoir} cover the reservoir's sliding time window. Taking the snapshot does
+ * not affect any other metrics consumer.
+ *
+ * @author alfio
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.98, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private PrometheusTextFormat() {
+    }
+
+    /**
+     * Groups the metrics from all of the registries by metric family, because the Prometheus text format requires all samples of a metric family to be
+     * written together. Only metric references and gauge values are collected - the metrics are rendered when the metric family is written.
+     *
+     * @param metricRegistries metric registry name -> MetricRegistry
+     * @param maxSamplesPerMetricFamily any samples beyond this limit are counted, but not rendered
+     * @return metric families sorted by name - each metric family is released once the iterator moves past it
+     */
+    public static Iterator<MetricFamily> metricFamilies(@NonNull final Map<String, MetricRegistry> metricRegistries, final int maxSamplesPerMetricFamily) {
+        final TreeMap<String, MetricFamily> metricFamilies = new TreeMap<>();
+        new TreeMap<>(metricRegistries).forEach((registryName, metricRegistry) -> {
+            final String registryLabel = registryLabel(registryName);
+            metricRegistry.getMetrics().forEach((metricName, metric) -> {
+                final MetricFamilyType type = metricFamilyType(metric);
+                final Object value;
+                if (metric instanceof Gauge) {
+                    value = gaugeValue((Gauge) metric);
+                    if (value == null) {
+                        return;
+                    }
+                } else {
+                    value = metric;
+                }
+
+                final TaggedMetricName taggedMetricName = MetricTags.parse(metricName);
+                final String name = taggedMetricName.getName();
+                final MetricTags tags = taggedMetricName.getTags();
+                final StringBuilder labels = new StringBuilder(registryLabel.length() + 64);
+                if (tags.getVerticle().isPresent()) {
+                    appendLabel(labels, MetricTags.VERTICLE, tags.getVerticle().get());
+                } else {
+                    labels.append(registryLabel);
+                }
+                tags.getInstance().ifPresent(instance -> appendLabel(labels, MetricTags.INSTANCE, instance));
+                tags.getNode().ifPresent(node -> appendLabel(labels, MetricTags.NODE, node));
+                tags.getAddress().ifPresent(address -> appendLabel(labels, MetricTags.ADDRESS, address));
+
+                String familyName = prometheusName(name, metricNameSuffix(metric));
+                MetricFamily metricFamily = metricFamilies.get(familyName);
+                if (metricFamily != null && metricFamily.type != type) {
+                    familyName = familyName + '_' + type.name();
+                    metricFamily = metricFamilies.get(familyName);
+                }
+                if (metricFamily == null) {
+                    metricFamily = new MetricFamily(familyName, type, maxSamplesPerMetricFamily);
+                    metricFamilies.put(familyName, metricFamily);
+                }
+                metricFamily.add(labels.toString(), value);
+            });
+        });
+        return new Iterator<MetricFamily>() {
+
+            @Override
+            public boolean hasNext() {
+                return !metricFamilies.isEmpty();
+            }
+
+            @Override
+            public MetricFamily next() {
+                final Map.Entry<String, MetricFamily> entry = metricFamilies.pollFirstEntry();
+                if (entry == null) {
+                    throw new NoSuchElementException();
+                }
+                return entry.getValue();
+            }
+        };
+    }
+
+    private static MetricFamilyType metricFamilyType(final Metric metric) {
+        if (metric instanceof Meter) {
+            return MetricFamilyType.counter;
+        }
+        if (metric instanceof Histogram || metric instanceof Timer) {
+            return MetricFamilyType.summary;
+        }
+        return MetricFamilyType.gauge;
+    }
+
+    private static String metricNameSuffix(final Metric metric) {
+        if (metric instanceof Meter) {
+            return "_total";
+        }
+        if (metric instanceof Timer) {
+            return "_seconds";
+        }
+        return "";
+    }
+
+    private static Object gaugeValue(final Gauge gauge) {
+        final Object value;
+        try {
+            value = gauge.getValue();
+        } catch (final RuntimeException e) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return value;
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        }
+        return null;
+    }
+
+    /**
+     * e.g., COUNTER.message-consumer.message.processing -> message_consumer_message_processing
+     */
+    private static String prometheusName(final String metricName, final String suffix) {
+        final int typeIndex = metricName.indexOf('.');
+        final String name = typeIndex > 0 && isMetricType(metricName.substring(0, typeIndex)) ? metricName.substring(typeIndex + 1) : metricName;
+        final StringBuilder sb = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || (c >= '0' && c <= '9' && i > 0)) {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.append(suffix).toString();
+    }
+
+    private static boolean isMetricType(final String name) {
+        return Arrays.stream(MetricType.values()).anyMatch(metricType -> metricType.name().equals(name));
+    }
+
+    private static String registryLabel(final String registryName) {
+        final StringBuilder sb = new StringBuilder(64);
+        if (registryName.startsWith("{")) {
+            try (final JsonReader reader = Json.createReader(new StringReader(registryName))) {
+                final JsonObject json = reader.readObject();
+                final RunRightFastVerticleId verticleId = new RunRightFastVerticleId(json);
+                appendLabel(sb, "verticle", String.format("%s:%s:%s", verticleId.getGroup(), verticleId.getName(), verticleId.getVersion()));
+                return sb.toString();
+            } catch (final JsonException | IllegalArgumentException | NullPointerException | ClassCastException e) {
+                // not a verticle registry
+            }
+        }
+        appendLabel(sb, "registry", registryName);
+        return sb.toString();
+    }
+
+    private static void appendLabel(final StringBuilder sb, final String name, final String value) {
+        if (sb.length() > 0) {
+            sb.append(',');
+        }
+        sb.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    public static enum MetricFamilyType {
+        counter,
+        gauge,
+        summary
+    }
+
+    public static final class MetricFamily {
+
+        @Getter
+        private final String name;
+
+        @Getter
+        private final MetricFamilyType type;
+
+        private final int maxSamples;
+
+        // the labels and the corresponding metric (or gauge value) are stored in pairs
+        private final List<Object> samples = new ArrayList<>();
+
+        @Getter
+        private int truncatedSampleCount;
+
+        private MetricFamily(final String name, final MetricFamilyType type, final int maxSamples) {
+            this.name = name;
+            this.type = type;
+            this.maxSamples = maxSamples;
+        }
+
+        private void add(final String labels, final Object metric) {
+            if (getSampleCount() >= maxSamples) {
+                truncatedSampleCount++;
+                return;
+            }
+            samples.add(labels);
+            samples.add(metric);
+        }
+
+        public int getSampleCount() {
+            return samples.size() / 2;
+        }
+
+        /**
+         * Appends the metric family in Prometheus text format
+         *
+         * @param sb output
+         */
+        public void write(@NonNull final StringBuilder sb) {
+            sb.append("# TYPE ").append(name).append(' ').append(type.name()).append('\n');
+            if (truncatedSampleCount > 0) {
+                sb.append("# ").append(truncatedSampleCount).append(" samples were truncated\n");
+            }
+            for (int i = 0; i < samples.size(); i += 2) {
+                final String labels = (String) samples.get(i);
+                final Object metric = samples.get(i + 1);
+                if (metric instanceof Number) {
+                    writeSample(sb, name, labels, ((Number) metric).doubleValue());
+                } else if (metric instanceof Counter) {
+                    writeSample(sb, name, labels, ((Counter) metric).getCount());
+                } else if (metric instanceof Meter) {
+                    writeSample(sb, name, labels, ((Meter) metric).getCount());
+                } else if (metric instanceof Timer) {
+                    final Timer timer = (Timer) metric;
+                    writeSummary(sb, labels, timer.getSnapshot(), timer.getCount(), NANOS_PER_SECOND);
+                } else if (metric instanceof Histogram) {
+                    final Histogram histogram = (Histogram) metric;
+                    writeSummary(sb, labels, histogram.getSnapshot(), histogram.getCount(), 1);
+                }
+            }
+        }
+
+        private void writeSummary(final StringBuilder sb, final String labels, final Snapshot snapshot, final long count, final double divisor) {
+            for (final double quantile : QUANTILES) {
+                sb.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(snapshot.getValue(quantile) / divisor).append('\n');
+            }
+            writeSample(sb, name + "_sum", labels, snapshot.getMean() * count / divisor);
+            writeSample(sb, name + "_count", labels, count);
+        }
+
+        private static void writeSample(final StringBuilder sb, final String name, final String labels, final double value) {
+            sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+        }
+
+        private static void writeSample(final StringBuilder sb, final String name, final String labels, final long value) {
+            sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+        }
+    }
+
+}
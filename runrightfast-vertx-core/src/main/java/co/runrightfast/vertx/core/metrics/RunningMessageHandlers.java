@@ -0,0 +1,108 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tracks the message handlers that are currently running, per thread. This is used to report the longest running message handler along with its address.
+ *
+ * Tracking costs 2 volatile writes per message. The address that is reported is read racily, i.e., it is a best effort snapshot.
+ *
+ * @author alfio
+ */
+public final class RunningMessageHandlers {
+
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private static final ConcurrentMap<Thread, RunningMessageHandler> runningMessageHandlers = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<RunningMessageHandler> runningMessageHandler = ThreadLocal.withInitial(() -> {
+        final RunningMessageHandler handler = new RunningMessageHandler();
+        runningMessageHandlers.put(Thread.currentThread(), handler);
+        return handler;
+    });
+
+    private RunningMessageHandlers() {
+    }
+
+    /**
+     * Must be followed by {@link #messageHandlerCompleted()} on the same thread
+     *
+     * @param address the address the message was sent to
+     */
+    public static void messageHandlerStarted(@NonNull final String address) {
+        final RunningMessageHandler handler = runningMessageHandler.get();
+        handler.address = address;
+        handler.startTime = System.nanoTime();
+    }
+
+    public static void messageHandlerCompleted() {
+        runningMessageHandler.get().startTime = IDLE;
+    }
+
+    /**
+     *
+     * @return the message handler that has been running the longest, or empty if no message handlers are currently running
+     */
+    public static Optional<LongestRunningMessageHandler> longestRunningMessageHandler() {
+        final long now = System.nanoTime();
+        LongestRunningMessageHandler longest = null;
+        for (final ConcurrentMap.Entry<Thread, RunningMessageHandler> entry : runningMessageHandlers.entrySet()) {
+            if (!entry.getKey().isAlive()) {
+                runningMessageHandlers.remove(entry.getKey());
+                continue;
+            }
+            final RunningMessageHandler handler = entry.getValue();
+            final long startTime = handler.startTime;
+            if (startTime == IDLE) {
+                continue;
+            }
+            final Duration duration = Duration.ofNanos(now - startTime);
+            if (longest == null || duration.compareTo(longest.duration) > 0) {
+                longest = new LongestRunningMessageHandler(handler.address, entry.getKey().getName(), duration);
+            }
+        }
+        return Optional.ofNullable(longest);
+    }
+
+    private static final class RunningMessageHandler {
+
+        private volatile String address;
+
+        private volatile long startTime = IDLE;
+    }
+
+    @RequiredArgsConstructor
+    public static final class LongestRunningMessageHandler {
+
+        @Getter
+        private final String address;
+
+        @Getter
+        private final String threadName;
+
+        @Getter
+        private final Duration duration;
+    }
+
+}
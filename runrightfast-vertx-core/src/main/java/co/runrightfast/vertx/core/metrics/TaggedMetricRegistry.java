@@ -0,0 +1,115 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Tagged metrics facade that is backed by a Dropwizard {@link MetricRegistry}. The tags are encoded into the Dropwizard metric name - see {@link MetricTags}.
+ *
+ * The metric lookup methods return the Dropwizard metric, i.e., metric handles are resolved once and then used directly on the hot path. Instances are
+ * immutable - {@link #withTags(MetricTags)} and {@link #withAddress(String)} return a new instance that is backed by the same registry.
+ *
+ * @author alfio
+ */
+public final class TaggedMetricRegistry {
+
+    @Getter
+    private final MetricRegistry metricRegistry;
+
+    @Getter
+    private final MetricTags tags;
+
+    public TaggedMetricRegistry(@NonNull final MetricRegistry metricRegistry) {
+        this(metricRegistry, MetricTags.NONE);
+    }
+
+    public TaggedMetricRegistry(@NonNull final MetricRegistry metricRegistry, @NonNull final MetricTags tags) {
+        this.metricRegistry = metricRegistry;
+        this.tags = tags;
+    }
+
+    /**
+     *
+     * @param tags tags that are merged with this registry's tags
+     * @return TaggedMetricRegistry backed by the same registry
+     */
+    public TaggedMetricRegistry withTags(@NonNull final MetricTags tags) {
+        return new TaggedMetricRegistry(metricRegistry, this.tags.merge(tags));
+    }
+
+    public TaggedMetricRegistry withAddress(final String address) {
+        return new TaggedMetricRegistry(metricRegistry, tags.withAddress(address));
+    }
+
+    /**
+     *
+     * @param name base metric name
+     * @return the Dropwizard metric name, with the tags encoded
+     */
+    public String metricName(final String name) {
+        return tags.metricName(name);
+    }
+
+    public Counter counter(final String name) {
+        return metricRegistry.counter(metricName(name));
+    }
+
+    public Meter meter(final String name) {
+        return metricRegistry.meter(metricName(name));
+    }
+
+    public Timer timer(final String name) {
+        return metricRegistry.timer(metricName(name));
+    }
+
+    public Histogram histogram(final String name) {
+        return metricRegistry.histogram(metricName(name));
+    }
+
+    /**
+     *
+     * @param name base metric name
+     * @return histogram that is backed by a {@link HdrHistogramReservoir}
+     */
+    public Histogram hdrHistogram(final String name) {
+        return HdrHistogramReservoir.hdrHistogram(metricRegistry, metricName(name));
+    }
+
+    /**
+     *
+     * @param <T> gauge value type
+     * @param name base metric name
+     * @param gauge gauge
+     * @return the registered gauge
+     * @throws IllegalArgumentException if a metric is already registered using the same name and tags
+     */
+    public <T> Gauge<T> register(final String name, @NonNull final Gauge<T> gauge) {
+        return metricRegistry.register(metricName(name), gauge);
+    }
+
+    public boolean remove(final String name) {
+        return metricRegistry.remove(metricName(name));
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+
+/**
+ * Measures the CPU time and the heap allocated by the current thread, via the platform {@link ThreadMXBean}. It is used to attribute CPU and allocation
+ * costs to EventBus addresses, by sampling the counters before and after each message handler invocation.
+ *
+ * Resource usage accounting is disabled by default. When disabled, or when the JVM does not support it, the current thread counters are reported as -1.
+ *
+ * Allocated bytes require the HotSpot {@link com.sun.management.ThreadMXBean} extension.
+ *
+ * @author alfio
+ */
+public final class ThreadResourceUsage {
+
+    private static final String CLASS_NAME = ThreadResourceUsage.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private static volatile boolean cpuTimeEnabled;
+
+    private static volatile boolean allocatedBytesEnabled;
+
+    private ThreadResourceUsage() {
+    }
+
+    /**
+     *
+     * @param enabled if true, then resource usage accounting is enabled, if supported by the JVM
+     * @return true if either CPU time or allocated bytes accounting is enabled
+     */
+    public static synchronized boolean setEnabled(final boolean enabled) {
+        if (!enabled) {
+            cpuTimeEnabled = false;
+            allocatedBytesEnabled = false;
+            return false;
+        }
+
+        if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+            cpuTimeEnabled = true;
+        } else {
+            log.logp(WARNING, CLASS_NAME, "setEnabled", "Thread CPU time is not supported");
+        }
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                if (!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                    sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                allocatedBytesEnabled = true;
+            }
+        }
+        if (!allocatedBytesEnabled) {
+            log.logp(WARNING, CLASS_NAME, "setEnabled", "Thread allocated memory is not supported");
+        }
+
+        return isEnabled();
+    }
+
+    public static boolean isEnabled() {
+        return cpuTimeEnabled || allocatedBytesEnabled;
+    }
+
+    /**
+     *
+     * @return the current thread's CPU time in nanoseconds, or -1 if not enabled
+     */
+    public static long currentThreadCpuTime() {
+        return cpuTimeEnabled ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     *
+     * @return the total number of bytes allocated on the heap by the current thread, or -1 if not enabled
+     */
+    public static long currentThreadAllocatedBytes() {
+        return allocatedBytesEnabled ? ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+}
@@ -18,9 +18,20 @@ package co.runrightfast.vertx.core.modules;
 import co.runrightfast.core.AppConfig;
 import co.runrightfast.core.ConfigurationException;
 import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.ExceptionFingerprints;
+import co.runrightfast.core.application.event.LogRateLimiter;
+import co.runrightfast.core.application.event.LogRateLimiterConfig;
 import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
+import co.runrightfast.core.application.event.impl.AsyncAppEventLogger;
+import co.runrightfast.core.application.event.impl.AsyncAppEventLoggerConfig;
+import co.runrightfast.core.application.event.impl.AsyncAppEventLoggerConfig.FullBufferPolicy;
+import co.runrightfast.core.application.event.impl.MappedAppEventJournal;
+import co.runrightfast.core.application.event.impl.MappedAppEventJournalConfig;
+import co.runrightfast.core.application.event.impl.RateLimitedAppEventLogger;
 import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksServiceConfig;
 import co.runrightfast.core.application.services.healthchecks.impl.HealthChecksServiceImpl;
+import co.runrightfast.vertx.core.VertxService;
 import co.runrightfast.vertx.core.application.ApplicationId;
 import co.runrightfast.vertx.core.application.RunRightFastApplication;
 import co.runrightfast.vertx.core.inject.qualifiers.ApplicationConfig;
@@ -33,6 +44,9 @@ import static co.runrightfast.core.utils.JmxUtils.applicationJmxDomain;
 import com.typesafe.config.Config;
 import dagger.Module;
 import dagger.Provides;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Singleton;
 
 /**
@@ -85,16 +99,89 @@ public final class RunRightFastApplicationModule {
         return RunRightFastApplication.builder().applicationId(applicationId).config(config).build();
     }
 
+    /**
+     * Events are logged asynchronously by default - see {@link AsyncAppEventLogger}. INFO events are rate limited per event name when
+     * <code>rate-limit.enabled</code> - see {@link RateLimitedAppEventLogger}. When <code>journal.enabled</code>, events are appended to a binary journal
+     * instead of being logged as JSON text - see {@link MappedAppEventJournal}. The logger is configured via <code>runrightfast.app-event-logger</code>, which
+     * also configures the shared {@link ExceptionFingerprints}.
+     *
+     * The logger is closed by the {@link co.runrightfast.vertx.core.application.RunRightFastVertxApplicationLauncher} when the application shuts down, which
+     * logs the buffered events and closes the journal.
+     *
+     * @param applicationId app id
+     * @param config app config
+     * @return AppEventLogger
+     */
     @Provides
     @Singleton
-    public AppEventLogger provideAppEventLogger(final ApplicationId applicationId) {
-        return new AppEventJDKLogger(applicationId);
+    public AppEventLogger provideAppEventLogger(final ApplicationId applicationId, @ApplicationConfig final Config config) {
+        ExceptionFingerprints.configure(
+                ConfigUtils.getInt(config, CONFIG_NAMESPACE, "app-event-logger", "exception-fingerprints", "stack-frames").orElse(ExceptionFingerprints.DEFAULT_STACK_FRAMES),
+                ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, CONFIG_NAMESPACE, "app-event-logger", "exception-fingerprints", "window")
+                        .map(Duration::ofMillis)
+                        .orElse(ExceptionFingerprints.DEFAULT_WINDOW)
+        );
+        ExceptionFingerprints.registerMetrics(VertxService.metricRegistry);
+
+        final AppEventLogger appEventLogger = asyncAppEventLogger(appEventJournal(config).orElseGet(() -> new AppEventJDKLogger(applicationId)), config);
+        final Optional<Config> rateLimitConfig = ConfigUtils.getConfig(config, CONFIG_NAMESPACE, "app-event-logger", "rate-limit");
+        if (!rateLimitConfig.flatMap(rateLimit -> ConfigUtils.getBoolean(rateLimit, "enabled")).orElse(Boolean.FALSE)) {
+            return appEventLogger;
+        }
+        final LogRateLimiter rateLimiter = new LogRateLimiter("app-events", LogRateLimiterConfig.fromConfig(rateLimitConfig.get()));
+        rateLimiter.registerMetrics(VertxService.metricRegistry);
+        return new RateLimitedAppEventLogger(
+                appEventLogger,
+                rateLimiter,
+                ConfigUtils.getDuration(rateLimitConfig.get(), TimeUnit.MILLISECONDS, "flush-interval")
+                .map(Duration::ofMillis)
+                .orElse(RateLimitedAppEventLogger.DEFAULT_FLUSH_INTERVAL)
+        );
+    }
+
+    private Optional<AppEventLogger> appEventJournal(final Config config) {
+        final Optional<Config> journalConfig = ConfigUtils.getConfig(config, CONFIG_NAMESPACE, "app-event-logger", "journal");
+        if (!journalConfig.flatMap(journal -> ConfigUtils.getBoolean(journal, "enabled")).orElse(Boolean.FALSE)) {
+            return Optional.empty();
+        }
+        final MappedAppEventJournal journal = new MappedAppEventJournal(MappedAppEventJournalConfig.fromConfig(journalConfig.get()));
+        journal.registerMetrics(VertxService.metricRegistry);
+        return Optional.of(journal);
+    }
+
+    private AppEventLogger asyncAppEventLogger(final AppEventLogger appEventLogger, final Config config) {
+        if (!ConfigUtils.getBoolean(config, CONFIG_NAMESPACE, "app-event-logger", "async").orElse(Boolean.TRUE)) {
+            return appEventLogger;
+        }
+        final AsyncAppEventLogger asyncAppEventLogger = new AsyncAppEventLogger(appEventLogger, AsyncAppEventLoggerConfig.builder()
+                .bufferSize(ConfigUtils.getInt(config, CONFIG_NAMESPACE, "app-event-logger", "buffer-size").orElse(AsyncAppEventLoggerConfig.DEFAULT_BUFFER_SIZE))
+                .batchSize(ConfigUtils.getInt(config, CONFIG_NAMESPACE, "app-event-logger", "batch-size").orElse(AsyncAppEventLoggerConfig.DEFAULT_BATCH_SIZE))
+                .fullBufferPolicy(ConfigUtils.getString(config, CONFIG_NAMESPACE, "app-event-logger", "full-buffer-policy")
+                        .map(FullBufferPolicy::valueOf)
+                        .orElse(AsyncAppEventLoggerConfig.DEFAULT_FULL_BUFFER_POLICY))
+                .sampleRate(ConfigUtils.getInt(config, CONFIG_NAMESPACE, "app-event-logger", "sample-rate").orElse(AsyncAppEventLoggerConfig.DEFAULT_SAMPLE_RATE))
+                .droppedEventsLogInterval(ConfigUtils.getDuration(config, TimeUnit.MILLISECONDS, CONFIG_NAMESPACE, "app-event-logger", "dropped-events-log-interval")
+                        .map(Duration::ofMillis)
+                        .orElse(AsyncAppEventLoggerConfig.DEFAULT_DROPPED_EVENTS_LOG_INTERVAL))
+                .build()
+        );
+        asyncAppEventLogger.registerMetrics(VertxService.metricRegistry);
+        return asyncAppEventLogger;
     }
 
+    /**
+     * The service is configured via <code>runrightfast.health-checks</code> - see {@link HealthChecksServiceConfig}
+     *
+     * @param appEventLogger AppEventLogger
+     * @param config app config
+     * @return HealthChecksService
+     */
     @Provides
     @Singleton
     public HealthChecksService provideHealthChecksService(final AppEventLogger appEventLogger, @ApplicationConfig final Config config) {
-        return new HealthChecksServiceImpl(appEventLogger, applicationJmxDomain(config));
+        return new HealthChecksServiceImpl(appEventLogger, applicationJmxDomain(config), ConfigUtils.getConfig(config, CONFIG_NAMESPACE, "health-checks")
+                .map(HealthChecksServiceConfig::fromConfig)
+                .orElseGet(HealthChecksServiceConfig::defaultConfig));
     }
 
 }
@@ -16,6 +16,7 @@
 package co.runrightfast.vertx.core.modules;
 
 import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.vertx.core.VertxService;
 import co.runrightfast.vertx.core.impl.VertxServiceImpl;
 import co.runrightfast.vertx.core.inject.qualifiers.VertxServiceConfig;
@@ -36,8 +37,8 @@ public class VertxServiceModule {
 
     @Provides
     @Singleton
-    public VertxService vertxService(@VertxServiceConfig final Config config, final Set<RunRightFastVerticleDeployment> deployments, final AppEventLogger appEventLogger) {
-        final VertxService service = new VertxServiceImpl(config, deployments, appEventLogger);
+    public VertxService vertxService(@VertxServiceConfig final Config config, final Set<RunRightFastVerticleDeployment> deployments, final AppEventLogger appEventLogger, final HealthChecksService healthChecksService) {
+        final VertxService service = new VertxServiceImpl(config, deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         return service;
     }
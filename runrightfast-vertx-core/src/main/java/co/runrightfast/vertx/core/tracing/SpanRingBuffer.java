@@ -0,0 +1,89 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.tracing;
+
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+import lombok.NonNull;
+
+/**
+ * Fixed size, lock-free ring buffer of the most recently recorded spans. Writers claim a slot by incrementing a sequence - once the buffer wraps, the oldest
+ * spans are overwritten. Readers never block writers.
+ *
+ * @author alfio
+ */
+public final class SpanRingBuffer {
+
+    private final AtomicReferenceArray<TraceSpan> spans;
+
+    private final int mask;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     *
+     * @param capacity is rounded up to the next power of 2
+     */
+    public SpanRingBuffer(final int capacity) {
+        checkArgument(capacity > 0 && capacity <= (1 << 30));
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.spans = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void record(@NonNull final TraceSpan span) {
+        spans.lazySet((int) (sequence.getAndIncrement() & mask), span);
+    }
+
+    public int getCapacity() {
+        return spans.length();
+    }
+
+    /**
+     *
+     * @return the total number of spans that have been recorded, including the spans that have been overwritten
+     */
+    public long getRecordedCount() {
+        return sequence.get();
+    }
+
+    /**
+     *
+     * @param filter span filter
+     * @param maxSpans the max number of spans to return
+     * @return matching spans, most recent first
+     */
+    public ImmutableList<TraceSpan> getSpans(@NonNull final Predicate<TraceSpan> filter, final int maxSpans) {
+        checkArgument(maxSpans > 0);
+        final ImmutableList.Builder<TraceSpan> result = ImmutableList.builder();
+        final long end = sequence.get();
+        final long start = Math.max(0, end - spans.length());
+        int count = 0;
+        for (long i = end - 1; i >= start && count < maxSpans; i--) {
+            final TraceSpan span = spans.get((int) (i & mask));
+            if (span != null && filter.test(span)) {
+                result.add(span);
+                count++;
+            }
+        }
+        return result.build();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.tracing;
+
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.SPAN_ID;
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.TRACE_ID;
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.TRACE_SAMPLED;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Identifies a span within a trace. Trace contexts are propagated via the {@link co.runrightfast.vertx.core.eventbus.MessageHeader#TRACE_ID},
+ * {@link co.runrightfast.vertx.core.eventbus.MessageHeader#SPAN_ID}, and {@link co.runrightfast.vertx.core.eventbus.MessageHeader#TRACE_SAMPLED} headers.
+ *
+ * Unsampled traces carry real trace and span ids as well, i.e., only the decision whether to record a span is deferred until the span ends. Thus, spans
+ * that are recorded because they exceed the latency threshold can be correlated with their parent and sibling spans.
+ *
+ * @author alfio
+ */
+@EqualsAndHashCode
+@ToString
+public final class TraceContext {
+
+    @Getter
+    private final String traceId;
+
+    @Getter
+    private final String spanId;
+
+    /**
+     * empty for the root span
+     */
+    @Getter
+    private final Optional<String> parentSpanId;
+
+    @Getter
+    private final boolean sampled;
+
+    private TraceContext(final String traceId, final String spanId, final Optional<String> parentSpanId, final boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     *
+     * @param sampled if true, then all spans for the trace are recorded
+     * @return new root span
+     */
+    public static TraceContext newTrace(final boolean sampled) {
+        return new TraceContext(newId(), newId(), Optional.empty(), sampled);
+    }
+
+    /**
+     *
+     * @param headers message headers
+     * @return the sender's trace context, if the message is traced
+     */
+    public static Optional<TraceContext> fromHeaders(@NonNull final MultiMap headers) {
+        final String traceId = headers.get(TRACE_ID.header);
+        final String spanId = headers.get(SPAN_ID.header);
+        if (traceId == null || spanId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new TraceContext(traceId, spanId, Optional.empty(), "1".equals(headers.get(TRACE_SAMPLED.header))));
+    }
+
+    /**
+     *
+     * @return a new span within the same trace, whose parent is this span
+     */
+    public TraceContext childSpan() {
+        return new TraceContext(traceId, newId(), Optional.of(spanId), sampled);
+    }
+
+    /**
+     *
+     * @return a new span within the same trace, which shares this span's parent
+     */
+    public TraceContext siblingSpan() {
+        return new TraceContext(traceId, newId(), parentSpanId, sampled);
+    }
+
+    /**
+     * Sets the trace headers, replacing any existing trace headers.
+     *
+     * @param options delivery options
+     * @return options
+     */
+    public DeliveryOptions addHeaders(@NonNull final DeliveryOptions options) {
+        final MultiMap headers = options.getHeaders();
+        if (headers == null) {
+            options.addHeader(TRACE_ID.header, traceId);
+            options.addHeader(SPAN_ID.header, spanId);
+            options.addHeader(TRACE_SAMPLED.header, sampled ? "1" : "0");
+            return options;
+        }
+
+        headers.set(TRACE_ID.header, traceId);
+        headers.set(SPAN_ID.header, spanId);
+        headers.set(TRACE_SAMPLED.header, sampled ? "1" : "0");
+        return options;
+    }
+
+    static String newId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.tracing;
+
+import co.runrightfast.core.utils.JvmProcess;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
+import static com.google.common.base.Preconditions.checkArgument;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Lightweight tracing over EventBus message headers.
+ *
+ * <ul>
+ * <li>{@link co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer} starts a new span for each message it sends. If the message is sent while a message
+ * handler is running, then the span is a child of the handler's span. Otherwise, a new trace is started.
+ * <li>Message consumers in {@link co.runrightfast.vertx.core.RunRightFastVerticle} continue the sender's trace. The consumer's span covers the handler
+ * execution. The queue and completion handoff phases are recorded as sibling spans, each with its own span id.
+ * <li>Replies carry the consumer's trace context.
+ * </ul>
+ *
+ * A trace is sampled when it is started, according to the sample rate - all spans for a sampled trace are recorded. The sampling decision is propagated
+ * with the trace. In addition, any span whose duration exceeds the latency threshold is recorded, regardless of sampling. Thus, unsampled traces carry
+ * their trace and span ids as well, so that slow spans can be correlated with the rest of the trace - only the recording decision is deferred until the
+ * span ends. Spans are recorded in a {@link SpanRingBuffer}, which is exposed via the verticle manager.
+ *
+ * The tracer is JVM wide - it is configured by the VertxService at startup. Until then, tracing is disabled.
+ *
+ * @author alfio
+ */
+public final class Tracer {
+
+    public static final Tracer DISABLED = new Tracer();
+
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+    public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofMillis(100);
+
+    public static final int DEFAULT_RING_BUFFER_SIZE = 4096;
+
+    private static volatile Tracer tracer = DISABLED;
+
+    private static final ThreadLocal<TraceContext> currentTraceContext = new ThreadLocal<>();
+
+    @Getter
+    private final boolean enabled;
+
+    @Getter
+    private final double sampleRate;
+
+    private final long latencyThresholdNanos;
+
+    @Getter
+    private final SpanRingBuffer spans;
+
+    private Tracer() {
+        this.enabled = false;
+        this.sampleRate = 0;
+        this.latencyThresholdNanos = Long.MAX_VALUE;
+        this.spans = new SpanRingBuffer(1);
+    }
+
+    /**
+     *
+     * @param sampleRate in [0,1]
+     * @param latencyThreshold spans that take at least this long are always recorded
+     * @param ringBufferSize the number of spans that are retained
+     */
+    public Tracer(final double sampleRate, @NonNull final Duration latencyThreshold, final int ringBufferSize) {
+        checkArgument(sampleRate >= 0.0 && sampleRate <= 1.0, "sampleRate must be in [0,1]");
+        checkArgument(!latencyThreshold.isNegative());
+        this.enabled = true;
+        this.sampleRate = sampleRate;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.spans = new SpanRingBuffer(ringBufferSize);
+    }
+
+    public static Tracer tracer() {
+        return tracer;
+    }
+
+    public static void setTracer(@NonNull final Tracer tracer) {
+        Tracer.tracer = tracer;
+    }
+
+    public Duration getLatencyThreshold() {
+        return Duration.ofNanos(latencyThresholdNanos);
+    }
+
+    /**
+     *
+     * @return the trace context for the message handler that is running on the current thread
+     */
+    public static Optional<TraceContext> currentTraceContext() {
+        return Optional.ofNullable(currentTraceContext.get());
+    }
+
+    /**
+     * Message handler wrappers set the current trace context while the handler is running.
+     *
+     * @param traceContext trace context
+     */
+    public static void setCurrentTraceContext(@NonNull final Optional<TraceContext> traceContext) {
+        currentTraceContext.set(traceContext.orElse(null));
+    }
+
+    public static void clearCurrentTraceContext() {
+        currentTraceContext.remove();
+    }
+
+    /**
+     *
+     * @return new trace, which is sampled according to the sample rate
+     */
+    public TraceContext newTrace() {
+        return TraceContext.newTrace(sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate));
+    }
+
+    /**
+     * Starts a new span for a message that is about to be sent, and adds the trace headers to the delivery options.
+     *
+     * @param options delivery options
+     * @return the send span - empty if tracing is disabled
+     */
+    public Optional<TraceContext> startSendSpan(@NonNull final DeliveryOptions options) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        final TraceContext traceContext = currentTraceContext().map(TraceContext::childSpan).orElseGet(this::newTrace);
+        traceContext.addHeaders(options);
+        return Optional.of(traceContext);
+    }
+
+    /**
+     * Continues the sender's trace. If the message is not traced, then a new trace is started.
+     *
+     * @param message received message
+     * @return the consumer's span - empty if tracing is disabled
+     */
+    public Optional<TraceContext> startConsumerSpan(@NonNull final Message<?> message) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.of(TraceContext.fromHeaders(message.headers()).map(TraceContext::childSpan).orElseGet(this::newTrace));
+    }
+
+    /**
+     * Wraps the reply handler to record the {@link TraceSpan.Kind#SEND} span when the reply is received.
+     *
+     * @param <A> reply type
+     * @param traceContext send span
+     * @param address address the message was sent to
+     * @param handler reply handler
+     * @return handler
+     */
+    public <A> Handler<AsyncResult<A>> sendSpanHandler(@NonNull final TraceContext traceContext, @NonNull final String address, @NonNull final Handler<AsyncResult<A>> handler) {
+        final long startTime = System.nanoTime();
+        return result -> {
+            record(traceContext, TraceSpan.Kind.SEND, address, startTime, System.nanoTime());
+            handler.handle(result);
+        };
+    }
+
+    /**
+     * The span is recorded if the trace is sampled, or if the span's duration is at least the latency threshold.
+     *
+     * @param traceContext span
+     * @param kind span kind
+     * @param address EventBus address
+     * @param startTime {@link System#nanoTime()}
+     * @param endTime {@link System#nanoTime()}
+     */
+    public void record(@NonNull final TraceContext traceContext, @NonNull final TraceSpan.Kind kind, @NonNull final String address, final long startTime, final long endTime) {
+        final long duration = endTime - startTime;
+        if (!enabled || (!traceContext.isSampled() && duration < latencyThresholdNanos)) {
+            return;
+        }
+
+        final long startTimeMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+        final TraceSpan.Builder span = TraceSpan.newBuilder()
+                .setTraceId(traceContext.getTraceId())
+                .setSpanId(traceContext.getSpanId())
+                .setKind(kind)
+                .setAddress(address)
+                .setNode(JvmProcess.JVM_ID)
+                .setStartTime(startTimeMicros)
+                .setDuration(duration);
+        traceContext.getParentSpanId().ifPresent(span::setParentSpanId);
+        spans.record(span.build());
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.verticles.metrics;
+
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.vertx.core.RunRightFastVerticle;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleId.RUNRIGHTFAST_GROUP;
+import co.runrightfast.vertx.core.metrics.PrometheusTextFormat;
+import static co.runrightfast.vertx.core.metrics.PrometheusTextFormat.metricFamilies;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.collect.ImmutableSet;
+import static com.google.common.base.Preconditions.checkArgument;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Optional verticle that exposes the metrics from all {@link SharedMetricRegistries}, i.e., the per verticle registries and the Vertx registry, via HTTP
+ * using the Prometheus text format - see {@link PrometheusTextFormat}.
+ *
+ * By default, the HTTP server listens on localhost:{@value #DEFAULT_PORT}. The metrics are served from {@value #METRICS_PATH}.
+ *
+ * The response is streamed using chunked encoding. Metric families are rendered in small batches on the event loop, and rendering backs off when the response
+ * write queue is full.
+ *
+ * @author alfio
+ */
+public final class MetricsHttpVerticle extends RunRightFastVerticle {
+
+    public static final RunRightFastVerticleId VERTICLE_ID = RunRightFastVerticleId.builder()
+            .group(RUNRIGHTFAST_GROUP)
+            .name("metrics-http")
+            .version("0.1.0")
+            .build();
+
+    public static final int DEFAULT_PORT = 9180;
+
+    public static final String METRICS_PATH = "/metrics";
+
+    public static final int DEFAULT_MAX_SAMPLES_PER_METRIC_FAMILY = 1000;
+
+    // number of metric families rendered per event loop turn
+    private static final int METRIC_FAMILY_BATCH_SIZE = 50;
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    @Getter
+    private final RunRightFastVerticleId runRightFastVerticleId = VERTICLE_ID;
+
+    private final HttpServerOptions httpServerOptions;
+
+    private final int maxSamplesPerMetricFamily;
+
+    private HttpServer httpServer;
+
+    public MetricsHttpVerticle(final AppEventLogger appEventLogger) {
+        this(appEventLogger, new HttpServerOptions().setHost("localhost").setPort(DEFAULT_PORT), DEFAULT_MAX_SAMPLES_PER_METRIC_FAMILY);
+    }
+
+    /**
+     *
+     * @param appEventLogger REQUIRED
+     * @param httpServerOptions REQUIRED
+     * @param maxSamplesPerMetricFamily bounds the number of addresses that are rendered per metric - must be > 0
+     */
+    public MetricsHttpVerticle(final AppEventLogger appEventLogger, @NonNull final HttpServerOptions httpServerOptions, final int maxSamplesPerMetricFamily) {
+        super(appEventLogger);
+        checkArgument(maxSamplesPerMetricFamily > 0, "maxSamplesPerMetricFamily must be > 0");
+        this.httpServerOptions = new HttpServerOptions(httpServerOptions);
+        this.maxSamplesPerMetricFamily = maxSamplesPerMetricFamily;
+    }
+
+    @Override
+    protected void startUp() {
+        httpServer = vertx.createHttpServer(httpServerOptions)
+                .requestHandler(this::handleRequest)
+                .listen(result -> {
+                    if (result.succeeded()) {
+                        log.logp(INFO, CLASS_NAME, "startUp", "listening on {0}:{1}", new Object[]{httpServerOptions.getHost(), Integer.toString(httpServerOptions.getPort())});
+                    } else {
+                        log.logp(SEVERE, CLASS_NAME, "startUp", "failed to start HTTP server", result.cause());
+                    }
+                });
+    }
+
+    @Override
+    protected void shutDown() {
+        if (httpServer != null) {
+            httpServer.close();
+            httpServer = null;
+        }
+    }
+
+    @Override
+    public Set<RunRightFastHealthCheck> getHealthChecks() {
+        return ImmutableSet.of();
+    }
+
+    private void handleRequest(final HttpServerRequest request) {
+        final HttpServerResponse response = request.response();
+        if (!METRICS_PATH.equals(request.path())) {
+            response.setStatusCode(404).end();
+            return;
+        }
+        if (request.method() != HttpMethod.GET) {
+            response.setStatusCode(405).putHeader("Allow", "GET").end();
+            return;
+        }
+
+        response.setChunked(true).putHeader("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+        new MetricFamiliesResponseWriter(response, metricFamilies(metricRegistries(), maxSamplesPerMetricFamily)).write();
+    }
+
+    private Map<String, MetricRegistry> metricRegistries() {
+        final Map<String, MetricRegistry> metricRegistries = new TreeMap<>();
+        SharedMetricRegistries.names().forEach(name -> metricRegistries.put(name, SharedMetricRegistries.getOrCreate(name)));
+        return metricRegistries;
+    }
+
+    private final class MetricFamiliesResponseWriter {
+
+        private final HttpServerResponse response;
+
+        private final Iterator<PrometheusTextFormat.MetricFamily> metricFamilies;
+
+        private final StringBuilder sb = new StringBuilder(CHUNK_SIZE + 1024);
+
+        private boolean closed;
+
+        MetricFamiliesResponseWriter(final HttpServerResponse response, final Iterator<PrometheusTextFormat.MetricFamily> metricFamilies) {
+            this.response = response;
+            this.metricFamilies = metricFamilies;
+            response.closeHandler(v -> closed = true);
+        }
+
+        /**
+         * Renders the next batch of metric families, and then yields the event loop. If the write queue is full, then rendering is resumed via the drain
+         * handler.
+         */
+        void write() {
+            if (closed) {
+                return;
+            }
+            for (int i = 0; i < METRIC_FAMILY_BATCH_SIZE && metricFamilies.hasNext(); i++) {
+                metricFamilies.next().write(sb);
+                if (sb.length() >= CHUNK_SIZE) {
+                    flush();
+                    if (response.writeQueueFull()) {
+                        response.drainHandler(v -> write());
+                        return;
+                    }
+                }
+            }
+
+            if (metricFamilies.hasNext()) {
+                vertx.runOnContext(v -> write());
+            } else {
+                flush();
+                response.end();
+            }
+        }
+
+        private void flush() {
+            if (sb.length() > 0) {
+                response.write(Buffer.buffer(sb.toString()));
+                sb.setLength(0);
+            }
+        }
+    }
+
+}
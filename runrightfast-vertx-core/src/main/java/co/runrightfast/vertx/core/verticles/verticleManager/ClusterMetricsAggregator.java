@@ -0,0 +1,144 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.verticles.verticleManager;
+
+import co.runrightfast.vertx.core.eventbus.EventBusAddress;
+import static co.runrightfast.vertx.core.eventbus.EventBusUtils.withReplyToAddress;
+import co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodec;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodecRegistry;
+import co.runrightfast.vertx.core.metrics.MetricsSnapshots;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetMetricsSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MetricsSnapshot;
+import static co.runrightfast.core.utils.UUIDUtils.uuid;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageConsumer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import static java.util.logging.Level.WARNING;
+import java.util.logging.Logger;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Scatter-gathers {@link GetMetricsSnapshot} requests across all of the verticle managers in the cluster.
+ *
+ * The request is published to the verticle manager's "get-metrics-snapshot" address, with a {@link co.runrightfast.vertx.core.eventbus.MessageHeader#REPLY_TO_ADDRESS}
+ * header set to a temporary address that collects the responses. The request is published once the temporary address is registered. Responses are
+ * collected until either the expected number of nodes have responded or the timeout expires - whichever comes first.
+ *
+ * @author alfio
+ */
+public final class ClusterMetricsAggregator {
+
+    public static final String CLUSTER_NODE = "cluster";
+
+    private static final String CLASS_NAME = ClusterMetricsAggregator.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    private final Vertx vertx;
+
+    private final ProtobufMessageProducer<GetMetricsSnapshot.Request> producer;
+
+    public ClusterMetricsAggregator(@NonNull final Vertx vertx, @NonNull final MetricRegistry metricRegistry) {
+        this.vertx = vertx;
+        this.producer = new ProtobufMessageProducer<>(
+                vertx.eventBus(),
+                EventBusAddress.eventBusAddress(RunRightFastVerticleManager.VERTICLE_ID, "get-metrics-snapshot"),
+                protobufMessageCodec(GetMetricsSnapshot.Request.getDefaultInstance()),
+                metricRegistry
+        );
+        protobufMessageCodecRegistry(vertx.eventBus()).registerEagerMessageCodec(GetMetricsSnapshot.Response.getDefaultInstance());
+    }
+
+    /**
+     *
+     * @param request request
+     * @param timeout how long to wait for responses
+     * @param expectedNodeCount if specified, then the future completes as soon as the expected number of nodes have responded
+     * @return future that is always completed normally with whatever responses were collected
+     */
+    public CompletableFuture<ClusterMetrics> getClusterMetrics(@NonNull final GetMetricsSnapshot.Request request, @NonNull final Duration timeout, @NonNull final Optional<Integer> expectedNodeCount) {
+        checkArgument(!timeout.isNegative() && !timeout.isZero());
+        expectedNodeCount.ifPresent(count -> checkArgument(count > 0));
+
+        final CompletableFuture<ClusterMetrics> future = new CompletableFuture<>();
+        final Map<String, MetricsSnapshot> nodeSnapshots = new ConcurrentHashMap<>();
+        final String replyTo = uuid();
+        final MessageConsumer<GetMetricsSnapshot.Response> consumer = vertx.eventBus().consumer(replyTo);
+        final long timerId = vertx.setTimer(timeout.toMillis(), id -> {
+            consumer.unregister();
+            future.complete(new ClusterMetrics(nodeSnapshots));
+        });
+        consumer.handler(message -> {
+            if (!(message.body() instanceof GetMetricsSnapshot.Response)) {
+                // failure replies are sent as Void messages
+                return;
+            }
+            final MetricsSnapshot snapshot = message.body().getSnapshot();
+            nodeSnapshots.put(snapshot.getNode(), snapshot);
+            expectedNodeCount.ifPresent(count -> {
+                if (nodeSnapshots.size() >= count && vertx.cancelTimer(timerId)) {
+                    consumer.unregister();
+                    future.complete(new ClusterMetrics(nodeSnapshots));
+                }
+            });
+        });
+        // in a clustered event bus, the consumer registration propagates asynchronously - replies that arrive before then would be dropped
+        consumer.completionHandler(result -> {
+            if (result.succeeded()) {
+                producer.publish(request, withReplyToAddress(new DeliveryOptions(), replyTo));
+            } else if (vertx.cancelTimer(timerId)) {
+                log.logp(WARNING, CLASS_NAME, "getClusterMetrics", "failed to register the reply consumer", result.cause());
+                future.complete(new ClusterMetrics(nodeSnapshots));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cluster wide metrics, where histograms are merged bucket by bucket.
+     */
+    public static final class ClusterMetrics {
+
+        /**
+         * JVM ID -> node snapshot
+         */
+        @Getter
+        private final ImmutableMap<String, MetricsSnapshot> nodeSnapshots;
+
+        /**
+         * All node snapshots merged, with node = {@link ClusterMetricsAggregator#CLUSTER_NODE}
+         */
+        @Getter
+        private final MetricsSnapshot clusterSnapshot;
+
+        public ClusterMetrics(@NonNull final Map<String, MetricsSnapshot> nodeSnapshots) {
+            this.nodeSnapshots = ImmutableMap.copyOf(nodeSnapshots);
+            this.clusterSnapshot = MetricsSnapshots.merge(CLUSTER_NODE, this.nodeSnapshots.values());
+        }
+
+    }
+
+}
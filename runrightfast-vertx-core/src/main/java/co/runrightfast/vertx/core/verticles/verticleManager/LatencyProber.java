@@ -0,0 +1,299 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.verticles.verticleManager;
+
+import co.runrightfast.core.utils.JvmProcess;
+import static co.runrightfast.core.utils.UUIDUtils.uuid;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.counterName;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.histogramName;
+import static co.runrightfast.vertx.core.eventbus.EventBusAddress.runrightfastEventBusAddress;
+import static co.runrightfast.vertx.core.eventbus.EventBusAddress.toProcessSpecificEventBusAddress;
+import static co.runrightfast.vertx.core.eventbus.EventBusUtils.deliveryOptions;
+import static co.runrightfast.vertx.core.eventbus.EventBusUtils.withReplyToAddress;
+import co.runrightfast.vertx.core.eventbus.MessageHeader;
+import static co.runrightfast.vertx.core.eventbus.MessageHeader.getFromJvm;
+import co.runrightfast.vertx.core.metrics.HistogramBuckets;
+import co.runrightfast.vertx.core.metrics.MetricTags;
+import co.runrightfast.vertx.core.verticles.messages.Ping;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.LatencyLink;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableSet;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.INFO;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.NonNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Probes the round trip times from this node to every known node in the cluster, i.e., this node's row in the node-to-node latency matrix:
+ *
+ * <ol>
+ * <li>nodes are discovered by publishing a {@link Ping} request to the verticle manager's Ping address, using the {@link MessageHeader#REPLY_TO_ADDRESS}
+ * header. Each node's reply identifies the node via the {@link MessageHeader#FROM_JVM} header.
+ * <li>each known node is pinged through its process specific Ping address. The Ping consumer runs on the worker pool, thus the round trip time reflects both
+ * the network link and how busy the target node is.
+ * <li>round trip times are recorded per node over a sliding time window. A link is flagged as degraded if its median round trip time exceeds the threshold,
+ * or if consecutive pings failed.
+ * </ol>
+ *
+ * Nodes that have not replied to discovery pings within the node expiry are dropped.
+ *
+ * Metrics are tagged with the target node - see {@link MetricTags#withNode(String)}.
+ *
+ * The prober must be started and stopped from the verticle's context, i.e., probes and replies are processed on the verticle's event loop.
+ *
+ * @author alfio
+ */
+public final class LatencyProber {
+
+    private static final String CLASS_NAME = LatencyProber.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    // round trip times are recorded in nanoseconds
+    public static final String LATENCY_PROBE_RTT = histogramName("latency-probe", "rtt");
+    public static final String LATENCY_PROBE_FAILURE = counterName("latency-probe", "failure");
+    public static final String LATENCY_PROBE_DEGRADED = gaugeName("latency-probe", "degraded");
+
+    private final Vertx vertx;
+
+    private final MetricRegistry metricRegistry;
+
+    @Getter
+    private final LatencyProberConfig config;
+
+    private final String pingAddress;
+
+    private final String discoveryReplyToAddress = runrightfastEventBusAddress("latency-prober", uuid());
+
+    private final Map<String, Link> links = new ConcurrentHashMap<>();
+
+    private Optional<MessageConsumer<Object>> discoveryConsumer = Optional.empty();
+
+    private long probeTimerId = -1;
+
+    private long lastDiscoveryTime;
+
+    /**
+     *
+     * @param vertx Vertx
+     * @param metricRegistry used to register the per node metrics
+     * @param pingAddress the cluster wide Ping address, i.e., not process specific
+     * @param config config
+     */
+    public LatencyProber(@NonNull final Vertx vertx, @NonNull final MetricRegistry metricRegistry, final String pingAddress, @NonNull final LatencyProberConfig config) {
+        checkArgument(isNotBlank(pingAddress));
+        this.vertx = vertx;
+        this.metricRegistry = metricRegistry;
+        this.pingAddress = pingAddress;
+        this.config = config;
+    }
+
+    /**
+     * Nodes are first discovered on the first probe, i.e., after the verticle has registered its own Ping consumer.
+     */
+    public void start() {
+        discoveryConsumer = Optional.of(vertx.eventBus().consumer(discoveryReplyToAddress, this::handleDiscoveryReply));
+        probeTimerId = vertx.setPeriodic(config.getProbeInterval().toMillis(), id -> probe());
+        log.logp(INFO, CLASS_NAME, "start", "{0}", config);
+    }
+
+    public void stop() {
+        if (probeTimerId != -1) {
+            vertx.cancelTimer(probeTimerId);
+            probeTimerId = -1;
+        }
+        discoveryConsumer.ifPresent(MessageConsumer::unregister);
+        discoveryConsumer = Optional.empty();
+        links.values().forEach(Link::unregisterMetrics);
+        links.clear();
+    }
+
+    /**
+     *
+     * @return the links from this node to all known nodes, sorted by target node
+     */
+    public List<LatencyLink> getLatencyLinks() {
+        return links.values().stream()
+                .sorted(Comparator.comparing(link -> link.node))
+                .map(Link::toLatencyLink)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A node is considered degraded if the majority of the links to it are degraded, i.e., the node is slow or unreachable from most nodes.
+     *
+     * @param links the links collected from all nodes, i.e., the full latency matrix
+     * @return the degraded nodes
+     */
+    public static Set<String> degradedNodes(@NonNull final Collection<LatencyLink> links) {
+        final Map<String, List<LatencyLink>> linksByTargetNode = links.stream().collect(Collectors.groupingBy(LatencyLink::getTargetNode));
+        return linksByTargetNode.entrySet().stream()
+                .filter(entry -> entry.getValue().stream().filter(LatencyLink::getDegraded).count() * 2 > entry.getValue().size())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.collectingAndThen(Collectors.toSet(), ImmutableSet::copyOf));
+    }
+
+    private void handleDiscoveryReply(final Message<Object> reply) {
+        getFromJvm(reply).ifPresent(node -> links.computeIfAbsent(node, Link::new).lastDiscoveredTime = System.currentTimeMillis());
+    }
+
+    private void discover() {
+        lastDiscoveryTime = System.currentTimeMillis();
+        vertx.eventBus().publish(pingAddress, Ping.Request.getDefaultInstance(), withReplyToAddress(deliveryOptions(), discoveryReplyToAddress));
+    }
+
+    private void probe() {
+        final long now = System.currentTimeMillis();
+        if (now - lastDiscoveryTime >= config.getDiscoveryInterval().toMillis()) {
+            expireLinks(now);
+            discover();
+        }
+        links.values().forEach(this::ping);
+    }
+
+    private void expireLinks(final long now) {
+        links.values().stream()
+                .filter(link -> now - link.lastDiscoveredTime > config.getNodeExpiry().toMillis())
+                .collect(Collectors.toList())
+                .forEach(link -> {
+                    links.remove(link.node);
+                    link.unregisterMetrics();
+                    log.logp(INFO, CLASS_NAME, "expireLinks", "node = {0}", link.node);
+                });
+    }
+
+    private void ping(final Link link) {
+        final long startTime = System.nanoTime();
+        link.probes++;
+        vertx.eventBus().<Ping.Response>send(
+                link.pingAddress,
+                Ping.Request.getDefaultInstance(),
+                deliveryOptions().setSendTimeout(config.getProbeTimeout().toMillis()),
+                reply -> {
+                    if (reply.succeeded()) {
+                        link.success(System.nanoTime() - startTime);
+                    } else {
+                        link.failure();
+                    }
+                }
+        );
+    }
+
+    /**
+     * Link state is only updated from the verticle's event loop, and is read by other threads.
+     */
+    private final class Link {
+
+        final String node;
+
+        final String pingAddress;
+
+        final Histogram rtt = new Histogram(new SlidingTimeWindowReservoir(config.getWindow().toMillis(), MILLISECONDS));
+
+        final Counter failureCounter;
+
+        final String rttMetricName;
+
+        final String failureMetricName;
+
+        final String degradedMetricName;
+
+        volatile long probes;
+
+        volatile long failures;
+
+        volatile int consecutiveFailures;
+
+        volatile long lastSuccessTime;
+
+        volatile long lastDiscoveredTime;
+
+        Link(final String node) {
+            this.node = node;
+            this.pingAddress = toProcessSpecificEventBusAddress(LatencyProber.this.pingAddress, node);
+            final MetricTags tags = MetricTags.NONE.withNode(node);
+            this.rttMetricName = tags.metricName(LATENCY_PROBE_RTT);
+            this.failureMetricName = tags.metricName(LATENCY_PROBE_FAILURE);
+            this.degradedMetricName = tags.metricName(LATENCY_PROBE_DEGRADED);
+            metricRegistry.register(rttMetricName, rtt);
+            this.failureCounter = metricRegistry.counter(failureMetricName);
+            metricRegistry.register(degradedMetricName, (Gauge<Boolean>) this::isDegraded);
+            log.logp(INFO, CLASS_NAME, "Link", "node = {0}", node);
+        }
+
+        void success(final long rttNanos) {
+            rtt.update(rttNanos);
+            consecutiveFailures = 0;
+            lastSuccessTime = System.currentTimeMillis();
+        }
+
+        void failure() {
+            failures++;
+            consecutiveFailures++;
+            failureCounter.inc();
+        }
+
+        boolean isDegraded() {
+            return isDegraded(rtt.getSnapshot());
+        }
+
+        boolean isDegraded(final Snapshot snapshot) {
+            return consecutiveFailures >= config.getFailureThreshold()
+                    || (snapshot.size() > 0 && snapshot.getMedian() > config.getRttThreshold().toNanos());
+        }
+
+        LatencyLink toLatencyLink() {
+            final Snapshot snapshot = rtt.getSnapshot();
+            return LatencyLink.newBuilder()
+                    .setSourceNode(JvmProcess.JVM_ID)
+                    .setTargetNode(node)
+                    .setRtt(HistogramBuckets.histogramSnapshot(LATENCY_PROBE_RTT, snapshot.size(), snapshot))
+                    .setProbes(probes)
+                    .setFailures(failures)
+                    .setConsecutiveFailures(consecutiveFailures)
+                    .setLastSuccessTime(lastSuccessTime)
+                    .setDegraded(isDegraded(snapshot))
+                    .build();
+        }
+
+        void unregisterMetrics() {
+            metricRegistry.remove(rttMetricName);
+            metricRegistry.remove(failureMetricName);
+            metricRegistry.remove(degradedMetricName);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.verticles.verticleManager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link LatencyProber} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class LatencyProberConfig {
+
+    public static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_PROBE_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_DISCOVERY_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_NODE_EXPIRY = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_RTT_THRESHOLD = Duration.ofMillis(50);
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * How often each known node is pinged
+     */
+    @Getter
+    private final Duration probeInterval;
+
+    /**
+     * Pings that are not replied to within the timeout are counted as failures
+     */
+    @Getter
+    private final Duration probeTimeout;
+
+    /**
+     * How often nodes are discovered
+     */
+    @Getter
+    private final Duration discoveryInterval;
+
+    /**
+     * Nodes that have not replied to a discovery ping within the expiry are dropped
+     */
+    @Getter
+    private final Duration nodeExpiry;
+
+    /**
+     * Round trip times are recorded over a sliding time window
+     */
+    @Getter
+    private final Duration window;
+
+    /**
+     * A link is degraded when its median round trip time exceeds the threshold
+     */
+    @Getter
+    private final Duration rttThreshold;
+
+    /**
+     * A link is degraded when the number of consecutive failed pings reaches the threshold
+     */
+    @Getter
+    private final int failureThreshold;
+
+    public LatencyProberConfig(
+            @NonNull final Duration probeInterval,
+            @NonNull final Duration probeTimeout,
+            @NonNull final Duration discoveryInterval,
+            @NonNull final Duration nodeExpiry,
+            @NonNull final Duration window,
+            @NonNull final Duration rttThreshold,
+            final int failureThreshold) {
+        checkArgument(isPositive(probeInterval), "probeInterval must be > 0");
+        checkArgument(isPositive(probeTimeout), "probeTimeout must be > 0");
+        checkArgument(isPositive(discoveryInterval), "discoveryInterval must be > 0");
+        checkArgument(nodeExpiry.compareTo(discoveryInterval) > 0, "nodeExpiry must be > discoveryInterval");
+        checkArgument(isPositive(window), "window must be > 0");
+        checkArgument(isPositive(rttThreshold), "rttThreshold must be > 0");
+        checkArgument(failureThreshold > 0, "failureThreshold must be > 0");
+        this.probeInterval = probeInterval;
+        this.probeTimeout = probeTimeout;
+        this.discoveryInterval = discoveryInterval;
+        this.nodeExpiry = nodeExpiry;
+        this.window = window;
+        this.rttThreshold = rttThreshold;
+        this.failureThreshold = failureThreshold;
+    }
+
+    private static boolean isPositive(final Duration duration) {
+        return !(duration.isNegative() || duration.isZero());
+    }
+
+}
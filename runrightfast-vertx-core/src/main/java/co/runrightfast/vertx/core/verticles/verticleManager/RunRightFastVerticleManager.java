@@ -19,19 +19,32 @@ import co.runrightfast.core.application.event.AppEvent;
 import co.runrightfast.core.application.event.AppEventLogger;
 import static co.runrightfast.core.application.event.ApplicationEvents.VERTICLE_DEPLOYMENT_FAILED;
 import static co.runrightfast.core.application.event.ApplicationEvents.VERTICLE_DEPLOYMENT_SUCCESS;
+import co.runrightfast.core.application.services.healthchecks.CachedHealthCheckResult;
 import co.runrightfast.core.application.services.healthchecks.HealthCheckConfig;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
+import static co.runrightfast.core.application.services.healthchecks.HealthChecksService.TIMED_OUT;
 import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.core.utils.JvmProcess;
 import co.runrightfast.vertx.core.RunRightFastVerticle;
 import co.runrightfast.vertx.core.RunRightFastVerticleId;
 import static co.runrightfast.vertx.core.RunRightFastVerticleId.RUNRIGHTFAST_GROUP;
 import co.runrightfast.vertx.core.eventbus.EventBusAddressMessageMapping;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig;
+import static co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.ExecutionMode.WORKER_POOL_PARALLEL;
+import co.runrightfast.vertx.core.metrics.MetricsSnapshots;
+import co.runrightfast.vertx.core.tracing.Tracer;
 import co.runrightfast.vertx.core.protobuf.MessageConversions;
 import static co.runrightfast.vertx.core.protobuf.MessageConversions.toVerticleId;
+import co.runrightfast.vertx.core.verticles.messages.Ping;
 import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetLatencyMatrix;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetMetricsSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetTraceSpans;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetVerticleDeployments;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.HealthCheckResult;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MetricsSnapshot;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.RunVerticleHealthChecks;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.health.HealthCheck;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -39,18 +52,24 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.eventbus.Message;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.java.Log;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -64,6 +83,17 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 @Log
 public final class RunRightFastVerticleManager extends RunRightFastVerticle {
 
+    /**
+     * Verticle health check results that are not older than this are served from the {@link HealthChecksService} cache
+     */
+    public static final Duration HEALTH_CHECK_MAX_STALENESS = Duration.ofSeconds(5);
+
+    /**
+     * The run verticle health checks reply is sent within this deadline. It is longer than {@link HealthCheckConfig#DEFAULT_TIMEOUT}, but shorter than the
+     * default event bus send timeout.
+     */
+    public static final Duration HEALTH_CHECKS_REPLY_TIMEOUT = Duration.ofSeconds(15);
+
     public static final RunRightFastVerticleId VERTICLE_ID = RunRightFastVerticleId.builder()
             .group(RUNRIGHTFAST_GROUP)
             .name("verticle-manager")
@@ -89,13 +119,28 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
      */
     private static final Map<String, RunRightFastVerticleDeployment> globalDeployedVerticles = new ConcurrentHashMap<>();
 
+    /**
+     * If set, then the verticle manager probes the round trip times to all known nodes in the cluster - see {@link LatencyProber}
+     */
+    @Setter
+    private Optional<LatencyProberConfig> latencyProberConfig = Optional.empty();
+
+    private Optional<LatencyProber> latencyProber = Optional.empty();
+
+    /**
+     * Verticle health checks may block, e.g., database health checks. Thus, they are run via the application's {@link HealthChecksService}, i.e., on its
+     * bounded health check thread pool, and not on the event loop nor on the vertx worker pool.
+     */
+    private final HealthChecksService healthChecksService;
+
     private static JmxReporter jmxReporterForSelf;
     private static final Lock lock = new ReentrantLock();
 
     @Inject
-    public RunRightFastVerticleManager(final AppEventLogger appEventLogger, final Set<RunRightFastVerticleDeployment> deployments) {
+    public RunRightFastVerticleManager(final AppEventLogger appEventLogger, @NonNull final HealthChecksService healthChecksService, final Set<RunRightFastVerticleDeployment> deployments) {
         super(appEventLogger);
         checkArgument(CollectionUtils.isNotEmpty(deployments));
+        this.healthChecksService = healthChecksService;
         this.deployments = ImmutableSet.copyOf(deployments);
     }
 
@@ -104,7 +149,11 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
         deployments.stream().forEach(this::deployVerticle);
         registerGetVerticleDeploymentsMessageConsumer();
         registerRunVerticleHealthChecksMessageConsumer();
+        registerGetMetricsSnapshotMessageConsumer();
+        registerGetTraceSpansMessageConsumer();
+        registerGetLatencyMatrixMessageConsumer();
         startJmxReporterForSelf();
+        startLatencyProber();
     }
 
     @Override
@@ -116,11 +165,13 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
             reporter.close();
         });
         stopJmxReporterForSelf();
+        latencyProber.ifPresent(LatencyProber::stop);
+        latencyProber = Optional.empty();
     }
 
     private void registerRunVerticleHealthChecksMessageConsumer() {
         registerMessageConsumer(MessageConsumerConfig.<RunVerticleHealthChecks.Request, RunVerticleHealthChecks.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<RunVerticleHealthChecks.Request, RunVerticleHealthChecks.Response>builder()
                         .address(eventBusAddress("run-verticle-healthchecks"))
                         .requestDefaultInstance(RunVerticleHealthChecks.Request.getDefaultInstance())
                         .responseDefaultInstance(RunVerticleHealthChecks.Response.getDefaultInstance())
@@ -130,11 +181,23 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
         );
     }
 
+    /**
+     * The matching deployments' health check results are retrieved concurrently via the {@link HealthChecksService}. Cached results that are not older than
+     * {@link #HEALTH_CHECK_MAX_STALENESS} are reused - otherwise, the health check is run. Each health check run is bounded by its
+     * {@link HealthCheckConfig#getTimeout()} - health checks that time out are reported as unhealthy with a {@link HealthChecksService#TIMED_OUT} message.
+     * Concurrent requests for the same health check share the same run.
+     *
+     * The response is sent once all of the health check results have been collected, or when the {@link #HEALTH_CHECKS_REPLY_TIMEOUT} expires, whichever
+     * comes first. Health checks that have not completed by the reply timeout, e.g., because they are still queued, are reported as
+     * {@link HealthChecksService#TIMED_OUT}.
+     *
+     * @param message request
+     */
     private void handleRunVerticleHealthChecksMessage(@NonNull final Message<RunVerticleHealthChecks.Request> message) {
-        final RunVerticleHealthChecks.Response.Builder response = RunVerticleHealthChecks.Response.newBuilder();
         final RunVerticleHealthChecks.Request request = message.body();
+        final Stream<RunRightFastVerticleDeployment> matchingDeployments;
         if (hasFilters(request)) {
-            deployments.stream()
+            matchingDeployments = deployments.stream()
                     .filter(deployment -> {
                         final RunRightFastVerticleId id = deployment.getRunRightFastVerticleId();
                         if (CollectionUtils.isEmpty(deployment.getHealthChecks())) {
@@ -143,47 +206,59 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
                         return request.getGroupsList().stream().filter(group -> group.equals(id.getGroup())).findFirst().isPresent()
                         || request.getNamesList().stream().filter(name -> name.equals(id.getName())).findFirst().isPresent()
                         || request.getVerticleIdsList().stream().filter(id::equalsVerticleId).findFirst().isPresent();
-                    })
-                    .map(this::runVerticleHealthChecks)
-                    .forEach(response::addAllResults);
+                    });
         } else {
-            deployments.stream()
-                    .map(this::runVerticleHealthChecks)
-                    .forEach(response::addAllResults);
+            matchingDeployments = deployments.stream();
         }
 
-        reply(message, response.build());
+        final CompletableFuture<HealthCheck.Result> replyTimeout = new CompletableFuture<>();
+        final List<CompletableFuture<HealthCheckResult>> results = matchingDeployments
+                .flatMap(deployment -> runVerticleHealthChecks(deployment, replyTimeout))
+                .collect(Collectors.toList());
+        final long replyTimerId = vertx.setTimer(HEALTH_CHECKS_REPLY_TIMEOUT.toMillis(), id -> replyTimeout.complete(HealthCheck.Result.unhealthy(TIMED_OUT)));
+        CompletableFuture.allOf(results.stream().toArray(CompletableFuture[]::new)).thenRun(() -> {
+            vertx.cancelTimer(replyTimerId);
+            final RunVerticleHealthChecks.Response.Builder response = RunVerticleHealthChecks.Response.newBuilder();
+            results.stream().map(CompletableFuture::join).forEach(response::addResults);
+            context.runOnContext(v -> reply(message, response.build()));
+        });
     }
 
-    private List<HealthCheckResult> runVerticleHealthChecks(final RunRightFastVerticleDeployment deployment) {
+    private Stream<CompletableFuture<HealthCheckResult>> runVerticleHealthChecks(final RunRightFastVerticleDeployment deployment, final CompletableFuture<HealthCheck.Result> replyTimeout) {
         final VerticleId verticleId = toVerticleId(deployment.getRunRightFastVerticleId());
-        final Set<RunRightFastHealthCheck> healthChecks = deployment.getHealthChecks();
-        return healthChecks.stream().map(healthCheck -> {
-            final HealthCheckResult.Builder result = HealthCheckResult.newBuilder();
-            final HealthCheckConfig config = healthCheck.getConfig();
-            HealthCheck.Result healthCheckResult;
-            try {
-                healthCheckResult = healthCheck.getHealthCheck().execute();
-            } catch (final Exception e) {
-                healthCheckResult = HealthCheck.Result.unhealthy(e);
-            }
-            result.setHealthCheckName(config.getName());
-            result.setHealthy(healthCheckResult.isHealthy());
-            if (StringUtils.isNotBlank(healthCheckResult.getMessage())) {
-                result.setMessage(healthCheckResult.getMessage());
-            }
-            if (healthCheckResult.getError() != null) {
-                result.setExceptionStacktrace(ExceptionUtils.getStackTrace(healthCheckResult.getError()));
-            }
-            result.setVerticleId(verticleId);
-            return result.build();
+        final String healthCheckRegistryName = deployment.getRunRightFastVerticleId().toString();
+        return deployment.getHealthChecks().stream()
+                .map(healthCheck -> getHealthCheckResult(healthCheckRegistryName, healthCheck).applyToEither(replyTimeout, healthCheckResult -> {
+                    final HealthCheckResult.Builder result = HealthCheckResult.newBuilder();
+                    result.setHealthCheckName(healthCheck.getConfig().getName());
+                    result.setHealthy(healthCheckResult.isHealthy());
+                    if (StringUtils.isNotBlank(healthCheckResult.getMessage())) {
+                        result.setMessage(healthCheckResult.getMessage());
+                    }
+                    if (healthCheckResult.getError() != null) {
+                        result.setExceptionStacktrace(ExceptionUtils.getStackTrace(healthCheckResult.getError()));
+                    }
+                    result.setVerticleId(verticleId);
+                    return result.build();
+                }));
+    }
 
-        }).collect(Collectors.toList());
+    /**
+     * The verticle's health checks are registered in the verticle's {@link RunRightFastVerticle#getHealthCheckRegistry()}, which is named after the verticle
+     * id. If the health check is not registered, e.g., because the verticle has not started yet, then the result is unhealthy.
+     */
+    private CompletableFuture<HealthCheck.Result> getHealthCheckResult(final String healthCheckRegistryName, final RunRightFastHealthCheck healthCheck) {
+        try {
+            return healthChecksService.getHealthCheckResult(healthCheckRegistryName, healthCheck.getConfig().getName(), HEALTH_CHECK_MAX_STALENESS)
+                    .thenApply(CachedHealthCheckResult::getResult);
+        } catch (final IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(HealthCheck.Result.unhealthy(e));
+        }
     }
 
     private void registerGetVerticleDeploymentsMessageConsumer() {
         registerMessageConsumer(MessageConsumerConfig.<GetVerticleDeployments.Request, GetVerticleDeployments.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetVerticleDeployments.Request, GetVerticleDeployments.Response>builder()
                         .address(eventBusAddress("get-verticle-deployments"))
                         .requestDefaultInstance(GetVerticleDeployments.Request.getDefaultInstance())
                         .responseDefaultInstance(GetVerticleDeployments.Response.getDefaultInstance())
@@ -216,6 +291,108 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
         reply(message, response.build());
     }
 
+    private void registerGetMetricsSnapshotMessageConsumer() {
+        registerMessageConsumer(MessageConsumerConfig.<GetMetricsSnapshot.Request, GetMetricsSnapshot.Response>builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetMetricsSnapshot.Request, GetMetricsSnapshot.Response>builder()
+                        .address(eventBusAddress("get-metrics-snapshot"))
+                        .requestDefaultInstance(GetMetricsSnapshot.Request.getDefaultInstance())
+                        .responseDefaultInstance(GetMetricsSnapshot.Response.getDefaultInstance())
+                        .build()
+                ).handler(this::handleGetMetricsSnapshotMessage)
+                .executionMode(WORKER_POOL_PARALLEL)
+                .build()
+        );
+    }
+
+    /**
+     * The snapshot includes the metrics for the verticle manager itself, along with its managed verticles. Verticle instances of the same deployment share the
+     * same metric registry, thus each deployment is reported once.
+     *
+     * @param message request
+     */
+    private void handleGetMetricsSnapshotMessage(@NonNull final Message<GetMetricsSnapshot.Request> message) {
+        final GetMetricsSnapshot.Request request = message.body();
+        final List<String> metricNamePrefixes = request.getMetricNamePrefixesList();
+        final MetricsSnapshot.Builder snapshot = MetricsSnapshot.newBuilder()
+                .setNode(JvmProcess.JVM_ID)
+                .setTimestamp(Instant.now().toEpochMilli());
+
+        if (!hasFilters(request) || matches(request, runRightFastVerticleId)) {
+            snapshot.addVerticleMetrics(MetricsSnapshots.verticleMetrics(toVerticleId(runRightFastVerticleId), metricRegistry, metricNamePrefixes));
+        }
+        deployments.stream()
+                .filter(deployment -> !hasFilters(request) || matches(request, deployment.getRunRightFastVerticleId()))
+                .map(deployment -> MetricsSnapshots.verticleMetrics(toVerticleId(deployment.getRunRightFastVerticleId()), deployment.getMetricRegistry(), metricNamePrefixes))
+                .forEach(snapshot::addVerticleMetrics);
+
+        reply(message, GetMetricsSnapshot.Response.newBuilder().setSnapshot(snapshot).build());
+    }
+
+    private boolean matches(final GetMetricsSnapshot.Request request, final RunRightFastVerticleId id) {
+        return request.getGroupsList().stream().filter(group -> group.equals(id.getGroup())).findFirst().isPresent()
+                || request.getNamesList().stream().filter(name -> name.equals(id.getName())).findFirst().isPresent()
+                || request.getVerticleIdsList().stream().filter(id::equalsVerticleId).findFirst().isPresent();
+    }
+
+    private void registerGetTraceSpansMessageConsumer() {
+        registerMessageConsumer(MessageConsumerConfig.<GetTraceSpans.Request, GetTraceSpans.Response>builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetTraceSpans.Request, GetTraceSpans.Response>builder()
+                        .address(eventBusAddress("get-trace-spans"))
+                        .requestDefaultInstance(GetTraceSpans.Request.getDefaultInstance())
+                        .responseDefaultInstance(GetTraceSpans.Response.getDefaultInstance())
+                        .build()
+                ).handler(this::handleGetTraceSpansMessage)
+                .executionMode(WORKER_POOL_PARALLEL)
+                .build()
+        );
+    }
+
+    /**
+     * Returns the spans that were recorded JVM wide by the {@link Tracer}, most recent first.
+     *
+     * @param message request
+     */
+    private void handleGetTraceSpansMessage(@NonNull final Message<GetTraceSpans.Request> message) {
+        final GetTraceSpans.Request request = message.body();
+        final Set<String> traceIds = ImmutableSet.copyOf(request.getTraceIdsList());
+        final Predicate<TraceSpan> filter = traceIds.isEmpty() ? span -> true : span -> traceIds.contains(span.getTraceId());
+        final int maxSpans = request.getMaxSpans() > 0 ? request.getMaxSpans() : Integer.MAX_VALUE;
+        reply(message, GetTraceSpans.Response.newBuilder()
+                .setNode(JvmProcess.JVM_ID)
+                .addAllSpans(Tracer.tracer().getSpans().getSpans(filter, maxSpans))
+                .build()
+        );
+    }
+
+    private void registerGetLatencyMatrixMessageConsumer() {
+        registerMessageConsumer(MessageConsumerConfig.<GetLatencyMatrix.Request, GetLatencyMatrix.Response>builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetLatencyMatrix.Request, GetLatencyMatrix.Response>builder()
+                        .address(eventBusAddress("get-latency-matrix"))
+                        .requestDefaultInstance(GetLatencyMatrix.Request.getDefaultInstance())
+                        .responseDefaultInstance(GetLatencyMatrix.Response.getDefaultInstance())
+                        .build()
+                ).handler(this::handleGetLatencyMatrixMessage)
+                .executionMode(WORKER_POOL_PARALLEL)
+                .build()
+        );
+    }
+
+    /**
+     * Returns the links from this node to all known nodes. If the latency prober is not enabled, then no links are returned.
+     *
+     * @param message request
+     */
+    private void handleGetLatencyMatrixMessage(@NonNull final Message<GetLatencyMatrix.Request> message) {
+        final GetLatencyMatrix.Response.Builder response = GetLatencyMatrix.Response.newBuilder().setNode(JvmProcess.JVM_ID);
+        latencyProber.ifPresent(prober -> response.addAllLinks(prober.getLatencyLinks()));
+        reply(message, response.build());
+    }
+
+    private void startLatencyProber() {
+        latencyProber = latencyProberConfig.map(config -> new LatencyProber(vertx, metricRegistry, eventBusAddress(Ping.class), config));
+        latencyProber.ifPresent(LatencyProber::start);
+    }
+
     private Set<String> getDeploymentIds(final RunRightFastVerticleDeployment deployment) {
         return deployedVerticles.entrySet().stream()
                 .filter(entry -> entry.getValue().equals(deployment))
@@ -231,6 +408,10 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
         return request.getVerticleIdsCount() > 0 || request.getGroupsCount() > 0 || request.getNamesCount() > 0;
     }
 
+    private boolean hasFilters(@NonNull final GetMetricsSnapshot.Request request) {
+        return request.getVerticleIdsCount() > 0 || request.getGroupsCount() > 0 || request.getNamesCount() > 0;
+    }
+
     /**
      * The verticle is deployed asynchronously
      *
@@ -258,6 +439,7 @@ public final class RunRightFastVerticleManager extends RunRightFastVerticle {
 
     private void deployVerticleInstance(@NonNull final RunRightFastVerticleDeployment deployment, @NonNull final RunRightFastVerticle verticle, final DeploymentOptions deploymentOptions) {
         verticle.setParentVerticleInstanceId(Optional.of(this.verticleInstanceId));
+        verticle.setHealthChecksService(healthChecksService);
         vertx.deployVerticle(verticle, deploymentOptions, result -> {
             if (result.succeeded()) {
                 this.deployedVerticles = ImmutableMap.<String, RunRightFastVerticleDeployment>builder()
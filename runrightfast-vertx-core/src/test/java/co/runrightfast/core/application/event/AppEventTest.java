@@ -0,0 +1,118 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import co.runrightfast.core.application.event.ApplicationEvents.HealthCheckResult;
+import co.runrightfast.core.utils.JsonUtils;
+import co.runrightfast.core.utils.StreamingJsonRenderer;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import com.codahale.metrics.health.HealthCheck;
+import javax.json.Json;
+import javax.json.JsonObject;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class AppEventTest {
+
+    @Test
+    public void test_writeEventInfo_minimal() {
+        assertEventInfo(AppEvent.info("test_writeEventInfo_minimal").build());
+    }
+
+    @Test
+    public void test_writeEventInfo() {
+        final AppEvent event = AppEvent.error("test_writeEventInfo")
+                .setMessage("message with \"quotes\"\nand new lines")
+                .setException(new RuntimeException("test", new IllegalStateException("root cause")))
+                .setTags("a", "b", "c")
+                .setData(new HealthCheckResult(HealthCheck.Result.unhealthy("test")))
+                .setVerticleId(RunRightFastVerticleId.builder().group("co.runrightfast").name("test").version("1.0.0").build())
+                .build();
+        assertEventInfo(event);
+    }
+
+    @Test
+    public void test_writeJsonValue() {
+        final JsonObject json = Json.createObjectBuilder()
+                .add("string", "a")
+                .add("int", 1)
+                .add("long", Long.MAX_VALUE)
+                .add("double", 1.5)
+                .add("true", true)
+                .add("false", false)
+                .addNull("null")
+                .add("array", Json.createArrayBuilder().add(1).add("b").add(Json.createObjectBuilder().add("c", "d")))
+                .build();
+
+        final String rendered = StreamingJsonRenderer.render(generator -> StreamingJsonRenderer.writeJsonValue(generator, json));
+        assertThat(JsonUtils.parse(rendered), is(json));
+    }
+
+    @Test
+    public void test_nestedRender() {
+        final String rendered = StreamingJsonRenderer.render(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("nested", StreamingJsonRenderer.render(nested -> nested.writeString("value")));
+            generator.writeEndObject();
+        });
+        assertThat(rendered, is("{\"nested\":\"\\\"value\\\"\"}"));
+
+        // the per-thread buffer is reset after each rendering
+        assertThat(StreamingJsonRenderer.render(generator -> generator.writeNumber(1)), is("1"));
+    }
+
+    private void assertEventInfo(final AppEvent event) {
+        final JsonObject eventInfo = JsonUtils.parse(StreamingJsonRenderer.render(json -> {
+            json.writeStartObject();
+            event.writeEventInfo(json);
+            json.writeEndObject();
+        }));
+        log.info(eventInfo.toString());
+        assertThat(eventInfo.getString("event"), is(event.getEvent()));
+        assertThat(eventInfo.getInt("level"), is(event.getEventLevel().id));
+        assertThat(eventInfo.getString("timestamp"), is(event.getTimestamp()));
+        assertThat(eventInfo.containsKey("msg"), is(event.getMessage() != null));
+        if (event.getMessage() != null) {
+            assertThat(eventInfo.getString("msg"), is(event.getMessage()));
+        }
+        assertThat(eventInfo.containsKey("exception"), is(event.getException() != null));
+        if (event.getException() != null) {
+            final JsonObject exception = eventInfo.getJsonObject("exception");
+            assertThat(exception.getString("class"), is(event.getException().getClass().getName()));
+            assertThat(exception.getString("fingerprint"), is(event.getExceptionOccurrence().get().getFingerprint()));
+        }
+        assertThat(eventInfo.containsKey("tags"), is(!event.getTags().isEmpty()));
+        if (!event.getTags().isEmpty()) {
+            assertThat(eventInfo.getJsonArray("tags"), is(JsonUtils.toJsonArray(event.getTags())));
+        }
+        assertThat(eventInfo.containsKey("data"), is(event.getData() != null));
+        if (event.getData() != null) {
+            assertThat(eventInfo.getJsonObject("data").getJsonObject(event.getData().getType()), is(event.getData().toJson()));
+        }
+        assertThat(eventInfo.containsKey("verticleId"), is(event.getVerticleId() != null));
+        if (event.getVerticleId() != null) {
+            assertThat(eventInfo.getJsonObject("verticleId"), is(event.getVerticleId().toJson()));
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import co.runrightfast.core.application.event.ExceptionFingerprints.Occurrence;
+import java.time.Duration;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class ExceptionFingerprintsTest {
+
+    @Test
+    public void test_stackTraceIsLoggedOncePerWindow() {
+        final ExceptionFingerprints fingerprints = new ExceptionFingerprints(1, Duration.ofMinutes(1));
+
+        final String fingerprint = fingerprints.fingerprint(newException("test"));
+        for (int i = 0; i <= 5; i++) {
+            // the message is not part of the fingerprint
+            final Occurrence occurrence = fingerprints.record(newException("occurrence #" + i));
+            assertThat(occurrence.isLogStackTrace(), is(i == 0));
+            assertThat(occurrence.getSeen(), is((long) i));
+            assertThat(occurrence.getFingerprint(), is(fingerprint));
+        }
+
+        assertThat(fingerprints.getFingerprintCount(), is(1));
+        assertThat(fingerprints.getSuppressedStackTraceCount(), is(5L));
+    }
+
+    @Test
+    public void test_differentStackTraces() {
+        final ExceptionFingerprints fingerprints = new ExceptionFingerprints(ExceptionFingerprints.DEFAULT_STACK_FRAMES, Duration.ofMinutes(1));
+
+        final Occurrence occurrence1 = fingerprints.record(newException("test"));
+        final Occurrence occurrence2 = fingerprints.record(new IllegalStateException("test"));
+        final Occurrence occurrence3 = fingerprints.record(new IllegalArgumentException("test", new IllegalStateException()));
+
+        assertThat(occurrence1.isLogStackTrace(), is(true));
+        assertThat(occurrence2.isLogStackTrace(), is(true));
+        assertThat(occurrence3.isLogStackTrace(), is(true));
+        assertThat(occurrence1.getFingerprint(), is(not(occurrence2.getFingerprint())));
+        assertThat(occurrence2.getFingerprint(), is(not(occurrence3.getFingerprint())));
+        assertThat(fingerprints.getFingerprintCount(), is(3));
+    }
+
+    @Test
+    public void test_windowExpires() throws InterruptedException {
+        final ExceptionFingerprints fingerprints = new ExceptionFingerprints(1, Duration.ofMillis(50));
+
+        assertThat(fingerprints.record(newException("test")).isLogStackTrace(), is(true));
+        assertThat(fingerprints.record(newException("test")).isLogStackTrace(), is(false));
+        assertThat(fingerprints.record(newException("test")).isLogStackTrace(), is(false));
+
+        Thread.sleep(100);
+        final Occurrence occurrence = fingerprints.record(newException("test"));
+        assertThat(occurrence.isLogStackTrace(), is(true));
+        // the number of occurrences since the stack trace was last logged
+        assertThat(occurrence.getSeen(), is(2L));
+    }
+
+    @Test
+    public void test_fingerprintsAreBounded() {
+        final ExceptionFingerprints fingerprints = new ExceptionFingerprints(1, Duration.ofMinutes(1));
+
+        for (int i = 0; i < ExceptionFingerprints.MAX_FINGERPRINTS * 2; i++) {
+            final RuntimeException exception = newException("test");
+            exception.setStackTrace(new StackTraceElement[]{new StackTraceElement("Test", "test", "Test.java", i)});
+            fingerprints.record(exception);
+        }
+
+        assertThat(fingerprints.getFingerprintCount() <= ExceptionFingerprints.MAX_FINGERPRINTS, is(true));
+        assertThat(fingerprints.getSuppressedStackTraceCount(), is(0L));
+    }
+
+    /**
+     * When the fingerprint only includes the top stack frame, then all exceptions created here share the same fingerprint
+     */
+    private RuntimeException newException(final String message) {
+        return new RuntimeException(message);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event;
+
+import static co.runrightfast.core.application.event.ApplicationEvents.APP_EVENTS_SUPPRESSED;
+import co.runrightfast.core.application.event.impl.RateLimitedAppEventLogger;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class LogRateLimiterTest {
+
+    @Test
+    public void test_burstThenSuppress() throws InterruptedException {
+        final LogRateLimiter rateLimiter = new LogRateLimiter("test", LogRateLimiterConfig.builder()
+                .permitsPerSecond(10)
+                .burst(5)
+                .sampleRate(1)
+                .build()
+        );
+
+        final long permitted = IntStream.range(0, 100).filter(i -> rateLimiter.tryAcquire("a") != LogRateLimiter.SUPPRESSED).count();
+        assertThat(permitted, is(5L));
+        assertThat(rateLimiter.getSuppressedCount(), is(95L));
+
+        // keys are rate limited independently
+        assertThat(rateLimiter.tryAcquire("b"), is(0L));
+
+        // the token bucket is refilled at 10 permits per second
+        Thread.sleep(150);
+        assertThat(rateLimiter.tryAcquire("a"), is(95L));
+        assertThat(rateLimiter.tryAcquire("a"), is(LogRateLimiter.SUPPRESSED));
+    }
+
+    @Test
+    public void test_sampling() {
+        final LogRateLimiter rateLimiter = new LogRateLimiter("test", LogRateLimiterConfig.builder()
+                .permitsPerSecond(1_000_000)
+                .burst(100_000)
+                .sampleRate(10)
+                .build()
+        );
+
+        final long permitted = IntStream.range(0, 10_000).filter(i -> rateLimiter.tryAcquire("a") != LogRateLimiter.SUPPRESSED).count();
+        log.info(String.format("permitted = %d", permitted));
+        assertThat(permitted > 500 && permitted < 1500, is(true));
+    }
+
+    @Test
+    public void test_unlimited() {
+        final LogRateLimiter rateLimiter = LogRateLimiter.unlimited();
+        IntStream.range(0, 1000).forEach(i -> assertThat(rateLimiter.tryAcquire("a"), is(0L)));
+        assertThat(rateLimiter.getSuppressedCount(), is(0L));
+    }
+
+    @Test
+    public void test_RateLimitedAppEventLogger() throws InterruptedException {
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+        final AppEventLogger appEventLogger = new RateLimitedAppEventLogger(events::add, new LogRateLimiter("test", LogRateLimiterConfig.builder()
+                .permitsPerSecond(10)
+                .burst(1)
+                .sampleRate(1)
+                .build()
+        ));
+
+        IntStream.range(0, 10).forEach(i -> appEventLogger.accept(AppEvent.info("test_RateLimitedAppEventLogger").build()));
+        // WARN, ERROR, and ALERT events are never suppressed
+        IntStream.range(0, 10).forEach(i -> appEventLogger.accept(AppEvent.alert("test_RateLimitedAppEventLogger").build()));
+        assertThat(events.size(), is(11));
+
+        Thread.sleep(150);
+        appEventLogger.accept(AppEvent.info("test_RateLimitedAppEventLogger").build());
+        assertThat(events.size(), is(13));
+        assertThat(events.get(11).getEvent(), is(APP_EVENTS_SUPPRESSED));
+        assertThat(events.get(12).getEvent(), is("test_RateLimitedAppEventLogger"));
+    }
+
+    @Test
+    public void test_RateLimitedAppEventLogger_reportsPendingSuppressedEventsOnClose() throws Exception {
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+        final RateLimitedAppEventLogger appEventLogger = new RateLimitedAppEventLogger(events::add, new LogRateLimiter("test", LogRateLimiterConfig.builder()
+                .permitsPerSecond(1)
+                .burst(1)
+                .sampleRate(1)
+                .build()
+        ));
+
+        IntStream.range(0, 10).forEach(i -> appEventLogger.accept(AppEvent.info("test_RateLimitedAppEventLogger").build()));
+        assertThat(events.size(), is(1));
+
+        appEventLogger.close();
+        assertThat(events.size(), is(2));
+        assertThat(events.get(1).getEvent(), is(APP_EVENTS_SUPPRESSED));
+        assertThat(events.get(1).getData().toJson().getJsonNumber("suppressed").longValue(), is(9L));
+
+        // the pending counts are reported only once
+        appEventLogger.flushSuppressed();
+        assertThat(events.size(), is(2));
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.application.event.AppEvent;
+import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.INFO;
+import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.WARN;
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.impl.AsyncAppEventLoggerConfig.FullBufferPolicy;
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class AsyncAppEventLoggerTest {
+
+    @Test
+    public void test_allEventsAreLogged() throws Exception {
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+        final AsyncAppEventLogger appEventLogger = new AsyncAppEventLogger(events::add, AsyncAppEventLoggerConfig.builder()
+                .bufferSize(64)
+                .batchSize(8)
+                .fullBufferPolicy(FullBufferPolicy.BLOCK)
+                .sampleRate(AsyncAppEventLoggerConfig.DEFAULT_SAMPLE_RATE)
+                .droppedEventsLogInterval(Duration.ofSeconds(1))
+                .build()
+        );
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        IntStream.range(0, 4).forEach(i -> executor.submit(() -> {
+            IntStream.range(0, 1000).forEach(j -> appEventLogger.accept(AppEvent.info("test_allEventsAreLogged").build()));
+        }));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+
+        appEventLogger.close();
+        assertThat(events.size(), is(4000));
+        assertThat(appEventLogger.getDroppedEventCount(), is(0L));
+        assertThat(appEventLogger.getBufferedEventCount(), is(0));
+    }
+
+    @Test
+    public void test_dropInfoEventsWhenBufferIsFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+        final AppEventLogger blockingLogger = event -> {
+            try {
+                latch.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        };
+        final AsyncAppEventLogger appEventLogger = new AsyncAppEventLogger(blockingLogger, AsyncAppEventLoggerConfig.builder()
+                .bufferSize(16)
+                .batchSize(4)
+                .fullBufferPolicy(FullBufferPolicy.DROP_INFO)
+                .sampleRate(AsyncAppEventLoggerConfig.DEFAULT_SAMPLE_RATE)
+                .droppedEventsLogInterval(Duration.ofSeconds(1))
+                .build()
+        );
+        assertThat(appEventLogger.getCapacity(), is(16));
+
+        IntStream.range(0, 100).forEach(i -> appEventLogger.accept(AppEvent.info("test_dropInfoEventsWhenBufferIsFull").build()));
+        appEventLogger.accept(AppEvent.warn("test_dropInfoEventsWhenBufferIsFull").build());
+        appEventLogger.accept(AppEvent.warn("test_dropInfoEventsWhenBufferIsFull").build());
+
+        latch.countDown();
+        appEventLogger.close();
+
+        final long infoEventCount = events.stream().filter(event -> event.getEventLevel() == INFO).count();
+        final long warnEventCount = events.stream().filter(event -> event.getEventLevel() == WARN).count();
+        log.info(String.format("info events logged = %d, dropped = %d", infoEventCount, appEventLogger.getDroppedEventCount(INFO)));
+        assertThat(warnEventCount, is(2L));
+        assertThat(appEventLogger.getDroppedEventCount(WARN), is(0L));
+        assertThat(infoEventCount + appEventLogger.getDroppedEventCount(INFO), is(100L));
+        assertThat(appEventLogger.getDroppedEventCount(INFO) > 0, is(true));
+    }
+
+    @Test
+    public void test_eventsAreLoggedSynchronouslyAfterClose() throws Exception {
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+        final AsyncAppEventLogger appEventLogger = new AsyncAppEventLogger(events::add, AsyncAppEventLoggerConfig.defaultConfig());
+        appEventLogger.close();
+
+        appEventLogger.accept(AppEvent.info("test_eventsAreLoggedSynchronouslyAfterClose").build());
+        assertThat(events.size(), is(1));
+    }
+
+    private static final class BatchingAppEventLogger implements AppEventLogger, AutoCloseable {
+
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        final List<AppEvent> events = new CopyOnWriteArrayList<>();
+
+        volatile boolean closed;
+
+        @Override
+        public void accept(final AppEvent event) {
+            acceptBatch(ImmutableList.of(event));
+        }
+
+        @Override
+        public void acceptBatch(final List<AppEvent> batch) {
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void test_eventsAreLoggedInBatchesAndDelegateIsClosed() throws Exception {
+        final BatchingAppEventLogger delegate = new BatchingAppEventLogger();
+        final AsyncAppEventLogger appEventLogger = new AsyncAppEventLogger(delegate, AsyncAppEventLoggerConfig.builder()
+                .bufferSize(64)
+                .batchSize(8)
+                .fullBufferPolicy(FullBufferPolicy.BLOCK)
+                .sampleRate(AsyncAppEventLoggerConfig.DEFAULT_SAMPLE_RATE)
+                .droppedEventsLogInterval(Duration.ofSeconds(1))
+                .build()
+        );
+        IntStream.range(0, 100).forEach(i -> appEventLogger.accept(AppEvent.info("test_eventsAreLoggedInBatchesAndDelegateIsClosed").build()));
+        appEventLogger.close();
+
+        assertThat(delegate.events.size(), is(100));
+        assertThat(delegate.batchSizes.stream().allMatch(size -> size > 0 && size <= 8), is(true));
+        assertThat(delegate.closed, is(true));
+    }
+
+    @Test
+    public void test_eventsAreDroppedAfterDelegateIsClosed() throws Exception {
+        final BatchingAppEventLogger delegate = new BatchingAppEventLogger();
+        final AsyncAppEventLogger appEventLogger = new AsyncAppEventLogger(delegate, AsyncAppEventLoggerConfig.defaultConfig());
+        appEventLogger.close();
+
+        appEventLogger.accept(AppEvent.info("test_eventsAreDroppedAfterDelegateIsClosed").build());
+        appEventLogger.accept(AppEvent.warn("test_eventsAreDroppedAfterDelegateIsClosed").build());
+        assertThat(delegate.events.size(), is(0));
+        assertThat(appEventLogger.getDroppedEventCount(INFO), is(1L));
+        assertThat(appEventLogger.getDroppedEventCount(WARN), is(1L));
+    }
+
+}
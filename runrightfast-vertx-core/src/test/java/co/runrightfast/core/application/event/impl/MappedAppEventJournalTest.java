@@ -0,0 +1,145 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.event.impl;
+
+import co.runrightfast.core.application.event.AppEvent;
+import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.WARN;
+import co.runrightfast.core.application.event.messages.AppEventRecord;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.json.Json;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class MappedAppEventJournalTest {
+
+    private static final RunRightFastVerticleId VERTICLE_ID = RunRightFastVerticleId.builder()
+            .group(RunRightFastVerticleId.RUNRIGHTFAST_GROUP)
+            .name("MappedAppEventJournalTest")
+            .version("1.0.0")
+            .build();
+
+    @Test
+    public void test_appendAndRead() throws IOException {
+        final Path dir = Files.createTempDirectory("MappedAppEventJournalTest");
+        try (final MappedAppEventJournal journal = new MappedAppEventJournal(config(dir, 1024 * 1024, 16))) {
+            journal.accept(AppEvent.info("test_appendAndRead").setMessage("msg").setTags("a", "b").setVerticleId(VERTICLE_ID)
+                    .setData(() -> Json.createObjectBuilder().add("x", 1).build())
+                    .build());
+            journal.accept(AppEvent.warn("test_appendAndRead").setException(new RuntimeException("BOOM")).build());
+            assertThat(journal.getRecordCount(), is(2L));
+        }
+
+        final List<AppEventRecord> records = new CopyOnWriteArrayList<>();
+        assertThat(new AppEventJournalReader(dir).read(records::add), is(2L));
+        assertThat(records.get(0).getMsg(), is("msg"));
+        assertThat(records.get(0).getTagsCount(), is(2));
+        assertThat(records.get(0).getVerticleId().getName(), is(VERTICLE_ID.getName()));
+        assertThat(records.get(0).getData(), is("{\"x\":1}"));
+        assertThat(records.get(1).getException().getClassName(), is(RuntimeException.class.getName()));
+
+        final String json = AppEventJournalReader.toJson(records.get(0));
+        log.info(json);
+        assertThat(json, containsString("\"data\":{\"" + records.get(0).getDataType() + "\":{\"x\":1}}"));
+
+        assertThat(new AppEventJournalReader(dir, AppEventJournalReader.minLevel(WARN)).read(record -> {
+        }), is(1L));
+        assertThat(new AppEventJournalReader(dir, AppEventJournalReader.verticle(VERTICLE_ID.getGroup() + ":" + VERTICLE_ID.getName())).read(record -> {
+        }), is(1L));
+    }
+
+    @Test
+    public void test_segmentRotation() throws IOException {
+        final Path dir = Files.createTempDirectory("MappedAppEventJournalTest");
+        try (final MappedAppEventJournal journal = new MappedAppEventJournal(config(dir, 1024, 3))) {
+            // records are appended in batches, i.e., segments are also rotated within a batch
+            IntStream.range(0, 100).forEach(batch -> journal.acceptBatch(IntStream.range(batch * 10, (batch + 1) * 10)
+                    .mapToObj(i -> AppEvent.info("test_segmentRotation").setMessage(Integer.toString(i)).build())
+                    .collect(Collectors.toList())
+            ));
+            assertThat(journal.getRecordCount(), is(1000L));
+            assertThat(journal.getSegmentNumber() > 3, is(true));
+        }
+
+        assertThat(MappedAppEventJournal.segmentFiles(dir).size(), is(3));
+        final List<AppEventRecord> records = new CopyOnWriteArrayList<>();
+        new AppEventJournalReader(dir).read(records::add);
+        assertThat(records.isEmpty(), is(false));
+        // the oldest segments were deleted, but the latest records are retained in order
+        assertThat(records.get(records.size() - 1).getMsg(), is("999"));
+        IntStream.range(1, records.size()).forEach(i -> {
+            assertThat(Integer.parseInt(records.get(i).getMsg()), is(Integer.parseInt(records.get(i - 1).getMsg()) + 1));
+        });
+    }
+
+    @Test
+    public void test_oldSegmentsAreDeletedOnRestart() throws IOException {
+        final Path dir = Files.createTempDirectory("MappedAppEventJournalTest");
+        for (int i = 0; i < 5; i++) {
+            try (final MappedAppEventJournal journal = new MappedAppEventJournal(config(dir, 1024, 3))) {
+                journal.accept(AppEvent.info("test_oldSegmentsAreDeletedOnRestart").setMessage(Integer.toString(i)).build());
+            }
+        }
+        assertThat(MappedAppEventJournal.segmentFiles(dir).size(), is(3));
+    }
+
+    @Test
+    public void test_follow() throws Exception {
+        final Path dir = Files.createTempDirectory("MappedAppEventJournalTest");
+        final List<AppEventRecord> records = new CopyOnWriteArrayList<>();
+        try (final MappedAppEventJournal journal = new MappedAppEventJournal(config(dir, 1024, 100))) {
+            final Thread follower = new Thread(() -> new AppEventJournalReader(dir).follow(records::add, Duration.ofMillis(10)));
+            follower.start();
+            IntStream.range(0, 100).forEach(i -> journal.accept(AppEvent.info("test_follow").setMessage(Integer.toString(i)).build()));
+
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (records.size() < 100 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            follower.interrupt();
+            follower.join();
+        }
+
+        assertThat(records.size(), is(100));
+        IntStream.range(0, records.size()).forEach(i -> assertThat(records.get(i).getMsg(), is(Integer.toString(i))));
+    }
+
+    private MappedAppEventJournalConfig config(final Path dir, final int segmentSize, final int maxSegments) {
+        return MappedAppEventJournalConfig.builder()
+                .directory(dir)
+                .segmentSize(segmentSize)
+                .maxSegments(maxSegments)
+                .flushInterval(Duration.ofMillis(100))
+                .build();
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.core.application.services.healthchecks.impl;
+
+import static co.runrightfast.core.application.services.healthchecks.HealthCheckConfig.FailureSeverity.FATAL;
+import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
+import co.runrightfast.core.application.services.healthchecks.CachedHealthCheckResult;
+import co.runrightfast.core.application.services.healthchecks.HealthCheckConfig;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksServiceConfig;
+import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheckRegistry;
+import co.runrightfast.vertx.core.VertxService;
+import co.runrightfast.vertx.core.application.ApplicationId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.timerName;
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.SharedHealthCheckRegistries;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class HealthChecksServiceImplTest {
+
+    private static final String REGISTRY = HealthChecksServiceImplTest.class.getSimpleName();
+
+    private static HealthChecksServiceImpl service;
+
+    private static HealthChecksServiceImpl backgroundRefreshService;
+
+    @BeforeClass
+    public static void setUpClass() {
+        final ApplicationId appId = ApplicationId.builder().group("co.runrightfast").name(REGISTRY).version("1.0.0").build();
+        service = new HealthChecksServiceImpl(new AppEventJDKLogger(appId), REGISTRY, HealthChecksServiceConfig.builder()
+                .threadPoolSize(4)
+                .queueSize(16)
+                .backgroundRefresh(false)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build()
+        );
+        backgroundRefreshService = new HealthChecksServiceImpl(new AppEventJDKLogger(appId), REGISTRY + "-background-refresh", HealthChecksServiceConfig.builder()
+                .threadPoolSize(4)
+                .queueSize(16)
+                .backgroundRefresh(true)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build()
+        );
+
+        final RunRightFastHealthCheckRegistry registry = RunRightFastHealthCheckRegistry.getOrCreate(REGISTRY);
+        registry.register(healthCheck("hung", Duration.ofSeconds(60), Duration.ofMillis(200), null));
+        IntStream.range(0, 3).forEach(i -> registry.register(healthCheck("slow-" + i, Duration.ofMillis(500), Duration.ofSeconds(5), null)));
+        registry.register(healthCheck("fast", Duration.ZERO, Duration.ofSeconds(5), Duration.ofMillis(500)));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        service.close();
+        backgroundRefreshService.close();
+        SharedHealthCheckRegistries.remove(REGISTRY);
+    }
+
+    private static RunRightFastHealthCheck healthCheck(final String name, final Duration checkDuration, final Duration timeout, final Duration refreshInterval) {
+        return healthCheck(REGISTRY, name, checkDuration, timeout, refreshInterval);
+    }
+
+    private static RunRightFastHealthCheck healthCheck(final String registryName, final String name, final Duration checkDuration, final Duration timeout, final Duration refreshInterval) {
+        return RunRightFastHealthCheck.builder()
+                .config(HealthCheckConfig.builder()
+                        .registryName(registryName)
+                        .name(name)
+                        .severity(FATAL)
+                        .timeout(timeout)
+                        .refreshInterval(refreshInterval)
+                        .build())
+                .healthCheck(new HealthCheck() {
+
+                    @Override
+                    protected HealthCheck.Result check() throws Exception {
+                        Thread.sleep(checkDuration.toMillis());
+                        return HealthCheck.Result.healthy();
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    public void test_timedOut() throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final HealthCheck.Result result = service.runHealthCheck(REGISTRY, "hung");
+        final long duration = System.currentTimeMillis() - start;
+        log.info(String.format("duration = %d ms, result = %s", duration, result));
+        assertThat(result.isHealthy(), is(false));
+        assertThat(result.getMessage(), is(HealthChecksService.TIMED_OUT));
+        assertThat(duration < 5000, is(true));
+
+        // the hung health check is interrupted
+        Thread.sleep(200);
+        assertThat(VertxService.metricRegistry.timer(timerName("healthcheck", REGISTRY, "hung")).getCount() > 0, is(true));
+    }
+
+    @Test
+    public void test_timeoutExcludesQueueTime() {
+        final String registryName = REGISTRY + "-queued";
+        final ApplicationId appId = ApplicationId.builder().group("co.runrightfast").name(registryName).version("1.0.0").build();
+        final HealthChecksServiceImpl singleThreadService = new HealthChecksServiceImpl(new AppEventJDKLogger(appId), registryName, HealthChecksServiceConfig.builder()
+                .threadPoolSize(1)
+                .queueSize(4)
+                .backgroundRefresh(false)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build()
+        );
+        final RunRightFastHealthCheckRegistry registry = RunRightFastHealthCheckRegistry.getOrCreate(registryName);
+        registry.register(healthCheck(registryName, "slow", Duration.ofMillis(500), Duration.ofSeconds(5), null));
+        registry.register(healthCheck(registryName, "queued", Duration.ZERO, Duration.ofMillis(300), null));
+        try {
+            final CompletableFuture<HealthCheck.Result> slowResult = singleThreadService.runHealthCheckAsync(registryName, "slow");
+            // the queued health check waits for the slow health check, which takes longer than the queued health check's timeout
+            final HealthCheck.Result queuedResult = singleThreadService.runHealthCheck(registryName, "queued");
+            assertThat(queuedResult.isHealthy(), is(true));
+            assertThat(slowResult.join().isHealthy(), is(true));
+        } finally {
+            singleThreadService.close();
+            SharedHealthCheckRegistries.remove(registryName);
+        }
+    }
+
+    @Test
+    public void test_close() {
+        final String registryName = REGISTRY + "-closed";
+        final ApplicationId appId = ApplicationId.builder().group("co.runrightfast").name(registryName).version("1.0.0").build();
+        final HealthChecksServiceImpl closedService = new HealthChecksServiceImpl(new AppEventJDKLogger(appId), registryName, HealthChecksServiceConfig.builder()
+                .threadPoolSize(1)
+                .queueSize(4)
+                .backgroundRefresh(true)
+                .maxStaleness(Duration.ofMinutes(1))
+                .build()
+        );
+        final RunRightFastHealthCheckRegistry registry = RunRightFastHealthCheckRegistry.getOrCreate(registryName);
+        registry.register(healthCheck(registryName, "hung", Duration.ofSeconds(60), Duration.ofSeconds(60), null));
+        try {
+            final CompletableFuture<HealthCheck.Result> hungResult = closedService.runHealthCheckAsync(registryName, "hung");
+            closedService.close();
+            assertThat(hungResult.join().getMessage(), is(HealthChecksServiceImpl.CLOSED));
+            assertThat(closedService.runHealthCheck(registryName, "hung").getMessage(), is(HealthChecksServiceImpl.CLOSED));
+        } finally {
+            SharedHealthCheckRegistries.remove(registryName);
+        }
+    }
+
+    @Test
+    public void test_runHealthChecksConcurrently() {
+        final long start = System.currentTimeMillis();
+        final Collection<HealthCheck.Result> results = service.runHealthChecks();
+        final long duration = System.currentTimeMillis() - start;
+        log.info(String.format("duration = %d ms", duration));
+        assertThat(results.size(), is(5));
+        assertThat(results.stream().filter(HealthCheck.Result::isHealthy).count(), is(4L));
+        // run serially, the health checks would take at least 1700 ms
+        assertThat(duration < 1500, is(true));
+
+        final HealthChecksMXBeanImpl mxbean = new HealthChecksMXBeanImpl(service, Duration.ofMinutes(1));
+        assertThat(mxbean.checkAll().length, is(5));
+    }
+
+    @Test
+    public void test_cachedResults() throws InterruptedException {
+        final CachedHealthCheckResult result = service.getHealthCheckResult(REGISTRY, "fast", Duration.ofMinutes(1)).join();
+        assertThat(result.getResult().isHealthy(), is(true));
+        Thread.sleep(10);
+
+        // served from the cache
+        final CachedHealthCheckResult cachedResult = service.getHealthCheckResult(REGISTRY, "fast", Duration.ofMinutes(1)).join();
+        assertThat(cachedResult.getTimestampMillis(), is(result.getTimestampMillis()));
+
+        // the cached result is too stale, i.e., the health check is run
+        final CachedHealthCheckResult refreshedResult = service.getHealthCheckResult(REGISTRY, "fast", Duration.ZERO).join();
+        assertThat(refreshedResult.getTimestampMillis() > result.getTimestampMillis(), is(true));
+    }
+
+    @Test
+    public void test_backgroundRefresh() throws InterruptedException {
+        final CachedHealthCheckResult result = backgroundRefreshService.getHealthCheckResult(REGISTRY, "fast", Duration.ofMinutes(1)).join();
+        log.info(String.format("result : %s", result));
+
+        // the "fast" health check's refresh interval is 500 ms
+        Thread.sleep(HealthChecksServiceImpl.REFRESH_TICK.toMillis() * 2 + 500);
+        final CachedHealthCheckResult refreshedResult = backgroundRefreshService.getHealthCheckResult(REGISTRY, "fast", Duration.ofMinutes(1)).join();
+        log.info(String.format("refreshedResult : %s", refreshedResult));
+        assertThat(refreshedResult.getTimestampMillis() > result.getTimestampMillis(), is(true));
+    }
+
+}
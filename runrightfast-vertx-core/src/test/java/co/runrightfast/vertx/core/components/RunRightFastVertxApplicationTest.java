@@ -19,6 +19,7 @@ import co.runrightfast.core.ApplicationException;
 import co.runrightfast.core.application.event.AppEventLogger;
 import static co.runrightfast.core.application.services.healthchecks.HealthCheckConfig.FailureSeverity.FATAL;
 import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.protobuf.test.RunRightFastVertxApplicationTestMessage;
 import co.runrightfast.vertx.core.RunRightFastVerticle;
 import co.runrightfast.vertx.core.RunRightFastVerticleId;
@@ -29,6 +30,7 @@ import co.runrightfast.vertx.core.application.ApplicationId;
 import co.runrightfast.vertx.core.application.RunRightFastApplication;
 import co.runrightfast.vertx.core.eventbus.EventBusAddress;
 import co.runrightfast.vertx.core.eventbus.EventBusAddressMessageMapping;
+import co.runrightfast.vertx.core.eventbus.FlowControlledProtobufMessageProducer;
 import co.runrightfast.vertx.core.eventbus.InvalidMessageException;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.ExecutionMode;
@@ -37,6 +39,7 @@ import static co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.Executio
 import static co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.ExecutionMode.WORKER_POOL_SERIAL;
 import co.runrightfast.vertx.core.eventbus.MessageConsumerConfig.Failure;
 import co.runrightfast.vertx.core.eventbus.MessageHeader;
+import co.runrightfast.vertx.core.eventbus.ProtobufMessageBatchProducer;
 import co.runrightfast.vertx.core.eventbus.ProtobufMessageCodec;
 import co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer;
 import static co.runrightfast.vertx.core.eventbus.ProtobufMessageProducer.addRunRightFastHeaders;
@@ -44,20 +47,36 @@ import co.runrightfast.vertx.core.modules.RunRightFastApplicationModule;
 import co.runrightfast.vertx.core.modules.VertxServiceModule;
 import co.runrightfast.core.utils.ConfigUtils;
 import co.runrightfast.core.utils.JsonUtils;
+import co.runrightfast.core.utils.JvmProcess;
 import co.runrightfast.core.utils.ProtobufUtils;
 import co.runrightfast.core.utils.ServiceUtils;
 import co.runrightfast.core.utils.VertxUtils;
+import co.runrightfast.vertx.core.metrics.HistogramBuckets;
+import co.runrightfast.vertx.core.metrics.MetricTags;
+import co.runrightfast.vertx.core.tracing.Tracer;
 import co.runrightfast.vertx.core.verticles.messages.Ping;
+import co.runrightfast.vertx.core.verticles.verticleManager.ClusterMetricsAggregator;
+import co.runrightfast.vertx.core.verticles.verticleManager.ClusterMetricsAggregator.ClusterMetrics;
+import co.runrightfast.vertx.core.verticles.verticleManager.LatencyProber;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleDeployment;
 import co.runrightfast.vertx.core.verticles.verticleManager.RunRightFastVerticleManager;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetLatencyMatrix;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetMetricsSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetTraceSpans;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetVerticleDeployments;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.HistogramSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.LatencyLink;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MetricsSnapshot;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.RunVerticleHealthChecks;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
 import co.runrightfast.vertx.core.verticles.verticleManager.messages.VerticleDeployment;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.VerticleMetrics;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.health.HealthCheck;
 import static com.google.common.base.Preconditions.checkState;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -72,11 +91,14 @@ import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.ReplyException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -91,6 +113,7 @@ import lombok.NonNull;
 import lombok.extern.java.Log;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import org.junit.AfterClass;
 import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
@@ -128,11 +151,26 @@ public class RunRightFastVertxApplicationTest {
             registerMessageConsumer(runRightFastVertxApplicationTestMessageMessageConsumerConfig(RunRightFastVertxApplicationTestMessage.class.getSimpleName() + "/" + WORKER_POOL_SERIAL.name(), WORKER_POOL_SERIAL));
             registerMessageConsumer(runRightFastVertxApplicationTestMessageMessageConsumerConfig(RunRightFastVertxApplicationTestMessage.class.getSimpleName() + "/" + WORKER_POOL_PARALLEL, WORKER_POOL_PARALLEL));
             registerMessageConsumer(voidMessageMessageConsumerConfig(WORKER_POOL_PARALLEL));
+            registerMessageConsumer(flowControlledMessageConsumerConfig());
+        }
+
+        private MessageConsumerConfig<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response> flowControlledMessageConsumerConfig() {
+            return MessageConsumerConfig.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
+                    .addressMessageMapping(EventBusAddressMessageMapping.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
+                            .address(eventBusAddress(RunRightFastVertxApplicationTestMessage.class.getSimpleName(), "flow-control"))
+                            .requestDefaultInstance(RunRightFastVertxApplicationTestMessage.Request.getDefaultInstance())
+                            .responseDefaultInstance(RunRightFastVertxApplicationTestMessage.Response.getDefaultInstance())
+                            .build()
+                    )
+                    .handler(this::handleRunRightFastVertxApplicationTestMessageRequest)
+                    .executionMode(WORKER_POOL_PARALLEL)
+                    .flowControlCredits(10)
+                    .build();
         }
 
         private MessageConsumerConfig<co.runrightfast.vertx.core.messages.Void, co.runrightfast.vertx.core.messages.Void> voidMessageMessageConsumerConfig(@NonNull final ExecutionMode executionMode) {
             return MessageConsumerConfig.<co.runrightfast.vertx.core.messages.Void, co.runrightfast.vertx.core.messages.Void>builder()
-                    .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                    .addressMessageMapping(EventBusAddressMessageMapping.<co.runrightfast.vertx.core.messages.Void, co.runrightfast.vertx.core.messages.Void>builder()
                             .address(eventBusAddress(co.runrightfast.vertx.core.messages.Void.class))
                             .requestDefaultInstance(co.runrightfast.vertx.core.messages.Void.getDefaultInstance())
                             .responseDefaultInstance(co.runrightfast.vertx.core.messages.Void.getDefaultInstance())
@@ -149,7 +187,7 @@ public class RunRightFastVertxApplicationTest {
                 @NonNull final ExecutionMode executionMode
         ) {
             return MessageConsumerConfig.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
-                    .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                    .addressMessageMapping(EventBusAddressMessageMapping.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
                             .address(eventBusAddress(eventBusAddress))
                             .requestDefaultInstance(RunRightFastVertxApplicationTestMessage.Request.getDefaultInstance())
                             .responseDefaultInstance(RunRightFastVertxApplicationTestMessage.Response.getDefaultInstance())
@@ -234,7 +272,7 @@ public class RunRightFastVertxApplicationTest {
 
         private MessageConsumerConfig<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response> runRightFastVertxApplicationTestMessageMessageConsumerConfig() {
             return MessageConsumerConfig.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
-                    .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                    .addressMessageMapping(EventBusAddressMessageMapping.<RunRightFastVertxApplicationTestMessage.Request, RunRightFastVertxApplicationTestMessage.Response>builder()
                             .address(eventBusAddress(RunRightFastVertxApplicationTestMessage.class.getSimpleName()))
                             .requestDefaultInstance(RunRightFastVertxApplicationTestMessage.Request.getDefaultInstance())
                             .responseDefaultInstance(RunRightFastVertxApplicationTestMessage.Response.getDefaultInstance())
@@ -273,10 +311,30 @@ public class RunRightFastVertxApplicationTest {
         @Override
         public Set<RunRightFastHealthCheck> getHealthChecks() {
             return ImmutableSet.of(
-                    healthCheck1()
+                    healthCheck1(),
+                    hungHealthCheck()
             );
         }
 
+        private RunRightFastHealthCheck hungHealthCheck() {
+            return RunRightFastHealthCheck.builder()
+                    .config(healthCheckConfigBuilder()
+                            .name("healthcheck-hung")
+                            .severity(FATAL)
+                            .timeout(Duration.ofMillis(200))
+                            .build()
+                    )
+                    .healthCheck(new HealthCheck() {
+
+                        @Override
+                        protected HealthCheck.Result check() throws Exception {
+                            Thread.sleep(Duration.ofMinutes(1).toMillis());
+                            return HealthCheck.Result.healthy();
+                        }
+                    })
+                    .build();
+        }
+
         private RunRightFastHealthCheck healthCheck1() {
             return RunRightFastHealthCheck.builder()
                     .config(healthCheckConfigBuilder()
@@ -401,10 +459,12 @@ public class RunRightFastVertxApplicationTest {
         assertThat(result.getDeploymentsCount(), is(2));
 
         final MetricRegistry metricRegistryTestVerticle1 = SharedMetricRegistries.getOrCreate(TestVerticle.VERTICLE_ID.toString());
-        assertThat(metricRegistryTestVerticle1.getCounters().get(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName).getCount(), is(1L));
+        assertThat(metricRegistryTestVerticle1.getCounters().get(RunRightFastVerticleMetrics.verticleMetricTags(TestVerticle.VERTICLE_ID)
+                .metricName(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName)).getCount(), is(1L));
 
         final MetricRegistry metricRegistryTestVerticle2 = SharedMetricRegistries.getOrCreate(TestVerticle2.VERTICLE_ID.toString());
-        assertThat(metricRegistryTestVerticle2.getCounters().get(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName).getCount(), is(5L));
+        assertThat(metricRegistryTestVerticle2.getCounters().get(RunRightFastVerticleMetrics.verticleMetricTags(TestVerticle2.VERTICLE_ID)
+                .metricName(RunRightFastVerticleMetrics.Counters.INSTANCE_STARTED.metricName)).getCount(), is(5L));
     }
 
     @Test
@@ -433,6 +493,11 @@ public class RunRightFastVertxApplicationTest {
 
         final RunVerticleHealthChecks.Response response = future.get(2000L, TimeUnit.MILLISECONDS);
         assertThat(response.getResultsCount(), is(totalHealthCheckCount));
+        // the hung health check is reported as timed out
+        assertThat(response.getResultsList().stream()
+                .filter(result -> result.getHealthCheckName().equals("healthcheck-hung"))
+                .allMatch(result -> !result.getHealthy() && result.getMessage().equals(HealthChecksService.TIMED_OUT)), is(true));
+        assertThat(response.getResultsList().stream().filter(result -> !result.getHealthy()).count() > 0, is(true));
     }
 
     @Test
@@ -444,7 +509,7 @@ public class RunRightFastVertxApplicationTest {
         final CompletableFuture future = new CompletableFuture();
         final String address = EventBusAddress.eventBusAddress(verticleManagerId, "get-verticle-deployments");
 
-        final ProtobufMessageProducer producer = new ProtobufMessageProducer(
+        final ProtobufMessageProducer producer = new ProtobufMessageProducer<>(
                 vertx.eventBus(),
                 address,
                 getVerticleDeploymentsResponseCodec,
@@ -560,7 +625,7 @@ public class RunRightFastVertxApplicationTest {
         log.info("test_eventbus_RunRightFastVertxApplicationTestMessage_failure");
         final Vertx vertx = vertxService.getVertx();
 
-        final ProtobufMessageProducer<Ping.Request> pingProducer = new ProtobufMessageProducer(
+        final ProtobufMessageProducer<Ping.Request> pingProducer = new ProtobufMessageProducer<>(
                 vertx.eventBus(),
                 EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, Ping.class),
                 Ping.Request.getDefaultInstance(),
@@ -575,7 +640,7 @@ public class RunRightFastVertxApplicationTest {
         pingLatch.await();
         // this means the verticle has been deployed
 
-        final ProtobufMessageProducer<RunRightFastVertxApplicationTestMessage.Request> messageProducer = new ProtobufMessageProducer(
+        final ProtobufMessageProducer<RunRightFastVertxApplicationTestMessage.Request> messageProducer = new ProtobufMessageProducer<>(
                 vertx.eventBus(),
                 EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, RunRightFastVertxApplicationTestMessage.class.getSimpleName()),
                 RunRightFastVertxApplicationTestMessage.Request.getDefaultInstance(),
@@ -727,7 +792,7 @@ public class RunRightFastVertxApplicationTest {
 
         Thread.sleep(100L);
 
-        final ProtobufMessageProducer<Ping.Request> messageProducer = new ProtobufMessageProducer(
+        final ProtobufMessageProducer<Ping.Request> messageProducer = new ProtobufMessageProducer<>(
                 vertx.eventBus(),
                 EventBusAddress.eventBusAddress(TestVerticle2.VERTICLE_ID, Ping.class),
                 Ping.Request.getDefaultInstance(),
@@ -750,6 +815,209 @@ public class RunRightFastVertxApplicationTest {
         latch.await();
     }
 
+    @Test
+    public void testSendBatchedPingMessages() throws Exception {
+        final Vertx vertx = vertxService.getVertx();
+        final String address = EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, Ping.class);
+        final MetricRegistry testVerticleMetricRegistry = SharedMetricRegistries.getOrCreate(TestVerticle.VERTICLE_ID.toString());
+        final String requestSize = RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_REQUEST_SIZE.metricName;
+        final long requestCount = histogramCount(testVerticleMetricRegistry, requestSize, address);
+        final String execution = RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_EXECUTION.metricName;
+        final long executionCount = histogramCount(testVerticleMetricRegistry, execution, address);
+
+        final ProtobufMessageBatchProducer<Ping.Request> messageProducer = new ProtobufMessageBatchProducer<>(
+                vertx,
+                address,
+                Ping.Request.getDefaultInstance(),
+                10,
+                Duration.ofMillis(10),
+                metricRegistry
+        );
+        for (int i = 0; i < 25; i++) {
+            messageProducer.send(Ping.Request.getDefaultInstance());
+        }
+
+        // each message in the batch is dispatched individually to the message consumer handler
+        final long timeout = System.currentTimeMillis() + 2000L;
+        while ((histogramCount(testVerticleMetricRegistry, requestSize, address) < requestCount + 25
+                || histogramCount(testVerticleMetricRegistry, execution, address) < executionCount + 25)
+                && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        assertThat(histogramCount(testVerticleMetricRegistry, requestSize, address), is(requestCount + 25));
+        assertThat(histogramCount(testVerticleMetricRegistry, execution, address), is(executionCount + 25));
+    }
+
+    @Test
+    public void testFlowControlledProtobufMessageProducer() throws Exception {
+        final Vertx vertx = vertxService.getVertx();
+        final String address = EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, RunRightFastVertxApplicationTestMessage.class.getSimpleName(), "flow-control");
+        final FlowControlledProtobufMessageProducer<RunRightFastVertxApplicationTestMessage.Request> messageProducer = new FlowControlledProtobufMessageProducer<>(
+                new ProtobufMessageProducer<>(
+                        vertx.eventBus(),
+                        address,
+                        RunRightFastVertxApplicationTestMessage.Request.getDefaultInstance(),
+                        metricRegistry
+                ),
+                1
+        );
+
+        final int messageCount = 20;
+        final CountDownLatch latch = new CountDownLatch(messageCount);
+        final List<Integer> credits = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            messageProducer.send(RunRightFastVertxApplicationTestMessage.Request.newBuilder().setMessage("message #" + i).build(), result -> {
+                if (result.succeeded()) {
+                    MessageHeader.getFlowControlCredits(result.result()).ifPresent(credits::add);
+                }
+                latch.countDown();
+            });
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(credits.size(), is(messageCount));
+        // messages that are in transit are not yet counted by the consumer, thus the consumer may temporarily advertise no credits
+        credits.stream().forEach(credit -> assertThat(credit >= 0 && credit <= 10, is(true)));
+        assertThat(messageProducer.getQueuedCount(), is(0));
+        assertThat(messageProducer.getInFlightCount(), is(0));
+    }
+
+    @Test
+    public void test_eventBus_GetMetricsSnapshot() throws Exception {
+        log.info("test_eventBus_GetMetricsSnapshot");
+        final Vertx vertx = vertxService.getVertx();
+
+        final CompletableFuture<GetMetricsSnapshot.Response> future = new CompletableFuture<>();
+        vertx.eventBus().send(
+                EventBusAddress.eventBusAddress(RunRightFastVerticleManager.VERTICLE_ID, "get-metrics-snapshot"),
+                GetMetricsSnapshot.Request.newBuilder().addGroups(RunRightFastVerticleId.RUNRIGHTFAST_GROUP).build(),
+                addRunRightFastHeaders(new DeliveryOptions().setSendTimeout(2000L)),
+                responseHandler(future, GetMetricsSnapshot.Response.class)
+        );
+        final MetricsSnapshot snapshot = future.get(2000L, TimeUnit.MILLISECONDS).getSnapshot();
+        assertThat(snapshot.getVerticleMetricsList().stream()
+                .anyMatch(verticleMetrics -> verticleMetrics.getVerticleId().getName().equals(TestVerticle.VERTICLE_ID.getName())), is(true));
+    }
+
+    @Test
+    public void test_ClusterMetricsAggregator() throws Exception {
+        log.info("test_ClusterMetricsAggregator");
+        final Vertx vertx = vertxService.getVertx();
+
+        final CompletableFuture<Ping.Response> pingFuture = new CompletableFuture<>();
+        vertx.eventBus().send(
+                EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, Ping.class),
+                Ping.Request.getDefaultInstance(),
+                addRunRightFastHeaders(new DeliveryOptions().setSendTimeout(2000L)),
+                responseHandler(pingFuture, Ping.Response.class)
+        );
+        pingFuture.get(2000L, TimeUnit.MILLISECONDS);
+
+        final ClusterMetricsAggregator aggregator = new ClusterMetricsAggregator(vertx, metricRegistry);
+        final ClusterMetrics clusterMetrics = aggregator.getClusterMetrics(
+                GetMetricsSnapshot.Request.newBuilder().addNames(TestVerticle.VERTICLE_ID.getName()).build(),
+                Duration.ofSeconds(2),
+                Optional.of(1)
+        ).get(3000L, TimeUnit.MILLISECONDS);
+
+        assertThat(clusterMetrics.getNodeSnapshots().size(), is(1));
+        final MetricsSnapshot clusterSnapshot = clusterMetrics.getClusterSnapshot();
+        assertThat(clusterSnapshot.getNode(), is(ClusterMetricsAggregator.CLUSTER_NODE));
+        assertThat(clusterSnapshot.getVerticleMetricsCount(), is(1));
+        final VerticleMetrics verticleMetrics = clusterSnapshot.getVerticleMetrics(0);
+        final HistogramSnapshot pingTimer = verticleMetrics.getHistogramsList().stream()
+                .filter(histogram -> histogram.getName().startsWith(RunRightFastVerticleMetrics.Timers.MESSAGE_CONSUMER_HANDLER.metricName)
+                        && histogram.getName().endsWith(Ping.class.getSimpleName()))
+                .findFirst()
+                .get();
+        assertThat(pingTimer.getCount() >= 1, is(true));
+        assertThat(HistogramBuckets.quantile(pingTimer, 0.99) <= pingTimer.getMax(), is(true));
+    }
+
+    @Test
+    public void test_eventBus_GetTraceSpans() throws Exception {
+        log.info("test_eventBus_GetTraceSpans");
+        final Vertx vertx = vertxService.getVertx();
+        final Tracer tracer = Tracer.tracer();
+        Tracer.setTracer(new Tracer(1.0, Duration.ofSeconds(1), 1024));
+        try {
+            final ProtobufMessageProducer<Ping.Request> pingProducer = new ProtobufMessageProducer<>(
+                    vertx.eventBus(),
+                    EventBusAddress.eventBusAddress(TestVerticle.VERTICLE_ID, Ping.class),
+                    Ping.Request.getDefaultInstance(),
+                    new MetricRegistry()
+            );
+            final CompletableFuture<Message<Ping.Response>> pingFuture = new CompletableFuture<>();
+            pingProducer.<Ping.Response>send(Ping.Request.getDefaultInstance(), result -> {
+                if (result.succeeded()) {
+                    pingFuture.complete(result.result());
+                } else {
+                    pingFuture.completeExceptionally(result.cause());
+                }
+            });
+            final Message<Ping.Response> pingResponse = pingFuture.get(2000L, TimeUnit.MILLISECONDS);
+            final String traceId = MessageHeader.getTraceId(pingResponse).get();
+
+            Set<TraceSpan.Kind> kinds = ImmutableSet.of();
+            for (int i = 0; i < 10 && !kinds.contains(TraceSpan.Kind.EXECUTE); i++) {
+                final CompletableFuture<GetTraceSpans.Response> future = new CompletableFuture<>();
+                vertx.eventBus().send(
+                        EventBusAddress.eventBusAddress(RunRightFastVerticleManager.VERTICLE_ID, "get-trace-spans"),
+                        GetTraceSpans.Request.newBuilder().addTraceIds(traceId).build(),
+                        addRunRightFastHeaders(new DeliveryOptions().setSendTimeout(2000L)),
+                        responseHandler(future, GetTraceSpans.Response.class)
+                );
+                kinds = future.get(2000L, TimeUnit.MILLISECONDS).getSpansList().stream().map(TraceSpan::getKind).collect(Collectors.toSet());
+                Thread.sleep(10L);
+            }
+            assertThat(kinds.contains(TraceSpan.Kind.SEND), is(true));
+            assertThat(kinds.contains(TraceSpan.Kind.QUEUE), is(true));
+            assertThat(kinds.contains(TraceSpan.Kind.EXECUTE), is(true));
+        } finally {
+            Tracer.setTracer(tracer);
+        }
+    }
+
+    @Test
+    public void test_eventBus_GetLatencyMatrix() throws Exception {
+        log.info("test_eventBus_GetLatencyMatrix");
+        final Vertx vertx = vertxService.getVertx();
+        Optional<LatencyLink> link = Optional.empty();
+        for (int i = 0; i < 50 && !(link.isPresent() && link.get().getRtt().getCount() > 0); i++) {
+            final CompletableFuture<GetLatencyMatrix.Response> future = new CompletableFuture<>();
+            vertx.eventBus().send(
+                    EventBusAddress.eventBusAddress(RunRightFastVerticleManager.VERTICLE_ID, "get-latency-matrix"),
+                    GetLatencyMatrix.Request.getDefaultInstance(),
+                    addRunRightFastHeaders(new DeliveryOptions().setSendTimeout(2000L)),
+                    responseHandler(future, GetLatencyMatrix.Response.class)
+            );
+            final GetLatencyMatrix.Response response = future.get(2000L, TimeUnit.MILLISECONDS);
+            assertThat(response.getNode(), is(JvmProcess.JVM_ID));
+            link = response.getLinksList().stream().filter(l -> l.getTargetNode().equals(JvmProcess.JVM_ID)).findFirst();
+            Thread.sleep(100L);
+        }
+        log.info(link.toString());
+        assertThat(link.isPresent(), is(true));
+        assertThat(link.get().getSourceNode(), is(JvmProcess.JVM_ID));
+        assertThat(link.get().getProbes(), is(greaterThan(0L)));
+        assertThat(link.get().getRtt().getCount(), is(greaterThan(0L)));
+        assertThat(link.get().getLastSuccessTime(), is(greaterThan(0L)));
+        assertThat(LatencyProber.degradedNodes(ImmutableList.of(link.get())).contains(JvmProcess.JVM_ID), is(link.get().getDegraded()));
+    }
+
+    /**
+     *
+     * @return the total count across all verticle instances
+     */
+    private static long histogramCount(final MetricRegistry metricRegistry, final String metricName, final String address) {
+        return metricRegistry.getHistograms().entrySet().stream()
+                .filter(entry -> {
+                    final MetricTags.TaggedMetricName taggedMetricName = MetricTags.parse(entry.getKey());
+                    return taggedMetricName.getName().equals(metricName) && taggedMetricName.getTags().getAddress().equals(Optional.of(address));
+                })
+                .mapToLong(entry -> entry.getValue().getCount())
+                .sum();
+    }
+
     private <A extends com.google.protobuf.Message> Handler<AsyncResult<Message<A>>> responseHandler(final CompletableFuture future, final Class<A> messageType) {
         return result -> {
             if (result.succeeded()) {
@@ -22,6 +22,7 @@ import lombok.extern.java.Log;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 /**
@@ -170,4 +171,57 @@ public class EventBusAddressMessageMappingTest {
         assertThat(mapping1.hashCode(), is(mapping2.hashCode()));
     }
 
+    @Test
+    public void testMessageSizeLimits() {
+        final EventBusAddressMessageMapping<GetVerticleDeployments.Request, GetVerticleDeployments.Response> mapping = EventBusAddressMessageMapping.<GetVerticleDeployments.Request, GetVerticleDeployments.Response>builder()
+                .address("/xyz")
+                .requestDefaultInstance(GetVerticleDeployments.Request.getDefaultInstance())
+                .responseDefaultInstance(GetVerticleDeployments.Response.getDefaultInstance())
+                .requestMaxSize(100)
+                .responseMaxSize(1000)
+                .build();
+
+        assertThat(mapping.getRequestMaxSize().get(), is(100));
+        assertThat(mapping.getResponseMaxSize().get(), is(1000));
+        assertThat(mapping.toJson().getInt("requestMaxSize"), is(100));
+        assertThat(mapping.toJson().getInt("responseMaxSize"), is(1000));
+
+        mapping.checkRequestSize(100);
+        mapping.checkResponseSize(1000);
+        try {
+            mapping.checkRequestSize(101);
+            fail("MessageTooLargeException should have been thrown");
+        } catch (final MessageTooLargeException e) {
+            log.info(e.getMessage());
+        }
+        try {
+            mapping.checkResponseSize(1001);
+            fail("MessageTooLargeException should have been thrown");
+        } catch (final MessageTooLargeException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNoMessageSizeLimits() {
+        final EventBusAddressMessageMapping<GetVerticleDeployments.Request, GetVerticleDeployments.Response> mapping = EventBusAddressMessageMapping.<GetVerticleDeployments.Request, GetVerticleDeployments.Response>builder()
+                .address("/xyz")
+                .requestDefaultInstance(GetVerticleDeployments.Request.getDefaultInstance())
+                .build();
+
+        assertThat(mapping.getRequestMaxSize().isPresent(), is(false));
+        assertThat(mapping.getResponseMaxSize().isPresent(), is(false));
+        mapping.checkRequestSize(Integer.MAX_VALUE);
+        mapping.checkResponseSize(Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMessageSizeLimit() {
+        EventBusAddressMessageMapping.<GetVerticleDeployments.Request, GetVerticleDeployments.Response>builder()
+                .address("/xyz")
+                .requestDefaultInstance(GetVerticleDeployments.Request.getDefaultInstance())
+                .requestMaxSize(0)
+                .build();
+    }
+
 }
@@ -0,0 +1,155 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.removeProtobufMessageCodecRegistry;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import com.codahale.metrics.MetricRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class FlowControlledProtobufMessageProducerTest {
+
+    private static Vertx vertx;
+
+    @BeforeClass
+    public static void beforeClass() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if (vertx != null) {
+            removeProtobufMessageCodecRegistry(vertx.eventBus());
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void testMessagesAreQueuedWhenOutOfCredits() throws InterruptedException {
+        final String address = "/FlowControlledProtobufMessageProducerTest/testMessagesAreQueuedWhenOutOfCredits";
+        final List<Message<VerticleId>> receivedMessages = new CopyOnWriteArrayList<>();
+        final MessageConsumer<VerticleId> consumer = vertx.eventBus().consumer(address, receivedMessages::add);
+
+        final FlowControlledProtobufMessageProducer<VerticleId> producer = new FlowControlledProtobufMessageProducer<>(
+                new ProtobufMessageProducer<>(vertx.eventBus(), address, VerticleId.getDefaultInstance(), new MetricRegistry()),
+                2
+        );
+        producer.setWriteQueueMaxSize(2);
+        final CountDownLatch drainLatch = new CountDownLatch(1);
+        producer.drainHandler(v -> drainLatch.countDown());
+
+        for (int i = 0; i < 4; i++) {
+            producer.write(VerticleId.newBuilder().setGroup("group").setName("name-" + i).setVersion("1.0").build());
+        }
+        assertThat(producer.getInFlightCount(), is(2));
+        assertThat(producer.getQueuedCount(), is(2));
+        assertThat(producer.writeQueueFull(), is(true));
+
+        waitForMessages(receivedMessages, 2);
+        // the consumer advertises more credits
+        receivedMessages.stream().forEach(msg -> msg.reply(msg.body(), new DeliveryOptions().addHeader(MessageHeader.FLOW_CONTROL_CREDITS.header, "10")));
+
+        assertThat(drainLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(producer.getQueuedCount(), is(0));
+        assertThat(producer.writeQueueFull(), is(false));
+        waitForMessages(receivedMessages, 4);
+        final long timeout = System.currentTimeMillis() + 5000L;
+        while (producer.getInFlightCount() > 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        // the first reply opens the window to 1 in flight + 10 available, and the 2 queued messages are sent
+        // the second reply then opens the window to 2 in flight + 10 available
+        assertThat(producer.getInFlightCount(), is(2));
+        assertThat(producer.getCredits(), is(12));
+        consumer.unregister();
+    }
+
+    @Test
+    public void testSingleMessageIsSentWhenConsumerHasNoCredits() throws InterruptedException {
+        final String address = "/FlowControlledProtobufMessageProducerTest/testSingleMessageIsSentWhenConsumerHasNoCredits";
+        final List<Message<VerticleId>> receivedMessages = new CopyOnWriteArrayList<>();
+        final MessageConsumer<VerticleId> consumer = vertx.eventBus().consumer(address, receivedMessages::add);
+
+        final FlowControlledProtobufMessageProducer<VerticleId> producer = new FlowControlledProtobufMessageProducer<>(
+                new ProtobufMessageProducer<>(vertx.eventBus(), address, VerticleId.getDefaultInstance(), new MetricRegistry()),
+                1
+        );
+        for (int i = 0; i < 3; i++) {
+            producer.write(VerticleId.newBuilder().setGroup("group").setName("name-" + i).setVersion("1.0").build());
+        }
+
+        waitForMessages(receivedMessages, 1);
+        receivedMessages.get(0).reply(receivedMessages.get(0).body(), new DeliveryOptions().addHeader(MessageHeader.FLOW_CONTROL_CREDITS.header, "0"));
+
+        waitForMessages(receivedMessages, 2);
+        assertThat(producer.getCredits(), is(0));
+        assertThat(producer.getInFlightCount(), is(1));
+        assertThat(producer.getQueuedCount(), is(1));
+        consumer.unregister();
+    }
+
+    @Test
+    public void testDeliveryOptionsAreUsedAndInvalidCreditsAreIgnored() throws InterruptedException {
+        final String address = "/FlowControlledProtobufMessageProducerTest/testDeliveryOptionsAreUsedAndInvalidCreditsAreIgnored";
+        final List<Message<VerticleId>> receivedMessages = new CopyOnWriteArrayList<>();
+        final MessageConsumer<VerticleId> consumer = vertx.eventBus().consumer(address, receivedMessages::add);
+
+        final FlowControlledProtobufMessageProducer<VerticleId> producer = new FlowControlledProtobufMessageProducer<>(
+                new ProtobufMessageProducer<>(vertx.eventBus(), address, VerticleId.getDefaultInstance(), new MetricRegistry()),
+                2
+        );
+        final CountDownLatch replyLatch = new CountDownLatch(1);
+        producer.send(
+                VerticleId.newBuilder().setGroup("group").setName("name").setVersion("1.0").build(),
+                new DeliveryOptions().addHeader("test-header", "test"),
+                result -> replyLatch.countDown()
+        );
+
+        waitForMessages(receivedMessages, 1);
+        assertThat(receivedMessages.get(0).headers().get("test-header"), is("test"));
+        receivedMessages.get(0).reply(receivedMessages.get(0).body(), new DeliveryOptions().addHeader(MessageHeader.FLOW_CONTROL_CREDITS.header, "INVALID"));
+
+        assertThat(replyLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(producer.getCredits(), is(2));
+        assertThat(producer.getInFlightCount(), is(0));
+        consumer.unregister();
+    }
+
+    private void waitForMessages(final List<?> receivedMessages, final int count) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + 5000L;
+        while (receivedMessages.size() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        assertThat(receivedMessages.size(), is(count));
+    }
+
+}
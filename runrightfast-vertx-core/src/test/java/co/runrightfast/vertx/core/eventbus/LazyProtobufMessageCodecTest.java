@@ -0,0 +1,90 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.LazyProtobufMessage.lazyProtobufMessage;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class LazyProtobufMessageCodecTest {
+
+    private final VerticleId verticleId = VerticleId.newBuilder()
+            .setGroup("runrightfast")
+            .setName(getClass().getSimpleName())
+            .setVersion("1.0.0")
+            .build();
+
+    private final LazyProtobufMessageCodec<VerticleId> lazyCodec = new LazyProtobufMessageCodec<>(VerticleId.getDefaultInstance());
+
+    private final ProtobufMessageCodec<VerticleId> codec = new ProtobufMessageCodec<>(VerticleId.getDefaultInstance());
+
+    @Test
+    public void testDecodeIsLazy() {
+        final Buffer buff = Buffer.buffer();
+        codec.encodeToWire(buff, verticleId);
+
+        final LazyProtobufMessage<VerticleId> msg = lazyCodec.decodeFromWire(0, buff);
+        assertThat(msg.isParsed(), is(false));
+        assertThat(msg.get(), is(verticleId));
+        assertThat(msg.isParsed(), is(true));
+        assertThat(msg.get(), is(sameInstance(msg.get())));
+    }
+
+    @Test
+    public void testForwardReEmitsOriginalBytes() {
+        final Buffer buff = Buffer.buffer();
+        codec.encodeToWire(buff, verticleId);
+
+        final LazyProtobufMessage<VerticleId> msg = lazyCodec.decodeFromWire(0, buff);
+        final Buffer forwardBuff = Buffer.buffer();
+        lazyCodec.encodeToWire(forwardBuff, msg);
+
+        assertThat(msg.isParsed(), is(false));
+        assertThat(forwardBuff.getBytes(), is(buff.getBytes()));
+        assertThat(codec.decodeFromWire(0, forwardBuff), is(verticleId));
+    }
+
+    @Test
+    public void testEncodeMessage() {
+        final Buffer buff = Buffer.buffer();
+        lazyCodec.encodeToWire(buff, verticleId);
+
+        assertThat(codec.decodeFromWire(0, buff), is(verticleId));
+    }
+
+    @Test
+    public void testTransform() {
+        final LazyProtobufMessage<VerticleId> msg = lazyProtobufMessage(verticleId);
+        assertThat(lazyCodec.transform(msg), is(sameInstance(msg)));
+        assertThat(lazyCodec.transform(verticleId).get(), is(sameInstance(verticleId)));
+    }
+
+    @Test
+    public void testName() {
+        assertThat(lazyCodec.name(), is(codec.name()));
+    }
+
+}
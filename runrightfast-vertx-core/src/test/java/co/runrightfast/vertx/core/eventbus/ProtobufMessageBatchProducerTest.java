@@ -0,0 +1,137 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.removeProtobufMessageCodecRegistry;
+import co.runrightfast.vertx.core.verticles.messages.MessageBatch;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import com.codahale.metrics.MetricRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import java.util.HashSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class ProtobufMessageBatchProducerTest {
+
+    private static Vertx vertx;
+
+    @BeforeClass
+    public static void beforeClass() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if (vertx != null) {
+            removeProtobufMessageCodecRegistry(vertx.eventBus());
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void testBatchIsSentWhenMaxBatchSizeIsReached() throws Exception {
+        final String address = "/ProtobufMessageBatchProducerTest/testBatchIsSentWhenMaxBatchSizeIsReached";
+        final List<MessageBatch> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        final MessageConsumer<MessageBatch> consumer = vertx.eventBus().consumer(address, msg -> {
+            batches.add(msg.body());
+            latch.countDown();
+        });
+
+        final ProtobufMessageBatchProducer<VerticleId> producer = new ProtobufMessageBatchProducer<>(
+                vertx, address, VerticleId.getDefaultInstance(), 10, Duration.ofMinutes(1), new MetricRegistry());
+        for (int i = 0; i < 20; i++) {
+            producer.send(VerticleId.newBuilder().setGroup("group").setName("name-" + i).setVersion("1.0").build());
+        }
+        assertThat(producer.getPendingMessageCount(), is(0));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(batches.size(), is(2));
+        batches.stream().forEach(batch -> assertThat(batch.getMessagesCount(), is(10)));
+        assertThat(VerticleId.parseFrom(batches.get(1).getMessages(9)).getName(), is("name-19"));
+        consumer.unregister();
+    }
+
+    @Test
+    public void testBatchIsSentWhenMaxBatchDelayExpires() throws InterruptedException {
+        final String address = "/ProtobufMessageBatchProducerTest/testBatchIsSentWhenMaxBatchDelayExpires";
+        final List<MessageBatch> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final MessageConsumer<MessageBatch> consumer = vertx.eventBus().consumer(address, msg -> {
+            batches.add(msg.body());
+            latch.countDown();
+        });
+
+        final ProtobufMessageBatchProducer<VerticleId> producer = new ProtobufMessageBatchProducer<>(
+                vertx, address, VerticleId.getDefaultInstance(), 100, Duration.ofMillis(10), new MetricRegistry());
+        for (int i = 0; i < 5; i++) {
+            producer.publish(VerticleId.newBuilder().setGroup("group").setName("name-" + i).setVersion("1.0").build());
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(batches.size(), is(1));
+        assertThat(batches.get(0).getMessagesCount(), is(5));
+        assertThat(producer.getPendingMessageCount(), is(0));
+        consumer.unregister();
+    }
+
+    @Test
+    public void testBatchIsSentWhenMaxBatchBytesIsReached() throws Exception {
+        final String address = "/ProtobufMessageBatchProducerTest/testBatchIsSentWhenMaxBatchBytesIsReached";
+        final List<MessageBatch> batches = new CopyOnWriteArrayList<>();
+        final Set<String> messageIds = new HashSet<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final MessageConsumer<MessageBatch> consumer = vertx.eventBus().consumer(address, msg -> {
+            batches.add(msg.body());
+            for (int i = 0; i < msg.body().getMessagesCount(); i++) {
+                messageIds.add(MessageHeader.getMessageId(new BatchedMessage<>(msg, msg.body().getMessages(i), i)).get());
+            }
+            latch.countDown();
+        });
+
+        final VerticleId msg = VerticleId.newBuilder().setGroup("group").setName("name").setVersion("1.0").build();
+        final int maxBatchBytes = msg.getSerializedSize() * 5;
+        final ProtobufMessageBatchProducer<VerticleId> producer = new ProtobufMessageBatchProducer<>(
+                vertx, address, VerticleId.getDefaultInstance(), 100, maxBatchBytes, Duration.ofMinutes(1), new MetricRegistry());
+        for (int i = 0; i < 5; i++) {
+            producer.send(msg);
+        }
+        assertThat(producer.getPendingMessageCount(), is(1));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(batches.size(), is(1));
+        assertThat(batches.get(0).getSerializedSize() <= maxBatchBytes, is(true));
+        // each batched message is assigned its own message id
+        assertThat(messageIds.size(), is(batches.get(0).getMessagesCount()));
+        producer.flush();
+        consumer.unregister();
+    }
+
+}
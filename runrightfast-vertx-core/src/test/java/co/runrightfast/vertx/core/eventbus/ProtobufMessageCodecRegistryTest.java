@@ -0,0 +1,127 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodec;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.protobufMessageCodecRegistry;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.registerProtobufMessageCodecs;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.removeProtobufMessageCodecRegistry;
+import static co.runrightfast.vertx.core.eventbus.ProtobufMessageCodecRegistry.scanProtobufMessageTypes;
+import co.runrightfast.vertx.core.messages.SecretKeys;
+import co.runrightfast.vertx.core.verticles.messages.Ping;
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.GetVerticleDeployments;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Message;
+import io.vertx.core.Vertx;
+import java.util.List;
+import java.util.Set;
+import static java.util.stream.Collectors.toSet;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class ProtobufMessageCodecRegistryTest {
+
+    private static Vertx vertx;
+
+    @BeforeClass
+    public static void beforeClass() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if (vertx != null) {
+            removeProtobufMessageCodecRegistry(vertx.eventBus());
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void testScanProtobufMessageTypes() {
+        final List<Message> messageTypes = scanProtobufMessageTypes(getClass().getClassLoader(), ImmutableList.of("co.runrightfast.vertx.core"));
+        final Set<String> names = messageTypes.stream().map(msg -> msg.getDescriptorForType().getFullName()).collect(toSet());
+        log.info(names.toString());
+
+        assertThat(names.contains(VerticleId.getDescriptor().getFullName()), is(true));
+        // nested message types
+        assertThat(names.contains(Ping.Request.getDescriptor().getFullName()), is(true));
+        assertThat(names.contains(Ping.Response.getDescriptor().getFullName()), is(true));
+        assertThat(names.contains(GetVerticleDeployments.Request.getDescriptor().getFullName()), is(true));
+        // map entries are not generated as classes
+        assertThat(names.contains(SecretKeys.getDescriptor().getFullName() + ".KeysEntry"), is(false));
+    }
+
+    @Test
+    public void testRegisterProtobufMessageCodecs() {
+        final ProtobufMessageCodecRegistry registry = registerProtobufMessageCodecs(vertx.eventBus(), ImmutableList.of(
+                VerticleId.getDefaultInstance(),
+                co.runrightfast.vertx.core.messages.Void.getDefaultInstance()
+        ));
+        assertThat(registry, is(sameInstance(protobufMessageCodecRegistry(vertx.eventBus()))));
+        assertThat(registry.getMessageCodec(VerticleId.getDescriptor().getFullName()).get(), is(sameInstance(protobufMessageCodec(VerticleId.getDefaultInstance()))));
+        assertThat(registry.getMessageCodec(co.runrightfast.vertx.core.messages.Void.getDescriptor().getFullName()).get(), is(instanceOf(VoidMessageCodec.class)));
+
+        // registering again is a no-op
+        registerProtobufMessageCodecs(vertx.eventBus(), ImmutableList.of(VerticleId.getDefaultInstance()));
+        registry.registerMessageCodec(VerticleId.getDefaultInstance());
+
+        // registered on demand
+        assertThat(registry.getMessageCodec(Ping.Request.getDescriptor().getFullName()).isPresent(), is(false));
+        registry.registerMessageCodec(Ping.Request.getDefaultInstance());
+        assertThat(registry.getMessageCodec(Ping.Request.getDescriptor().getFullName()).isPresent(), is(true));
+    }
+
+    @Test
+    public void testRegisterLazyMessageCodec() {
+        final ProtobufMessageCodecRegistry registry = protobufMessageCodecRegistry(vertx.eventBus());
+        registry.registerMessageCodec(Ping.Response.getDefaultInstance());
+        registry.registerLazyMessageCodec(Ping.Response.getDefaultInstance());
+        assertThat(registry.getMessageCodec(Ping.Response.getDescriptor().getFullName()).get(), is(instanceOf(LazyProtobufMessageCodec.class)));
+        assertThat(registry.getLazyDecodedMessageTypes().contains(Ping.Response.getDescriptor().getFullName()), is(true));
+
+        // the lazy codec is retained
+        registry.registerMessageCodec(Ping.Response.getDefaultInstance());
+        registry.registerLazyMessageCodec(Ping.Response.getDefaultInstance());
+        assertThat(registry.getMessageCodec(Ping.Response.getDescriptor().getFullName()).get(), is(instanceOf(LazyProtobufMessageCodec.class)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterLazyMessageCodec_messageTypeIsDecodedEagerly() {
+        final ProtobufMessageCodecRegistry registry = protobufMessageCodecRegistry(vertx.eventBus());
+        registry.registerEagerMessageCodec(Ping.Request.getDefaultInstance());
+        registry.registerLazyMessageCodec(Ping.Request.getDefaultInstance());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterEagerMessageCodec_messageTypeIsDecodedLazily() {
+        final ProtobufMessageCodecRegistry registry = protobufMessageCodecRegistry(vertx.eventBus());
+        registry.registerLazyMessageCodec(Ping.Request.getDefaultInstance());
+        registry.registerEagerMessageCodec(Ping.Request.getDefaultInstance());
+    }
+
+}
@@ -15,8 +15,17 @@
  */
 package co.runrightfast.vertx.core.eventbus;
 
+import co.runrightfast.vertx.core.jfr.ProtobufCodecRecording;
 import co.runrightfast.vertx.core.verticles.messages.VerticleId;
 import io.vertx.core.buffer.Buffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.extern.java.Log;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -52,6 +61,33 @@ public class ProtobufMessageCodecTest {
         assertThat(verticleId, is(verticleId2));
     }
 
+    @Test
+    public void testEncodeDecodeFlightRecorderEvents() throws Exception {
+        final Path recordingFile = Files.createTempFile(getClass().getSimpleName(), ".jfr");
+        try (final Recording recording = new Recording()) {
+            recording.enable("co.runrightfast.vertx.ProtobufCodec").withThreshold(Duration.ZERO);
+            recording.start();
+            final Buffer buff = Buffer.buffer();
+            verticleIdMessageCodec.encodeToWire(buff, verticleId);
+            verticleIdMessageCodec.decodeFromWire(0, buff);
+            recording.stop();
+            recording.dump(recordingFile);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                    .filter(event -> event.getEventType().getName().equals("co.runrightfast.vertx.ProtobufCodec"))
+                    .collect(Collectors.toList());
+            assertThat(events.size(), is(2));
+            assertThat(events.get(0).getString("operation"), is(ProtobufCodecRecording.ENCODE));
+            assertThat(events.get(1).getString("operation"), is(ProtobufCodecRecording.DECODE));
+            events.forEach(event -> {
+                assertThat(event.getString("messageType"), is(verticleIdMessageCodec.name()));
+                assertThat(event.getLong("bytes"), is((long) verticleId.getSerializedSize()));
+            });
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
     /**
      * Test of transform method, of class ProtobufMessageCodec.
      */
@@ -0,0 +1,73 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.eventbus;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class ProtobufMessageProducerStatsTest {
+
+    @Test
+    public void testEmptySnapshot() {
+        final ProtobufMessageProducerStats.Snapshot snapshot = new ProtobufMessageProducerStats().snapshot();
+        assertThat(snapshot.getMessagesSent(), is(0L));
+        assertThat(snapshot.getMessagesPublished(), is(0L));
+        assertThat(snapshot.getBytesSent(), is(0L));
+        assertThat(snapshot.getBytesPublished(), is(0L));
+        assertThat(snapshot.getLastSent().isPresent(), is(false));
+        assertThat(snapshot.getLastPublished().isPresent(), is(false));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final ProtobufMessageProducerStats stats = new ProtobufMessageProducerStats();
+        final Instant start = Instant.ofEpochMilli(System.currentTimeMillis());
+        final int threadCount = 4;
+        final int messageCount = 10_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            IntStream.range(0, threadCount).forEach(i -> executor.submit(() -> {
+                for (int j = 0; j < messageCount; j++) {
+                    stats.messageSent(10);
+                    stats.messagePublished(100);
+                }
+            }));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+
+        final ProtobufMessageProducerStats.Snapshot snapshot = stats.snapshot();
+        assertThat(snapshot.getMessagesSent(), is((long) threadCount * messageCount));
+        assertThat(snapshot.getMessagesPublished(), is((long) threadCount * messageCount));
+        assertThat(snapshot.getBytesSent(), is(10L * threadCount * messageCount));
+        assertThat(snapshot.getBytesPublished(), is(100L * threadCount * messageCount));
+        assertThat(snapshot.getLastSent().get(), is(greaterThanOrEqualTo(start)));
+        assertThat(snapshot.getLastPublished().get(), is(greaterThanOrEqualTo(start)));
+    }
+
+}
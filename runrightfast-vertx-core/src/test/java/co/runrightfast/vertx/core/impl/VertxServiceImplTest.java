@@ -17,7 +17,9 @@ package co.runrightfast.vertx.core.impl;
 
 import co.runrightfast.core.application.event.AppEventLogger;
 import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
+import co.runrightfast.core.application.services.healthchecks.HealthChecksService;
 import co.runrightfast.core.application.services.healthchecks.RunRightFastHealthCheck;
+import co.runrightfast.core.application.services.healthchecks.impl.HealthChecksServiceImpl;
 import co.runrightfast.core.utils.ConfigUtils;
 import static co.runrightfast.core.utils.ConfigUtils.CONFIG_NAMESPACE;
 import co.runrightfast.core.utils.JsonUtils;
@@ -166,8 +168,15 @@ public class VertxServiceImplTest {
 
     private static Config config;
 
+    private static HealthChecksService healthChecksService;
+
     @BeforeClass
     public static void setUpClass() {
+        healthChecksService = new HealthChecksServiceImpl(new AppEventJDKLogger(ApplicationId.builder()
+                .group("co.runrightfast")
+                .name("VertxServiceImplTest")
+                .version("1.0.0").build()
+        ), VertxServiceImplTest.class.getSimpleName());
         config = ConfigUtils.loadConfig(String.format("%s.conf", VertxServiceImplTest.class.getSimpleName()), true);
     }
 
@@ -187,7 +196,7 @@ public class VertxServiceImplTest {
     @Test
     public void test_vertx_reference_default_options() {
         log.info("test_vertx_default_options");
-        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx")), deployments, appEventLogger);
+        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         services.add(service);
         log.info("service.getVertxOptions().getClusterHost() = " + service.getVertxOptions().getClusterHost());
@@ -202,7 +211,7 @@ public class VertxServiceImplTest {
     @Test
     public void test_vertx_default_options() {
         log.info("test_vertx_default_options");
-        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-default")), deployments, appEventLogger);
+        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-default")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         services.add(service);
         final Vertx vertx = service.getVertx();
@@ -213,7 +222,7 @@ public class VertxServiceImplTest {
     @Test
     public void test_vertx_metrics_options() {
         log.info("test_vertx_metrics_options");
-        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-with-metrics")), deployments, appEventLogger);
+        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-with-metrics")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         services.add(service);
         final Vertx vertx = service.getVertx();
@@ -241,7 +250,7 @@ public class VertxServiceImplTest {
     @Test
     public void test_vertx_custom_options() {
         log.info("test_vertx_custom_options");
-        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-custom-non-clustered")), deployments, appEventLogger);
+        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-custom-non-clustered")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         services.add(service);
         final Vertx vertx = service.getVertx();
@@ -270,7 +279,7 @@ public class VertxServiceImplTest {
     @Test
     public void test_vertx_clustered() throws InterruptedException {
         log.info("test_vertx_clustered");
-        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-clustered-1")), deployments, appEventLogger);
+        service = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-clustered-1")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service);
         services.add(service);
         final Vertx vertx = service.getVertx();
@@ -281,7 +290,7 @@ public class VertxServiceImplTest {
         final ClusterManager clusterManager1 = vertxOptions.getClusterManager();
         log.log(INFO, "clusterManager1.getNodeID() = {0}", clusterManager1.getNodeID());
 
-        final VertxService service2 = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-clustered-2")), deployments, appEventLogger);
+        final VertxService service2 = new VertxServiceImpl(config.getConfig(ConfigUtils.configPath(CONFIG_NAMESPACE, "vertx-clustered-2")), deployments, appEventLogger, healthChecksService);
         ServiceUtils.start(service2);
         services.add(service2);
         final Vertx vertx2 = service.getVertx();
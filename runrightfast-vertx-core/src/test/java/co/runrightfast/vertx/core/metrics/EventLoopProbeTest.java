@@ -0,0 +1,100 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import static co.runrightfast.vertx.core.metrics.EventLoopProbe.EVENT_LOOP_LAG;
+import static co.runrightfast.vertx.core.metrics.EventLoopProbe.LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS;
+import static co.runrightfast.vertx.core.metrics.EventLoopProbe.LONGEST_RUNNING_MESSAGE_HANDLER_DURATION;
+import static co.runrightfast.vertx.core.metrics.EventLoopProbe.WORKER_POOL_ACTIVE;
+import static co.runrightfast.vertx.core.metrics.EventLoopProbe.WORKER_POOL_UTILIZATION;
+import static co.runrightfast.vertx.core.metrics.RunningMessageHandlers.messageHandlerCompleted;
+import static co.runrightfast.vertx.core.metrics.RunningMessageHandlers.messageHandlerStarted;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class EventLoopProbeTest {
+
+    private static Vertx vertx;
+
+    @BeforeClass
+    public static void setUpClass() {
+        vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(2));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        vertx.close();
+    }
+
+    @Test
+    public void testEventLoopProbe() throws InterruptedException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final EventLoopProbe probe = new EventLoopProbe(vertx, metricRegistry, Duration.ofMillis(5));
+        probe.start();
+        try {
+            Thread.sleep(200);
+            for (int i = 0; i < 2; i++) {
+                final Histogram lag = metricRegistry.histogram(String.format("%s::event-loop-%d", EVENT_LOOP_LAG, i));
+                assertThat(lag.getCount() > 0, is(true));
+            }
+
+            assertThat(metricRegistry.getGauges().get(WORKER_POOL_ACTIVE).getValue(), is(0));
+            assertThat(metricRegistry.getGauges().get(WORKER_POOL_UTILIZATION).getValue(), is(0.0));
+            assertThat(metricRegistry.getGauges().get(LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS).getValue(), is(""));
+
+            final CountDownLatch handlerStarted = new CountDownLatch(1);
+            final CountDownLatch handlerRelease = new CountDownLatch(1);
+            vertx.executeBlocking(future -> {
+                messageHandlerStarted("EventLoopProbeTest/slow-handler");
+                try {
+                    handlerStarted.countDown();
+                    handlerRelease.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    messageHandlerCompleted();
+                }
+                future.complete();
+            }, result -> {
+            });
+            assertThat(handlerStarted.await(10, TimeUnit.SECONDS), is(true));
+            Thread.sleep(20);
+            assertThat(metricRegistry.getGauges().get(WORKER_POOL_ACTIVE).getValue(), is(1));
+            assertThat(metricRegistry.getGauges().get(LONGEST_RUNNING_MESSAGE_HANDLER_ADDRESS).getValue(), is("EventLoopProbeTest/slow-handler"));
+            assertThat((Long) metricRegistry.getGauges().get(LONGEST_RUNNING_MESSAGE_HANDLER_DURATION).getValue() >= 20L, is(true));
+            handlerRelease.countDown();
+        } finally {
+            probe.stop();
+        }
+
+        assertThat(metricRegistry.getNames().isEmpty(), is(true));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import static co.runrightfast.vertx.core.metrics.HdrHistogramReservoir.hdrHistogram;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import java.time.Duration;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void testSnapshots() {
+        final HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 1; i <= 100; i++) {
+            reservoir.update(i * 1000L);
+        }
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(100));
+        assertThat(reservoir.size(), is(100));
+        assertThat(Math.abs(snapshot.getMax() - 100_000L) <= 1000L, is(true));
+        assertThat(Math.abs(snapshot.getMin() - 1000L) <= 10L, is(true));
+        assertThat(Math.abs(snapshot.getMedian() - 50_000L) <= 1000L, is(true));
+        assertThat(Math.abs(snapshot.get99thPercentile() - 99_000L) <= 1000L, is(true));
+        assertThat(snapshot.getValues().length, is(100));
+
+        // taking a snapshot does not reset the reservoir
+        reservoir.update(5);
+        reservoir.update(-1);
+        final Snapshot snapshot2 = reservoir.getSnapshot();
+        assertThat(snapshot2.size(), is(102));
+        assertThat(snapshot2.getMin(), is(0L));
+        assertThat(Math.abs(snapshot2.getMax() - 100_000L) <= 1000L, is(true));
+        assertThat(reservoir.getSnapshot().size(), is(102));
+    }
+
+    @Test
+    public void testSlidingWindow() throws InterruptedException {
+        final HdrHistogramReservoir reservoir = new HdrHistogramReservoir(HdrHistogramReservoir.DEFAULT_NUMBER_OF_SIGNIFICANT_VALUE_DIGITS, Duration.ofMillis(120));
+        reservoir.update(10);
+        assertThat(reservoir.getSnapshot().size(), is(1));
+
+        Thread.sleep(200L);
+        final Snapshot emptySnapshot = reservoir.getSnapshot();
+        assertThat(emptySnapshot.size(), is(0));
+        assertThat(emptySnapshot.getMax(), is(0L));
+        assertThat(emptySnapshot.getMean(), is(0.0));
+    }
+
+    @Test
+    public void testSnapshotValuesAreSampled() {
+        final HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 0; i < 10_000; i++) {
+            reservoir.update(i);
+        }
+        final long[] values = reservoir.getSnapshot().getValues();
+        assertThat(values.length, is(HdrHistogramReservoir.MAX_SNAPSHOT_VALUES));
+        for (int i = 1; i < values.length; i++) {
+            assertThat(values[i] >= values[i - 1], is(true));
+        }
+    }
+
+    @Test
+    public void testHdrHistogram() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Histogram histogram = hdrHistogram(metricRegistry, "histogram");
+        histogram.update(10);
+        assertThat(hdrHistogram(metricRegistry, "histogram"), is(sameInstance(histogram)));
+        assertThat(metricRegistry.histogram("histogram").getCount(), is(1L));
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.verticles.messages.VerticleId;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.HistogramSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.MetricsSnapshot;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.VerticleMetrics;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.UniformReservoir;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class HistogramBucketsTest {
+
+    @Test
+    public void testBucketBoundsContainValue() {
+        for (long value = 0; value < 100_000; value++) {
+            final int index = HistogramBuckets.bucketIndex(value);
+            assertThat(HistogramBuckets.bucketLowerBound(index), is(lessThanOrEqualTo(value)));
+            assertThat(HistogramBuckets.bucketUpperBound(index), is(greaterThanOrEqualTo(value)));
+        }
+        final int index = HistogramBuckets.bucketIndex(Long.MAX_VALUE);
+        assertThat(HistogramBuckets.bucketUpperBound(index), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMergedQuantilesAreNotAveraged() {
+        final Histogram fast = new Histogram(new UniformReservoir());
+        final Histogram slow = new Histogram(new UniformReservoir());
+        for (int i = 0; i < 900; i++) {
+            fast.update(10);
+        }
+        for (int i = 0; i < 100; i++) {
+            slow.update(1000);
+        }
+
+        final HistogramSnapshot merged = HistogramBuckets.merge(
+                HistogramBuckets.histogramSnapshot("latency", fast.getCount(), fast.getSnapshot()),
+                HistogramBuckets.histogramSnapshot("latency", slow.getCount(), slow.getSnapshot())
+        );
+        assertThat(merged.getCount(), is(1000L));
+        assertThat(merged.getMin(), is(10L));
+        assertThat(merged.getMax(), is(1000L));
+        assertThat(HistogramBuckets.bucketedCount(merged), is(1000L));
+        assertThat(HistogramBuckets.quantile(merged, 0.5), is(10L));
+        // averaging the 2 p95 values would be ~505
+        assertThat(HistogramBuckets.quantile(merged, 0.95), is(lessThanOrEqualTo(1000L)));
+        assertThat(HistogramBuckets.quantile(merged, 0.95), is(greaterThanOrEqualTo(960L)));
+    }
+
+    @Test
+    public void testMergedHistogramsAreWeightedByCount() {
+        final Histogram busy = new Histogram(new HdrHistogramReservoir());
+        final Histogram idle = new Histogram(new HdrHistogramReservoir());
+        for (int i = 0; i < 10_000; i++) {
+            busy.update(10);
+        }
+        for (int i = 0; i < 1000; i++) {
+            idle.update(1000);
+        }
+
+        final HistogramSnapshot merged = HistogramBuckets.merge(
+                HistogramBuckets.histogramSnapshot("latency", busy.getCount(), busy.getSnapshot()),
+                HistogramBuckets.histogramSnapshot("latency", idle.getCount(), idle.getSnapshot())
+        );
+        assertThat(merged.getCount(), is(11_000L));
+        assertThat(HistogramBuckets.bucketedCount(merged), is(11_000L));
+        // the snapshot sizes are about the same - weighing by snapshot size would put p90 at 1000
+        assertThat(HistogramBuckets.quantile(merged, 0.9), is(10L));
+    }
+
+    @Test
+    public void testMergeMetricsSnapshots() {
+        final VerticleId verticleId = VerticleId.newBuilder().setGroup("group").setName("name").setVersion("1.0.0").build();
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.counter("counter").inc(2);
+        metricRegistry.meter("meter").mark(3);
+        metricRegistry.histogram("histogram").update(5);
+        metricRegistry.timer("other.timer");
+
+        final VerticleMetrics verticleMetrics = MetricsSnapshots.verticleMetrics(verticleId, metricRegistry, Collections.emptyList());
+        assertThat(verticleMetrics.getCountersCount(), is(1));
+        assertThat(verticleMetrics.getMetersCount(), is(1));
+        assertThat(verticleMetrics.getHistogramsCount(), is(2));
+        assertThat(MetricsSnapshots.verticleMetrics(verticleId, metricRegistry, Arrays.asList("other.")).getHistogramsCount(), is(1));
+
+        final MetricsSnapshot node1 = MetricsSnapshot.newBuilder().setNode("node1").addVerticleMetrics(verticleMetrics).build();
+        final MetricsSnapshot node2 = MetricsSnapshot.newBuilder().setNode("node2").addVerticleMetrics(verticleMetrics).build();
+        final MetricsSnapshot merged = MetricsSnapshots.merge("cluster", Arrays.asList(node1, node2));
+        assertThat(merged.getNode(), is("cluster"));
+        assertThat(merged.getVerticleMetricsCount(), is(1));
+        final VerticleMetrics mergedVerticleMetrics = merged.getVerticleMetrics(0);
+        assertThat(mergedVerticleMetrics.getCounters(0).getCount(), is(4L));
+        assertThat(mergedVerticleMetrics.getMeters(0).getCount(), is(6L));
+        final HistogramSnapshot histogram = mergedVerticleMetrics.getHistogramsList().stream().filter(h -> h.getName().equals("histogram")).findFirst().get();
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(HistogramBuckets.bucketedCount(histogram), is(2L));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters.MESSAGE_CONSUMER_MESSAGE_PROCESSING;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_EXECUTION;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Histograms.MESSAGE_CONSUMER_REQUEST_SIZE;
+import co.runrightfast.vertx.core.metrics.MetricTags.TaggedMetricName;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import java.util.Optional;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class MetricTagsTest {
+
+    private final RunRightFastVerticleId verticleId = RunRightFastVerticleId.builder()
+            .group(RunRightFastVerticleId.RUNRIGHTFAST_GROUP)
+            .name("test")
+            .version("1.0.0")
+            .build();
+
+    @Test
+    public void testAddressOnlyMetricNameIsCompatible() {
+        final String metricName = MetricTags.address("/a/b").metricName(MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName);
+        assertThat(metricName, is(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, "/a/b")));
+        assertThat(MetricTags.NONE.metricName("name"), is("name"));
+    }
+
+    @Test
+    public void testMetricNameRoundTrip() {
+        final MetricTags tags = MetricTags.address("/a/b::c").withVerticle(verticleId).withInstance(2).withNode("node-1");
+        final String metricName = tags.metricName(MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName);
+        assertThat(metricName, is(MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName + "[verticle=co.runrightfast:test:1.0.0,instance=2,node=node-1]::/a/b::c"));
+
+        final TaggedMetricName taggedMetricName = MetricTags.parse(metricName);
+        assertThat(taggedMetricName.getName(), is(MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName));
+        assertThat(taggedMetricName.getTags(), is(tags));
+        assertThat(taggedMetricName.toString(), is(metricName));
+
+        final TaggedMetricName untagged = MetricTags.parse("vertx.verticles");
+        assertThat(untagged.getName(), is("vertx.verticles"));
+        assertThat(untagged.getTags(), is(MetricTags.NONE));
+    }
+
+    @Test
+    public void testMerge() {
+        final MetricTags tags = MetricTags.NONE.withNode("node-1").withInstance(1).merge(MetricTags.address("/a").withInstance(2));
+        assertThat(tags.getNode(), is(Optional.of("node-1")));
+        assertThat(tags.getInstance(), is(Optional.of("2")));
+        assertThat(tags.getAddress(), is(Optional.of("/a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTagValue() {
+        MetricTags.NONE.withNode("node[1]");
+    }
+
+    @Test
+    public void testTaggedMetricRegistry() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final TaggedMetricRegistry taggedMetricRegistry = new TaggedMetricRegistry(metricRegistry, MetricTags.NONE.withNode("node-1"));
+        final TaggedMetricRegistry addressMetricRegistry = taggedMetricRegistry.withAddress("/a");
+
+        final Counter counter = MESSAGE_CONSUMER_MESSAGE_PROCESSING.counter(addressMetricRegistry);
+        counter.inc();
+        assertThat(metricRegistry.counter(MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName + "[node=node-1]::/a"), is(sameInstance(counter)));
+        assertThat(MESSAGE_CONSUMER_MESSAGE_PROCESSING.counter(taggedMetricRegistry), is(not(sameInstance(counter))));
+
+        assertThat(MESSAGE_CONSUMER_EXECUTION.histogram(addressMetricRegistry), is(sameInstance(addressMetricRegistry.hdrHistogram(MESSAGE_CONSUMER_EXECUTION.metricName))));
+        assertThat(MESSAGE_CONSUMER_REQUEST_SIZE.histogram(addressMetricRegistry), is(sameInstance(metricRegistry.histogram(MESSAGE_CONSUMER_REQUEST_SIZE.metricName + "[node=node-1]::/a"))));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Counters.MESSAGE_CONSUMER_MESSAGE_PROCESSING;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Meters.MESSAGE_SENT;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.Timers.MESSAGE_CONSUMER_HANDLER;
+import co.runrightfast.vertx.core.metrics.PrometheusTextFormat.MetricFamily;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class PrometheusTextFormatTest {
+
+    private final RunRightFastVerticleId verticleId = RunRightFastVerticleId.builder()
+            .group(RunRightFastVerticleId.RUNRIGHTFAST_GROUP)
+            .name("test")
+            .version("1.0.0")
+            .build();
+
+    @Test
+    public void testMetricFamilies() {
+        final MetricRegistry verticleMetricRegistry = new MetricRegistry();
+        verticleMetricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, "/a")).inc(2);
+        verticleMetricRegistry.counter(String.format("%s::%s", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, "/b")).inc(3);
+        verticleMetricRegistry.meter(String.format("%s::%s", MESSAGE_SENT.metricName, "/a")).mark(5);
+        verticleMetricRegistry.timer(String.format("%s::%s", MESSAGE_CONSUMER_HANDLER.metricName, "/a")).update(2, TimeUnit.SECONDS);
+        verticleMetricRegistry.register("GAUGE.text", (Gauge<String>) () -> "not a number");
+
+        final MetricRegistry vertxMetricRegistry = new MetricRegistry();
+        vertxMetricRegistry.register("vertx.verticles", (Gauge<Integer>) () -> 4);
+        vertxMetricRegistry.counter(MetricTags.address("/c").withNode("node-1").metricName("COUNTER.tagged")).inc();
+
+        final List<MetricFamily> metricFamilies = ImmutableList.copyOf(PrometheusTextFormat.metricFamilies(ImmutableMap.of(
+                verticleId.toString(), verticleMetricRegistry,
+                "vertx", vertxMetricRegistry
+        ), 10));
+        final StringBuilder sb = new StringBuilder();
+        metricFamilies.forEach(metricFamily -> metricFamily.write(sb));
+        final String text = sb.toString();
+
+        assertThat(metricFamilies.size(), is(5));
+        assertThat(text, containsString("# TYPE message_consumer_message_processing gauge\n"));
+        assertThat(text, containsString("message_consumer_message_processing{verticle=\"co.runrightfast:test:1.0.0\",address=\"/a\"} 2\n"));
+        assertThat(text, containsString("message_consumer_message_processing{verticle=\"co.runrightfast:test:1.0.0\",address=\"/b\"} 3\n"));
+        assertThat(text, containsString("# TYPE message_sent_total counter\n"));
+        assertThat(text, containsString("message_sent_total{verticle=\"co.runrightfast:test:1.0.0\",address=\"/a\"} 5\n"));
+        assertThat(text, containsString("# TYPE message_consumer_handler_seconds summary\n"));
+        assertThat(text, containsString("message_consumer_handler_seconds{verticle=\"co.runrightfast:test:1.0.0\",address=\"/a\",quantile=\"0.5\"} 2.0\n"));
+        assertThat(text, containsString("message_consumer_handler_seconds_sum{verticle=\"co.runrightfast:test:1.0.0\",address=\"/a\"} 2.0\n"));
+        assertThat(text, containsString("message_consumer_handler_seconds_count{verticle=\"co.runrightfast:test:1.0.0\",address=\"/a\"} 1\n"));
+        assertThat(text, containsString("vertx_verticles{registry=\"vertx\"} 4.0\n"));
+        assertThat(text, containsString("tagged{registry=\"vertx\",node=\"node-1\",address=\"/c\"} 1\n"));
+        assertThat(text, not(containsString("text")));
+    }
+
+    @Test
+    public void testSamplesPerMetricFamilyAreBounded() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        for (int i = 0; i < 20; i++) {
+            metricRegistry.counter(String.format("%s::/address-%d", MESSAGE_CONSUMER_MESSAGE_PROCESSING.metricName, i)).inc();
+        }
+
+        final List<MetricFamily> metricFamilies = ImmutableList.copyOf(PrometheusTextFormat.metricFamilies(ImmutableMap.of("registry\"1", metricRegistry), 5));
+        assertThat(metricFamilies.size(), is(1));
+        assertThat(metricFamilies.get(0).getSampleCount(), is(5));
+        assertThat(metricFamilies.get(0).getTruncatedSampleCount(), is(15));
+
+        final StringBuilder sb = new StringBuilder();
+        metricFamilies.get(0).write(sb);
+        assertThat(sb.toString(), containsString("# 15 samples were truncated\n"));
+        assertThat(sb.toString(), containsString("{registry=\"registry\\\"1\",address=\"/address-"));
+    }
+
+}
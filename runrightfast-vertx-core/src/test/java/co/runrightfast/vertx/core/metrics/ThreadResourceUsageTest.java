@@ -0,0 +1,60 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class ThreadResourceUsageTest {
+
+    @After
+    public void tearDown() {
+        ThreadResourceUsage.setEnabled(false);
+    }
+
+    @Test
+    public void testDisabled() {
+        ThreadResourceUsage.setEnabled(false);
+        assertThat(ThreadResourceUsage.isEnabled(), is(false));
+        assertThat(ThreadResourceUsage.currentThreadCpuTime(), is(-1L));
+        assertThat(ThreadResourceUsage.currentThreadAllocatedBytes(), is(-1L));
+    }
+
+    @Test
+    public void testEnabled() {
+        assertThat(ThreadResourceUsage.setEnabled(true), is(true));
+
+        final long cpuTimeStart = ThreadResourceUsage.currentThreadCpuTime();
+        final long allocatedBytesStart = ThreadResourceUsage.currentThreadAllocatedBytes();
+        final List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            strings.add(Integer.toString(i));
+        }
+        assertThat(strings.size(), is(100_000));
+        assertThat(ThreadResourceUsage.currentThreadCpuTime(), is(greaterThan(cpuTimeStart)));
+        assertThat(ThreadResourceUsage.currentThreadAllocatedBytes() - allocatedBytesStart, is(greaterThan(1_000_000L)));
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.tracing;
+
+import co.runrightfast.vertx.core.eventbus.MessageHeader;
+import co.runrightfast.vertx.core.verticles.verticleManager.messages.TraceSpan;
+import io.vertx.core.eventbus.DeliveryOptions;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class TracerTest {
+
+    @Test
+    public void testSpanRingBufferWrapsAround() {
+        final SpanRingBuffer buffer = new SpanRingBuffer(5);
+        assertThat(buffer.getCapacity(), is(8));
+        for (int i = 0; i < 20; i++) {
+            buffer.record(TraceSpan.newBuilder().setTraceId(Integer.toString(i % 2)).setSpanId(Integer.toString(i)).build());
+        }
+        assertThat(buffer.getRecordedCount(), is(20L));
+
+        final List<TraceSpan> spans = buffer.getSpans(span -> true, 100);
+        assertThat(spans.size(), is(8));
+        assertThat(spans.get(0).getSpanId(), is("19"));
+        assertThat(spans.get(7).getSpanId(), is("12"));
+
+        final List<TraceSpan> trace = buffer.getSpans(span -> span.getTraceId().equals("1"), 2);
+        assertThat(trace.size(), is(2));
+        assertThat(trace.get(0).getSpanId(), is("19"));
+        assertThat(trace.get(1).getSpanId(), is("17"));
+    }
+
+    @Test
+    public void testSpansAreRecordedWhenSampledOrSlow() {
+        final Tracer tracer = new Tracer(0.0, Duration.ofMillis(10), 16);
+        final TraceContext notSampled = tracer.newTrace();
+        assertThat(notSampled.isSampled(), is(false));
+
+        final long now = System.nanoTime();
+        tracer.record(notSampled, TraceSpan.Kind.EXECUTE, "/a", now - TimeUnit.MILLISECONDS.toNanos(1), now);
+        assertThat(tracer.getSpans().getRecordedCount(), is(0L));
+        tracer.record(notSampled, TraceSpan.Kind.EXECUTE, "/a", now - TimeUnit.MILLISECONDS.toNanos(10), now);
+        assertThat(tracer.getSpans().getRecordedCount(), is(1L));
+
+        final TraceContext sampled = TraceContext.newTrace(true).childSpan();
+        tracer.record(sampled, TraceSpan.Kind.QUEUE, "/a", now, now);
+        final TraceSpan span = tracer.getSpans().getSpans(s -> true, 1).get(0);
+        assertThat(span.getTraceId(), is(sampled.getTraceId()));
+        assertThat(span.getSpanId(), is(sampled.getSpanId()));
+        assertThat(span.getParentSpanId(), is(sampled.getParentSpanId().get()));
+        assertThat(span.getKind(), is(TraceSpan.Kind.QUEUE));
+    }
+
+    @Test
+    public void testTraceContextPropagation() {
+        final Tracer tracer = new Tracer(1.0, Duration.ofMillis(10), 16);
+        final TraceContext handlerSpan = tracer.newTrace();
+        Tracer.setCurrentTraceContext(Optional.of(handlerSpan));
+        try {
+            final DeliveryOptions options = new DeliveryOptions();
+            final TraceContext sendSpan = tracer.startSendSpan(options).get();
+            assertThat(sendSpan.getTraceId(), is(handlerSpan.getTraceId()));
+            assertThat(sendSpan.getParentSpanId().get(), is(handlerSpan.getSpanId()));
+
+            final TraceContext received = TraceContext.fromHeaders(options.getHeaders()).get();
+            assertThat(received.getTraceId(), is(sendSpan.getTraceId()));
+            assertThat(received.getSpanId(), is(sendSpan.getSpanId()));
+            assertThat(received.isSampled(), is(true));
+        } finally {
+            Tracer.clearCurrentTraceContext();
+        }
+
+        assertThat(Tracer.DISABLED.startSendSpan(new DeliveryOptions()).isPresent(), is(false));
+    }
+
+    @Test
+    public void testSlowSpansOfUnsampledTracesAreCorrelated() {
+        final Tracer tracer = new Tracer(0.0, Duration.ofMillis(10), 16);
+        final TraceContext handlerSpan = tracer.newTrace();
+        Tracer.setCurrentTraceContext(Optional.of(handlerSpan));
+        final DeliveryOptions options = new DeliveryOptions();
+        final TraceContext sendSpan;
+        try {
+            sendSpan = tracer.startSendSpan(options).get();
+        } finally {
+            Tracer.clearCurrentTraceContext();
+        }
+        assertThat(sendSpan.isSampled(), is(false));
+        assertThat(options.getHeaders().get(MessageHeader.TRACE_ID.header), is(handlerSpan.getTraceId()));
+        assertThat(options.getHeaders().get(MessageHeader.SPAN_ID.header), is(sendSpan.getSpanId()));
+        assertThat(options.getHeaders().get(MessageHeader.TRACE_SAMPLED.header), is("0"));
+
+        final TraceContext received = TraceContext.fromHeaders(options.getHeaders()).get();
+        assertThat(received.isSampled(), is(false));
+        final TraceContext consumerSpan = received.childSpan();
+
+        final long now = System.nanoTime();
+        tracer.record(consumerSpan, TraceSpan.Kind.EXECUTE, "/a", now - TimeUnit.MILLISECONDS.toNanos(10), now);
+        final TraceSpan span = tracer.getSpans().getSpans(s -> true, 1).get(0);
+        assertThat(span.getTraceId(), is(handlerSpan.getTraceId()));
+        assertThat(span.getSpanId(), is(consumerSpan.getSpanId()));
+        assertThat(span.getParentSpanId(), is(sendSpan.getSpanId()));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.core.verticles.metrics;
+
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
+import co.runrightfast.vertx.core.application.ApplicationId;
+import co.runrightfast.vertx.core.metrics.PrometheusTextFormat;
+import com.codahale.metrics.SharedMetricRegistries;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpServerOptions;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+public class MetricsHttpVerticleTest {
+
+    private static final int PORT = 9181;
+
+    private static final AppEventLogger appEventLogger = new AppEventJDKLogger(ApplicationId.builder()
+            .group("co.runrightfast")
+            .name("MetricsHttpVerticleTest")
+            .version("1.0.0").build()
+    );
+
+    private static Vertx vertx;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        vertx = Vertx.vertx();
+        final CompletableFuture<AsyncResult<String>> deployResult = new CompletableFuture<>();
+        vertx.deployVerticle(new MetricsHttpVerticle(appEventLogger, new HttpServerOptions().setHost("localhost").setPort(PORT), 100), deployResult::complete);
+        assertThat(deployResult.get(10, TimeUnit.SECONDS).succeeded(), is(true));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        vertx.close();
+    }
+
+    @Test
+    public void testScrapeMetrics() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            SharedMetricRegistries.getOrCreate("MetricsHttpVerticleTest").counter(String.format("COUNTER.test.counter-%d::/address/%d", i % 500, i)).inc(i);
+        }
+
+        final HttpClient httpClient = vertx.createHttpClient();
+        final CompletableFuture<Integer> statusCode = new CompletableFuture<>();
+        final CompletableFuture<String> body = new CompletableFuture<>();
+        Thread.sleep(100);
+        httpClient.getNow(PORT, "localhost", MetricsHttpVerticle.METRICS_PATH, response -> {
+            statusCode.complete(response.statusCode());
+            assertThat(response.getHeader("Content-Type"), is(PrometheusTextFormat.CONTENT_TYPE));
+            final Buffer buffer = Buffer.buffer();
+            response.handler(buffer::appendBuffer);
+            response.endHandler(v -> body.complete(buffer.toString()));
+        });
+
+        assertThat(statusCode.get(10, TimeUnit.SECONDS), is(200));
+        final String text = body.get(10, TimeUnit.SECONDS);
+        assertThat(text, containsString("# TYPE test_counter_0 gauge\n"));
+        assertThat(text, containsString("test_counter_499{registry=\"MetricsHttpVerticleTest\",address=\"/address/4999\"} 4999\n"));
+        // verticle metrics are also tagged with the node, i.e., the JVM id, which varies per process
+        assertThat(Pattern.compile("^verticle_instance_started\\{verticle=\"co\\.runrightfast:metrics-http:0\\.1\\.0\",node=\"[^\"]+\"\\} 1$", Pattern.MULTILINE)
+                .matcher(text).find(), is(true));
+
+        final CompletableFuture<Integer> notFoundStatusCode = new CompletableFuture<>();
+        httpClient.getNow(PORT, "localhost", "/not-found", response -> notFoundStatusCode.complete(response.statusCode()));
+        assertThat(notFoundStatusCode.get(10, TimeUnit.SECONDS), is(404));
+        httpClient.close();
+    }
+
+}
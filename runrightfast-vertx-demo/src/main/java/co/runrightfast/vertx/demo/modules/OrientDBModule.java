@@ -16,8 +16,7 @@
 package co.runrightfast.vertx.demo.modules;
 
 import co.runrightfast.core.application.event.AppEventLogger;
-import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
-import co.runrightfast.vertx.core.application.ApplicationId;
+import co.runrightfast.vertx.core.VertxService;
 import static co.runrightfast.core.docker.weave.WeaveUtils.getWeaveClusterHostIPAddress;
 import co.runrightfast.vertx.demo.orientdb.EventLogRepository;
 import co.runrightfast.vertx.orientdb.OrientDBPoolConfig;
@@ -32,6 +31,7 @@ import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import dagger.Module;
 import dagger.Provides;
 import io.vertx.core.DeploymentOptions;
+import java.time.Duration;
 import javax.inject.Singleton;
 import lombok.extern.java.Log;
 
@@ -55,10 +55,7 @@ public class OrientDBModule {
 
     @Provides
     @Singleton
-    public EmbeddedOrientDBServiceConfig providesEmbeddedOrientDBServiceConfig(final OrientDBConfig orientDBConfig) {
-        final ApplicationId appId = ApplicationId.builder().group("co.runrightfast").name("runrightfast-vertx-orientdb").version("1.0.0").build();
-        final AppEventLogger appEventLogger = new AppEventJDKLogger(appId);
-
+    public EmbeddedOrientDBServiceConfig providesEmbeddedOrientDBServiceConfig(final OrientDBConfig orientDBConfig, final AppEventLogger appEventLogger) {
         final String dbUrl = String.format("remote:%s/%s",
                 getWeaveClusterHostIPAddress().orElse(getWeaveClusterHostIPAddress("eth0").orElse("localhost")),
                 EventLogRepository.DB
@@ -68,7 +65,7 @@ public class OrientDBModule {
                 .property(OGlobalConfiguration.DB_POOL_MIN, "1")
                 .property(OGlobalConfiguration.DB_POOL_MAX, "50")
                 .databasePoolConfig(new OrientDBPoolConfig(EventLogRepository.DB, dbUrl, "admin", "admin", 10, ImmutableSet.of(() -> new SetCreatedOnAndUpdatedOn()), EventLogRecord.class))
-                .lifecycleListener(() -> new RunRightFastOrientDBLifeCycleListener(appEventLogger))
+                .lifecycleListener(() -> new RunRightFastOrientDBLifeCycleListener(appEventLogger, VertxService.metricRegistry, Duration.ofMinutes(1)))
                 .build();
     }
 
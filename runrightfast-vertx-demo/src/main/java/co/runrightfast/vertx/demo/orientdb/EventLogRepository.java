@@ -63,6 +63,11 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     public static final String DB = EventLogRepository.class.getSimpleName();
 
+    /**
+     * GetEvents responses larger than 1 MB are rejected - clients should page through the events using smaller limits
+     */
+    public static final int GET_EVENTS_RESPONSE_MAX_SIZE = 1024 * 1024;
+
     @Getter
     private final RunRightFastVerticleId runRightFastVerticleId = VERTICLE_ID;
 
@@ -115,7 +120,7 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     private void registerGetEventCountMessageConsumer() {
         final MessageConsumerConfig<GetEventCount.Request, GetEventCount.Response> config = MessageConsumerConfig.<GetEventCount.Request, GetEventCount.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetEventCount.Request, GetEventCount.Response>builder()
                         .address(eventBusAddress(GetEventCount.class))
                         .requestDefaultInstance(GetEventCount.Request.getDefaultInstance())
                         .responseDefaultInstance(GetEventCount.Response.getDefaultInstance())
@@ -138,7 +143,7 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     private void registerCreateEventCountMessageConsumer() {
         final MessageConsumerConfig<CreateEvent.Request, CreateEvent.Response> config = MessageConsumerConfig.<CreateEvent.Request, CreateEvent.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<CreateEvent.Request, CreateEvent.Response>builder()
                         .address(eventBusAddress(CreateEvent.class))
                         .requestDefaultInstance(CreateEvent.Request.getDefaultInstance())
                         .responseDefaultInstance(CreateEvent.Response.getDefaultInstance())
@@ -175,10 +180,11 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     private void registerGetEventsMessageConsumer() {
         final MessageConsumerConfig<GetEvents.Request, GetEvents.Response> config = MessageConsumerConfig.<GetEvents.Request, GetEvents.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetEvents.Request, GetEvents.Response>builder()
                         .address(eventBusAddress(GetEvents.class))
                         .requestDefaultInstance(GetEvents.Request.getDefaultInstance())
                         .responseDefaultInstance(GetEvents.Response.getDefaultInstance())
+                        .responseMaxSize(GET_EVENTS_RESPONSE_MAX_SIZE)
                         .build()
                 )
                 .handler(this::handleGetEvents)
@@ -18,6 +18,8 @@ package co.runrightfast.vertx.orientdb;
 import co.runrightfast.core.JsonRepresentation;
 import static co.runrightfast.core.utils.PreconditionErrorMessageTemplates.MUST_NOT_BE_BLANK;
 import static com.google.common.base.Preconditions.checkArgument;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import javax.json.Json;
 import javax.json.JsonObject;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -34,6 +36,7 @@ public interface OrientDBEvents {
     public static final String ODATABASE_DROP = "orientdb.db.drop";
     public static final String ODATABASE_CREATE_CLASS = "orientdb.db.createClass";
     public static final String ODATABASE_DROP_CLASS = "orientdb.db.dropClass";
+    public static final String ODATABASE_OPEN_CLOSE_SUMMARY = "orientdb.db.openCloseSummary";
 
     public static final class ODatabaseLifecycleEvent implements JsonRepresentation {
 
@@ -51,6 +54,13 @@ public interface OrientDBEvents {
                     .build();
         }
 
+        @Override
+        public void writeJson(final JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("db", db);
+            json.writeEndObject();
+        }
+
     }
 
     public static final class ODatabaseLifecycleClassEvent implements JsonRepresentation {
@@ -74,6 +84,57 @@ public interface OrientDBEvents {
                     .build();
         }
 
+        @Override
+        public void writeJson(final JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("db", db);
+            json.writeStringField("class", className);
+            json.writeEndObject();
+        }
+
+    }
+
+    /**
+     * Summarizes the number of times the database was opened and closed within the interval
+     */
+    public static final class ODatabaseLifecycleSummaryEvent implements JsonRepresentation {
+
+        private final String db;
+
+        private final long opens;
+
+        private final long closes;
+
+        private final long intervalMillis;
+
+        public ODatabaseLifecycleSummaryEvent(final String db, final long opens, final long closes, final long intervalMillis) {
+            checkArgument(isNotBlank(db), MUST_NOT_BE_BLANK, "db");
+            this.db = db;
+            this.opens = opens;
+            this.closes = closes;
+            this.intervalMillis = intervalMillis;
+        }
+
+        @Override
+        public JsonObject toJson() {
+            return Json.createObjectBuilder()
+                    .add("db", db)
+                    .add("opens", opens)
+                    .add("closes", closes)
+                    .add("intervalMillis", intervalMillis)
+                    .build();
+        }
+
+        @Override
+        public void writeJson(final JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("db", db);
+            json.writeNumberField("opens", opens);
+            json.writeNumberField("closes", closes);
+            json.writeNumberField("intervalMillis", intervalMillis);
+            json.writeEndObject();
+        }
+
     }
 
 }
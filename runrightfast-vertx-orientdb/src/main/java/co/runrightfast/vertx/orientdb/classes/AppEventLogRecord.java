@@ -0,0 +1,218 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.classes;
+
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.data;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.data_type;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.event;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.exception;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.exception_class;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.exception_fingerprint;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.level;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.msg;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.tags;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.timestamp;
+import static co.runrightfast.vertx.orientdb.classes.AppEventLogRecord.Field.verticle_id;
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.collect.ImmutableList;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import java.util.Date;
+import java.util.List;
+import lombok.NonNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Persisted {@link co.runrightfast.core.application.event.AppEvent}
+ *
+ * @author alfio
+ */
+public class AppEventLogRecord extends Timestamped {
+
+    public static enum Field {
+
+        event,
+        /**
+         * AppEventLevel id
+         */
+        level,
+        /**
+         * event timestamp
+         */
+        timestamp,
+        msg,
+        exception_class,
+        exception_fingerprint,
+        /**
+         * the stack trace for the first occurrence of the exception fingerprint within the fingerprint window, otherwise the exception message
+         */
+        exception,
+        tags,
+        data_type,
+        data,
+        /**
+         * group:name:version
+         */
+        verticle_id
+    }
+
+    public static AppEventLogRecord newAppEventLogRecord() {
+        final AppEventLogRecord record = new AppEventLogRecord();
+        final Date now = new Date();
+        record.getDocument().field(Timestamped.Field.created_on.name(), now);
+        record.getDocument().field(Timestamped.Field.updated_on.name(), now);
+        return record;
+    }
+
+    /**
+     * Creates the class, if it does not exist, including the {@link Timestamped} super class. The event, level, and timestamp fields are indexed.
+     *
+     * Schema changes cannot be made within a transaction.
+     *
+     * @param schema database schema
+     * @return the AppEventLogRecord class
+     */
+    public static OClass createSchemaIfNotExists(@NonNull final OSchema schema) {
+        OClass timestampedClass = schema.getClass(Timestamped.class.getSimpleName());
+        if (timestampedClass == null) {
+            timestampedClass = schema.createAbstractClass(Timestamped.class.getSimpleName());
+            timestampedClass.createProperty(Timestamped.Field.created_on.name(), OType.DATETIME);
+            timestampedClass.createProperty(Timestamped.Field.updated_on.name(), OType.DATETIME);
+        }
+
+        OClass appEventLogRecordClass = schema.getClass(AppEventLogRecord.class.getSimpleName());
+        if (appEventLogRecordClass == null) {
+            appEventLogRecordClass = schema.createClass(AppEventLogRecord.class.getSimpleName()).setSuperClasses(ImmutableList.of(timestampedClass));
+            appEventLogRecordClass.createProperty(event.name(), OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+            appEventLogRecordClass.createProperty(level.name(), OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+            appEventLogRecordClass.createProperty(timestamp.name(), OType.DATETIME).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+            appEventLogRecordClass.createProperty(msg.name(), OType.STRING);
+            appEventLogRecordClass.createProperty(exception_class.name(), OType.STRING);
+            appEventLogRecordClass.createProperty(exception_fingerprint.name(), OType.STRING);
+            appEventLogRecordClass.createProperty(exception.name(), OType.STRING);
+            appEventLogRecordClass.createProperty(tags.name(), OType.EMBEDDEDLIST, OType.STRING);
+            appEventLogRecordClass.createProperty(data_type.name(), OType.STRING);
+            appEventLogRecordClass.createProperty(data.name(), OType.EMBEDDED);
+            appEventLogRecordClass.createProperty(verticle_id.name(), OType.STRING);
+        }
+        return appEventLogRecordClass;
+    }
+
+    public AppEventLogRecord() {
+        super();
+    }
+
+    public AppEventLogRecord(final ODocument doc) {
+        super(doc);
+    }
+
+    public String getEvent() {
+        return document.field(event.name());
+    }
+
+    public AppEventLogRecord setEvent(final String event) {
+        checkArgument(isNotBlank(event));
+        document.field(Field.event.name(), event);
+        return this;
+    }
+
+    public Integer getLevel() {
+        return document.field(level.name());
+    }
+
+    public AppEventLogRecord setLevel(final int level) {
+        document.field(Field.level.name(), level);
+        return this;
+    }
+
+    public Date getTimestamp() {
+        return document.field(timestamp.name());
+    }
+
+    public AppEventLogRecord setTimestamp(@NonNull final Date timestamp) {
+        document.field(Field.timestamp.name(), timestamp);
+        return this;
+    }
+
+    public String getMsg() {
+        return document.field(msg.name());
+    }
+
+    public AppEventLogRecord setMsg(final String msg) {
+        document.field(Field.msg.name(), msg);
+        return this;
+    }
+
+    public String getExceptionClass() {
+        return document.field(exception_class.name());
+    }
+
+    public String getExceptionFingerprint() {
+        return document.field(exception_fingerprint.name());
+    }
+
+    public String getException() {
+        return document.field(exception.name());
+    }
+
+    public AppEventLogRecord setException(@NonNull final String exceptionClass, @NonNull final String exceptionFingerprint, final String exception) {
+        document.field(Field.exception_class.name(), exceptionClass);
+        document.field(Field.exception_fingerprint.name(), exceptionFingerprint);
+        document.field(Field.exception.name(), exception);
+        return this;
+    }
+
+    public List<String> getTags() {
+        return document.field(tags.name());
+    }
+
+    public AppEventLogRecord setTags(@NonNull final List<String> tags) {
+        document.field(Field.tags.name(), tags, OType.EMBEDDEDLIST);
+        return this;
+    }
+
+    public String getDataType() {
+        return document.field(data_type.name());
+    }
+
+    public ODocument getData() {
+        return document.field(data.name());
+    }
+
+    /**
+     *
+     * @param dataType data type
+     * @param json data JSON object
+     * @return this
+     */
+    public AppEventLogRecord setData(@NonNull final String dataType, @NonNull final String json) {
+        document.field(Field.data_type.name(), dataType);
+        document.field(Field.data.name(), new ODocument().fromJSON(json), OType.EMBEDDED);
+        return this;
+    }
+
+    public String getVerticleId() {
+        return document.field(verticle_id.name());
+    }
+
+    public AppEventLogRecord setVerticleId(@NonNull final String verticleId) {
+        document.field(Field.verticle_id.name(), verticleId);
+        return this;
+    }
+
+}
@@ -0,0 +1,307 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.event;
+
+import co.runrightfast.core.application.event.AppEvent;
+import co.runrightfast.core.application.event.AppEvent.AppEventLevel;
+import co.runrightfast.core.application.event.AppEventLogger;
+import co.runrightfast.core.application.event.ExceptionFingerprints.Occurrence;
+import co.runrightfast.core.utils.StreamingJsonRenderer;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.gaugeName;
+import co.runrightfast.vertx.orientdb.ODatabaseDocumentTxSupplier;
+import co.runrightfast.vertx.orientdb.classes.AppEventLogRecord;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.logging.Level.SEVERE;
+import java.util.logging.Logger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Persists events as {@link AppEventLogRecord} documents, which makes the events queryable.
+ *
+ * Events are queued and persisted asynchronously by a single background writer thread. The writer commits events in batches, i.e., in one transaction per
+ * batch - see {@link OrientDBAppEventLoggerConfig}. Callers are never blocked: INFO events are dropped once the queue is 3/4 full, and events of any level
+ * are dropped once the queue is full. Dropped events are counted per level.
+ *
+ * The AppEventLogRecord class and its indexes are created, if they do not exist, before the first batch is committed. Failures are logged via JDK logging,
+ * i.e., not as events, to avoid feeding failures back into the logger.
+ *
+ * The writer thread obtains a single database instance, which it keeps open until the logger is closed. The instance is only replaced after a failed commit.
+ * Opening and closing a database fires the {@link co.runrightfast.vertx.orientdb.lifecycle.RunRightFastOrientDBLifeCycleListener} onOpen and onClose
+ * callbacks, which log an event per open and close unless the listener is aggregating. If this logger is the application's event logger, then obtaining a
+ * database per batch would log new events on every commit, which would trigger another commit - forever. Thus, when the supplier returns pooled instances,
+ * one instance is held by the logger.
+ *
+ * @author alfio
+ */
+public final class OrientDBAppEventLogger implements AppEventLogger, AutoCloseable {
+
+    private static final String CLASS_NAME = OrientDBAppEventLogger.class.getName();
+
+    private static final Logger log = Logger.getLogger(CLASS_NAME);
+
+    public static final String QUEUED_EVENTS = gaugeName("orientdb-app-event-logger", "queued");
+
+    public static final String PERSISTED_EVENTS = gaugeName("orientdb-app-event-logger", "persisted");
+
+    public static final String FAILED_EVENTS = gaugeName("orientdb-app-event-logger", "failed");
+
+    // the event level is appended to the metric name, e.g., GAUGE.orientdb-app-event-logger.dropped.info
+    public static final String DROPPED_EVENTS = gaugeName("orientdb-app-event-logger", "dropped");
+
+    private final ODatabaseDocumentTxSupplier databaseSupplier;
+
+    @Getter
+    private final OrientDBAppEventLoggerConfig config;
+
+    private final BlockingQueue<AppEvent> queue;
+
+    /**
+     * Tracks the queue size, i.e., checking the high water mark does not acquire the queue lock.
+     */
+    private final AtomicInteger queuedEvents = new AtomicInteger();
+
+    private final int highWaterMark;
+
+    private final Map<AppEventLevel, LongAdder> droppedEvents = new EnumMap<>(AppEventLevel.class);
+
+    private final LongAdder persistedEvents = new LongAdder();
+
+    private final LongAdder failedEvents = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    private boolean schemaCreated;
+
+    /**
+     * Only accessed by the writer thread
+     */
+    private ODatabaseDocumentTx database;
+
+    /**
+     *
+     * @param databaseSupplier used to obtain the database instance that is used by the writer thread
+     * @param config config
+     */
+    public OrientDBAppEventLogger(@NonNull final ODatabaseDocumentTxSupplier databaseSupplier, @NonNull final OrientDBAppEventLoggerConfig config) {
+        this.databaseSupplier = databaseSupplier;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getBufferSize());
+        this.highWaterMark = config.getBufferSize() - (config.getBufferSize() >> 2);
+        Arrays.stream(AppEventLevel.values()).forEach(level -> droppedEvents.put(level, new LongAdder()));
+
+        this.writer = new Thread(this::writeEvents, "OrientDBAppEventLogger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void accept(@NonNull final AppEvent event) {
+        if (!running) {
+            dropEvent(event);
+            return;
+        }
+        if (!event.getEventLevel().isWarnErrorAlert() && queuedEvents.get() >= highWaterMark) {
+            dropEvent(event);
+            return;
+        }
+        if (queue.offer(event)) {
+            queuedEvents.incrementAndGet();
+        } else {
+            dropEvent(event);
+        }
+    }
+
+    /**
+     * Stops the writer thread after the queued events have been committed.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer thread to terminate
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10) + config.getBatchInterval().toMillis());
+    }
+
+    public int getQueuedEventCount() {
+        return queuedEvents.get();
+    }
+
+    public long getPersistedEventCount() {
+        return persistedEvents.sum();
+    }
+
+    public long getFailedEventCount() {
+        return failedEvents.sum();
+    }
+
+    public long getDroppedEventCount(@NonNull final AppEventLevel level) {
+        return droppedEvents.get(level).sum();
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEvents.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Registers gauges for the number of queued, persisted, and failed events, and the number of dropped events per level.
+     *
+     * @param metricRegistry MetricRegistry
+     */
+    public void registerMetrics(@NonNull final MetricRegistry metricRegistry) {
+        registerGauge(metricRegistry, QUEUED_EVENTS, this::getQueuedEventCount);
+        registerGauge(metricRegistry, PERSISTED_EVENTS, this::getPersistedEventCount);
+        registerGauge(metricRegistry, FAILED_EVENTS, this::getFailedEventCount);
+        Arrays.stream(AppEventLevel.values()).forEach(level -> {
+            registerGauge(metricRegistry, MetricRegistry.name(DROPPED_EVENTS, level.name().toLowerCase()), () -> getDroppedEventCount(level));
+        });
+    }
+
+    /**
+     * Replaces any gauges registered by a previous logger instance
+     */
+    private static <T> void registerGauge(final MetricRegistry metricRegistry, final String name, final Gauge<T> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    /**
+     * Must be invoked while the database is active on the current thread.
+     *
+     * @param event event
+     * @return a new record that has not been saved
+     */
+    public static AppEventLogRecord toAppEventLogRecord(@NonNull final AppEvent event) {
+        final AppEventLogRecord record = AppEventLogRecord.newAppEventLogRecord()
+                .setEvent(event.getEvent())
+                .setLevel(event.getEventLevel().id)
+                .setTimestamp(new Date(event.getTimestampMillis()));
+        if (event.getMessage() != null) {
+            record.setMsg(event.getMessage());
+        }
+        if (event.getException() != null) {
+            final Throwable exception = event.getException();
+            final Occurrence occurrence = event.getExceptionOccurrence().get();
+            record.setException(
+                    exception.getClass().getName(),
+                    occurrence.getFingerprint(),
+                    occurrence.isLogStackTrace() ? ExceptionUtils.getStackTrace(exception) : exception.getMessage()
+            );
+        }
+        if (!event.getTags().isEmpty()) {
+            record.setTags(event.getTags());
+        }
+        if (event.getData() != null) {
+            record.setData(event.getData().getType(), StreamingJsonRenderer.render(event.getData()::writeJson));
+        }
+        if (event.getVerticleId() != null) {
+            final RunRightFastVerticleId verticleId = event.getVerticleId();
+            record.setVerticleId(String.join(":", verticleId.getGroup(), verticleId.getName(), verticleId.getVersion()));
+        }
+        return record;
+    }
+
+    private void dropEvent(final AppEvent event) {
+        droppedEvents.get(event.getEventLevel()).increment();
+    }
+
+    private void writeEvents() {
+        final List<AppEvent> batch = new ArrayList<>(config.getBatchSize());
+        final long batchIntervalMillis = config.getBatchInterval().toMillis();
+        long batchDeadline = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            final long timeout = batch.isEmpty() ? batchIntervalMillis : Math.max(0, batchDeadline - System.currentTimeMillis());
+            try {
+                final AppEvent event = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    if (batch.isEmpty()) {
+                        batchDeadline = System.currentTimeMillis() + batchIntervalMillis;
+                    }
+                    batch.add(event);
+                    queuedEvents.addAndGet(-1 - queue.drainTo(batch, config.getBatchSize() - batch.size()));
+                }
+            } catch (final InterruptedException ex) {
+                running = false;
+            }
+
+            if (batch.size() >= config.getBatchSize() || (!batch.isEmpty() && (System.currentTimeMillis() >= batchDeadline || !running))) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+        closeDatabase();
+    }
+
+    private void commit(final List<AppEvent> batch) {
+        try {
+            if (database == null) {
+                database = databaseSupplier.get();
+            }
+            final ODatabaseDocumentTx db = database;
+            db.activateOnCurrentThread();
+            if (!schemaCreated) {
+                AppEventLogRecord.createSchemaIfNotExists(db.getMetadata().getSchema());
+                schemaCreated = true;
+            }
+            db.begin();
+            try {
+                batch.forEach(event -> toAppEventLogRecord(event).save());
+                db.commit();
+            } catch (final Throwable t) {
+                db.rollback();
+                throw t;
+            }
+            persistedEvents.add(batch.size());
+        } catch (final Throwable t) {
+            failedEvents.add(batch.size());
+            log.logp(SEVERE, CLASS_NAME, "commit", String.format("failed to persist %d events", batch.size()), t);
+            // the database instance may be broken - a new one is obtained for the next batch
+            closeDatabase();
+        }
+    }
+
+    private void closeDatabase() {
+        if (database == null) {
+            return;
+        }
+        try {
+            database.activateOnCurrentThread();
+            database.close();
+        } catch (final Throwable t) {
+            log.logp(SEVERE, CLASS_NAME, "closeDatabase", "failed to close database", t);
+        } finally {
+            database = null;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.event;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link OrientDBAppEventLogger} config
+ *
+ * @author alfio
+ */
+@Builder
+@ToString
+public final class OrientDBAppEventLoggerConfig {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final Duration DEFAULT_BATCH_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * The max number of events that are queued to be persisted. INFO events are dropped once the queue is 3/4 full, which reserves the remaining capacity
+     * for WARN, ERROR, ALERT, and CLEAR events. Events of any level are dropped once the queue is full.
+     */
+    @Getter
+    private final int bufferSize;
+
+    /**
+     * A batch is committed once it contains this many events
+     */
+    @Getter
+    private final int batchSize;
+
+    /**
+     * A batch is committed when this amount of time has passed since the first event was added to the batch, even if the batch is not full
+     */
+    @Getter
+    private final Duration batchInterval;
+
+    public OrientDBAppEventLoggerConfig(final int bufferSize, final int batchSize, @NonNull final Duration batchInterval) {
+        checkArgument(bufferSize >= 4, "bufferSize must be >= 4");
+        checkArgument(batchSize > 0, "batchSize must be > 0");
+        checkArgument(!(batchInterval.isNegative() || batchInterval.isZero()), "batchInterval must be > 0");
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+    }
+
+    public static OrientDBAppEventLoggerConfig defaultConfig() {
+        return new OrientDBAppEventLoggerConfig(DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_INTERVAL);
+    }
+
+}
@@ -18,6 +18,8 @@ package co.runrightfast.vertx.orientdb.impl;
 import co.runrightfast.vertx.orientdb.ODatabaseDocumentTxSupplier;
 import co.runrightfast.vertx.orientdb.OrientDBPoolConfig;
 import co.runrightfast.vertx.orientdb.OrientDBPoolService;
+import co.runrightfast.vertx.orientdb.jfr.ODatabaseAcquireRecording;
+import co.runrightfast.vertx.orientdb.jfr.OrientDBFlightRecorderEvents;
 import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
@@ -92,15 +94,33 @@ public class OrientDBPoolServiceImpl extends AbstractIdleService implements Orie
         this.oDatabaseDocumentTxSuppliers = oDatabaseDocumentTxSupplierMapBuilder.build();
     }
 
+    /**
+     * Acquiring and releasing database instances is recorded via ODatabaseAcquireEvent and ODatabaseReleaseEvent Flight Recorder events - see
+     * {@link OrientDBFlightRecorderEvents}.
+     *
+     * @param poolConfig pool config
+     * @param pool database pool
+     * @return ODatabaseDocumentTxSupplier
+     */
     private ODatabaseDocumentTxSupplier createODatabaseDocumentTxSupplier(final OrientDBPoolConfig poolConfig, final OPartitionedDatabasePool pool) {
+        final String databaseName = poolConfig.getDatabaseName();
         if (CollectionUtils.isNotEmpty(poolConfig.getHooks())) {
             return () -> {
+                final ODatabaseAcquireRecording event = OrientDBFlightRecorderEvents.databaseAcquire();
                 final ODatabaseDocumentTx db = pool.acquire();
                 poolConfig.getHooks().stream().forEach(hook -> db.registerHook(hook.get()));
+                event.complete(databaseName);
+                OrientDBFlightRecorderEvents.onRelease(databaseName, db);
                 return db;
             };
         } else {
-            return () -> pool.acquire();
+            return () -> {
+                final ODatabaseAcquireRecording event = OrientDBFlightRecorderEvents.databaseAcquire();
+                final ODatabaseDocumentTx db = pool.acquire();
+                event.complete(databaseName);
+                OrientDBFlightRecorderEvents.onRelease(databaseName, db);
+                return db;
+            };
         }
     }
 
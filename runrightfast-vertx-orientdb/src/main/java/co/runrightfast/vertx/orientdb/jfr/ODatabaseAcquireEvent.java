@@ -0,0 +1,50 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for acquiring a database instance from the pool. The event duration is the time spent waiting on the pool, plus registering hooks.
+ * Use {@link OrientDBFlightRecorderEvents#databaseAcquire()} to start the event.
+ *
+ * @author alfio
+ */
+@Name("co.runrightfast.orientdb.ODatabaseAcquire")
+@Label("ODatabase Acquire")
+@Category({"RunRightFast", "OrientDB"})
+@Description("Acquire a database instance from the pool")
+@Threshold("1 ms")
+final class ODatabaseAcquireEvent extends Event implements ODatabaseAcquireRecording {
+
+    @Label("Database")
+    String database;
+
+    @Override
+    public void complete(final String database) {
+        end();
+        if (shouldCommit()) {
+            this.database = database;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.jfr;
+
+/**
+ * A started {@link ODatabaseAcquireEvent} - see {@link OrientDBFlightRecorderEvents#databaseAcquire()}.
+ *
+ * @author alfio
+ */
+public interface ODatabaseAcquireRecording {
+
+    static final ODatabaseAcquireRecording NOOP = database -> {
+    };
+
+    /**
+     * Ends the recording, and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param database database name
+     */
+    void complete(String database);
+
+}
@@ -0,0 +1,66 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.jfr;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import lombok.NonNull;
+
+/**
+ * Flight Recorder event for releasing a database instance back to the pool. The event duration is how long the database instance was held, i.e., from when it
+ * was acquired until it was closed. The stack trace identifies the code that closed the database. Use
+ * {@link OrientDBFlightRecorderEvents#onRelease(java.lang.String, com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx)} to record the event.
+ *
+ * @author alfio
+ */
+@Name("co.runrightfast.orientdb.ODatabaseRelease")
+@Label("ODatabase Release")
+@Category({"RunRightFast", "OrientDB"})
+@Description("Release a database instance back to the pool")
+@Threshold("10 ms")
+final class ODatabaseReleaseEvent extends Event {
+
+    @Label("Database")
+    String database;
+
+    /**
+     * If the event is enabled, then the event is started and committed when the database is closed. Otherwise, this is a no-op.
+     *
+     * @param database database name
+     * @param db database instance that was acquired from the pool
+     */
+    static void onRelease(@NonNull final String database, @NonNull final ODatabaseDocumentTx db) {
+        final ODatabaseReleaseEvent event = new ODatabaseReleaseEvent();
+        if (event.isEnabled()) {
+            event.database = database;
+            event.begin();
+            db.registerListener(new ODatabaseReleaseEventListener(event));
+        }
+    }
+
+    void complete() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.jfr;
+
+import com.orientechnologies.orient.core.command.OCommandExecutor;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.ODatabaseListener;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Commits the {@link ODatabaseReleaseEvent} when the database is closed, and then unregisters itself - pooled database instances are reused.
+ *
+ * @author alfio
+ */
+@RequiredArgsConstructor
+final class ODatabaseReleaseEventListener implements ODatabaseListener {
+
+    private final ODatabaseReleaseEvent event;
+
+    @Override
+    public void onClose(final ODatabase db) {
+        event.complete();
+        db.unregisterListener(this);
+    }
+
+    @Override
+    public void onCreate(final ODatabase db) {
+    }
+
+    @Override
+    public void onDelete(final ODatabase db) {
+    }
+
+    @Override
+    public void onOpen(final ODatabase db) {
+    }
+
+    @Override
+    public void onBeforeTxBegin(final ODatabase db) {
+    }
+
+    @Override
+    public void onBeforeTxRollback(final ODatabase db) {
+    }
+
+    @Override
+    public void onAfterTxRollback(final ODatabase db) {
+    }
+
+    @Override
+    public void onBeforeTxCommit(final ODatabase db) {
+    }
+
+    @Override
+    public void onAfterTxCommit(final ODatabase db) {
+    }
+
+    @Override
+    public void onBeforeCommand(final OCommandRequestText request, final OCommandExecutor executor) {
+    }
+
+    @Override
+    public void onAfterCommand(final OCommandRequestText request, final OCommandExecutor executor, final Object result) {
+    }
+
+    @Override
+    public boolean onCorruptionRepairDatabase(final ODatabase db, final String reason, final String whatWillbeFixed) {
+        return false;
+    }
+
+}
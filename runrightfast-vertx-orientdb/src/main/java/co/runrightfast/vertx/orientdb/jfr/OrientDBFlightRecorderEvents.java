@@ -0,0 +1,70 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.jfr;
+
+import co.runrightfast.vertx.core.jfr.FlightRecorderEvents;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import lombok.NonNull;
+
+/**
+ * Entry point for the OrientDB Flight Recorder events. If the jdk.jfr API is not available, then these are no-ops, and the event classes are never loaded -
+ * see {@link FlightRecorderEvents#isAvailable()}.
+ *
+ * @author alfio
+ */
+public final class OrientDBFlightRecorderEvents {
+
+    private OrientDBFlightRecorderEvents() {
+    }
+
+    /**
+     *
+     * @return a started {@link ODatabaseAcquireEvent}, or a no-op recording if Flight Recorder is not available
+     */
+    public static ODatabaseAcquireRecording databaseAcquire() {
+        return FlightRecorderEvents.isAvailable() ? Events.databaseAcquire() : ODatabaseAcquireRecording.NOOP;
+    }
+
+    /**
+     * Records an {@link ODatabaseReleaseEvent} when the database is closed, if Flight Recorder is available and the event is enabled.
+     *
+     * @param database database name
+     * @param db database instance that was acquired from the pool
+     */
+    public static void onRelease(@NonNull final String database, @NonNull final ODatabaseDocumentTx db) {
+        if (FlightRecorderEvents.isAvailable()) {
+            Events.onRelease(database, db);
+        }
+    }
+
+    /**
+     * Isolates the references to the event classes, which extend jdk.jfr.Event. This class is only loaded when Flight Recorder is available.
+     */
+    private static final class Events {
+
+        static ODatabaseAcquireRecording databaseAcquire() {
+            final ODatabaseAcquireEvent event = new ODatabaseAcquireEvent();
+            event.begin();
+            return event;
+        }
+
+        static void onRelease(final String database, final ODatabaseDocumentTx db) {
+            ODatabaseReleaseEvent.onRelease(database, db);
+        }
+
+    }
+
+}
@@ -17,30 +17,82 @@ package co.runrightfast.vertx.orientdb.lifecycle;
 
 import co.runrightfast.core.application.event.AppEvent;
 import co.runrightfast.core.application.event.AppEventLogger;
+import static co.runrightfast.vertx.core.RunRightFastVerticleMetrics.counterName;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_CLOSE;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_CREATE;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_CREATE_CLASS;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_DROP;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_DROP_CLASS;
 import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_OPEN;
+import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_OPEN_CLOSE_SUMMARY;
 import co.runrightfast.vertx.orientdb.OrientDBEvents.ODatabaseLifecycleClassEvent;
 import co.runrightfast.vertx.orientdb.OrientDBEvents.ODatabaseLifecycleEvent;
+import co.runrightfast.vertx.orientdb.OrientDBEvents.ODatabaseLifecycleSummaryEvent;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import static com.google.common.base.Preconditions.checkArgument;
 import com.orientechnologies.orient.core.db.ODatabaseInternal;
 import com.orientechnologies.orient.core.db.ODatabaseLifecycleListener;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
-import lombok.RequiredArgsConstructor;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
 import lombok.extern.java.Log;
 
 /**
+ * By default, an AppEvent is logged for each database lifecycle event.
+ *
+ * When created with a MetricRegistry, the listener runs in aggregating mode: database opens and closes are counted per database, instead of logging an event for
+ * each open and close, which happens for every database request when using a pool. The counts are exported as metrics, and summary events are logged at most
+ * once per summary interval. The summaries are logged from within the open and close callbacks, i.e., a summary is logged when there is database activity after
+ * the summary interval has elapsed. Create, drop, and schema change events are always logged individually.
  *
  * @author alfio
  */
 @Log
-@RequiredArgsConstructor
 public class RunRightFastOrientDBLifeCycleListener implements ODatabaseLifecycleListener {
 
     private final AppEventLogger appEventLogger;
 
+    private final Optional<MetricRegistry> metricRegistry;
+
+    private final long summaryIntervalMillis;
+
+    private final ConcurrentHashMap<String, DatabaseCounters> databaseCounters = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSummaryTime = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Logs an event for each database lifecycle event
+     *
+     * @param appEventLogger REQUIRED
+     */
+    public RunRightFastOrientDBLifeCycleListener(@NonNull final AppEventLogger appEventLogger) {
+        this.appEventLogger = appEventLogger;
+        this.metricRegistry = Optional.empty();
+        this.summaryIntervalMillis = 0;
+    }
+
+    /**
+     * Aggregates database opens and closes
+     *
+     * @param appEventLogger REQUIRED
+     * @param metricRegistry REQUIRED - open and close counters are registered per database
+     * @param summaryInterval REQUIRED - the minimum interval between summary events
+     */
+    public RunRightFastOrientDBLifeCycleListener(@NonNull final AppEventLogger appEventLogger, @NonNull final MetricRegistry metricRegistry, @NonNull final Duration summaryInterval) {
+        checkArgument(!summaryInterval.isNegative() && !summaryInterval.isZero(), "summaryInterval must be > 0");
+        this.appEventLogger = appEventLogger;
+        this.metricRegistry = Optional.of(metricRegistry);
+        this.summaryIntervalMillis = summaryInterval.toMillis();
+    }
+
+    public boolean isAggregating() {
+        return metricRegistry.isPresent();
+    }
+
     @Override
     public PRIORITY getPriority() {
         return PRIORITY.REGULAR;
@@ -56,6 +108,11 @@ public class RunRightFastOrientDBLifeCycleListener implements ODatabaseLifecycle
 
     @Override
     public void onOpen(final ODatabaseInternal odi) {
+        if (isAggregating()) {
+            databaseCounters(odi.getName()).opens.inc();
+            logSummaryIfDue();
+            return;
+        }
         appEventLogger.accept(AppEvent.info(ODATABASE_OPEN)
                 .setData(new ODatabaseLifecycleEvent(odi.getName()))
                 .build()
@@ -64,6 +121,11 @@ public class RunRightFastOrientDBLifeCycleListener implements ODatabaseLifecycle
 
     @Override
     public void onClose(final ODatabaseInternal odi) {
+        if (isAggregating()) {
+            databaseCounters(odi.getName()).closes.inc();
+            logSummaryIfDue();
+            return;
+        }
         appEventLogger.accept(AppEvent.info(ODATABASE_CLOSE)
                 .setData(new ODatabaseLifecycleEvent(odi.getName()))
                 .build()
@@ -94,4 +156,91 @@ public class RunRightFastOrientDBLifeCycleListener implements ODatabaseLifecycle
         );
     }
 
+    /**
+     *
+     * @param db database name
+     * @return the number of times the database has been opened, or 0 if not aggregating
+     */
+    public long getOpenCount(final String db) {
+        final DatabaseCounters counters = databaseCounters.get(db);
+        return counters != null ? counters.opens.getCount() : 0;
+    }
+
+    /**
+     *
+     * @param db database name
+     * @return the number of times the database has been closed, or 0 if not aggregating
+     */
+    public long getCloseCount(final String db) {
+        final DatabaseCounters counters = databaseCounters.get(db);
+        return counters != null ? counters.closes.getCount() : 0;
+    }
+
+    /**
+     * Logs a summary event for each database that was opened or closed since the last summary
+     */
+    public void logSummary() {
+        final long now = System.currentTimeMillis();
+        logSummary(now - lastSummaryTime.getAndSet(now));
+    }
+
+    private void logSummaryIfDue() {
+        final long lastSummary = lastSummaryTime.get();
+        final long now = System.currentTimeMillis();
+        // only 1 thread wins the CAS and logs the summary for the interval
+        if (now - lastSummary >= summaryIntervalMillis && lastSummaryTime.compareAndSet(lastSummary, now)) {
+            logSummary(now - lastSummary);
+        }
+    }
+
+    private void logSummary(final long intervalMillis) {
+        databaseCounters.forEach((db, counters) -> counters.summary(db, intervalMillis).ifPresent(summary -> {
+            appEventLogger.accept(AppEvent.info(ODATABASE_OPEN_CLOSE_SUMMARY)
+                    .setData(summary)
+                    .build()
+            );
+        }));
+    }
+
+    private DatabaseCounters databaseCounters(final String db) {
+        final DatabaseCounters counters = databaseCounters.get(db);
+        if (counters != null) {
+            return counters;
+        }
+        return databaseCounters.computeIfAbsent(db, name -> new DatabaseCounters(metricRegistry.get(), name));
+    }
+
+    /**
+     * The metrics Counters are backed by striped adders, i.e., concurrent opens and closes do not contend on a single value
+     */
+    private static final class DatabaseCounters {
+
+        final Counter opens;
+
+        final Counter closes;
+
+        long summarizedOpens;
+
+        long summarizedCloses;
+
+        DatabaseCounters(final MetricRegistry metricRegistry, final String db) {
+            this.opens = metricRegistry.counter(counterName("orientdb", "db", db, "open"));
+            this.closes = metricRegistry.counter(counterName("orientdb", "db", db, "close"));
+        }
+
+        synchronized Optional<ODatabaseLifecycleSummaryEvent> summary(final String db, final long intervalMillis) {
+            final long openCount = opens.getCount();
+            final long closeCount = closes.getCount();
+            final long openDelta = openCount - summarizedOpens;
+            final long closeDelta = closeCount - summarizedCloses;
+            summarizedOpens = openCount;
+            summarizedCloses = closeCount;
+            if (openDelta == 0 && closeDelta == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new ODatabaseLifecycleSummaryEvent(db, openDelta, closeDelta, intervalMillis));
+        }
+
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ Copyright 2015 Alfio Zappala
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package co.runrightfast.vertx.orientdb.event;
+
+import co.runrightfast.core.application.event.AppEvent;
+import static co.runrightfast.core.application.event.AppEvent.AppEventLevel.INFO;
+import co.runrightfast.vertx.core.RunRightFastVerticleId;
+import co.runrightfast.vertx.orientdb.classes.AppEventLogRecord;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.json.Json;
+import lombok.extern.java.Log;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author alfio
+ */
+@Log
+public class OrientDBAppEventLoggerTest {
+
+    private static final String DB_URL = "memory:" + OrientDBAppEventLoggerTest.class.getSimpleName();
+
+    @BeforeClass
+    public static void setUpClass() {
+        new ODatabaseDocumentTx(DB_URL).create().close();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        final ODatabaseDocumentTx db = new ODatabaseDocumentTx(DB_URL).open("admin", "admin");
+        db.drop();
+    }
+
+    private static ODatabaseDocumentTx openDatabase() {
+        return new ODatabaseDocumentTx(DB_URL).open("admin", "admin");
+    }
+
+    @Test
+    public void test_eventsArePersistedInBatches() throws InterruptedException {
+        final AtomicInteger databaseOpens = new AtomicInteger();
+        final OrientDBAppEventLogger appEventLogger = new OrientDBAppEventLogger(() -> {
+            databaseOpens.incrementAndGet();
+            return openDatabase();
+        }, OrientDBAppEventLoggerConfig.builder()
+                .bufferSize(1024)
+                .batchSize(10)
+                .batchInterval(Duration.ofMillis(100))
+                .build()
+        );
+        final RunRightFastVerticleId verticleId = RunRightFastVerticleId.builder()
+                .group(RunRightFastVerticleId.RUNRIGHTFAST_GROUP)
+                .name(getClass().getSimpleName())
+                .version("1.0.0")
+                .build();
+        IntStream.range(0, 25).forEach(i -> appEventLogger.accept(AppEvent.info("test_eventsArePersistedInBatches")
+                .setMessage(Integer.toString(i))
+                .setTags("a", "b")
+                .setVerticleId(verticleId)
+                .setData(() -> Json.createObjectBuilder().add("i", i).build())
+                .build()));
+        appEventLogger.accept(AppEvent.error("test_eventsArePersistedInBatches").setException(new RuntimeException("BOOM")).build());
+        appEventLogger.close();
+
+        assertThat(appEventLogger.getPersistedEventCount(), is(26L));
+        assertThat(appEventLogger.getFailedEventCount(), is(0L));
+        assertThat(appEventLogger.getDroppedEventCount(), is(0L));
+        assertThat(appEventLogger.getQueuedEventCount(), is(0));
+        // the batches are committed using a single database instance
+        assertThat(databaseOpens.get(), is(1));
+
+        try (final ODatabaseDocumentTx db = openDatabase()) {
+            final OClass appEventLogRecordClass = db.getMetadata().getSchema().getClass(AppEventLogRecord.class.getSimpleName());
+            assertThat(appEventLogRecordClass.getIndexes().size(), is(3));
+
+            final List<ODocument> errors = db.query(new OSQLSynchQuery<>("select from AppEventLogRecord where event = ? and level >= 300"), "test_eventsArePersistedInBatches");
+            assertThat(errors.size(), is(1));
+            final AppEventLogRecord error = new AppEventLogRecord(errors.get(0));
+            assertThat(error.getExceptionClass(), is(RuntimeException.class.getName()));
+
+            final List<ODocument> infos = db.query(new OSQLSynchQuery<>("select from AppEventLogRecord where event = ? and level = 100 order by timestamp"), "test_eventsArePersistedInBatches");
+            assertThat(infos.size(), is(25));
+            final AppEventLogRecord info = new AppEventLogRecord(infos.get(0));
+            log.info(info.toJSON());
+            assertThat(info.getTags().size(), is(2));
+            assertThat(info.getVerticleId().endsWith(":1.0.0"), is(true));
+            assertThat(info.getData().field("i") != null, is(true));
+        }
+    }
+
+    @Test
+    public void test_infoEventsAreDroppedUnderLoad() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final OrientDBAppEventLogger appEventLogger = new OrientDBAppEventLogger(() -> {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return openDatabase();
+        }, OrientDBAppEventLoggerConfig.builder()
+                .bufferSize(8)
+                .batchSize(1)
+                .batchInterval(Duration.ofMillis(10))
+                .build()
+        );
+
+        // the first event is taken by the writer, which then blocks on the database supplier
+        appEventLogger.accept(AppEvent.info("test_infoEventsAreDroppedUnderLoad").build());
+        Thread.sleep(100);
+        IntStream.range(0, 20).forEach(i -> appEventLogger.accept(AppEvent.info("test_infoEventsAreDroppedUnderLoad").build()));
+        IntStream.range(0, 2).forEach(i -> appEventLogger.accept(AppEvent.warn("test_infoEventsAreDroppedUnderLoad").build()));
+        assertThat(appEventLogger.getDroppedEventCount(INFO), is(14L));
+        assertThat(appEventLogger.getDroppedEventCount(), is(14L));
+
+        latch.countDown();
+        appEventLogger.close();
+        assertThat(appEventLogger.getPersistedEventCount(), is(9L));
+    }
+
+}
@@ -15,13 +15,16 @@
  */
 package co.runrightfast.vertx.orientdb.hooks;
 
+import co.runrightfast.core.application.event.AppEvent;
 import co.runrightfast.core.application.event.AppEventLogger;
 import co.runrightfast.core.application.event.impl.AppEventJDKLogger;
 import co.runrightfast.vertx.core.application.ApplicationId;
 import static co.runrightfast.core.utils.JvmProcess.HOST;
 import static co.runrightfast.vertx.orientdb.OrientDBConstants.ROOT_USER;
+import static co.runrightfast.vertx.orientdb.OrientDBEvents.ODATABASE_OPEN_CLOSE_SUMMARY;
 import co.runrightfast.vertx.orientdb.classes.Timestamped;
 import co.runrightfast.vertx.orientdb.lifecycle.RunRightFastOrientDBLifeCycleListener;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.db.ODatabase;
@@ -44,6 +47,9 @@ import com.orientechnologies.orient.server.handler.OServerSideScriptInterpreter;
 import com.orientechnologies.orient.server.hazelcast.OHazelcastPlugin;
 import com.orientechnologies.orient.server.network.protocol.binary.ONetworkProtocolBinary;
 import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import static java.util.logging.Level.INFO;
 import lombok.extern.java.Log;
 import org.apache.commons.io.FileUtils;
@@ -65,6 +71,10 @@ public class RunRightFastOrientDBLifeCycleListenerTest {
     static final String CLASS_NAME = RunRightFastOrientDBLifeCycleListenerTest.class.getSimpleName();
 
     private static OServer server;
+
+    private static final List<AppEvent> aggregatedEvents = new CopyOnWriteArrayList<>();
+
+    private static RunRightFastOrientDBLifeCycleListener aggregatingLifeCycleListener;
     static final File orientdbHome = new File("build/temp/orientdb");
 
     @BeforeClass
@@ -190,6 +200,25 @@ public class RunRightFastOrientDBLifeCycleListenerTest {
         }
     }
 
+    @Test
+    public void testAggregatingLifeCycleListener() throws Exception {
+        final String dbName = getClass().getSimpleName();
+        final long openCount = aggregatingLifeCycleListener.getOpenCount(dbName);
+        final long closeCount = aggregatingLifeCycleListener.getCloseCount(dbName);
+        for (int i = 0; i < 3; i++) {
+            try (final ODatabase db = new OPartitionedDatabasePoolFactory().get("plocal:" + dbName, "writer", "writer").acquire()) {
+                testSavingEventLogRecord(db, "testAggregatingLifeCycleListener");
+            }
+        }
+        log.logp(INFO, CLASS_NAME, "testAggregatingLifeCycleListener", String.format("opens = %d, closes = %d",
+                aggregatingLifeCycleListener.getOpenCount(dbName), aggregatingLifeCycleListener.getCloseCount(dbName)));
+        assertThat(aggregatingLifeCycleListener.getOpenCount(dbName) > openCount, is(true));
+        assertThat(aggregatingLifeCycleListener.getCloseCount(dbName) > closeCount, is(true));
+
+        aggregatingLifeCycleListener.logSummary();
+        assertThat(aggregatedEvents.stream().anyMatch(event -> event.getEvent().equals(ODATABASE_OPEN_CLOSE_SUMMARY)), is(true));
+    }
+
     private void testSavingEventLogRecord(final ODatabase db, final String testName) throws Exception {
         db.registerHook(new SetCreatedOnAndUpdatedOn());
 
@@ -213,6 +242,9 @@ public class RunRightFastOrientDBLifeCycleListenerTest {
         final ApplicationId appId = ApplicationId.builder().group("co.runrightfast").name("runrightfast-vertx-orientdb").version("1.0.0").build();
         final AppEventLogger appEventLogger = new AppEventJDKLogger(appId);
         Orient.instance().addDbLifecycleListener(new RunRightFastOrientDBLifeCycleListener(appEventLogger));
+
+        aggregatingLifeCycleListener = new RunRightFastOrientDBLifeCycleListener(aggregatedEvents::add, new MetricRegistry(), Duration.ofMinutes(1));
+        Orient.instance().addDbLifecycleListener(aggregatingLifeCycleListener);
     }
 
 }
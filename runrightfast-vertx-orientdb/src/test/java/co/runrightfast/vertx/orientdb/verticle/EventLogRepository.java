@@ -113,7 +113,7 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     private void registerGetEventCountMessageConsumer() {
         final MessageConsumerConfig<GetEventCount.Request, GetEventCount.Response> config = MessageConsumerConfig.<GetEventCount.Request, GetEventCount.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<GetEventCount.Request, GetEventCount.Response>builder()
                         .address(eventBusAddress(GetEventCount.class))
                         .requestDefaultInstance(GetEventCount.Request.getDefaultInstance())
                         .responseDefaultInstance(GetEventCount.Response.getDefaultInstance())
@@ -136,7 +136,7 @@ public class EventLogRepository extends OrientDBRepositoryVerticle {
 
     private void registerCreateEventCountMessageConsumer() {
         final MessageConsumerConfig<CreateEvent.Request, CreateEvent.Response> config = MessageConsumerConfig.<CreateEvent.Request, CreateEvent.Response>builder()
-                .addressMessageMapping(EventBusAddressMessageMapping.builder()
+                .addressMessageMapping(EventBusAddressMessageMapping.<CreateEvent.Request, CreateEvent.Response>builder()
                         .address(eventBusAddress(CreateEvent.class))
                         .requestDefaultInstance(CreateEvent.Request.getDefaultInstance())
                         .responseDefaultInstance(CreateEvent.Response.getDefaultInstance())